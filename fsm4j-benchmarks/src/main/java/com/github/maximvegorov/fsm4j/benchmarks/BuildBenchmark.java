@@ -0,0 +1,44 @@
+package com.github.maximvegorov.fsm4j.benchmarks;
+
+import com.github.maximvegorov.fsm4j.FsmConfig;
+import com.github.maximvegorov.fsm4j.FsmSimpleExecutionContext;
+import com.github.maximvegorov.fsm4j.builders.FsmConfigBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link FsmConfigBuilder#build} on ring machines of different sizes and layouts.
+ * The builder is prepared in the setup, so only the compilation of the configuration is measured.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BuildBenchmark {
+    @Param
+    private Machines.Layout layout;
+    @Param
+    private Machines.Size size;
+    @Param({"0", "4"})
+    private int actions;
+
+    private FsmConfigBuilder<Object, Object, FsmSimpleExecutionContext<Object>> builder;
+    private Set<Object> terminalStates;
+
+    @Setup
+    public void setUp() {
+        var states = Machines.states(layout, size);
+        var events = Machines.events(layout, size);
+        builder = Machines.ring(states, events, actions, new Machines.Counter());
+        terminalStates = Set.of(states[states.length - 1]);
+    }
+
+    @Benchmark
+    public FsmConfig<Object, Object, FsmSimpleExecutionContext<Object>> build() {
+        return builder.build(terminalStates);
+    }
+}
@@ -0,0 +1,81 @@
+package com.github.maximvegorov.fsm4j.benchmarks;
+
+import com.github.maximvegorov.fsm4j.FsmConfig;
+import com.github.maximvegorov.fsm4j.FsmSimpleExecutionContext;
+import com.github.maximvegorov.fsm4j.builders.FsmBulkConfigBuilder;
+import com.github.maximvegorov.fsm4j.builders.FsmTransitionRow;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures loading a generated machine of {@code transitions} transitions, {@link #EVENTS} per state, from
+ * a table of rows: either through the fluent builder or through {@link FsmBulkConfigBuilder}, sequentially
+ * or in parallel. States and events are strings, as they would be when read from a workflow definition.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Thread)
+public class BulkBuildBenchmark {
+    private static final int EVENTS = 8;
+
+    public enum Loader {
+        FLUENT,
+        BULK,
+        PARALLEL
+    }
+
+    @Param({"100000", "1000000"})
+    private int transitions;
+    @Param
+    private Loader loader;
+
+    private List<FsmTransitionRow<String, String, FsmSimpleExecutionContext<String>>> rows;
+    private Set<String> terminalStates;
+
+    @Setup
+    public void setUp() {
+        var stateCount = transitions / EVENTS;
+        var states = new String[stateCount + 1];
+        for (var i = 0; i < states.length; i++) {
+            states[i] = "state-" + i;
+        }
+        var events = new String[EVENTS];
+        for (var j = 0; j < events.length; j++) {
+            events[j] = "event-" + j;
+        }
+        rows = new ArrayList<>(transitions);
+        for (var i = 0; i < stateCount; i++) {
+            for (var j = 0; j < events.length; j++) {
+                rows.add(FsmTransitionRow.of(states[i], events[j], states[(i + j + 1) % stateCount]));
+            }
+        }
+        terminalStates = Set.of(states[stateCount]);
+    }
+
+    @Benchmark
+    public FsmConfig<String, String, FsmSimpleExecutionContext<String>> load() {
+        if (loader == Loader.FLUENT) {
+            var builder = FsmConfig.<String, String, FsmSimpleExecutionContext<String>>builder();
+            for (var row : rows) {
+                builder.state(row.getSource())
+                        .choice()
+                        .on(row.getEvent())
+                        .and(row.getPredicate())
+                        .moveTo(row.getTarget())
+                        .end();
+            }
+            return builder.build(terminalStates);
+        }
+        return FsmConfig.<String, String, FsmSimpleExecutionContext<String>>bulkBuilder(rows.size())
+                .addAll(rows)
+                .parallel(loader == Loader.PARALLEL)
+                .build(terminalStates);
+    }
+}
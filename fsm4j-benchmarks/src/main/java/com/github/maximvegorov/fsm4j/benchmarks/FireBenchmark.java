@@ -0,0 +1,47 @@
+package com.github.maximvegorov.fsm4j.benchmarks;
+
+import com.github.maximvegorov.fsm4j.Fsm;
+import com.github.maximvegorov.fsm4j.FsmSimpleExecutionContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Fsm#fire} on ring machines of different sizes and layouts, with and without actions,
+ * interpreted and compiled.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FireBenchmark {
+    @Param
+    private Machines.Layout layout;
+    @Param
+    private Machines.Size size;
+    @Param({"0", "4"})
+    private int actions;
+    @Param({"false", "true"})
+    private boolean compiled;
+
+    private Object[] events;
+    private Fsm<Object, Object, FsmSimpleExecutionContext<Object>> fsm;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        var states = Machines.states(layout, size);
+        events = Machines.events(layout, size);
+        var config = Machines.ring(states, events, actions, new Machines.Counter())
+                .build(Set.of(states[states.length - 1]));
+        fsm = Fsm.of(compiled ? config.compile() : config, new FsmSimpleExecutionContext<>(states[0]));
+    }
+
+    @Benchmark
+    public boolean fire() {
+        return fsm.fire(events[next++ & (events.length - 1)]);
+    }
+}
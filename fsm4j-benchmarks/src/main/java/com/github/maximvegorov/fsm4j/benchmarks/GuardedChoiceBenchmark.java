@@ -0,0 +1,71 @@
+package com.github.maximvegorov.fsm4j.benchmarks;
+
+import com.github.maximvegorov.fsm4j.Fsm;
+import com.github.maximvegorov.fsm4j.FsmConfig;
+import com.github.maximvegorov.fsm4j.FsmSimpleExecutionContext;
+import com.github.maximvegorov.fsm4j.Transition;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a choice point with many guarded targets where only the last guard matches, i.e. the worst case
+ * of the linear predicate scan: interpreted, compiled by {@link FsmConfig#compile()}, with the guards compiled
+ * into a decision table by an {@link com.github.maximvegorov.fsm4j.FsmArgsKey}, and reordered by
+ * {@link FsmConfig#withAdaptiveGuards()}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GuardedChoiceBenchmark {
+    @Param
+    private Machines.Layout layout;
+    @Param({"1", "8", "32"})
+    private int guards;
+    @Param
+    private Strategy strategy;
+
+    private Object event;
+    private Machines.Guard args;
+    private FsmConfig<Object, Object, FsmSimpleExecutionContext<Object>> config;
+    private Fsm<Object, Object, FsmSimpleExecutionContext<Object>> fsm;
+
+    @Setup
+    public void setUp() {
+        var states = Machines.states(layout, Machines.Size.SMALL);
+        var events = Machines.events(layout, Machines.Size.SMALL);
+        event = events[0];
+        args = Machines.lastGuard(guards);
+        config = Machines.guardedChoice(
+                states,
+                events,
+                guards,
+                strategy == Strategy.DECISION_TABLE,
+                strategy == Strategy.ADAPTIVE);
+        if (strategy == Strategy.COMPILED) {
+            config = config.compile();
+        }
+        fsm = Fsm.of(config, new FsmSimpleExecutionContext<>(states[0]));
+    }
+
+    @Benchmark
+    public boolean fire() {
+        return fsm.fire(event, args);
+    }
+
+    @Benchmark
+    public Optional<Transition<Object>> tryFindTransition() {
+        return config.tryFindTransition(fsm.getExecutionContext(), event, args);
+    }
+
+    public enum Strategy {
+        LINEAR,
+        COMPILED,
+        DECISION_TABLE,
+        ADAPTIVE
+    }
+}
@@ -0,0 +1,66 @@
+package com.github.maximvegorov.fsm4j.benchmarks;
+
+import com.github.maximvegorov.fsm4j.Fsm;
+import com.github.maximvegorov.fsm4j.FsmConfig;
+import com.github.maximvegorov.fsm4j.FsmSimpleExecutionContext;
+import com.github.maximvegorov.fsm4j.primitive.IntFsm;
+import com.github.maximvegorov.fsm4j.primitive.IntFsmConfig;
+import com.github.maximvegorov.fsm4j.primitive.IntFsmSimpleExecutionContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures firing events on ring machines whose states and events are {@code int} codes, boxed into
+ * {@link Fsm} and with {@link IntFsm}. The codes lie outside of the {@link Integer} cache, as generated
+ * codes usually do.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IntFireBenchmark {
+    private static final int FIRST_STATE = 10_000;
+    private static final int FIRST_EVENT = 20_000;
+
+    @Param({"16", "1024"})
+    private int states;
+    @Param({"4", "64"})
+    private int events;
+
+    private Fsm<Integer, Integer, FsmSimpleExecutionContext<Integer>> boxedFsm;
+    private IntFsm<IntFsmSimpleExecutionContext> intFsm;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        var boxedBuilder = FsmConfig.<Integer, Integer, FsmSimpleExecutionContext<Integer>>builder();
+        var intBuilder = IntFsmConfig.<IntFsmSimpleExecutionContext>builder();
+        var ringSize = states - 1;
+        for (var i = 0; i < ringSize; i++) {
+            var choice = boxedBuilder.state(FIRST_STATE + i).choice();
+            for (var j = 0; j < events; j++) {
+                var target = FIRST_STATE + (i + j + 1) % ringSize;
+                choice.on(FIRST_EVENT + j).moveTo(target);
+                intBuilder.add(FIRST_STATE + i, FIRST_EVENT + j, target);
+            }
+            choice.end();
+        }
+        var terminalState = FIRST_STATE + ringSize;
+        boxedFsm = Fsm.of(boxedBuilder.build(Set.of(terminalState)), new FsmSimpleExecutionContext<>(FIRST_STATE));
+        intFsm = IntFsm.of(intBuilder.build(terminalState), new IntFsmSimpleExecutionContext(FIRST_STATE));
+    }
+
+    @Benchmark
+    public boolean boxed() {
+        return boxedFsm.fire(FIRST_EVENT + (next++ & (events - 1)));
+    }
+
+    @Benchmark
+    public boolean primitive() {
+        return intFsm.fire(FIRST_EVENT + (next++ & (events - 1)));
+    }
+}
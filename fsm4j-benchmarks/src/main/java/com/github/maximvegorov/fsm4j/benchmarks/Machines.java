@@ -0,0 +1,156 @@
+package com.github.maximvegorov.fsm4j.benchmarks;
+
+import com.github.maximvegorov.fsm4j.FsmArgsKey;
+import com.github.maximvegorov.fsm4j.FsmConfig;
+import com.github.maximvegorov.fsm4j.FsmEventArgs;
+import com.github.maximvegorov.fsm4j.FsmSimpleExecutionContext;
+import com.github.maximvegorov.fsm4j.builders.FsmConfigBuilder;
+
+import java.util.Set;
+
+/**
+ * Machines shared by the benchmarks. States and events are declared as {@link Object} so that the same
+ * machine can be built either from enum constants or from strings, which selects the engine layout.
+ */
+public final class Machines {
+    private Machines() {
+    }
+
+    public enum Layout {
+        ENUM,
+        STRING
+    }
+
+    public enum Size {
+        SMALL(SmallState.values(), SmallEvent.values()),
+        LARGE(LargeState.values(), LargeEvent.values());
+
+        private final Enum<?>[] states;
+        private final Enum<?>[] events;
+
+        Size(Enum<?>[] states, Enum<?>[] events) {
+            this.states = states;
+            this.events = events;
+        }
+    }
+
+    /**
+     * Event arguments carrying the value tested by the guards of {@link #guardedChoice}.
+     */
+    static final class Guard implements FsmEventArgs {
+        private final int value;
+
+        Guard(int value) {
+            this.value = value;
+        }
+    }
+
+    /**
+     * The value of {@link Guard} as a key of the guards compiled into a decision table.
+     */
+    static final FsmArgsKey<Guard, Integer> GUARD_VALUE = FsmArgsKey.of(Guard.class, guard -> guard.value);
+
+    /**
+     * Sink for the actions so that the JIT cannot drop them.
+     */
+    static final class Counter {
+        long value;
+    }
+
+    static Object[] states(Layout layout, Size size) {
+        return values(layout, size.states);
+    }
+
+    static Object[] events(Layout layout, Size size) {
+        return values(layout, size.events);
+    }
+
+    /**
+     * Builds a machine where every non terminal state handles every event: the {@code j}-th event moves
+     * the {@code i}-th state to the {@code (i + j + 1)}-th one, wrapping around before the last state, which
+     * is terminal and never reached. Every state and every transition gets {@code actions} actions of each kind.
+     */
+    static FsmConfigBuilder<Object, Object, FsmSimpleExecutionContext<Object>> ring(
+            Object[] states,
+            Object[] events,
+            int actions,
+            Counter counter) {
+        var builder = FsmConfig.<Object, Object, FsmSimpleExecutionContext<Object>>builder();
+        var ringSize = states.length - 1;
+        for (var i = 0; i < ringSize; i++) {
+            var state = builder.state(states[i]);
+            for (var k = 0; k < actions; k++) {
+                state.addExitAction((c, t, e, args) -> counter.value++);
+                state.addEnterAction((c, t, e, args) -> counter.value++);
+            }
+            var choice = state.choice();
+            for (var j = 0; j < events.length; j++) {
+                var target = choice.on(events[j]);
+                for (var k = 0; k < actions; k++) {
+                    target.before((c, t, e, args) -> counter.value++)
+                            .after((c, t, e, args) -> counter.value++);
+                }
+                target.moveTo(states[(i + j + 1) % ringSize]);
+            }
+            choice.end();
+        }
+        return builder;
+    }
+
+    /**
+     * Builds a machine whose first state handles the first event with {@code guards} guarded targets.
+     * Only the last guard accepts {@link #lastGuard}.
+     */
+    static FsmConfig<Object, Object, FsmSimpleExecutionContext<Object>> guardedChoice(
+            Object[] states,
+            Object[] events,
+            int guards) {
+        return guardedChoice(states, events, guards, false, false);
+    }
+
+    /**
+     * @param keyed whether the guards compare the value through {@link #GUARD_VALUE}, so they form a decision table.
+     * @param adaptive whether the guards are declared exclusive and reordered by the configuration.
+     */
+    static FsmConfig<Object, Object, FsmSimpleExecutionContext<Object>> guardedChoice(
+            Object[] states,
+            Object[] events,
+            int guards,
+            boolean keyed,
+            boolean adaptive) {
+        var choice = FsmConfig.<Object, Object, FsmSimpleExecutionContext<Object>>builder()
+                .adaptiveGuards(adaptive)
+                .state(states[0])
+                .choice();
+        for (var k = 0; k < guards; k++) {
+            var value = k;
+            var target = choice.on(events[0]);
+            if (keyed) {
+                target.and(GUARD_VALUE.is(value));
+            } else {
+                target.and((c, e, args) -> ((Guard) args).value == value);
+            }
+            if (adaptive) {
+                target.exclusive();
+            }
+            target.moveTo(states[0]);
+        }
+        return choice.end()
+                .build(Set.of(states[states.length - 1]));
+    }
+
+    static Guard lastGuard(int guards) {
+        return new Guard(guards - 1);
+    }
+
+    private static Object[] values(Layout layout, Enum<?>[] constants) {
+        if (layout == Layout.ENUM) {
+            return constants.clone();
+        }
+        var result = new Object[constants.length];
+        for (var i = 0; i < constants.length; i++) {
+            result[i] = constants[i].name();
+        }
+        return result;
+    }
+}
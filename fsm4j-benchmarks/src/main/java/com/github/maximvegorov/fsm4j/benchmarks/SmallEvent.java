@@ -0,0 +1,8 @@
+package com.github.maximvegorov.fsm4j.benchmarks;
+
+/**
+ * Events of the small machines.
+ */
+enum SmallEvent {
+    E0, E1, E2, E3
+}
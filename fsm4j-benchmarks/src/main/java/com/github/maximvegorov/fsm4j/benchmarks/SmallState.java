@@ -0,0 +1,8 @@
+package com.github.maximvegorov.fsm4j.benchmarks;
+
+/**
+ * States of the small machines.
+ */
+enum SmallState {
+    S0, S1, S2, S3, S4, S5, S6, S7
+}
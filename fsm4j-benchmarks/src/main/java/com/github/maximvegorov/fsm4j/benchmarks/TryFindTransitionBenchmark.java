@@ -0,0 +1,50 @@
+package com.github.maximvegorov.fsm4j.benchmarks;
+
+import com.github.maximvegorov.fsm4j.FsmConfig;
+import com.github.maximvegorov.fsm4j.FsmEventArgs;
+import com.github.maximvegorov.fsm4j.FsmSimpleExecutionContext;
+import com.github.maximvegorov.fsm4j.Transition;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link FsmConfig#tryFindTransition} on ring machines of different sizes and layouts.
+ * Every invocation looks up the next state/event pair so that the whole table is exercised.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TryFindTransitionBenchmark {
+    @Param
+    private Machines.Layout layout;
+    @Param
+    private Machines.Size size;
+
+    private Object[] states;
+    private Object[] events;
+    private FsmConfig<Object, Object, FsmSimpleExecutionContext<Object>> config;
+    private FsmSimpleExecutionContext<Object> context;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        states = Machines.states(layout, size);
+        events = Machines.events(layout, size);
+        config = Machines.ring(states, events, 0, new Machines.Counter())
+                .build(Set.of(states[states.length - 1]));
+        context = new FsmSimpleExecutionContext<>(states[0]);
+    }
+
+    @Benchmark
+    public Optional<Transition<Object>> tryFindTransition() {
+        var i = next++;
+        context.setState(states[(i >>> 5) % (states.length - 1)]);
+        return config.tryFindTransition(context, events[i & (events.length - 1)], FsmEventArgs.empty());
+    }
+}
@@ -0,0 +1,234 @@
+package com.github.maximvegorov.fsm4j.simulation;
+
+import com.github.maximvegorov.fsm4j.Fsm;
+import com.github.maximvegorov.fsm4j.FsmConfig;
+import com.github.maximvegorov.fsm4j.FsmEventArgs;
+import com.github.maximvegorov.fsm4j.FsmExecutionContext;
+import com.github.maximvegorov.fsm4j.FsmExecutionStatus;
+import com.github.maximvegorov.fsm4j.Transition;
+import lombok.NonNull;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.function.BiFunction;
+import java.util.function.IntFunction;
+
+/**
+ * Drives many machines of a configuration with a seeded stream of random events, checking after every
+ * {@code fire} that the engine keeps its invariants:
+ * <ul>
+ *     <li>a machine that is not running refuses events with {@link IllegalStateException} and stays as it is;</li>
+ *     <li>a running machine is never in a terminal state, a terminated one always is;</li>
+ *     <li>a rejected event leaves the machine running in its state;</li>
+ *     <li>an event whose predicate or action threw leaves the machine aborted, or running in its state.</li>
+ * </ul>
+ * Every step picks a machine and an event at random, a machine that stopped is replaced by a new one the next time
+ * it is picked. A run is single-threaded and reproducible: the same seed fires the same events at the same machines,
+ * as long as the predicates and actions are deterministic.
+ *
+ * <pre>{@code
+ * var report = FsmSimulation.builder(config, machine -> new FsmSimpleExecutionContext<>(States.NEW))
+ *         .events(List.of(Events.values()))
+ *         .seed(42)
+ *         .build()
+ *         .run();
+ * }</pre>
+ *
+ * The report counts the times every declared transition was taken, which makes it a coverage check of the
+ * configuration as well as a soak test of the engine. With posted or deferred events a {@code fire} may take several
+ * transitions, only the move from the state the machine was in to the one it ends in is counted then.
+ *
+ * @param <S> the type representing the states.
+ * @param <E> the type representing the events.
+ * @param <C> the type extending {@link FsmExecutionContext}.
+ */
+public final class FsmSimulation<S, E, C extends FsmExecutionContext<S>> {
+    private final FsmConfig<S, E, C> config;
+    private final IntFunction<? extends C> contexts;
+    private final List<E> events;
+    private final BiFunction<? super E, SplittableRandom, ? extends FsmEventArgs> args;
+    private final int machineCount;
+    private final long stepCount;
+    private final long seed;
+
+    FsmSimulation(
+            FsmConfig<S, E, C> config,
+            IntFunction<? extends C> contexts,
+            List<E> events,
+            BiFunction<? super E, SplittableRandom, ? extends FsmEventArgs> args,
+            int machineCount,
+            long stepCount,
+            long seed) {
+        this.config = config;
+        this.contexts = contexts;
+        this.events = events;
+        this.args = args;
+        this.machineCount = machineCount;
+        this.stepCount = stepCount;
+        this.seed = seed;
+    }
+
+    /**
+     * @param config the configuration of the machines.
+     * @param contexts creates the execution context of a new machine, passed the number of the machine.
+     */
+    public static <S, E, C extends FsmExecutionContext<S>> FsmSimulationBuilder<S, E, C> builder(
+            @NonNull FsmConfig<S, E, C> config,
+            @NonNull IntFunction<? extends C> contexts) {
+        return new FsmSimulationBuilder<>(config, contexts);
+    }
+
+    /**
+     * Runs the simulation, every call from scratch with the same seed.
+     *
+     * @return the report of the run, which stops at the first broken invariant.
+     */
+    public FsmSimulationReport<S> run() {
+        var random = new SplittableRandom(seed);
+        var transitionIndices = indexTransitions();
+        var transitionCounts = new long[config.getTransitions().size()];
+        @SuppressWarnings("unchecked")
+        var machines = (Fsm<S, E, C>[]) new Fsm[machineCount];
+        var machineNumbers = new int[machineCount];
+        var nextMachineNumber = 0;
+        for (var i = 0; i < machineCount; i++) {
+            machineNumbers[i] = nextMachineNumber;
+            machines[i] = Fsm.of(config, contexts.apply(nextMachineNumber++));
+        }
+
+        long accepted = 0;
+        long rejected = 0;
+        long failed = 0;
+        long restarts = 0;
+        FsmSimulationViolation violation = null;
+        var step = 0L;
+        var start = System.nanoTime();
+        for (; step < stepCount && violation == null; step++) {
+            var slot = random.nextInt(machineCount);
+            var event = events.get(random.nextInt(events.size()));
+            var eventArgs = Objects.requireNonNull(args.apply(event, random), "args is null");
+            var fsm = machines[slot];
+            var source = fsm.getExecutionContext().getState();
+            var status = fsm.getExecutionStatus();
+
+            String message = checkStatus(source, status);
+            RuntimeException cause = null;
+            if (message == null && status != FsmExecutionStatus.RUNNING) {
+                message = checkRefused(fsm, event, eventArgs, source, status);
+                if (message == null) {
+                    machineNumbers[slot] = nextMachineNumber;
+                    machines[slot] = Fsm.of(config, contexts.apply(nextMachineNumber++));
+                    restarts++;
+                }
+            } else if (message == null) {
+                try {
+                    if (fsm.fire(event, eventArgs)) {
+                        accepted++;
+                        var target = fsm.getExecutionContext().getState();
+                        var index = transitionIndex(transitionIndices, source, target);
+                        if (index >= 0) {
+                            transitionCounts[index]++;
+                        }
+                        message = checkStatus(target, fsm.getExecutionStatus());
+                    } else {
+                        rejected++;
+                        message = checkUnchanged(fsm, source, FsmExecutionStatus.RUNNING, "rejected");
+                    }
+                } catch (RuntimeException e) {
+                    failed++;
+                    cause = e;
+                    if (fsm.getExecutionStatus() != FsmExecutionStatus.ABORTED) {
+                        message = checkUnchanged(fsm, source, FsmExecutionStatus.RUNNING, "failed");
+                    }
+                }
+            }
+            if (message != null) {
+                violation = new FsmSimulationViolation(step, machineNumbers[slot], event, message, cause);
+            }
+        }
+        var elapsedNanos = System.nanoTime() - start;
+
+        var counts = new LinkedHashMap<Transition<S>, Long>();
+        var uncovered = new LinkedHashSet<Transition<S>>();
+        var i = 0;
+        for (var transition : config.getTransitions()) {
+            counts.put(transition, transitionCounts[i]);
+            if (transitionCounts[i++] == 0) {
+                uncovered.add(transition);
+            }
+        }
+        return new FsmSimulationReport<>(
+                seed,
+                step,
+                accepted,
+                rejected,
+                failed,
+                restarts,
+                elapsedNanos,
+                Collections.unmodifiableMap(counts),
+                Collections.unmodifiableSet(uncovered),
+                violation);
+    }
+
+    @Nullable
+    private String checkStatus(S state, FsmExecutionStatus status) {
+        var terminal = config.getTerminalStates().contains(state);
+        if (status == FsmExecutionStatus.RUNNING && terminal) {
+            return "Running in terminal state " + state;
+        }
+        if (status == FsmExecutionStatus.TERMINATED && !terminal) {
+            return "Terminated in non-terminal state " + state;
+        }
+        return null;
+    }
+
+    @Nullable
+    private String checkRefused(Fsm<S, E, C> fsm, E event, FsmEventArgs eventArgs, S state, FsmExecutionStatus status) {
+        try {
+            fsm.fire(event, eventArgs);
+            return "Accepted an event while " + status;
+        } catch (IllegalStateException e) {
+            return checkUnchanged(fsm, state, status, "refused");
+        } catch (RuntimeException e) {
+            return "Refused an event while " + status + " with " + e;
+        }
+    }
+
+    @Nullable
+    private String checkUnchanged(Fsm<S, E, C> fsm, S state, FsmExecutionStatus status, String outcome) {
+        if (!Objects.equals(fsm.getExecutionContext().getState(), state)) {
+            return "Moved from " + state + " to " + fsm.getExecutionContext().getState() + " on a " + outcome + " event";
+        }
+        if (fsm.getExecutionStatus() != status) {
+            return "Became " + fsm.getExecutionStatus() + " on a " + outcome + " event";
+        }
+        return null;
+    }
+
+    /**
+     * @return the indices of the declared transitions by their source and target, looked up without allocating.
+     */
+    private Map<S, Map<S, Integer>> indexTransitions() {
+        var result = new HashMap<S, Map<S, Integer>>();
+        var transitions = new ArrayList<>(config.getTransitions());
+        for (var i = 0; i < transitions.size(); i++) {
+            var transition = transitions.get(i);
+            result.computeIfAbsent(transition.getSource(), s -> new HashMap<>()).put(transition.getTarget(), i);
+        }
+        return result;
+    }
+
+    private static <S> int transitionIndex(Map<S, Map<S, Integer>> transitionIndices, S source, S target) {
+        var targets = transitionIndices.get(source);
+        var index = targets != null ? targets.get(target) : null;
+        return index != null ? index : -1;
+    }
+}
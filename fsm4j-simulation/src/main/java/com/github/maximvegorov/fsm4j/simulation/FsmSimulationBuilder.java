@@ -0,0 +1,91 @@
+package com.github.maximvegorov.fsm4j.simulation;
+
+import com.github.maximvegorov.fsm4j.FsmConfig;
+import com.github.maximvegorov.fsm4j.FsmEventArgs;
+import com.github.maximvegorov.fsm4j.FsmExecutionContext;
+import lombok.NonNull;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.BiFunction;
+import java.util.function.IntFunction;
+
+/**
+ * Builder class for configuring a {@link FsmSimulation}.
+ *
+ * @param <S> the type representing the states.
+ * @param <E> the type representing the events.
+ * @param <C> the type extending {@link FsmExecutionContext}.
+ */
+public final class FsmSimulationBuilder<S, E, C extends FsmExecutionContext<S>> {
+    private final FsmConfig<S, E, C> config;
+    private final IntFunction<? extends C> contexts;
+    private List<E> events;
+    private BiFunction<? super E, SplittableRandom, ? extends FsmEventArgs> args = (event, random) -> FsmEventArgs.empty();
+    private int machineCount = 1_000;
+    private long stepCount = 1_000_000L;
+    private long seed;
+
+    FsmSimulationBuilder(FsmConfig<S, E, C> config, IntFunction<? extends C> contexts) {
+        this.config = config;
+        this.contexts = contexts;
+    }
+
+    /**
+     * Sets the events fired at the machines, each one as likely as the others. Required.
+     * An event may be listed several times to make it more likely, or have no transition at all.
+     */
+    public FsmSimulationBuilder<S, E, C> events(@NonNull List<E> events) {
+        if (events.isEmpty()) {
+            throw new IllegalArgumentException("events: " + events);
+        }
+        this.events = List.copyOf(events);
+        return this;
+    }
+
+    /**
+     * Sets the generator of the arguments of the events, {@link FsmEventArgs#empty()} by default. The generator
+     * must draw its random values from the passed source only, so that a run can be reproduced from its seed.
+     */
+    public FsmSimulationBuilder<S, E, C> args(@NonNull BiFunction<? super E, SplittableRandom, ? extends FsmEventArgs> args) {
+        this.args = args;
+        return this;
+    }
+
+    /**
+     * Sets the number of machines running at once, 1000 by default.
+     */
+    public FsmSimulationBuilder<S, E, C> machines(int machineCount) {
+        if (machineCount <= 0) {
+            throw new IllegalArgumentException("machineCount: " + machineCount);
+        }
+        this.machineCount = machineCount;
+        return this;
+    }
+
+    /**
+     * Sets the number of events fired by a run, 1000000 by default.
+     */
+    public FsmSimulationBuilder<S, E, C> steps(long stepCount) {
+        if (stepCount <= 0) {
+            throw new IllegalArgumentException("stepCount: " + stepCount);
+        }
+        this.stepCount = stepCount;
+        return this;
+    }
+
+    /**
+     * Sets the seed of the random choices of a run, 0 by default.
+     */
+    public FsmSimulationBuilder<S, E, C> seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public FsmSimulation<S, E, C> build() {
+        if (events == null) {
+            throw new IllegalStateException("No events");
+        }
+        return new FsmSimulation<>(config, contexts, events, args, machineCount, stepCount, seed);
+    }
+}
@@ -0,0 +1,73 @@
+package com.github.maximvegorov.fsm4j.simulation;
+
+import com.github.maximvegorov.fsm4j.Transition;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The outcome of a {@link FsmSimulation} run.
+ *
+ * @param <S> the type representing the states.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+@ToString
+public final class FsmSimulationReport<S> {
+    private final long seed;
+    /**
+     * The number of events fired, fewer than requested if an invariant was broken.
+     */
+    private final long stepCount;
+    /**
+     * The number of events that triggered a transition.
+     */
+    private final long acceptedCount;
+    /**
+     * The number of events without a transition in the state of the machine.
+     */
+    private final long rejectedCount;
+    /**
+     * The number of events whose predicate or action threw.
+     */
+    private final long failedCount;
+    /**
+     * The number of machines that reached a terminal state or were aborted, and were replaced by new ones.
+     */
+    private final long restartCount;
+    private final long elapsedNanos;
+    /**
+     * The number of times every declared transition was taken, in declaration order, see
+     * {@link com.github.maximvegorov.fsm4j.FsmConfig#getTransitions()}.
+     */
+    @ToString.Exclude
+    private final Map<Transition<S>, Long> transitionCounts;
+    /**
+     * The declared transitions never taken.
+     */
+    private final Set<Transition<S>> uncoveredTransitions;
+    /**
+     * The first broken invariant, the run stops at it.
+     */
+    @Nullable
+    private final FsmSimulationViolation violation;
+
+    /**
+     * @return the share of the declared transitions taken at least once, from 0 to 1.
+     */
+    public double getCoverage() {
+        return transitionCounts.isEmpty()
+                ? 1.0
+                : (double) (transitionCounts.size() - uncoveredTransitions.size()) / transitionCounts.size();
+    }
+
+    public double getTransitionsPerSecond() {
+        return elapsedNanos > 0 ? acceptedCount * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos : 0.0;
+    }
+}
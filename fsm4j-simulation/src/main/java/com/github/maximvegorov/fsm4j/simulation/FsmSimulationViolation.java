@@ -0,0 +1,33 @@
+package com.github.maximvegorov.fsm4j.simulation;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import javax.annotation.Nullable;
+
+/**
+ * An invariant found broken by a {@link FsmSimulation}, along with what is needed to reproduce it:
+ * the run with the same seed breaks it at the same step.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+@ToString
+public final class FsmSimulationViolation {
+    /**
+     * The index of the step the invariant was broken at, from zero.
+     */
+    private final long step;
+    /**
+     * The number of the machine the event was fired at, as passed to the context factory.
+     */
+    private final int machine;
+    private final Object event;
+    private final String message;
+    /**
+     * The exception thrown by {@code fire}, if any.
+     */
+    @Nullable
+    private final RuntimeException cause;
+}
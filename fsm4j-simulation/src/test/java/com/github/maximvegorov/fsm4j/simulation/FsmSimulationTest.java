@@ -0,0 +1,86 @@
+package com.github.maximvegorov.fsm4j.simulation;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.github.maximvegorov.fsm4j.Fsm;
+import com.github.maximvegorov.fsm4j.FsmConfig;
+import com.github.maximvegorov.fsm4j.FsmSimpleExecutionContext;
+import com.github.maximvegorov.fsm4j.FsmSlotEventArgs;
+import com.github.maximvegorov.fsm4j.Transition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FsmSimulationTest {
+    private static final FsmSlotEventArgs.LongSlot AMOUNT = FsmSlotEventArgs.longSlot(0);
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(Fsm.class);
+    private Level level;
+
+    @BeforeEach
+    void setUp() {
+        level = logger.getLevel();
+        logger.setLevel(Level.INFO);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.setLevel(level);
+    }
+
+    @Test
+    void run() {
+        var config = FsmConfig.<String, String, FsmSimpleExecutionContext<String>>builder()
+                .state("new")
+                    .choice()
+                        .on("submit").and((c, e, args) -> AMOUNT.get(args) > 900).moveTo("review")
+                        .on("submit").moveTo("approved")
+                        .on("cancel").moveTo("cancelled")
+                    .end()
+                .state("review")
+                    .on("approve").moveTo("approved")
+                    .on("cancel").moveTo("cancelled")
+                    .end()
+                .state("approved")
+                    .on("ship")
+                        .before((c, t, e, args) -> {
+                            if (AMOUNT.get(args) == 0) {
+                                throw new IllegalArgumentException("Nothing to ship");
+                            }
+                        })
+                        .moveTo("shipped")
+                    .end()
+                .state("unused")
+                    .on("submit").moveTo("approved")
+                    .end()
+                .build(Set.of("shipped", "cancelled"));
+        var simulation = FsmSimulation.builder(config, machine -> new FsmSimpleExecutionContext<>("new"))
+                .events(List.of("submit", "approve", "ship", "ship", "cancel", "unknown"))
+                .args((event, random) -> FsmSlotEventArgs.of(1).set(AMOUNT, random.nextInt(1_000)))
+                .machines(100)
+                .steps(200_000)
+                .seed(7)
+                .build();
+
+        var report = simulation.run();
+        assertThat(report.getViolation()).isNull();
+        assertThat(report.getStepCount()).isEqualTo(200_000);
+        assertThat(report.getAcceptedCount() + report.getRejectedCount() + report.getFailedCount()
+                + report.getRestartCount()).isEqualTo(200_000);
+        assertThat(report.getFailedCount()).isPositive();
+        assertThat(report.getRestartCount()).isPositive();
+        assertThat(report.getUncoveredTransitions()).containsExactly(Transition.of("unused", "approved"));
+        assertThat(report.getCoverage()).isEqualTo(6.0 / 7.0);
+        assertThat(report.getTransitionsPerSecond()).isPositive();
+
+        var rerun = simulation.run();
+        assertThat(rerun.getTransitionCounts()).isEqualTo(report.getTransitionCounts());
+        assertThat(rerun.getFailedCount()).isEqualTo(report.getFailedCount());
+    }
+}
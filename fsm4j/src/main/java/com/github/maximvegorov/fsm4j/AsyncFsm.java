@@ -0,0 +1,185 @@
+package com.github.maximvegorov.fsm4j;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.*;
+
+/**
+ * A finite state machine whose transitions run on an {@link Executor} instead of the caller's thread,
+ * which suits actions doing blocking I/O.
+ *
+ * <p>
+ * {@code fire} enqueues the event and returns immediately. Events are handled one at a time, in the order
+ * they were fired, by a task submitted to the executor, so predicates and actions never run concurrently.
+ * While there are events to handle the machine reports {@link FsmExecutionStatus#TRANSITIONING}.
+ * </p>
+ *
+ * <p>
+ * By default virtual threads are used when the runtime provides them (JDK 21+), and the common
+ * {@link ForkJoinPool} otherwise.
+ * </p>
+ *
+ * @param <S> the type representing the state.
+ * @param <E> the type representing the event that triggers state transitions.
+ * @param <C> the type representing the execution context which defines the state and allows additional customization.
+ *
+ * Thread-safe.
+ */
+@ToString(onlyExplicitlyIncluded = true)
+@Slf4j
+public final class AsyncFsm<S, E, C extends FsmExecutionContext<S>> implements AutoCloseable {
+    private static final Executor DEFAULT_EXECUTOR = createDefaultExecutor();
+
+    @ToString.Include
+    private final Fsm<S, E, C> fsm;
+    private final Executor executor;
+    // guarded by itself
+    private final Deque<PendingEvent<E>> pendingEvents = new ArrayDeque<>();
+    private boolean draining;
+
+    private AsyncFsm(Fsm<S, E, C> fsm, Executor executor) {
+        this.fsm = fsm;
+        this.executor = executor;
+    }
+
+    /**
+     * Creates a new instance of the {@code AsyncFsm} class running transitions on the default executor.
+     *
+     * @see #of(FsmConfig, FsmExecutionContext, Executor)
+     */
+    public static <S, E, C extends FsmExecutionContext<S>> AsyncFsm<S, E, C> of(
+            @NonNull FsmConfig<S, E, C> config,
+            @NonNull C executionContext) {
+        return of(config, executionContext, DEFAULT_EXECUTOR);
+    }
+
+    /**
+     * Creates a new instance of the {@code AsyncFsm} class using the provided configuration and execution context.
+     *
+     * @param config the finite state machine's configuration defining states, transitions, and actions.
+     * @param executionContext the execution context for the finite state machine, holding the current state.
+     * @param executor the executor running predicates and actions.
+     * @param <S> the type defining the states within the finite state machine.
+     * @param <E> the type defining the events that can trigger state transitions.
+     * @param <C> the type of the execution context, which must extend {@code FsmExecutionContext<S>}.
+     * @return a new {@code AsyncFsm} instance.
+     */
+    public static <S, E, C extends FsmExecutionContext<S>> AsyncFsm<S, E, C> of(
+            @NonNull FsmConfig<S, E, C> config,
+            @NonNull C executionContext,
+            @NonNull Executor executor) {
+        return new AsyncFsm<>(Fsm.of(config, executionContext), executor);
+    }
+
+    public CompletionStage<Boolean> fire(E event) {
+        return fire(event, FsmEventArgs.empty());
+    }
+
+    /**
+     * Enqueues the event. The returned stage completes as {@link Fsm#fire(Object, FsmEventArgs)} would return,
+     * or exceptionally with whatever it would throw, e.g. {@link IllegalStateException} if the machine
+     * is no longer running by the time the event is handled.
+     *
+     * @param event the event used to trigger a state transition
+     * @param args additional arguments to be passed during the transition
+     * @return a stage completed with true if the event triggered a transition, false otherwise
+     */
+    public CompletionStage<Boolean> fire(@NonNull E event, @NonNull FsmEventArgs args) {
+        var result = new CompletableFuture<Boolean>();
+        enqueue(new PendingEvent<>(event, args.retain(), result));
+        return result;
+    }
+
+    /**
+     * Enqueues closing of the machine after the events fired so far.
+     *
+     * @see Fsm#close()
+     */
+    @Override
+    public void close() {
+        enqueue(new PendingEvent<>(null, null, new CompletableFuture<>()));
+    }
+
+    public C getExecutionContext() {
+        return fsm.getExecutionContext();
+    }
+
+    public FsmExecutionStatus getExecutionStatus() {
+        synchronized (pendingEvents) {
+            return draining ? FsmExecutionStatus.TRANSITIONING : fsm.getExecutionStatus();
+        }
+    }
+
+    private void enqueue(PendingEvent<E> pendingEvent) {
+        synchronized (pendingEvents) {
+            pendingEvents.addLast(pendingEvent);
+            if (draining) {
+                return;
+            }
+            draining = true;
+        }
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            failPendingEvents(e);
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            PendingEvent<E> pendingEvent;
+            synchronized (pendingEvents) {
+                pendingEvent = pendingEvents.pollFirst();
+                if (pendingEvent == null) {
+                    draining = false;
+                    return;
+                }
+            }
+            try {
+                if (pendingEvent.event != null) {
+                    pendingEvent.result.complete(fsm.fire(pendingEvent.event, pendingEvent.args));
+                } else {
+                    fsm.close();
+                    pendingEvent.result.complete(false);
+                }
+            } catch (RuntimeException e) {
+                pendingEvent.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void failPendingEvents(RuntimeException e) {
+        synchronized (pendingEvents) {
+            for (var pendingEvent : pendingEvents) {
+                pendingEvent.result.completeExceptionally(e);
+            }
+            pendingEvents.clear();
+            draining = false;
+        }
+    }
+
+    private static Executor createDefaultExecutor() {
+        try {
+            var factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (Executor) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.debug("Virtual threads are not available, falling back to the common pool");
+            return ForkJoinPool.commonPool();
+        }
+    }
+
+    /**
+     * An event waiting to be handled, the event is {@code null} for a close request.
+     */
+    @RequiredArgsConstructor
+    private static final class PendingEvent<E> {
+        private final E event;
+        private final FsmEventArgs args;
+        private final CompletableFuture<Boolean> result;
+    }
+}
@@ -0,0 +1,303 @@
+package com.github.maximvegorov.fsm4j;
+
+import com.github.maximvegorov.fsm4j.timer.FsmTimerScheduler;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread-safe counterpart of {@link Fsm}, events may be fired concurrently from any thread.
+ *
+ * <p>
+ * Transitions without actions to a non terminal state are applied with a single compare-and-set
+ * of the state held by {@link FsmAtomicExecutionContext}, so they never block, unless the configuration
+ * has a {@link FsmTracer} or a {@link FsmJournal}. Any other transition
+ * takes the ownership of the context for the time its actions run, serialized by a per-instance lock.
+ * An event fired while the machine is owned is handled according to the {@link FsmContentionPolicy}:
+ * the caller either waits for the running transition to complete or gets a {@link FsmBusyException}.
+ * </p>
+ *
+ * <p>
+ * Predicates may be evaluated against a state that is being replaced concurrently, in which case
+ * the event is re-evaluated from scratch, so they must be free of side effects. Firing an event of
+ * the same machine from its own action is not supported.
+ * </p>
+ *
+ * @param <S> the type representing the state.
+ * @param <E> the type representing the event that triggers state transitions.
+ * @param <C> the type representing the execution context which defines the state and allows additional customization.
+ */
+@Getter
+@ToString(onlyExplicitlyIncluded = true)
+@Slf4j
+public final class ConcurrentFsm<S, E, C extends FsmAtomicExecutionContext<S>> implements AutoCloseable {
+    private final FsmConfig<S, E, C> config;
+    @ToString.Include
+    private final C executionContext;
+    private final FsmContentionPolicy contentionPolicy;
+    @Getter(AccessLevel.NONE)
+    private final ReentrantLock lock = new ReentrantLock();
+    @Getter(AccessLevel.NONE)
+    @Nullable
+    private final FsmMetrics<S, E> metrics;
+    @Getter(AccessLevel.NONE)
+    @Nullable
+    private final FsmTracer<S, E, C> tracer;
+    @Getter(AccessLevel.NONE)
+    @Nullable
+    private final FsmJournal<S, E, C> journal;
+    @Getter(AccessLevel.NONE)
+    @Nullable
+    private final FsmTimerScheduler<S, E, C> timerScheduler;
+    @ToString.Include
+    private volatile FsmExecutionStatus executionStatus;
+
+    private ConcurrentFsm(FsmConfig<S, E, C> config, C executionContext, FsmContentionPolicy contentionPolicy) {
+        this.config = config;
+        this.executionContext = executionContext;
+        this.contentionPolicy = contentionPolicy;
+        this.metrics = config.getMetrics();
+        this.tracer = config.getTracer();
+        this.journal = config.getJournal();
+        this.timerScheduler = config.getTimerScheduler();
+        if (!config.isTerminalState(executionContext.getState())) {
+            this.executionStatus = FsmExecutionStatus.RUNNING;
+            config.armTimeouts(executionContext);
+        } else {
+            // a stopped machine stays owned, so the lock-free path notices it
+            executionContext.tryAcquire(executionContext.getState());
+            this.executionStatus = FsmExecutionStatus.TERMINATED;
+        }
+    }
+
+    /**
+     * Creates a new instance of the {@code ConcurrentFsm} class which blocks on contention.
+     *
+     * @see #of(FsmConfig, FsmAtomicExecutionContext, FsmContentionPolicy)
+     */
+    public static <S, E, C extends FsmAtomicExecutionContext<S>> ConcurrentFsm<S, E, C> of(
+            @NonNull FsmConfig<S, E, C> config,
+            @NonNull C executionContext) {
+        return of(config, executionContext, FsmContentionPolicy.BLOCK);
+    }
+
+    /**
+     * Creates a new instance of the {@code ConcurrentFsm} class using the provided configuration and execution context.
+     *
+     * @param config the finite state machine's configuration defining states, transitions, and actions.
+     * @param executionContext the execution context for the finite state machine, holding the current state.
+     * @param contentionPolicy the way an event fired while a transition is running is handled.
+     * @param <S> the type defining the states within the finite state machine.
+     * @param <E> the type defining the events that can trigger state transitions.
+     * @param <C> the type of the execution context, which must extend {@code FsmAtomicExecutionContext<S>}.
+     * @return a new {@code ConcurrentFsm} instance.
+     */
+    public static <S, E, C extends FsmAtomicExecutionContext<S>> ConcurrentFsm<S, E, C> of(
+            @NonNull FsmConfig<S, E, C> config,
+            @NonNull C executionContext,
+            @NonNull FsmContentionPolicy contentionPolicy) {
+        return new ConcurrentFsm<>(config, executionContext, contentionPolicy);
+    }
+
+    /**
+     * @see Fsm#fire(Object)
+     */
+    public boolean fire(E event) {
+        return fire(event, FsmEventArgs.empty());
+    }
+
+    /**
+     * Attempts to trigger a state transition in the finite state machine using the specified event and arguments.
+     * Has the same semantics as {@link Fsm#fire(Object, FsmEventArgs)}, concurrent calls are linearizable.
+     *
+     * @param event the event used to trigger a state transition
+     * @param args additional arguments to be passed during the transition
+     * @return true if a valid transition was executed, false otherwise
+     * @throws IllegalStateException if the finite state machine is not in the running state
+     * @throws FsmBusyException if the machine is running a transition and the contention policy is {@code REJECT}
+     */
+    public boolean fire(@NonNull E event, @NonNull FsmEventArgs args) {
+        var table = config.getTable();
+        while (true) {
+            var state = executionContext.tryGetState();
+            if (state == null) {
+                awaitTransition();
+                continue;
+            }
+            checkRunning();
+
+            var chain = config.findChain(table.indexOf(state), executionContext, event, args);
+            if (chain == null) {
+                return false;
+            }
+
+            var targetIndex = chain.getTargetIndex();
+            if (!chain.hasActions() && targetIndex >= 0 && !table.isTerminal(targetIndex)
+                    && tracer == null && journal == null) {
+                var startNanos = metrics != null ? System.nanoTime() : 0L;
+                if (executionContext.compareAndSetState(state, chain.getTransition().getTarget())) {
+                    if (metrics != null) {
+                        metrics.onTransitionCompleted(chain.getTransition(), System.nanoTime() - startNanos);
+                    }
+                    return true;
+                }
+            } else if (tryLockedTransition(state, chain, event, args)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Changes the execution status to {@code TERMINATED} if the machine is running, waiting for a running
+     * transition to complete.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            // a lock-free transition may replace the state meanwhile, the context is only owned once stopped
+            var state = executionContext.tryGetState();
+            while (state != null && !executionContext.tryAcquire(state)) {
+                state = executionContext.tryGetState();
+            }
+            if (state != null) {
+                stop(FsmExecutionStatus.TERMINATED);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean tryLockedTransition(S state, TransitionChain<S, E, C> chain, E event, FsmEventArgs args) {
+        lock();
+        try {
+            if (!executionContext.tryAcquire(state)) {
+                return false;
+            }
+            doTransition(chain, event, args);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void doTransition(TransitionChain<S, E, C> chain, E event, FsmEventArgs args) {
+        var transition = chain.getTransition();
+        var tracer = this.tracer != null && this.tracer.isEnabled(executionContext) ? this.tracer : null;
+        if (tracer != null) {
+            tracer.onTransitionStarted(executionContext, transition, event, args);
+        }
+        var startNanos = metrics != null ? System.nanoTime() : 0L;
+        try {
+            runActions(chain.getExitActions(), FsmActionPhase.EXIT, tracer, transition, event, args);
+            runActions(chain.getBeforeActions(), FsmActionPhase.BEFORE, tracer, transition, event, args);
+
+            if (journal != null) {
+                journal.append(executionContext, transition, event, args);
+            }
+            executionContext.setState(transition.getTarget());
+
+            runActions(chain.getAfterActions(), FsmActionPhase.AFTER, tracer, transition, event, args);
+            runActions(chain.getEnterActions(), FsmActionPhase.ENTER, tracer, transition, event, args);
+
+            if (metrics != null) {
+                metrics.onTransitionCompleted(transition, System.nanoTime() - startNanos);
+            }
+
+            if (config.isTerminalState(executionContext.getState())) {
+                stop(FsmExecutionStatus.TERMINATED);
+            }
+
+            if (tracer != null) {
+                tracer.onTransitionCompleted(executionContext, transition);
+            }
+        } catch (RuntimeException e) {
+            if (tracer != null) {
+                tracer.onTransitionFailed(executionContext, transition, e);
+            }
+            if (metrics != null) {
+                metrics.onAborted(transition, e);
+            }
+            stop(FsmExecutionStatus.ABORTED);
+            throw e;
+        }
+
+        if (executionStatus == FsmExecutionStatus.RUNNING) {
+            executionContext.release();
+        }
+    }
+
+    private void runActions(
+            TransitionAction<S, E, C>[] actions,
+            FsmActionPhase phase,
+            @Nullable FsmTracer<S, E, C> tracer,
+            Transition<S> transition,
+            E event,
+            FsmEventArgs args) {
+        if (actions.length == 0) {
+            return;
+        }
+        if (tracer != null) {
+            tracer.onActionsStarted(executionContext, transition, phase);
+        }
+        var startNanos = metrics != null ? System.nanoTime() : 0L;
+        for (var action : actions) {
+            action.run(executionContext, transition, event, args);
+        }
+        if (metrics != null) {
+            metrics.onActionsCompleted(transition, phase, System.nanoTime() - startNanos);
+        }
+    }
+
+    private void lock() {
+        if (lock.isHeldByCurrentThread()) {
+            throw new IllegalStateException("Reentrant fire");
+        }
+        if (contentionPolicy == FsmContentionPolicy.REJECT) {
+            if (!lock.tryLock()) {
+                throw new FsmBusyException();
+            }
+        } else {
+            lock.lock();
+        }
+    }
+
+    private void awaitTransition() {
+        checkRunning();
+        lock();
+        lock.unlock();
+    }
+
+    private void checkRunning() {
+        if (executionStatus != FsmExecutionStatus.RUNNING) {
+            throw new IllegalStateException("Must be running");
+        }
+    }
+
+    /**
+     * Must be called by the owner of the context, which is never released afterwards.
+     */
+    private void stop(FsmExecutionStatus status) {
+        log.debug("Stopping with execution status {}", status);
+        try {
+            if (timerScheduler != null) {
+                timerScheduler.cancelAll(executionContext);
+            }
+            executionContext.close();
+
+            log.debug("Stopped");
+        } catch (RuntimeException e) {
+            log.error("Error while stopping", e);
+        } finally {
+            executionStatus = status;
+            if (metrics != null && status == FsmExecutionStatus.TERMINATED) {
+                metrics.onTerminated(executionContext.getState());
+            }
+        }
+    }
+}
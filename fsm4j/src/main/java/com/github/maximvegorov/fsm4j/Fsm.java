@@ -0,0 +1,500 @@
+package com.github.maximvegorov.fsm4j;
+
+import com.github.maximvegorov.fsm4j.timer.FsmTimerScheduler;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nullable;
+import java.util.Objects;
+
+/**
+ * Represents a Finite State Machine (FSM) that manages and manipulates states and state transitions
+ * for a given execution context.
+ *
+ * @param <S> the type representing the state.
+ * @param <E> the type representing the event that triggers state transitions.
+ * @param <C> the type representing the execution context which defines the state and allows additional customization.
+ *
+ * Not thread-safe.
+ */
+@Getter
+@ToString
+@Slf4j
+public final class Fsm<S, E, C extends FsmExecutionContext<S>> implements AutoCloseable {
+    private FsmConfig<S, E, C> config;
+    private final C executionContext;
+    private FsmExecutionStatus executionStatus;
+    /**
+     * The version of the configuration the machine is bound to, {@code null} if it was created from a bare configuration.
+     */
+    @ToString.Exclude
+    @Nullable
+    private FsmConfigVersion<S, E, C> configVersion;
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    @Nullable
+    private FsmMetrics<S, E> metrics;
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    @Nullable
+    private FsmTracer<S, E, C> tracer;
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    @Nullable
+    private FsmJournal<S, E, C> journal;
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    @Nullable
+    private FsmTimerScheduler<S, E, C> timerScheduler;
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    @Nullable
+    private FsmCompiledDispatch<S, E, C> dispatch;
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    @Nullable
+    private final FsmEventQueue<E> eventQueue;
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    private boolean draining;
+
+    private Fsm(FsmConfig<S, E, C> config, C executionContext) {
+        this(
+                config,
+                executionContext,
+                !config.isTerminalState(executionContext.getState())
+                        ? FsmExecutionStatus.RUNNING
+                        : FsmExecutionStatus.TERMINATED);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Fsm(FsmConfig<S, E, C> config, C executionContext, FsmExecutionStatus executionStatus) {
+        this.executionContext = executionContext;
+        this.executionStatus = executionStatus;
+        this.eventQueue = executionContext instanceof FsmQueueExecutionContext
+                ? ((FsmQueueExecutionContext<S, E>) executionContext).getEventQueue()
+                : null;
+        bind(config);
+        if (executionStatus == FsmExecutionStatus.RUNNING) {
+            config.armTimeouts(executionContext);
+        }
+    }
+
+    /**
+     * Creates a new instance of the {@code Fsm} class using the provided configuration and execution context.
+     *
+     * @param config the finite state machine's configuration defining states, transitions, and actions.
+     * @param executionContext the execution context for the finite state machine, holding the current state
+     *                         and any additional information required during execution.
+     * @param <S> the type defining the states within the finite state machine.
+     * @param <E> the type defining the events that can trigger state transitions.
+     * @param <C> the type of the execution context, which must extend {@code FsmExecutionContext<S>}.
+     * @return a new {@code Fsm} instance initialized with the specified configuration and execution context.
+     */
+    public static <S, E, C extends FsmExecutionContext<S>> Fsm<S, E, C> of(
+            @NonNull FsmConfig<S, E, C> config,
+            @NonNull C executionContext) {
+        return new Fsm<>(config, executionContext);
+    }
+
+    /**
+     * Creates a machine bound to a version of a configuration published to a {@link FsmConfigRegistry}.
+     * Before handling an event, the machine checks whether a newer version was published and, if so,
+     * maps its state and continues with the configuration of the latest version.
+     *
+     * @param configVersion the version of the configuration.
+     * @param executionContext the execution context, holding a state of the given version.
+     * @return a new {@code Fsm} instance bound to the version.
+     */
+    public static <S, E, C extends FsmExecutionContext<S>> Fsm<S, E, C> of(
+            @NonNull FsmConfigVersion<S, E, C> configVersion,
+            @NonNull C executionContext) {
+        var fsm = new Fsm<>(configVersion.getConfig(), executionContext);
+        fsm.configVersion = configVersion;
+        return fsm;
+    }
+
+    /**
+     * Recreates a machine with the execution status it had, used when restoring from a snapshot.
+     */
+    static <S, E, C extends FsmExecutionContext<S>> Fsm<S, E, C> restore(
+            FsmConfig<S, E, C> config,
+            C executionContext,
+            FsmExecutionStatus executionStatus) {
+        return new Fsm<>(config, executionContext, executionStatus);
+    }
+
+    /**
+     * Triggers a state transition in the finite state machine using the specified event.
+     * This method attempts to handle the provided event by matching it to a valid transition
+     * in the current state. If a matching transition is found, it executes the associated
+     * actions and updates the state. If no matching transition is found, the method will
+     * return false without making any state changes.
+     *
+     * @param event the event used to trigger a state transition.
+     * @return true if the event triggered a valid state transition, false otherwise.
+     * @throws IllegalStateException if the finite state machine is not in the running state.
+     */
+    public boolean fire(E event) {
+        return fire(event, FsmEventArgs.empty());
+    }
+
+    /**
+     * Attempts to trigger a state transition in the finite state machine using the specified event and arguments.
+     * This method checks for a valid transition using the provided event and arguments. If a matching transition
+     * is found, the associated state actions are executed, and the state machine transitions to the target state.
+     * If no matching transition is found, the method returns false without making any state changes.
+     *
+     * @param event the event used to trigger a state transition
+     * @param args additional arguments to be passed during the transition
+     * @return true if a valid transition was executed, false otherwise
+     * @throws IllegalStateException if the finite state machine is not in the running state
+     */
+    public boolean fire(@NonNull E event, @NonNull FsmEventArgs args) {
+        checkRunning();
+        if (!checkVersion()) {
+            return false;
+        }
+
+        var chain = config.findChain(executionContext, event, args);
+        if (chain == null) {
+            return false;
+        }
+        doTransition(chain, event, args);
+        runToCompletion();
+        return true;
+    }
+
+    /**
+     * Takes a transition recorded by a {@link FsmJournal} once more, running its actions, used to rebuild
+     * the machine from the journal. Unlike {@link #fire(Object, FsmEventArgs)} the event is resolved once and
+     * the events posted or deferred by the actions are discarded rather than fired, as the transitions they
+     * triggered are recorded on their own.
+     *
+     * @param transition the recorded transition.
+     * @param event the recorded event.
+     * @param args the recorded arguments of the event.
+     * @return false, leaving the machine as it is, if the event doesn't trigger the recorded transition.
+     * @throws IllegalStateException if the finite state machine is not in the running state.
+     */
+    public boolean replay(@NonNull Transition<S> transition, @NonNull E event, @NonNull FsmEventArgs args) {
+        checkRunning();
+        if (!checkVersion()) {
+            return false;
+        }
+
+        var chain = config.findChain(executionContext, event, args);
+        if (chain == null || !chain.getTransition().equals(transition)) {
+            return false;
+        }
+        try {
+            doTransition(chain, event, args);
+        } finally {
+            if (eventQueue != null) {
+                eventQueue.clear();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Fires the events one after another with empty arguments.
+     *
+     * @see #fireAll(Object[], FsmEventArgs[])
+     */
+    public FsmBatchResult fireAll(@NonNull Iterable<? extends E> events) {
+        checkRunning();
+        if (!checkVersion()) {
+            return new FsmBatchResult(0, 0, executionStatus, null);
+        }
+
+        var args = FsmEventArgs.empty();
+        var index = 0;
+        var acceptedCount = 0;
+        for (var event : events) {
+            var chain = config.findChain(executionContext, Objects.requireNonNull(event, "event is null"), args);
+            if (chain == null) {
+                return new FsmBatchResult(acceptedCount, index, executionStatus, null);
+            }
+            try {
+                doTransition(chain, event, args);
+            } catch (RuntimeException e) {
+                return new FsmBatchResult(acceptedCount, index, executionStatus, e);
+            }
+            acceptedCount++;
+            try {
+                runToCompletion();
+            } catch (RuntimeException e) {
+                return new FsmBatchResult(acceptedCount, index, executionStatus, e, true);
+            }
+            if (executionStatus != FsmExecutionStatus.RUNNING) {
+                return new FsmBatchResult(acceptedCount, index, executionStatus, null);
+            }
+            index++;
+        }
+        return new FsmBatchResult(acceptedCount, -1, executionStatus, null);
+    }
+
+    public FsmBatchResult fireAll(@NonNull E[] events) {
+        return fireAll(events, null);
+    }
+
+    /**
+     * Fires a run of events in one call, which is cheaper than calling {@link #fire(Object, FsmEventArgs)}
+     * for each of them. Processing stops at the first event that doesn't trigger a transition or after which
+     * the machine is no longer running. Unlike {@code fire}, an exception thrown by an action is not rethrown
+     * but reported in the result, together with the index of the event that caused it. An exception thrown
+     * by an event posted or deferred by the actions is reported at the index of the accepted event it was fired
+     * after, see {@link FsmBatchResult#isFailedOnQueuedEvent()}.
+     *
+     * @param events the events to fire
+     * @param args the arguments of the events, element-wise; {@code null} stands for empty arguments
+     * @return the number of accepted events and the index processing stopped at
+     * @throws IllegalStateException if the finite state machine is not in the running state
+     */
+    public FsmBatchResult fireAll(@NonNull E[] events, @Nullable FsmEventArgs[] args) {
+        if (args != null && args.length != events.length) {
+            throw new IllegalArgumentException("events and args differ in length");
+        }
+        checkRunning();
+        if (!checkVersion()) {
+            return new FsmBatchResult(0, 0, executionStatus, null);
+        }
+
+        var acceptedCount = 0;
+        for (var i = 0; i < events.length; i++) {
+            var event = Objects.requireNonNull(events[i], "event is null");
+            var eventArgs = args != null ? Objects.requireNonNull(args[i], "args is null") : FsmEventArgs.empty();
+            var chain = config.findChain(executionContext, event, eventArgs);
+            if (chain == null) {
+                return new FsmBatchResult(acceptedCount, i, executionStatus, null);
+            }
+            try {
+                doTransition(chain, event, eventArgs);
+            } catch (RuntimeException e) {
+                return new FsmBatchResult(acceptedCount, i, executionStatus, e);
+            }
+            acceptedCount++;
+            try {
+                runToCompletion();
+            } catch (RuntimeException e) {
+                return new FsmBatchResult(acceptedCount, i, executionStatus, e, true);
+            }
+            if (executionStatus != FsmExecutionStatus.RUNNING) {
+                return new FsmBatchResult(acceptedCount, i, executionStatus, null);
+            }
+        }
+        return new FsmBatchResult(acceptedCount, -1, executionStatus, null);
+    }
+
+    /**
+     * Closes the finite state machine and changes its execution status to {@code TERMINATED}, if it is
+     * not already in the {@code RUNNING} state.
+     * This method is part of the {@link AutoCloseable} interface and provides a way to
+     * gracefully stop the finite state machine. If the current execution status is not {@code RUNNING},
+     * the underlying {@code stop} method is invoked with {@code TERMINATED} as the parameter. This
+     * ensures that any necessary cleanup or finalization logic is performed during the termination process.
+     */
+    @Override
+    public void close() {
+        if (executionStatus == FsmExecutionStatus.RUNNING) {
+            stop(FsmExecutionStatus.TERMINATED);
+        }
+    }
+
+    /**
+     * Fires the events queued by the actions of the transition that just completed, and by the actions
+     * of the transitions they trigger, until none of them can be handled. Deferred events are retried
+     * first after every transition, posted events are fired once each. Nested calls, made by an action
+     * firing its own machine, leave the queue to the outermost one.
+     */
+    private void runToCompletion() {
+        if (eventQueue == null || draining) {
+            return;
+        }
+        draining = true;
+        try {
+            var posted = eventQueue.getPosted();
+            var stateChanged = true;
+            while (executionStatus == FsmExecutionStatus.RUNNING) {
+                if (stateChanged && fireDeferred()) {
+                    continue;
+                }
+                if (posted.size() == 0) {
+                    break;
+                }
+                E event = posted.getEvent(0);
+                var args = posted.getArgs(0);
+                posted.removeFirst();
+                var chain = config.findChain(executionContext, event, args);
+                stateChanged = chain != null;
+                if (stateChanged) {
+                    doTransition(chain, event, args);
+                }
+            }
+        } finally {
+            draining = false;
+            if (executionStatus != FsmExecutionStatus.RUNNING) {
+                eventQueue.clear();
+            }
+        }
+    }
+
+    /**
+     * Fires the first deferred event the current state handles.
+     *
+     * @return true if a deferred event triggered a transition.
+     */
+    private boolean fireDeferred() {
+        var deferred = eventQueue.getDeferred();
+        for (var i = 0; i < deferred.size(); i++) {
+            E event = deferred.getEvent(i);
+            var args = deferred.getArgs(i);
+            var chain = config.findChain(executionContext, event, args);
+            if (chain != null) {
+                deferred.removeAt(i);
+                doTransition(chain, event, args);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void doTransition(TransitionChain<S, E, C> chain, E event, FsmEventArgs args) {
+        var transition = chain.getTransition();
+        var tracer = this.tracer != null && this.tracer.isEnabled(executionContext) ? this.tracer : null;
+        if (tracer != null) {
+            tracer.onTransitionStarted(executionContext, transition, event, args);
+        }
+        var startNanos = metrics != null ? System.nanoTime() : 0L;
+        try {
+            runActions(chain, chain.getExitActions(), FsmActionPhase.EXIT, tracer, event, args);
+            runActions(chain, chain.getBeforeActions(), FsmActionPhase.BEFORE, tracer, event, args);
+
+            if (journal != null) {
+                journal.append(executionContext, transition, event, args);
+            }
+            executionContext.setState(transition.getTarget());
+
+            runActions(chain, chain.getAfterActions(), FsmActionPhase.AFTER, tracer, event, args);
+            runActions(chain, chain.getEnterActions(), FsmActionPhase.ENTER, tracer, event, args);
+
+            if (metrics != null) {
+                metrics.onTransitionCompleted(transition, System.nanoTime() - startNanos);
+            }
+
+            if (config.isTerminalState(executionContext.getState())) {
+                stop(FsmExecutionStatus.TERMINATED);
+            }
+
+            if (tracer != null) {
+                tracer.onTransitionCompleted(executionContext, transition);
+            }
+        } catch (RuntimeException e) {
+            if (tracer != null) {
+                tracer.onTransitionFailed(executionContext, transition, e);
+            }
+            if (metrics != null) {
+                metrics.onAborted(transition, e);
+            }
+            stop(FsmExecutionStatus.ABORTED);
+            throw e;
+        }
+    }
+
+    private void runActions(
+            TransitionChain<S, E, C> chain,
+            TransitionAction<S, E, C>[] actions,
+            FsmActionPhase phase,
+            @Nullable FsmTracer<S, E, C> tracer,
+            E event,
+            FsmEventArgs args) {
+        if (actions.length == 0) {
+            return;
+        }
+        var transition = chain.getTransition();
+        if (tracer != null) {
+            tracer.onActionsStarted(executionContext, transition, phase);
+        }
+        var startNanos = metrics != null ? System.nanoTime() : 0L;
+        if (dispatch != null && chain.getId() >= 0) {
+            dispatch.runActions(chain.getId(), phase.ordinal(), executionContext, transition, event, args);
+        } else {
+            for (var action : actions) {
+                action.run(executionContext, transition, event, args);
+            }
+        }
+        if (metrics != null) {
+            metrics.onActionsCompleted(transition, phase, System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * Migrates the machine to the latest version of its configuration if a newer one was published.
+     *
+     * @return false if the machine was terminated by the migration.
+     */
+    private boolean checkVersion() {
+        var current = configVersion;
+        if (current == null || current.getNext() == null) {
+            return true;
+        }
+        var state = executionContext.getState();
+        for (var next = current.getNext(); next != null; next = next.getNext()) {
+            state = next.mapState(state);
+            current = next;
+        }
+        log.debug("Migrating to version {} of the configuration", current.getVersion());
+        if (timerScheduler != null) {
+            timerScheduler.cancelAll(executionContext);
+        }
+        configVersion = current;
+        bind(current.getConfig());
+        if (!state.equals(executionContext.getState())) {
+            executionContext.setState(state);
+        }
+        if (config.isTerminalState(state)) {
+            stop(FsmExecutionStatus.TERMINATED);
+            return false;
+        }
+        config.armTimeouts(executionContext);
+        return true;
+    }
+
+    private void bind(FsmConfig<S, E, C> config) {
+        this.config = config;
+        this.metrics = config.getMetrics();
+        this.tracer = config.getTracer();
+        this.journal = config.getJournal();
+        this.timerScheduler = config.getTimerScheduler();
+        this.dispatch = config.getDispatch();
+    }
+
+    private void checkRunning() {
+        if (executionStatus != FsmExecutionStatus.RUNNING) {
+            throw new IllegalStateException("Must be running");
+        }
+    }
+
+    private void stop(FsmExecutionStatus status) {
+        log.debug("Stopping with execution status {}", status);
+        try {
+            if (timerScheduler != null) {
+                timerScheduler.cancelAll(executionContext);
+            }
+            executionContext.close();
+
+            log.debug("Stopped");
+        } catch (RuntimeException e) {
+            log.error("Error while stopping", e);
+        } finally {
+            executionStatus = status;
+            if (metrics != null && status == FsmExecutionStatus.TERMINATED) {
+                metrics.onTerminated(executionContext.getState());
+            }
+        }
+    }
+}
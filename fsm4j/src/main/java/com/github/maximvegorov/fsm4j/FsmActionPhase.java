@@ -0,0 +1,11 @@
+package com.github.maximvegorov.fsm4j;
+
+/**
+ * The groups of actions run by a transition, in execution order.
+ */
+public enum FsmActionPhase {
+    EXIT,
+    BEFORE,
+    AFTER,
+    ENTER
+}
@@ -0,0 +1,205 @@
+package com.github.maximvegorov.fsm4j;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The defects of a configuration found by {@link FsmConfig#analyze(Set)} without running it. The analysis
+ * assumes that every guard may match, and knows nothing about the {@link TransitionFallback}, so a state
+ * reported here may still be left through the fallback.
+ *
+ * <p>
+ * In a hierarchical configuration the machines are in the states without nested states, which handle the events
+ * of their ancestors. A state with nested states is reachable if one of them is, and is never reported as
+ * non-terminating or stuck. A target of a nested state overriding an inherited one is not a defect.
+ * </p>
+ *
+ * @param <S> the type representing the states of the FSM.
+ * @param <E> the type representing the events of the FSM.
+ */
+@Getter
+@ToString
+public final class FsmAnalysis<S, E> {
+    /**
+     * The states no machine starting in one of the initial states can get to.
+     */
+    private final Set<S> unreachableStates;
+    /**
+     * The reachable states from which no terminal state can be reached.
+     */
+    private final Set<S> nonTerminatingStates;
+    /**
+     * The reachable non-terminal states without any transition, a subset of the non-terminating ones.
+     */
+    private final Set<S> stuckStates;
+    /**
+     * The targets declared after an unguarded target of the same state and event, which are never selected.
+     */
+    private final List<ShadowedTarget<S, E>> shadowedTargets;
+
+    private FsmAnalysis(
+            Set<S> unreachableStates,
+            Set<S> nonTerminatingStates,
+            Set<S> stuckStates,
+            List<ShadowedTarget<S, E>> shadowedTargets) {
+        this.unreachableStates = Collections.unmodifiableSet(unreachableStates);
+        this.nonTerminatingStates = Collections.unmodifiableSet(nonTerminatingStates);
+        this.stuckStates = Collections.unmodifiableSet(stuckStates);
+        this.shadowedTargets = Collections.unmodifiableList(shadowedTargets);
+    }
+
+    /**
+     * @return whether no defect was found.
+     */
+    public boolean isClean() {
+        return unreachableStates.isEmpty()
+                && nonTerminatingStates.isEmpty()
+                && stuckStates.isEmpty()
+                && shadowedTargets.isEmpty();
+    }
+
+    /**
+     * @throws IllegalArgumentException if an initial state is unknown to the configuration.
+     */
+    static <S, E, C extends FsmExecutionContext<S>> FsmAnalysis<S, E> of(
+            FsmTransitionTable<S, E, C> table,
+            Set<S> initialStates) {
+        var stateCount = table.getStateCount();
+        // the edges of the selectable chains, by the index of their source and of their target
+        var targets = new ArrayList<List<Integer>>(Collections.nCopies(stateCount, null));
+        var sources = new ArrayList<List<Integer>>(Collections.nCopies(stateCount, null));
+        var hasChains = new BitSet(stateCount);
+        var shadowedTargets = new ArrayList<ShadowedTarget<S, E>>();
+        for (var i = 0; i < stateCount; i++) {
+            var stateIndex = i;
+            var state = table.getState(stateIndex);
+            table.forEachChains(stateIndex, (event, chains) -> {
+                hasChains.set(stateIndex);
+                TransitionChain<S, E, C> unguarded = null;
+                for (var chain : chains) {
+                    if (unguarded == null) {
+                        addEdge(targets, stateIndex, chain.getTargetIndex());
+                        addEdge(sources, chain.getTargetIndex(), stateIndex);
+                        if (chain.getPredicate() == FsmTransitionTable.ALWAYS) {
+                            unguarded = chain;
+                        }
+                    } else if (chain.getDeclaredTransition().getSource().equals(state)) {
+                        shadowedTargets.add(new ShadowedTarget<>(
+                                state,
+                                event,
+                                chain.getDeclaredTransition(),
+                                unguarded.getDeclaredTransition()));
+                    }
+                }
+            });
+        }
+
+        var parents = table.getParents();
+        var composite = new BitSet(stateCount);
+        for (var parent : parents.values()) {
+            composite.set(table.indexOf(parent));
+        }
+
+        var reachable = new BitSet(stateCount);
+        var queue = new ArrayDeque<Integer>();
+        for (var state : initialStates) {
+            var stateIndex = table.indexOf(state);
+            if (stateIndex < 0) {
+                throw new IllegalArgumentException("Unknown initial state: " + state);
+            }
+            visit(stateIndex, reachable, queue);
+        }
+        while (!queue.isEmpty()) {
+            int stateIndex = queue.poll();
+            // a machine entering a terminal state stops
+            if (!table.isTerminal(stateIndex)) {
+                visitAll(targets.get(stateIndex), reachable, queue);
+            }
+        }
+        for (var stateIndex = reachable.nextSetBit(0); stateIndex >= 0; stateIndex = reachable.nextSetBit(stateIndex + 1)) {
+            for (var parent = parents.get(table.getState(stateIndex)); parent != null; parent = parents.get(parent)) {
+                reachable.set(table.indexOf(parent));
+            }
+        }
+
+        var terminating = new BitSet(stateCount);
+        for (var stateIndex = 0; stateIndex < stateCount; stateIndex++) {
+            if (table.isTerminal(stateIndex)) {
+                visit(stateIndex, terminating, queue);
+            }
+        }
+        while (!queue.isEmpty()) {
+            visitAll(sources.get(queue.poll()), terminating, queue);
+        }
+
+        var unreachableStates = new LinkedHashSet<S>();
+        var nonTerminatingStates = new LinkedHashSet<S>();
+        var stuckStates = new LinkedHashSet<S>();
+        for (var stateIndex = 0; stateIndex < stateCount; stateIndex++) {
+            var state = table.getState(stateIndex);
+            if (!reachable.get(stateIndex)) {
+                unreachableStates.add(state);
+            } else if (!composite.get(stateIndex) && !terminating.get(stateIndex)) {
+                nonTerminatingStates.add(state);
+                if (!hasChains.get(stateIndex)) {
+                    stuckStates.add(state);
+                }
+            }
+        }
+        return new FsmAnalysis<>(unreachableStates, nonTerminatingStates, stuckStates, shadowedTargets);
+    }
+
+    private static void addEdge(List<List<Integer>> edges, int from, int to) {
+        if (edges.get(from) == null) {
+            edges.set(from, new ArrayList<>());
+        }
+        edges.get(from).add(to);
+    }
+
+    private static void visitAll(@Nullable List<Integer> stateIndices, BitSet visited, ArrayDeque<Integer> queue) {
+        if (stateIndices != null) {
+            for (var stateIndex : stateIndices) {
+                visit(stateIndex, visited, queue);
+            }
+        }
+    }
+
+    private static void visit(int stateIndex, BitSet visited, ArrayDeque<Integer> queue) {
+        if (!visited.get(stateIndex)) {
+            visited.set(stateIndex);
+            queue.add(stateIndex);
+        }
+    }
+
+    /**
+     * A target which is never selected, as an unguarded target is declared before it for the same state and event.
+     */
+    @Getter
+    @RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+    @EqualsAndHashCode
+    @ToString
+    public static final class ShadowedTarget<S, E> {
+        /**
+         * The state the target is declared for.
+         */
+        private final S state;
+        private final E event;
+        private final Transition<S> transition;
+        /**
+         * The transition of the unguarded target selected instead.
+         */
+        private final Transition<S> shadowedBy;
+    }
+}
@@ -0,0 +1,77 @@
+package com.github.maximvegorov.fsm4j;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * A field of the {@link FsmEventArgs} of an event that guards compare to constants. A run of targets declared
+ * for the same state and event whose predicates are created with {@link #is} of the same key is compiled into
+ * a decision table: the field is read once and the target is looked up by its value, instead of testing
+ * the predicates one by one.
+ *
+ * <pre>{@code
+ * var orderType = FsmArgsKey.of(OrderArgs.class, OrderArgs::getType);
+ * ...
+ *     .on(Events.SUBMIT).and(orderType.is(OrderType.EXPRESS)).moveTo(States.EXPRESS)
+ *     .on(Events.SUBMIT).and(orderType.is(OrderType.REGULAR)).moveTo(States.REGULAR)
+ * }</pre>
+ *
+ * The field must be a pure function of the arguments, and a key should be created once and shared by
+ * the targets, as runs are formed by keys compared by identity.
+ *
+ * @param <A> the type of the event arguments holding the field.
+ * @param <K> the type of the field.
+ */
+@RequiredArgsConstructor
+@ToString
+public final class FsmArgsKey<A extends FsmEventArgs, K> {
+    /**
+     * Returned by {@link #extract} for arguments of another type, it is never equal to a value of the field.
+     */
+    static final Object NO_VALUE = new Object();
+
+    private final Class<A> type;
+    @ToString.Exclude
+    private final Function<? super A, ? extends K> field;
+
+    public static <A extends FsmEventArgs, K> FsmArgsKey<A, K> of(
+            @NonNull Class<A> type,
+            @NonNull Function<? super A, ? extends K> field) {
+        return new FsmArgsKey<>(type, field);
+    }
+
+    /**
+     * @return the predicate matching the arguments of the key type whose field is equal to the value.
+     */
+    public <S, E, C extends FsmExecutionContext<S>> TransitionPredicate<S, E, C> is(K value) {
+        return new KeyPredicate<>(this, value);
+    }
+
+    /**
+     * @return the value of the field, or {@link #NO_VALUE} if the arguments are not of the key type.
+     */
+    Object extract(FsmEventArgs args) {
+        return type.isInstance(args) ? field.apply(type.cast(args)) : NO_VALUE;
+    }
+
+    /**
+     * The predicate created by {@link #is}, recognized when guards are compiled.
+     */
+    @Getter(AccessLevel.PACKAGE)
+    @RequiredArgsConstructor
+    static final class KeyPredicate<S, E, C extends FsmExecutionContext<S>> implements TransitionPredicate<S, E, C> {
+        private final FsmArgsKey<?, ?> key;
+        private final Object value;
+
+        @Override
+        public boolean test(C context, E event, FsmEventArgs args) {
+            return Objects.equals(key.extract(args), value);
+        }
+    }
+}
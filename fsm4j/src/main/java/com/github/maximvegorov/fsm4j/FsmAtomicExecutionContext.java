@@ -0,0 +1,84 @@
+package com.github.maximvegorov.fsm4j;
+
+import lombok.NonNull;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A thread-safe implementation of the {@code FsmExecutionContext} interface required by {@link ConcurrentFsm}.
+ * The state is kept in an atomic reference which the machine either swaps with a compare-and-set or
+ * temporarily marks as owned while it runs the actions of a transition. The class may be extended
+ * to carry additional data.
+ *
+ * <p>
+ * Can also be used with a plain {@link Fsm}.
+ * </p>
+ *
+ * @param <S> the type representing the state managed by this execution context.
+ */
+public class FsmAtomicExecutionContext<S> implements FsmExecutionContext<S> {
+    private final AtomicReference<Object> state;
+    private final Owner owner = new Owner();
+
+    public FsmAtomicExecutionContext(@NonNull S state) {
+        this.state = new AtomicReference<>(state);
+    }
+
+    @Nonnull
+    @Override
+    @SuppressWarnings("unchecked")
+    public S getState() {
+        var value = state.get();
+        return (S) (value == owner ? owner.state : value);
+    }
+
+    /**
+     * Sets the state. While a transition is running the state is changed on behalf of the owning machine.
+     */
+    @Override
+    public void setState(@NonNull S value) {
+        if (state.get() == owner) {
+            owner.state = value;
+        } else {
+            state.set(value);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(state=" + getState() + ")";
+    }
+
+    /**
+     * @return the current state, or {@code null} if the context is owned by a running transition.
+     */
+    @SuppressWarnings("unchecked")
+    S tryGetState() {
+        var value = state.get();
+        return value != owner ? (S) value : null;
+    }
+
+    boolean compareAndSetState(S expected, S value) {
+        return state.compareAndSet(expected, value);
+    }
+
+    /**
+     * Takes the ownership of the context if it's still in the expected state.
+     */
+    boolean tryAcquire(S expected) {
+        owner.state = expected;
+        return state.compareAndSet(expected, owner);
+    }
+
+    /**
+     * Gives the ownership up, publishing the state set during the transition.
+     */
+    void release() {
+        state.set(owner.state);
+    }
+
+    private static final class Owner {
+        volatile Object state;
+    }
+}
@@ -0,0 +1,55 @@
+package com.github.maximvegorov.fsm4j;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import javax.annotation.Nullable;
+
+/**
+ * The outcome of firing a run of events with {@link Fsm#fireAll} or {@link FsmPool#fireAll}.
+ * Processing stops at the first event that doesn't trigger a transition, or at the event after which
+ * the machine is no longer running.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+@ToString
+public final class FsmBatchResult {
+    /**
+     * The number of events that triggered a transition.
+     */
+    private final int acceptedCount;
+    /**
+     * The index of the event processing stopped at: the first one without a transition, the one that terminated
+     * or aborted the machine. {@code -1} if every event triggered a transition and the machine is still running.
+     */
+    private final int stopIndex;
+    /**
+     * The execution status of the machine after the run.
+     */
+    private final FsmExecutionStatus executionStatus;
+    /**
+     * The exception thrown by an action of the event at {@link #stopIndex} if the machine was aborted,
+     * or by an action of a posted or deferred event fired after it, see {@link #failedOnQueuedEvent}.
+     */
+    @Nullable
+    private final RuntimeException failure;
+    /**
+     * Whether the {@link #failure} was thrown by a posted or deferred event, in which case the event at
+     * {@link #stopIndex} triggered its transition and is counted as accepted.
+     */
+    private final boolean failedOnQueuedEvent;
+
+    FsmBatchResult(
+            int acceptedCount,
+            int stopIndex,
+            FsmExecutionStatus executionStatus,
+            @Nullable RuntimeException failure) {
+        this(acceptedCount, stopIndex, executionStatus, failure, false);
+    }
+
+    public boolean isCompleted() {
+        return stopIndex < 0;
+    }
+}
@@ -0,0 +1,39 @@
+package com.github.maximvegorov.fsm4j;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.util.Map;
+
+/**
+ * The outcome of firing an event at many machines with {@link FsmPool#broadcast} or {@link FsmPoolIndex#broadcast}.
+ * Every machine is fired independently, a failing one doesn't stop the others.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+@ToString
+public final class FsmBroadcastResult {
+    /**
+     * The number of machines that made a transition.
+     */
+    private final int acceptedCount;
+    /**
+     * The number of running machines without a transition for the event.
+     */
+    private final int rejectedCount;
+    /**
+     * The number of machines aborted by an exception thrown by an action.
+     */
+    private final int abortedCount;
+    /**
+     * The number of machines that were not running, so were not fired.
+     */
+    private final int skippedCount;
+    /**
+     * The exceptions thrown while firing, by machine id in ascending order. A machine failed by an action is aborted,
+     * one failed by a predicate keeps running.
+     */
+    private final Map<Integer, RuntimeException> failures;
+}
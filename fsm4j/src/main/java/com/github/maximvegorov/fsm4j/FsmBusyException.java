@@ -0,0 +1,11 @@
+package com.github.maximvegorov.fsm4j;
+
+/**
+ * Thrown by a {@link ConcurrentFsm} configured with {@link FsmContentionPolicy#REJECT} when an event is fired
+ * while another thread is running the actions of a transition of the same machine.
+ */
+public class FsmBusyException extends IllegalStateException {
+    public FsmBusyException() {
+        super("Busy");
+    }
+}
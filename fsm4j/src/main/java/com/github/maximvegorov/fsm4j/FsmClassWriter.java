@@ -0,0 +1,384 @@
+package com.github.maximvegorov.fsm4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A minimal writer of class files, just enough for {@link FsmDispatchGenerator}. Classes are written
+ * in the version 49 format, which is verified by type inference and needs no stack map frames.
+ */
+final class FsmClassWriter {
+    static final int ACC_PUBLIC = 0x0001;
+    static final int ACC_STATIC = 0x0008;
+    static final int ACC_FINAL = 0x0010;
+    static final int ACC_SUPER = 0x0020;
+
+    private static final int CLASS_VERSION = 49;
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int MAX_CONSTANT_COUNT = 0xFFFF;
+
+    private final ByteArrayOutputStream constantBytes = new ByteArrayOutputStream();
+    private final Map<String, Integer> constantIndexes = new HashMap<>();
+    private final List<byte[]> fields = new ArrayList<>();
+    private final List<byte[]> methods = new ArrayList<>();
+    private final String className;
+    private final String superName;
+    private int constantCount = 1;
+
+    FsmClassWriter(String className, String superName) {
+        this.className = className;
+        this.superName = superName;
+    }
+
+    String getClassName() {
+        return className;
+    }
+
+    int utf8(String value) {
+        return constant("U" + value, out -> {
+            out.writeByte(CONSTANT_UTF8);
+            out.writeUTF(value);
+        });
+    }
+
+    int integer(int value) {
+        return constant("I" + value, out -> {
+            out.writeByte(CONSTANT_INTEGER);
+            out.writeInt(value);
+        });
+    }
+
+    int classRef(String internalName) {
+        var nameIndex = utf8(internalName);
+        return constant("C" + internalName, out -> {
+            out.writeByte(CONSTANT_CLASS);
+            out.writeShort(nameIndex);
+        });
+    }
+
+    int fieldRef(String owner, String name, String descriptor) {
+        return memberRef(CONSTANT_FIELDREF, owner, name, descriptor);
+    }
+
+    int methodRef(String owner, String name, String descriptor) {
+        return memberRef(CONSTANT_METHODREF, owner, name, descriptor);
+    }
+
+    int interfaceMethodRef(String owner, String name, String descriptor) {
+        return memberRef(CONSTANT_INTERFACE_METHODREF, owner, name, descriptor);
+    }
+
+    void addField(int access, String name, String descriptor) {
+        var bytes = new ByteArrayOutputStream();
+        write(bytes, out -> {
+            out.writeShort(access);
+            out.writeShort(utf8(name));
+            out.writeShort(utf8(descriptor));
+            out.writeShort(0);
+        });
+        fields.add(bytes.toByteArray());
+    }
+
+    void addMethod(int access, String name, String descriptor, Code code) {
+        var bytes = new ByteArrayOutputStream();
+        write(bytes, out -> {
+            var codeBytes = code.toByteArray();
+            out.writeShort(access);
+            out.writeShort(utf8(name));
+            out.writeShort(utf8(descriptor));
+            out.writeShort(1);
+            out.writeShort(utf8("Code"));
+            out.writeInt(12 + codeBytes.length);
+            out.writeShort(code.maxStack);
+            out.writeShort(code.maxLocals);
+            out.writeInt(codeBytes.length);
+            out.write(codeBytes);
+            out.writeShort(0);
+            out.writeShort(0);
+        });
+        methods.add(bytes.toByteArray());
+    }
+
+    byte[] toByteArray() {
+        var thisIndex = classRef(className);
+        var superIndex = classRef(superName);
+        var bytes = new ByteArrayOutputStream();
+        write(bytes, out -> {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(CLASS_VERSION);
+            out.writeShort(constantCount);
+            constantBytes.writeTo(out);
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisIndex);
+            out.writeShort(superIndex);
+            out.writeShort(0);
+            out.writeShort(fields.size());
+            for (var field : fields) {
+                out.write(field);
+            }
+            out.writeShort(methods.size());
+            for (var method : methods) {
+                out.write(method);
+            }
+            out.writeShort(0);
+        });
+        return bytes.toByteArray();
+    }
+
+    private int memberRef(int tag, String owner, String name, String descriptor) {
+        var classIndex = classRef(owner);
+        var nameIndex = utf8(name);
+        var descriptorIndex = utf8(descriptor);
+        var nameAndTypeIndex = constant("N" + name + ' ' + descriptor, out -> {
+            out.writeByte(CONSTANT_NAME_AND_TYPE);
+            out.writeShort(nameIndex);
+            out.writeShort(descriptorIndex);
+        });
+        return constant("M" + tag + owner + '.' + name + descriptor, out -> {
+            out.writeByte(tag);
+            out.writeShort(classIndex);
+            out.writeShort(nameAndTypeIndex);
+        });
+    }
+
+    private int constant(String key, ConstantWriter writer) {
+        var index = constantIndexes.get(key);
+        if (index != null) {
+            return index;
+        }
+        if (constantCount == MAX_CONSTANT_COUNT) {
+            throw new IllegalStateException("Too many constants");
+        }
+        write(constantBytes, writer::write);
+        constantIndexes.put(key, constantCount);
+        return constantCount++;
+    }
+
+    private void write(ByteArrayOutputStream bytes, ConstantWriter writer) {
+        try {
+            var out = new DataOutputStream(bytes);
+            writer.write(out);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ConstantWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * A position in the code of a method, branches to it are patched once it is marked.
+     */
+    static final class Label {
+        private int position = -1;
+        // pairs of the branch instruction position and the offset position
+        private final List<int[]> branches = new ArrayList<>();
+    }
+
+    /**
+     * The bytecode of a method.
+     */
+    static final class Code {
+        static final int ICONST_0 = 0x03;
+        static final int BIPUSH = 0x10;
+        static final int SIPUSH = 0x11;
+        static final int LDC_W = 0x13;
+        static final int ILOAD = 0x15;
+        static final int ALOAD = 0x19;
+        static final int AALOAD = 0x32;
+        static final int ASTORE = 0x3A;
+        static final int IDIV = 0x6C;
+        static final int IREM = 0x70;
+        static final int IFEQ = 0x99;
+        static final int TABLESWITCH = 0xAA;
+        static final int LOOKUPSWITCH = 0xAB;
+        static final int IRETURN = 0xAC;
+        static final int RETURN = 0xB1;
+        static final int GETSTATIC = 0xB2;
+        static final int PUTSTATIC = 0xB3;
+        static final int INVOKESPECIAL = 0xB7;
+        static final int INVOKESTATIC = 0xB8;
+        static final int INVOKEINTERFACE = 0xB9;
+        static final int CHECKCAST = 0xC0;
+
+        private static final int MAX_CODE_LENGTH = 0xFFFF;
+
+        private final FsmClassWriter writer;
+        private final int maxStack;
+        private final int maxLocals;
+        private byte[] bytes = new byte[64];
+        private int length;
+
+        Code(FsmClassWriter writer, int maxStack, int maxLocals) {
+            this.writer = writer;
+            this.maxStack = maxStack;
+            this.maxLocals = maxLocals;
+        }
+
+        int length() {
+            return length;
+        }
+
+        Code op(int opcode) {
+            return u1(opcode);
+        }
+
+        Code op(int opcode, int constantIndex) {
+            return u1(opcode).u2(constantIndex);
+        }
+
+        Code iload(int local) {
+            return u1(ILOAD).u1(local);
+        }
+
+        Code aload(int local) {
+            return u1(ALOAD).u1(local);
+        }
+
+        Code astore(int local) {
+            return u1(ASTORE).u1(local);
+        }
+
+        Code pushInt(int value) {
+            if (value >= -1 && value <= 5) {
+                return u1(ICONST_0 + value);
+            }
+            if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+                return u1(BIPUSH).u1(value);
+            }
+            if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+                return u1(SIPUSH).u2(value);
+            }
+            return u1(LDC_W).u2(writer.integer(value));
+        }
+
+        Code invokeinterface(int constantIndex, int argumentSlots) {
+            return u1(INVOKEINTERFACE).u2(constantIndex).u1(argumentSlots + 1).u1(0);
+        }
+
+        Code ifeq(Label label) {
+            var position = length;
+            u1(IFEQ);
+            branch(label, position, false);
+            return u2(0);
+        }
+
+        Code tableswitch(int low, Label defaultLabel, Label[] labels) {
+            var position = switchHeader(TABLESWITCH, defaultLabel);
+            u4(low).u4(low + labels.length - 1);
+            for (var label : labels) {
+                branch(label, position, true);
+                u4(0);
+            }
+            return this;
+        }
+
+        Code lookupswitch(Label defaultLabel, int[] keys, Label[] labels) {
+            var position = switchHeader(LOOKUPSWITCH, defaultLabel);
+            u4(keys.length);
+            for (var i = 0; i < keys.length; i++) {
+                u4(keys[i]);
+                branch(labels[i], position, true);
+                u4(0);
+            }
+            return this;
+        }
+
+        Code mark(Label label) {
+            label.position = length;
+            for (var branch : label.branches) {
+                var offset = length - branch[0];
+                if (branch.length == 3) {
+                    putInt(branch[1], offset);
+                } else {
+                    if (offset > Short.MAX_VALUE) {
+                        throw new IllegalStateException("Branch too long");
+                    }
+                    bytes[branch[1]] = (byte) (offset >>> 8);
+                    bytes[branch[1] + 1] = (byte) offset;
+                }
+            }
+            return this;
+        }
+
+        byte[] toByteArray() {
+            if (length > MAX_CODE_LENGTH) {
+                throw new IllegalStateException("Method too large");
+            }
+            var result = new byte[length];
+            System.arraycopy(bytes, 0, result, 0, length);
+            return result;
+        }
+
+        private int switchHeader(int opcode, Label defaultLabel) {
+            var position = length;
+            u1(opcode);
+            while ((length & 3) != 0) {
+                u1(0);
+            }
+            branch(defaultLabel, position, true);
+            u4(0);
+            return position;
+        }
+
+        private void branch(Label label, int instructionPosition, boolean wide) {
+            if (label.position >= 0) {
+                throw new IllegalStateException("Backward branches are not supported");
+            }
+            label.branches.add(wide
+                    ? new int[]{instructionPosition, length, 0}
+                    : new int[]{instructionPosition, length});
+        }
+
+        private Code u1(int value) {
+            ensureCapacity(1);
+            bytes[length++] = (byte) value;
+            return this;
+        }
+
+        private Code u2(int value) {
+            ensureCapacity(2);
+            bytes[length++] = (byte) (value >>> 8);
+            bytes[length++] = (byte) value;
+            return this;
+        }
+
+        private Code u4(int value) {
+            ensureCapacity(4);
+            putInt(length, value);
+            length += 4;
+            return this;
+        }
+
+        private void putInt(int position, int value) {
+            bytes[position] = (byte) (value >>> 24);
+            bytes[position + 1] = (byte) (value >>> 16);
+            bytes[position + 2] = (byte) (value >>> 8);
+            bytes[position + 3] = (byte) value;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (length + extra > bytes.length) {
+                var copy = new byte[Math.max(bytes.length * 2, length + extra)];
+                System.arraycopy(bytes, 0, copy, 0, length);
+                bytes = copy;
+            }
+        }
+    }
+}
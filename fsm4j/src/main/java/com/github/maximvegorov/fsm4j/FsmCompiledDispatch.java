@@ -0,0 +1,89 @@
+package com.github.maximvegorov.fsm4j;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nullable;
+import java.lang.invoke.MethodHandles;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The base of the classes generated by {@link FsmConfig#compile()}. A generated class selects a chain
+ * with a {@code switch} on the state and event ordinals and runs its actions, with every predicate and action
+ * held in a {@code static final} field and called directly. Each call site then sees a single receiver,
+ * so the JIT inlines the predicates and actions instead of dispatching through megamorphic interface calls
+ * shared by every configuration in the JVM.
+ *
+ * @param <S> the type representing the states of the FSM.
+ * @param <E> the type representing the events of the FSM.
+ * @param <C> the type extending {@link FsmExecutionContext}.
+ */
+@Slf4j
+abstract class FsmCompiledDispatch<S, E, C extends FsmExecutionContext<S>> {
+    /**
+     * Returned by {@link #findChain} when no predicate of the declared chains matched.
+     */
+    static final int NO_MATCH = -1;
+    /**
+     * Returned by {@link #findChain} when no chain is declared for the state and event.
+     */
+    static final int NO_CHAINS = -2;
+
+    private static final AtomicInteger CLASS_NUMBER = new AtomicInteger();
+    private static final ThreadLocal<Object[]> PENDING_CONSTANTS = new ThreadLocal<>();
+
+    /**
+     * @param stateIndex the ordinal of the state.
+     * @param eventIndex the ordinal of the event, or {@code -1} if the event is not a constant of the event enum.
+     * @return the id of the first chain whose predicate matched, {@link #NO_MATCH} or {@link #NO_CHAINS}.
+     */
+    abstract int findChain(int stateIndex, int eventIndex, C context, E event, FsmEventArgs args);
+
+    /**
+     * Runs the actions of the phase of the chain.
+     *
+     * @param phase the ordinal of the {@link FsmActionPhase}.
+     */
+    abstract void runActions(int chainId, int phase, C context, Transition<S> transition, E event, FsmEventArgs args);
+
+    /**
+     * Generates and loads the dispatch class of the table.
+     *
+     * @return the dispatch, or {@code null} if the table is too large for a class.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    static <S, E, C extends FsmExecutionContext<S>> FsmCompiledDispatch<S, E, C> compile(
+            FsmEnumTransitionTable<S, E, C> table) {
+        var className = FsmCompiledDispatch.class.getName().replace('.', '/')
+                + "$Generated" + CLASS_NUMBER.incrementAndGet();
+        var generator = new FsmDispatchGenerator<>(table, className);
+        byte[] bytes;
+        try {
+            bytes = generator.generate();
+        } catch (IllegalStateException e) {
+            log.debug("Configuration is too large to compile", e);
+            return null;
+        }
+
+        PENDING_CONSTANTS.set(generator.getConstants());
+        try {
+            var type = MethodHandles.lookup().defineClass(bytes);
+            return (FsmCompiledDispatch<S, E, C>) type.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to load " + className, e);
+        } finally {
+            PENDING_CONSTANTS.remove();
+        }
+    }
+
+    /**
+     * Hands the predicates and actions over to the static initializer of the class being loaded.
+     */
+    static Object[] takeConstants() {
+        var constants = PENDING_CONSTANTS.get();
+        if (constants == null) {
+            throw new IllegalStateException("No class is being compiled");
+        }
+        return constants;
+    }
+}
@@ -0,0 +1,433 @@
+package com.github.maximvegorov.fsm4j;
+
+import com.github.maximvegorov.fsm4j.builders.FsmBulkConfigBuilder;
+import com.github.maximvegorov.fsm4j.builders.FsmConfigBuilder;
+import com.github.maximvegorov.fsm4j.builders.FsmConfigParts;
+import com.github.maximvegorov.fsm4j.builders.FsmTargetConfigBuilder;
+import com.github.maximvegorov.fsm4j.timer.FsmTimerScheduler;
+import lombok.NonNull;
+import lombok.ToString;
+
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Represents the configuration for a finite state machine (FSM).
+ * This class defines the behavior, transitions, and actions of the FSM, allowing customization
+ * for its execution depending on the current state, event, and context.
+ *
+ * <p>
+ * The configuration is compiled into a {@link FsmTransitionTable} on construction. When both states
+ * and events are enums the table is indexed by ordinals, so lookups don't hash at all.
+ * </p>
+ *
+ * @param <S> the type representing the states of the FSM
+ * @param <E> the type representing the events of the FSM
+ * @param <C> the type extending the {@code FsmExecutionContext} representing the execution context of the FSM
+ */
+@ToString
+public final class FsmConfig<S, E, C extends FsmExecutionContext<S>> {
+    private final FsmTransitionTable<S, E, C> table;
+    private final TransitionFallback<S, E, C> transitionFallback;
+    private final Set<S> terminalStates;
+    @Nullable
+    private final FsmMetrics<S, E> metrics;
+    @Nullable
+    private final FsmTracer<S, E, C> tracer;
+    @Nullable
+    private final FsmJournal<S, E, C> journal;
+    @ToString.Exclude
+    @Nullable
+    private final FsmTimerScheduler<S, E, C> timerScheduler;
+    @ToString.Exclude
+    private final Map<S, Map<E, Duration>> timeouts;
+    @ToString.Exclude
+    @Nullable
+    private final FsmCompiledDispatch<S, E, C> dispatch;
+    @ToString.Exclude
+    @Nullable
+    private final FsmGuards<S, E, C> guards;
+    @ToString.Exclude
+    private volatile long fingerprint;
+
+    /**
+     * Creates a flat configuration without metrics, tracing, journal or timeouts, see {@link #builder()}
+     * for the others.
+     */
+    public FsmConfig(
+            @NonNull Map<S, Map<E, List<TransitionTarget<S, E, C>>>> transitions,
+            @NonNull Map<S, List<TransitionAction<S, E, C>>> exitActions,
+            @NonNull Map<Transition<S>, List<TransitionAction<S, E, C>>> beforeActions,
+            @NonNull Map<Transition<S>, List<TransitionAction<S, E, C>>> afterActions,
+            @NonNull Map<S, List<TransitionAction<S, E, C>>> enterActions,
+            @NonNull TransitionFallback<S, E, C> transitionFallback,
+            @NonNull Set<S> terminalStates) {
+        this(transitions, exitActions, beforeActions, afterActions, enterActions, transitionFallback, terminalStates,
+                Map.of(), null, null, null, null, Map.of());
+    }
+
+    private FsmConfig(FsmConfigParts<S, E, C> parts) {
+        this(
+                parts.getTransitions(),
+                parts.getExitActions(),
+                parts.getBeforeActions(),
+                parts.getAfterActions(),
+                parts.getEnterActions(),
+                parts.getTransitionFallback(),
+                parts.getTerminalStates(),
+                parts.getParents(),
+                parts.getMetrics(),
+                parts.getTracer(),
+                parts.getJournal(),
+                parts.getTimerScheduler(),
+                parts.getTimeouts());
+    }
+
+    /**
+     * Creates a hierarchical configuration. A state handles the events its ancestors declare transitions for,
+     * in addition to its own ones which take precedence, and a transition exits and enters the states between
+     * its source, its target and their least common ancestor. Both are resolved here, so firing an event costs
+     * the same as in a flat configuration.
+     *
+     * @throws IllegalArgumentException if a state is its own ancestor.
+     */
+    private FsmConfig(
+            Map<S, Map<E, List<TransitionTarget<S, E, C>>>> transitions,
+            Map<S, List<TransitionAction<S, E, C>>> exitActions,
+            Map<Transition<S>, List<TransitionAction<S, E, C>>> beforeActions,
+            Map<Transition<S>, List<TransitionAction<S, E, C>>> afterActions,
+            Map<S, List<TransitionAction<S, E, C>>> enterActions,
+            TransitionFallback<S, E, C> transitionFallback,
+            Set<S> terminalStates,
+            Map<S, S> parents,
+            @Nullable FsmMetrics<S, E> metrics,
+            @Nullable FsmTracer<S, E, C> tracer,
+            @Nullable FsmJournal<S, E, C> journal,
+            @Nullable FsmTimerScheduler<S, E, C> timerScheduler,
+            Map<S, Map<E, Duration>> timeouts) {
+        this.table = FsmTransitionTable.compile(
+                transitions,
+                exitActions,
+                beforeActions,
+                afterActions,
+                enterActions,
+                terminalStates,
+                parents);
+        this.transitionFallback = transitionFallback;
+        this.terminalStates = terminalStates;
+        this.metrics = metrics;
+        this.tracer = tracer;
+        this.journal = journal;
+        this.timerScheduler = timerScheduler;
+        this.timeouts = timeouts;
+        this.dispatch = null;
+        this.guards = FsmGuards.compile(table, false);
+    }
+
+    private FsmConfig(
+            FsmConfig<S, E, C> config,
+            @Nullable FsmCompiledDispatch<S, E, C> dispatch,
+            @Nullable FsmGuards<S, E, C> guards) {
+        this.table = config.table;
+        this.transitionFallback = config.transitionFallback;
+        this.terminalStates = config.terminalStates;
+        this.metrics = config.metrics;
+        this.tracer = config.tracer;
+        this.journal = config.journal;
+        this.timerScheduler = config.timerScheduler;
+        this.timeouts = config.timeouts;
+        this.dispatch = dispatch;
+        this.guards = guards;
+    }
+
+    /**
+     * Compiles the parts collected by a builder, see {@link #builder()} and {@link #bulkBuilder(int)}.
+     */
+    public static <S, E, C extends FsmExecutionContext<S>> FsmConfig<S, E, C> of(@NonNull FsmConfigParts<S, E, C> parts) {
+        return new FsmConfig<>(parts);
+    }
+
+    public static <S, E, C extends FsmExecutionContext<S>> FsmConfigBuilder<S, E, C> builder() {
+        return new FsmConfigBuilder<>();
+    }
+
+    /**
+     * Creates a builder loading the configuration from a table of transitions, see {@link FsmBulkConfigBuilder}.
+     *
+     * @param expectedRows the number of transitions expected to be added.
+     */
+    public static <S, E, C extends FsmExecutionContext<S>> FsmBulkConfigBuilder<S, E, C> bulkBuilder(int expectedRows) {
+        return new FsmBulkConfigBuilder<>(expectedRows);
+    }
+
+    public Optional<Transition<S>> tryFindTransition(C context, E event, FsmEventArgs args) {
+        var chain = lookupChain(table.indexOf(context.getState()), context, event, args);
+        return chain != null ? Optional.of(chain.getTransition()) : Optional.empty();
+    }
+
+    public List<TransitionAction<S, E, C>> getExitActions(S state) {
+        return table.getExitActions(state);
+    }
+
+    public List<TransitionAction<S, E, C>> getBeforeActions(Transition<S> transition) {
+        return table.getBeforeActions(transition);
+    }
+
+    public List<TransitionAction<S, E, C>> getAfterActions(Transition<S> transition) {
+        return table.getAfterActions(transition);
+    }
+
+    public List<TransitionAction<S, E, C>> getEnterActions(S state) {
+        return table.getEnterActions(state);
+    }
+
+    public Set<S> getTerminalStates() {
+        return terminalStates;
+    }
+
+    /**
+     * @return the declared transitions, including the ones nested states inherit from their ancestors, in declaration
+     * order. The transitions resolved through the {@link TransitionFallback} are not known in advance.
+     */
+    public Set<Transition<S>> getTransitions() {
+        var result = new LinkedHashSet<Transition<S>>();
+        for (var chain : table.getDeclaredChains()) {
+            result.add(chain.getTransition());
+        }
+        return Collections.unmodifiableSet(result);
+    }
+
+    /**
+     * Returns an equivalent configuration whose transitions are selected and run by a class generated
+     * for it, so that the JIT can inline its predicates and actions into the engine.
+     *
+     * <p>
+     * Only configurations whose states and events are enums are compiled, this configuration is returned
+     * for any other one or if it doesn't fit in a class. The generated class stays loaded as long as
+     * the class loader of the library, so configurations should be compiled once, not per machine.
+     * </p>
+     *
+     * @return the compiled configuration, or this one.
+     */
+    @SuppressWarnings("unchecked")
+    public FsmConfig<S, E, C> compile() {
+        if (dispatch != null || !(table instanceof FsmEnumTransitionTable)) {
+            return this;
+        }
+        var compiled = FsmCompiledDispatch.compile((FsmEnumTransitionTable<S, E, C>) table);
+        return compiled != null ? new FsmConfig<>(this, compiled, guards) : this;
+    }
+
+    /**
+     * Returns an equivalent configuration which tries the predicates of adjacent exclusive targets, see
+     * {@link FsmTargetConfigBuilder#exclusive()}, in the order found to be the fastest. A sample of the lookups
+     * is profiled to estimate how often every predicate matches and how long it takes to evaluate, and every run
+     * of exclusive predicates is periodically sorted so that the cheap and likely to match ones are tried first.
+     * Other predicates keep their declared positions.
+     *
+     * <p>
+     * Compiled configurations, see {@link #compile()}, always try the predicates in the declared order.
+     * </p>
+     *
+     * @return the adaptive configuration, or this one if it has no adjacent exclusive targets.
+     */
+    public FsmConfig<S, E, C> withAdaptiveGuards() {
+        if (guards != null && guards.isAdaptive()) {
+            return this;
+        }
+        var adaptiveGuards = FsmGuards.compile(table, true);
+        return adaptiveGuards != null && adaptiveGuards.isAdaptive() ? new FsmConfig<>(this, dispatch, adaptiveGuards) : this;
+    }
+
+    /**
+     * Looks for the defects of the configuration: states machines starting in the specified ones never get to,
+     * reachable states from which no terminal state can be reached or without any transition, and targets shadowed
+     * by an unguarded target declared before them. See {@link FsmConfigBuilder#prune(Set)} to drop the dead parts.
+     *
+     * @param initialStates the states the machines start in.
+     * @throws IllegalArgumentException if an initial state is unknown to the configuration.
+     */
+    public FsmAnalysis<S, E> analyze(@NonNull Set<S> initialStates) {
+        return FsmAnalysis.of(table, initialStates);
+    }
+
+    public boolean isCompiled() {
+        return dispatch != null;
+    }
+
+    /**
+     * Returns a hash of the states of the configuration and the indices they are stored by in snapshots,
+     * see {@link FsmSnapshot}. Configurations declaring the same states agree on the fingerprint across
+     * processes as long as the string representations of the states are stable.
+     */
+    public long getFingerprint() {
+        var result = fingerprint;
+        if (result == 0L) {
+            result = table.computeFingerprint();
+            fingerprint = result;
+        }
+        return result;
+    }
+
+    /**
+     * Allocation free counterpart of {@link #tryFindTransition} used by the engine. Only a transition
+     * resolved through the {@link TransitionFallback} may allocate.
+     *
+     * @return the chain of the first target whose predicate matches, or {@code null} if there is none.
+     */
+    @Nullable
+    TransitionChain<S, E, C> findChain(C context, E event, FsmEventArgs args) {
+        return findChain(table.indexOf(context.getState()), context, event, args);
+    }
+
+    /**
+     * Same as {@link #findChain(FsmExecutionContext, Object, FsmEventArgs)} for a state that was already
+     * resolved to its index, {@code -1} standing for a state unknown to the configuration.
+     */
+    @Nullable
+    TransitionChain<S, E, C> findChain(int stateIndex, C context, E event, FsmEventArgs args) {
+        if (dispatch != null) {
+            return findCompiledChain(stateIndex, context, event, args, metrics);
+        }
+        if (metrics == null) {
+            return lookupChain(stateIndex, context, event, args);
+        }
+        var chains = stateIndex >= 0 ? table.getChains(stateIndex, event) : null;
+        var chain = lookupChain(stateIndex, chains, context, event, args);
+        if (chain == null) {
+            metrics.onTransitionNotFound(stateIndex >= 0 ? table.getState(stateIndex) : context.getState(), event);
+        } else if (chains == null) {
+            metrics.onFallbackUsed(chain.getTransition(), event);
+        } else {
+            metrics.onTransitionFound(chain.getTransition(), event);
+        }
+        return chain;
+    }
+
+    @Nullable
+    FsmMetrics<S, E> getMetrics() {
+        return metrics;
+    }
+
+    @Nullable
+    FsmTracer<S, E, C> getTracer() {
+        return tracer;
+    }
+
+    @Nullable
+    FsmJournal<S, E, C> getJournal() {
+        return journal;
+    }
+
+    @Nullable
+    FsmTimerScheduler<S, E, C> getTimerScheduler() {
+        return timerScheduler;
+    }
+
+    /**
+     * Arms the timeouts of the state of the machine and of its ancestors, as entering the state does.
+     * Called for a machine created or restored in its state, which it didn't enter.
+     */
+    void armTimeouts(C context) {
+        if (timerScheduler == null || timeouts.isEmpty()) {
+            return;
+        }
+        var parents = table.getParents();
+        for (var state = context.getState(); state != null; state = parents.get(state)) {
+            var stateTimeouts = timeouts.get(state);
+            if (stateTimeouts != null) {
+                for (var timeout : stateTimeouts.entrySet()) {
+                    timerScheduler.arm(context, state, timeout.getKey(), timeout.getValue());
+                }
+            }
+        }
+    }
+
+    @Nullable
+    FsmCompiledDispatch<S, E, C> getDispatch() {
+        return dispatch;
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    private TransitionChain<S, E, C> findCompiledChain(
+            int stateIndex,
+            C context,
+            E event,
+            FsmEventArgs args,
+            @Nullable FsmMetrics<S, E> metrics) {
+        var chainId = FsmCompiledDispatch.NO_CHAINS;
+        if (stateIndex >= 0) {
+            var eventIndex = ((FsmEnumTransitionTable<S, E, C>) table).eventIndexOf(event);
+            chainId = dispatch.findChain(stateIndex, eventIndex, context, event, args);
+        }
+        if (chainId >= 0) {
+            var chain = table.getDeclaredChains().get(chainId);
+            if (metrics != null) {
+                metrics.onTransitionFound(chain.getTransition(), event);
+            }
+            return chain;
+        }
+        if (chainId == FsmCompiledDispatch.NO_CHAINS) {
+            var transition = transitionFallback.get(context, event, args);
+            if (transition.isPresent()) {
+                var chain = table.getChain(transition.get());
+                if (metrics != null) {
+                    metrics.onFallbackUsed(chain.getTransition(), event);
+                }
+                return chain;
+            }
+        }
+        if (metrics != null) {
+            metrics.onTransitionNotFound(stateIndex >= 0 ? table.getState(stateIndex) : context.getState(), event);
+        }
+        return null;
+    }
+
+    @Nullable
+    private TransitionChain<S, E, C> lookupChain(int stateIndex, C context, E event, FsmEventArgs args) {
+        if (dispatch != null) {
+            return findCompiledChain(stateIndex, context, event, args, null);
+        }
+        return lookupChain(stateIndex, stateIndex >= 0 ? table.getChains(stateIndex, event) : null, context, event, args);
+    }
+
+    @Nullable
+    private TransitionChain<S, E, C> lookupChain(
+            int stateIndex,
+            @Nullable TransitionChain<S, E, C>[] chains,
+            C context,
+            E event,
+            FsmEventArgs args) {
+        if (chains == null) {
+            var transition = transitionFallback.get(context, event, args);
+            return transition.isPresent() ? table.getChain(transition.get()) : null;
+        }
+        if (guards != null && chains.length > 1) {
+            var site = guards.getSite(stateIndex, event);
+            if (site != null) {
+                return site.findChain(context, event, args);
+            }
+        }
+        for (var chain : chains) {
+            if (chain.getPredicate().test(context, event, args)) {
+                return chain;
+            }
+        }
+        return null;
+    }
+
+    FsmTransitionTable<S, E, C> getTable() {
+        return table;
+    }
+
+    boolean isTerminalState(S state) {
+        return table.isTerminal(state);
+    }
+}
@@ -0,0 +1,134 @@
+package com.github.maximvegorov.fsm4j;
+
+import lombok.NonNull;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Caches configurations by key and version, and lets the machines created from it move to a newer
+ * version of their configuration without being recreated.
+ *
+ * <p>
+ * Publishing a version doesn't touch the machines. A machine created by {@link #newFsm} checks whether
+ * its version is still the latest one on every {@code fire}, which costs a volatile read. If it isn't,
+ * the state of the machine is passed through the state mappings of the newer versions, so that renamed
+ * or removed states are replaced, and the machine continues with the latest configuration. A machine
+ * which lands in a terminal state of the new configuration is terminated and doesn't handle the event.
+ * </p>
+ *
+ * <p>
+ * Thread-safe. Versions of a key must be published in increasing order.
+ * </p>
+ *
+ * @param <K> the type of the keys the configurations are published under.
+ * @param <S> the type representing the states of the FSM.
+ * @param <E> the type representing the events of the FSM.
+ * @param <C> the type extending {@link FsmExecutionContext}.
+ */
+public final class FsmConfigRegistry<K, S, E, C extends FsmExecutionContext<S>> {
+    private final Map<K, ConcurrentSkipListMap<Long, FsmConfigVersion<S, E, C>>> versions = new ConcurrentHashMap<>();
+
+    public static <K, S, E, C extends FsmExecutionContext<S>> FsmConfigRegistry<K, S, E, C> create() {
+        return new FsmConfigRegistry<>();
+    }
+
+    /**
+     * @see #publish(Object, long, FsmConfig, UnaryOperator)
+     */
+    public FsmConfigVersion<S, E, C> publish(K key, long version, FsmConfig<S, E, C> config) {
+        return publish(key, version, config, UnaryOperator.identity());
+    }
+
+    /**
+     * Publishes the configuration as the latest version of the key.
+     *
+     * @param key the key of the configuration.
+     * @param version the version, greater than any version of the key published before.
+     * @param config the configuration.
+     * @param stateMapping maps the states of the previous version to the states of this one,
+     *                     applied to the machines migrating from it.
+     * @return the published version.
+     * @throws IllegalArgumentException if a version greater or equal was already published for the key.
+     */
+    public FsmConfigVersion<S, E, C> publish(
+            @NonNull K key,
+            long version,
+            @NonNull FsmConfig<S, E, C> config,
+            @NonNull UnaryOperator<S> stateMapping) {
+        var keyVersions = versions.computeIfAbsent(key, k -> new ConcurrentSkipListMap<>());
+        synchronized (keyVersions) {
+            var latest = keyVersions.lastEntry();
+            if (latest != null && latest.getKey() >= version) {
+                throw new IllegalArgumentException("Version " + version + " of " + key + " is not greater than " + latest.getKey());
+            }
+            var result = new FsmConfigVersion<>(version, config, stateMapping);
+            keyVersions.put(version, result);
+            if (latest != null) {
+                latest.getValue().setNext(result);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Returns the given version of the key, building and publishing it if it wasn't published yet.
+     * Meant for loading configurations on demand, the supplier is called at most once per version.
+     *
+     * @throws IllegalArgumentException if the version is missing but a greater one was already published.
+     */
+    public FsmConfigVersion<S, E, C> getOrPublish(
+            @NonNull K key,
+            long version,
+            @NonNull Supplier<FsmConfig<S, E, C>> config,
+            @NonNull UnaryOperator<S> stateMapping) {
+        var keyVersions = versions.computeIfAbsent(key, k -> new ConcurrentSkipListMap<>());
+        var result = keyVersions.get(version);
+        if (result != null) {
+            return result;
+        }
+        synchronized (keyVersions) {
+            result = keyVersions.get(version);
+            return result != null ? result : publish(key, version, config.get(), stateMapping);
+        }
+    }
+
+    public Optional<FsmConfigVersion<S, E, C>> getLatest(@NonNull K key) {
+        var keyVersions = versions.get(key);
+        if (keyVersions == null) {
+            return Optional.empty();
+        }
+        var latest = keyVersions.lastEntry();
+        return latest != null ? Optional.of(latest.getValue()) : Optional.empty();
+    }
+
+    public Optional<FsmConfigVersion<S, E, C>> get(@NonNull K key, long version) {
+        var keyVersions = versions.get(key);
+        return keyVersions != null ? Optional.ofNullable(keyVersions.get(version)) : Optional.empty();
+    }
+
+    /**
+     * Forgets the versions of the key older than the given one. Machines bound to them still migrate.
+     */
+    public void evictBefore(@NonNull K key, long version) {
+        var keyVersions = versions.get(key);
+        if (keyVersions != null) {
+            keyVersions.headMap(version).clear();
+        }
+    }
+
+    /**
+     * Creates a machine bound to the latest version of the key.
+     *
+     * @throws IllegalArgumentException if no version of the key was published.
+     */
+    public Fsm<S, E, C> newFsm(@NonNull K key, @NonNull C executionContext) {
+        var latest = getLatest(key)
+                .orElseThrow(() -> new IllegalArgumentException("No configuration published for " + key));
+        return Fsm.of(latest, executionContext);
+    }
+}
@@ -0,0 +1,54 @@
+package com.github.maximvegorov.fsm4j;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.ToString;
+
+import javax.annotation.Nullable;
+import java.util.Objects;
+import java.util.function.UnaryOperator;
+
+/**
+ * A configuration published to a {@link FsmConfigRegistry} under a version. Versions of the same key
+ * are linked from the oldest to the latest one, so a machine bound to a version notices a newer one
+ * with a single volatile read and migrates to it on its next {@code fire}, see {@link Fsm#of(FsmConfigVersion, FsmExecutionContext)}.
+ *
+ * @param <S> the type representing the states of the FSM.
+ * @param <E> the type representing the events of the FSM.
+ * @param <C> the type extending {@link FsmExecutionContext}.
+ */
+@Getter
+@ToString(onlyExplicitlyIncluded = true)
+public final class FsmConfigVersion<S, E, C extends FsmExecutionContext<S>> {
+    @ToString.Include
+    private final long version;
+    private final FsmConfig<S, E, C> config;
+    @Getter(AccessLevel.NONE)
+    private final UnaryOperator<S> stateMapping;
+    /**
+     * The version published after this one, {@code null} for the latest version.
+     */
+    @Nullable
+    private volatile FsmConfigVersion<S, E, C> next;
+
+    FsmConfigVersion(long version, FsmConfig<S, E, C> config, UnaryOperator<S> stateMapping) {
+        this.version = version;
+        this.config = config;
+        this.stateMapping = stateMapping;
+    }
+
+    public boolean isLatest() {
+        return next == null;
+    }
+
+    void setNext(FsmConfigVersion<S, E, C> next) {
+        this.next = next;
+    }
+
+    /**
+     * Maps a state of the previous version to the state of this one.
+     */
+    S mapState(S state) {
+        return Objects.requireNonNull(stateMapping.apply(state), "state mapping returned null");
+    }
+}
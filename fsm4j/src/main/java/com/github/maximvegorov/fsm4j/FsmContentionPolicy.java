@@ -0,0 +1,16 @@
+package com.github.maximvegorov.fsm4j;
+
+/**
+ * Defines how a {@link ConcurrentFsm} handles an event fired while another thread is running
+ * the actions of a transition of the same machine.
+ */
+public enum FsmContentionPolicy {
+    /**
+     * The caller waits on the per-instance lock until the running transition completes.
+     */
+    BLOCK,
+    /**
+     * The caller gets a {@link FsmBusyException} immediately.
+     */
+    REJECT
+}
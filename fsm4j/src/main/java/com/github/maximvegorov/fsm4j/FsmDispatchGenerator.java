@@ -0,0 +1,291 @@
+package com.github.maximvegorov.fsm4j;
+
+import com.github.maximvegorov.fsm4j.FsmClassWriter.Code;
+import com.github.maximvegorov.fsm4j.FsmClassWriter.Label;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the bytecode of a {@link FsmCompiledDispatch} for an enum transition table.
+ *
+ * <p>
+ * {@code findChain} switches on the state to a method per state, which switches on the event and tests
+ * the predicates of the declared chains in order. {@code runActions} switches on the chain to a method per
+ * chain, which switches on the phase and runs its actions. Switches over many states or chains are split
+ * into a tree of methods of at most {@value #FANOUT} branches, so every method stays small enough to be
+ * compiled by the JIT.
+ * </p>
+ */
+final class FsmDispatchGenerator<S, E, C extends FsmExecutionContext<S>> {
+    private static final int FANOUT = 64;
+    private static final String PACKAGE = "com/github/maximvegorov/fsm4j/";
+    private static final String CONTEXT = "L" + PACKAGE + "FsmExecutionContext;";
+    private static final String ARGS = "L" + PACKAGE + "FsmEventArgs;";
+    private static final String PREDICATE = PACKAGE + "TransitionPredicate";
+    private static final String ACTION = PACKAGE + "TransitionAction";
+    private static final String FIND_DESCRIPTOR = "(II" + CONTEXT + "Ljava/lang/Object;" + ARGS + ")I";
+    private static final String RUN_DESCRIPTOR =
+            "(II" + CONTEXT + "L" + PACKAGE + "Transition;Ljava/lang/Object;" + ARGS + ")V";
+    private static final int FIND_SLOTS = 5;
+    private static final int RUN_SLOTS = 6;
+
+    private final FsmEnumTransitionTable<S, E, C> table;
+    private final FsmClassWriter writer;
+    private final List<Object> constants = new ArrayList<>();
+    private final List<String> constantTypes = new ArrayList<>();
+    // constants by type, the same object may be both a predicate and an action
+    private final Map<String, Map<Object, String>> constantFields = Map.of(
+            PREDICATE, new IdentityHashMap<>(),
+            ACTION, new IdentityHashMap<>());
+
+    FsmDispatchGenerator(FsmEnumTransitionTable<S, E, C> table, String className) {
+        this.table = table;
+        this.writer = new FsmClassWriter(className, PACKAGE + "FsmCompiledDispatch");
+    }
+
+    /**
+     * @return the class file.
+     * @throws IllegalStateException if the table doesn't fit in a class.
+     */
+    byte[] generate() {
+        var stateMethods = new String[table.getStateCount()];
+        for (var stateIndex = 0; stateIndex < stateMethods.length; stateIndex++) {
+            stateMethods[stateIndex] = generateState(stateIndex);
+        }
+        var findRoot = generateSwitch("find", FIND_DESCRIPTOR, FIND_SLOTS, true, stateMethods, 0, stateMethods.length);
+        generateOverride("findChain", FIND_DESCRIPTOR, FIND_SLOTS, true, findRoot);
+
+        var chains = table.getDeclaredChains();
+        var chainMethods = new String[chains.size()];
+        for (var i = 0; i < chainMethods.length; i++) {
+            chainMethods[i] = generateChain(chains.get(i));
+        }
+        var runRoot = generateSwitch("run", RUN_DESCRIPTOR, RUN_SLOTS, false, chainMethods, 0, chainMethods.length);
+        generateOverride("runActions", RUN_DESCRIPTOR, RUN_SLOTS, false, runRoot);
+
+        generateConstructor();
+        generateStaticInitializer();
+        return writer.toByteArray();
+    }
+
+    Object[] getConstants() {
+        return constants.toArray();
+    }
+
+    /**
+     * @return the name of the method selecting the chain of the state, or {@code null} if it has none.
+     */
+    private String generateState(int stateIndex) {
+        var eventIndexes = new ArrayList<Integer>();
+        for (var eventIndex = 0; eventIndex < table.getEventCount(); eventIndex++) {
+            if (table.getChains(stateIndex, eventIndex) != null) {
+                eventIndexes.add(eventIndex);
+            }
+        }
+        if (eventIndexes.isEmpty()) {
+            return null;
+        }
+
+        var code = new Code(writer, FIND_SLOTS, FIND_SLOTS);
+        var keys = new int[eventIndexes.size()];
+        var labels = new Label[keys.length];
+        for (var i = 0; i < keys.length; i++) {
+            keys[i] = eventIndexes.get(i);
+            labels[i] = new Label();
+        }
+        var noChains = new Label();
+        code.iload(1).lookupswitch(noChains, keys, labels);
+        var test = writer.interfaceMethodRef(
+                PREDICATE, "test", "(" + CONTEXT + "Ljava/lang/Object;" + ARGS + ")Z");
+        for (var i = 0; i < keys.length; i++) {
+            code.mark(labels[i]);
+            for (var chain : table.getChains(stateIndex, keys[i])) {
+                var next = new Label();
+                code.op(Code.GETSTATIC, constantField(chain.getPredicate(), PREDICATE))
+                        .aload(2)
+                        .aload(3)
+                        .aload(4)
+                        .invokeinterface(test, 3)
+                        .ifeq(next)
+                        .pushInt(chain.getId())
+                        .op(Code.IRETURN)
+                        .mark(next);
+            }
+            code.pushInt(FsmCompiledDispatch.NO_MATCH).op(Code.IRETURN);
+        }
+        code.mark(noChains).pushInt(FsmCompiledDispatch.NO_CHAINS).op(Code.IRETURN);
+
+        var name = "state" + stateIndex;
+        writer.addMethod(FsmClassWriter.ACC_STATIC, name, FIND_DESCRIPTOR, code);
+        return name;
+    }
+
+    /**
+     * @return the name of the method running the actions of the chain, or {@code null} if it has none.
+     */
+    private String generateChain(TransitionChain<S, E, C> chain) {
+        if (!chain.hasActions()) {
+            return null;
+        }
+        var phases = new TransitionAction<?, ?, ?>[][]{
+                chain.getExitActions(),
+                chain.getBeforeActions(),
+                chain.getAfterActions(),
+                chain.getEnterActions()};
+
+        var code = new Code(writer, RUN_SLOTS, RUN_SLOTS);
+        var done = new Label();
+        var labels = new Label[phases.length];
+        for (var i = 0; i < phases.length; i++) {
+            labels[i] = phases[i].length != 0 ? new Label() : done;
+        }
+        code.iload(1).tableswitch(0, done, labels);
+        var run = writer.interfaceMethodRef(
+                ACTION, "run", "(" + CONTEXT + "L" + PACKAGE + "Transition;Ljava/lang/Object;" + ARGS + ")V");
+        for (var i = 0; i < phases.length; i++) {
+            if (phases[i].length == 0) {
+                continue;
+            }
+            code.mark(labels[i]);
+            for (var action : phases[i]) {
+                code.op(Code.GETSTATIC, constantField(action, ACTION))
+                        .aload(2)
+                        .aload(3)
+                        .aload(4)
+                        .aload(5)
+                        .invokeinterface(run, 4);
+            }
+            code.op(Code.RETURN);
+        }
+        code.mark(done).op(Code.RETURN);
+
+        var name = "chain" + chain.getId();
+        writer.addMethod(FsmClassWriter.ACC_STATIC, name, RUN_DESCRIPTOR, code);
+        return name;
+    }
+
+    /**
+     * Generates a static method passing its arguments to {@code callees[key]}, the key being its first argument.
+     *
+     * @return the name of the method, or {@code null} if all the callees in the range are {@code null}.
+     */
+    private String generateSwitch(
+            String prefix,
+            String descriptor,
+            int slots,
+            boolean returnsInt,
+            String[] callees,
+            int base,
+            int count) {
+        var chunk = 1;
+        while (chunk * FANOUT < count) {
+            chunk *= FANOUT;
+        }
+        var targets = new String[(count + chunk - 1) / chunk];
+        var empty = true;
+        for (var i = 0; i < targets.length; i++) {
+            var childBase = base + i * chunk;
+            targets[i] = chunk == 1
+                    ? callees[childBase]
+                    : generateSwitch(prefix, descriptor, slots, returnsInt, callees, childBase, Math.min(chunk, count - i * chunk));
+            empty &= targets[i] == null;
+        }
+        if (empty) {
+            return null;
+        }
+
+        var code = new Code(writer, slots + 1, slots);
+        var fallThrough = new Label();
+        var labels = new Label[targets.length];
+        for (var i = 0; i < targets.length; i++) {
+            labels[i] = targets[i] != null ? new Label() : fallThrough;
+        }
+        code.iload(0);
+        if (chunk > 1) {
+            code.pushInt(chunk).op(Code.IDIV);
+        }
+        code.tableswitch(base / chunk, fallThrough, labels);
+        for (var i = 0; i < targets.length; i++) {
+            if (targets[i] != null) {
+                code.mark(labels[i]);
+                loadArguments(code, 0, slots);
+                code.op(Code.INVOKESTATIC, writer.methodRef(writer.getClassName(), targets[i], descriptor))
+                        .op(returnsInt ? Code.IRETURN : Code.RETURN);
+            }
+        }
+        code.mark(fallThrough);
+        if (returnsInt) {
+            code.pushInt(FsmCompiledDispatch.NO_CHAINS).op(Code.IRETURN);
+        } else {
+            code.op(Code.RETURN);
+        }
+
+        var name = prefix + (chunk > 1 ? "Tree" : "") + base + "_" + count;
+        writer.addMethod(FsmClassWriter.ACC_STATIC, name, descriptor, code);
+        return name;
+    }
+
+    private void generateOverride(String name, String descriptor, int slots, boolean returnsInt, String root) {
+        var code = new Code(writer, slots, slots + 1);
+        if (root != null) {
+            loadArguments(code, 1, slots);
+            code.op(Code.INVOKESTATIC, writer.methodRef(writer.getClassName(), root, descriptor))
+                    .op(returnsInt ? Code.IRETURN : Code.RETURN);
+        } else if (returnsInt) {
+            code.pushInt(FsmCompiledDispatch.NO_CHAINS).op(Code.IRETURN);
+        } else {
+            code.op(Code.RETURN);
+        }
+        writer.addMethod(FsmClassWriter.ACC_PUBLIC | FsmClassWriter.ACC_FINAL, name, descriptor, code);
+    }
+
+    private void generateConstructor() {
+        var code = new Code(writer, 1, 1)
+                .aload(0)
+                .op(Code.INVOKESPECIAL, writer.methodRef(PACKAGE + "FsmCompiledDispatch", "<init>", "()V"))
+                .op(Code.RETURN);
+        writer.addMethod(FsmClassWriter.ACC_PUBLIC, "<init>", "()V", code);
+    }
+
+    private void generateStaticInitializer() {
+        var code = new Code(writer, 3, 1)
+                .op(Code.INVOKESTATIC, writer.methodRef(
+                        PACKAGE + "FsmCompiledDispatch",
+                        "takeConstants",
+                        "()[Ljava/lang/Object;"))
+                .astore(0);
+        for (var i = 0; i < constants.size(); i++) {
+            var type = constantTypes.get(i);
+            code.aload(0)
+                    .pushInt(i)
+                    .op(Code.AALOAD)
+                    .op(Code.CHECKCAST, writer.classRef(type))
+                    .op(Code.PUTSTATIC, writer.fieldRef(writer.getClassName(), "c" + i, "L" + type + ";"));
+        }
+        code.op(Code.RETURN);
+        writer.addMethod(FsmClassWriter.ACC_STATIC, "<clinit>", "()V", code);
+    }
+
+    private int constantField(Object constant, String type) {
+        var fields = constantFields.get(type);
+        var name = fields.get(constant);
+        if (name == null) {
+            name = "c" + constants.size();
+            constants.add(constant);
+            constantTypes.add(type);
+            fields.put(constant, name);
+            writer.addField(FsmClassWriter.ACC_STATIC | FsmClassWriter.ACC_FINAL, name, "L" + type + ";");
+        }
+        return writer.fieldRef(writer.getClassName(), name, "L" + type + ";");
+    }
+
+    private static void loadArguments(Code code, int first, int slots) {
+        code.iload(first).iload(first + 1);
+        for (var slot = first + 2; slot < first + slots; slot++) {
+            code.aload(slot);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.github.maximvegorov.fsm4j;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+import static java.util.Collections.emptyList;
+
+/**
+ * Dense {@link FsmTransitionTable} used when both states and events are enums.
+ * Every lookup is a couple of array loads indexed by {@link Enum#ordinal()}.
+ *
+ * @param <S> the type representing the states of the FSM.
+ * @param <E> the type representing the events of the FSM.
+ * @param <C> the type extending {@link FsmExecutionContext}.
+ */
+@SuppressWarnings("unchecked")
+final class FsmEnumTransitionTable<S, E, C extends FsmExecutionContext<S>> extends FsmTransitionTable<S, E, C> {
+    private final Object[] states;
+    private final Object[] events;
+    // [source][event] -> TransitionChain[], rows are null for states without transitions
+    private final TransitionChain<S, E, C>[][][] transitions;
+    private final Object[] exitActions;
+    // [source][target] -> List<TransitionAction>, rows are null for states without actions
+    private final Object[][] beforeActions;
+    private final Object[][] afterActions;
+    private final Object[] enterActions;
+    private final boolean[] terminalStates;
+
+    FsmEnumTransitionTable(
+            Class<?> stateType,
+            Class<?> eventType,
+            Map<S, Map<E, List<TransitionTarget<S, E, C>>>> transitions,
+            Map<S, List<TransitionAction<S, E, C>>> exitActions,
+            Map<Transition<S>, List<TransitionAction<S, E, C>>> beforeActions,
+            Map<Transition<S>, List<TransitionAction<S, E, C>>> afterActions,
+            Map<S, List<TransitionAction<S, E, C>>> enterActions,
+            Set<S> terminalStates,
+            Map<S, S> parents) {
+        super(parents);
+        this.states = stateType.getEnumConstants();
+        this.events = eventType.getEnumConstants();
+
+        this.exitActions = toStateArray(exitActions);
+        this.beforeActions = toTransitionArray(beforeActions);
+        this.afterActions = toTransitionArray(afterActions);
+        this.enterActions = toStateArray(enterActions);
+
+        this.terminalStates = new boolean[states.length];
+        for (var state : terminalStates) {
+            this.terminalStates[ordinal(state)] = true;
+        }
+
+        this.transitions = new TransitionChain[states.length][][];
+        compileChains(transitions, (state, stateChains) -> {
+            var row = new TransitionChain[events.length][];
+            for (var eventChains : stateChains.entrySet()) {
+                row[ordinal(eventChains.getKey())] = eventChains.getValue();
+            }
+            this.transitions[ordinal(state)] = row;
+        });
+    }
+
+    @Override
+    int getStateCount() {
+        return states.length;
+    }
+
+    @Override
+    int indexOf(S state) {
+        var stateOrdinal = ordinal(state);
+        return stateOrdinal < states.length && states[stateOrdinal] == state ? stateOrdinal : -1;
+    }
+
+    @Override
+    S getState(int index) {
+        return (S) states[index];
+    }
+
+    @Override
+    TransitionChain<S, E, C>[] getChains(int stateIndex, E event) {
+        var row = transitions[stateIndex];
+        if (row == null) {
+            return null;
+        }
+        var eventOrdinal = ordinal(event);
+        if (eventOrdinal >= events.length || events[eventOrdinal] != event) {
+            return null;
+        }
+        return row[eventOrdinal];
+    }
+
+    @Override
+    void forEachChains(int stateIndex, BiConsumer<E, TransitionChain<S, E, C>[]> consumer) {
+        var row = transitions[stateIndex];
+        if (row != null) {
+            for (var i = 0; i < row.length; i++) {
+                if (row[i] != null) {
+                    consumer.accept((E) events[i], row[i]);
+                }
+            }
+        }
+    }
+
+    int getEventCount() {
+        return events.length;
+    }
+
+    /**
+     * @return the ordinal of the event, or {@code -1} if it isn't a constant of the event enum.
+     */
+    int eventIndexOf(E event) {
+        var eventOrdinal = ordinal(event);
+        return eventOrdinal < events.length && events[eventOrdinal] == event ? eventOrdinal : -1;
+    }
+
+    /**
+     * @return the chains declared for the pair, or {@code null} if there are none.
+     */
+    @Nullable
+    TransitionChain<S, E, C>[] getChains(int stateIndex, int eventIndex) {
+        var row = transitions[stateIndex];
+        return row != null ? row[eventIndex] : null;
+    }
+
+    @Override
+    boolean isTerminal(int stateIndex) {
+        return terminalStates[stateIndex];
+    }
+
+    @Override
+    List<TransitionAction<S, E, C>> getExitActions(S state) {
+        return (List<TransitionAction<S, E, C>>) exitActions[ordinal(state)];
+    }
+
+    @Override
+    List<TransitionAction<S, E, C>> getBeforeActions(Transition<S> transition) {
+        return getTransitionActions(beforeActions, transition);
+    }
+
+    @Override
+    List<TransitionAction<S, E, C>> getAfterActions(Transition<S> transition) {
+        return getTransitionActions(afterActions, transition);
+    }
+
+    @Override
+    List<TransitionAction<S, E, C>> getEnterActions(S state) {
+        return (List<TransitionAction<S, E, C>>) enterActions[ordinal(state)];
+    }
+
+    @Override
+    public String toString() {
+        return "FsmEnumTransitionTable(states=" + Arrays.toString(states)
+                + ", events=" + Arrays.toString(events)
+                + ", terminalStates=" + Arrays.toString(terminalStates) + ")";
+    }
+
+    private List<TransitionAction<S, E, C>> getTransitionActions(Object[][] actions, Transition<S> transition) {
+        var row = actions[ordinal(transition.getSource())];
+        if (row == null) {
+            return emptyList();
+        }
+        return (List<TransitionAction<S, E, C>>) row[ordinal(transition.getTarget())];
+    }
+
+    private Object[] toStateArray(Map<S, List<TransitionAction<S, E, C>>> actions) {
+        var result = new Object[states.length];
+        Arrays.fill(result, emptyList());
+        for (var stateActions : actions.entrySet()) {
+            result[ordinal(stateActions.getKey())] = stateActions.getValue();
+        }
+        return result;
+    }
+
+    private Object[][] toTransitionArray(Map<Transition<S>, List<TransitionAction<S, E, C>>> actions) {
+        var result = new Object[states.length][];
+        for (var transitionActions : actions.entrySet()) {
+            var transition = transitionActions.getKey();
+            var row = result[ordinal(transition.getSource())];
+            if (row == null) {
+                row = new Object[states.length];
+                Arrays.fill(row, emptyList());
+                result[ordinal(transition.getSource())] = row;
+            }
+            row[ordinal(transition.getTarget())] = transitionActions.getValue();
+        }
+        return result;
+    }
+
+    private static int ordinal(Object value) {
+        return ((Enum<?>) value).ordinal();
+    }
+}
@@ -0,0 +1,27 @@
+package com.github.maximvegorov.fsm4j;
+
+/**
+ * A marker interface that represents event arguments for transitions in a finite state machine (FSM).
+ * This interface can be implemented by custom classes or used as a placeholder for transitions
+ * that do not require additional arguments.
+ * Static utility methods are provided to facilitate the use of common event argument instances.
+ *
+ * <p>
+ * The arguments passed to {@code fire} are only used until it returns, so mutable arguments such as
+ * {@link FsmSlotEventArgs} may be refilled and passed again to the next call. Whatever keeps arguments beyond
+ * the call, e.g. {@link FsmEventQueue}, {@link AsyncFsm} or a dispatcher, keeps {@link #retain()} of them.
+ * </p>
+ */
+public interface FsmEventArgs {
+    static FsmEventArgs empty() {
+        return FsmEmptyEventArgs.INSTANCE;
+    }
+
+    /**
+     * Returns arguments equal to these ones which stay unchanged when the caller reuses these ones.
+     * Immutable arguments return themselves, which is the default.
+     */
+    default FsmEventArgs retain() {
+        return this;
+    }
+}
@@ -0,0 +1,159 @@
+package com.github.maximvegorov.fsm4j;
+
+import lombok.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * The events an action posted or deferred to its own machine, see {@link FsmQueueExecutionContext}.
+ *
+ * <p>
+ * Posted events are fired once the running transition completes, in the order they were posted, and are
+ * dropped if the state they are fired in has no transition for them. Deferred events are fired after every
+ * later transition instead, until some state handles them. Either way the machine runs to completion: the
+ * {@code fire} that started the transition returns once no queued event can be handled anymore.
+ * </p>
+ *
+ * <p>
+ * Both queues are ring buffers which only allocate when they grow, so a machine reusing its context
+ * doesn't allocate in the steady state, unless the arguments are copied by {@link FsmEventArgs#retain()}.
+ * Not thread-safe, events may only be queued by the actions of the machine or before it is fired.
+ * </p>
+ *
+ * @param <E> the type representing the events of the FSM.
+ */
+public final class FsmEventQueue<E> {
+    private static final int DEFAULT_CAPACITY = 8;
+
+    private final Ring posted;
+    private final Ring deferred;
+
+    public FsmEventQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param initialCapacity the number of events each queue holds before growing.
+     */
+    public FsmEventQueue(int initialCapacity) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("initialCapacity: " + initialCapacity);
+        }
+        this.posted = new Ring(initialCapacity);
+        this.deferred = new Ring(initialCapacity);
+    }
+
+    public void post(@NonNull E event, @NonNull FsmEventArgs args) {
+        posted.add(event, args.retain());
+    }
+
+    public void defer(@NonNull E event, @NonNull FsmEventArgs args) {
+        deferred.add(event, args.retain());
+    }
+
+    public int getPostedCount() {
+        return posted.size;
+    }
+
+    public int getDeferredCount() {
+        return deferred.size;
+    }
+
+    public void clear() {
+        posted.clear();
+        deferred.clear();
+    }
+
+    Ring getPosted() {
+        return posted;
+    }
+
+    Ring getDeferred() {
+        return deferred;
+    }
+
+    /**
+     * A growable ring buffer of events and their arguments, indexed from its head.
+     */
+    static final class Ring {
+        private Object[] events;
+        private FsmEventArgs[] args;
+        private int head;
+        private int size;
+
+        Ring(int initialCapacity) {
+            var capacity = Integer.highestOneBit(initialCapacity);
+            if (capacity < initialCapacity) {
+                capacity <<= 1;
+            }
+            this.events = new Object[capacity];
+            this.args = new FsmEventArgs[capacity];
+        }
+
+        int size() {
+            return size;
+        }
+
+        @SuppressWarnings("unchecked")
+        <E> E getEvent(int index) {
+            return (E) events[slot(index)];
+        }
+
+        FsmEventArgs getArgs(int index) {
+            return args[slot(index)];
+        }
+
+        void add(Object event, FsmEventArgs eventArgs) {
+            if (size == events.length) {
+                grow();
+            }
+            var slot = slot(size);
+            events[slot] = event;
+            args[slot] = eventArgs;
+            size++;
+        }
+
+        void removeFirst() {
+            removeAt(0);
+        }
+
+        /**
+         * Removes the element keeping the order of the other ones, shifting the ones before it.
+         */
+        void removeAt(int index) {
+            for (var i = index; i > 0; i--) {
+                var to = slot(i);
+                var from = slot(i - 1);
+                events[to] = events[from];
+                args[to] = args[from];
+            }
+            events[head] = null;
+            args[head] = null;
+            head = (head + 1) & (events.length - 1);
+            size--;
+        }
+
+        void clear() {
+            Arrays.fill(events, null);
+            Arrays.fill(args, null);
+            head = 0;
+            size = 0;
+        }
+
+        private int slot(int index) {
+            return (head + index) & (events.length - 1);
+        }
+
+        private void grow() {
+            var newEvents = new Object[events.length * 2];
+            var newArgs = new FsmEventArgs[events.length * 2];
+            for (var i = 0; i < size; i++) {
+                newEvents[i] = events[slot(i)];
+                newArgs[i] = args[slot(i)];
+            }
+            events = newEvents;
+            args = newArgs;
+            head = 0;
+        }
+    }
+}
@@ -17,5 +17,9 @@ public enum FsmExecutionStatus {
     /**
      * Indicates that the FSM encountered an error or was interrupted, resulting in an abnormal termination.
      */
-    ABORTED
+    ABORTED,
+    /**
+     * Indicates that the FSM is running the actions of a transition asynchronously, see {@link AsyncFsm}.
+     */
+    TRANSITIONING
 }
@@ -0,0 +1,42 @@
+package com.github.maximvegorov.fsm4j;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.util.function.Predicate;
+
+/**
+ * @see FsmTracer#filtered(FsmTracer, Predicate)
+ */
+@RequiredArgsConstructor
+final class FsmFilteredTracer<S, E, C extends FsmExecutionContext<S>> implements FsmTracer<S, E, C> {
+    @NonNull
+    private final FsmTracer<S, E, C> tracer;
+    @NonNull
+    private final Predicate<? super C> filter;
+
+    @Override
+    public boolean isEnabled(C context) {
+        return filter.test(context) && tracer.isEnabled(context);
+    }
+
+    @Override
+    public void onTransitionStarted(C context, Transition<S> transition, E event, FsmEventArgs args) {
+        tracer.onTransitionStarted(context, transition, event, args);
+    }
+
+    @Override
+    public void onActionsStarted(C context, Transition<S> transition, FsmActionPhase phase) {
+        tracer.onActionsStarted(context, transition, phase);
+    }
+
+    @Override
+    public void onTransitionCompleted(C context, Transition<S> transition) {
+        tracer.onTransitionCompleted(context, transition);
+    }
+
+    @Override
+    public void onTransitionFailed(C context, Transition<S> transition, RuntimeException e) {
+        tracer.onTransitionFailed(context, transition, e);
+    }
+}
@@ -0,0 +1,305 @@
+package com.github.maximvegorov.fsm4j;
+
+import lombok.RequiredArgsConstructor;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Selects the chain of a state and event among several guarded ones faster than testing their predicates
+ * in the declared order. Runs of predicates created by the same {@link FsmArgsKey} are replaced by a lookup
+ * of the key value, and in adaptive mode runs of adjacent exclusive predicates are periodically reordered,
+ * see {@link FsmConfig#withAdaptiveGuards()}. Only the state/event pairs that benefit from either get a
+ * {@link Site}, the others are looked up linearly by {@link FsmConfig}.
+ *
+ * @param <S> the type representing the states of the FSM.
+ * @param <E> the type representing the events of the FSM.
+ * @param <C> the type extending {@link FsmExecutionContext}.
+ */
+final class FsmGuards<S, E, C extends FsmExecutionContext<S>> {
+    // one lookup of SAMPLE_PERIOD is profiled
+    private static final int SAMPLE_PERIOD = 16;
+    // the number of profiled lookups of a site between two reorders
+    private static final int REORDER_PERIOD = 64;
+
+    @Nullable
+    private final FsmEnumTransitionTable<S, E, C> enumTable;
+    // [state index] -> site by event ordinal for an enum table, event -> site otherwise,
+    // elements are null for states without sites
+    private final Object[] sites;
+    private final boolean adaptive;
+
+    private FsmGuards(FsmTransitionTable<S, E, C> table, boolean adaptive) {
+        this.enumTable = table instanceof FsmEnumTransitionTable ? (FsmEnumTransitionTable<S, E, C>) table : null;
+        this.sites = new Object[table.getStateCount()];
+        this.adaptive = adaptive;
+    }
+
+    /**
+     * @return the guards of the table, or {@code null} if no state/event pair of the table benefits from them.
+     */
+    @Nullable
+    static <S, E, C extends FsmExecutionContext<S>> FsmGuards<S, E, C> compile(
+            FsmTransitionTable<S, E, C> table,
+            boolean adaptive) {
+        var guards = new FsmGuards<>(table, adaptive);
+        var found = false;
+        for (var i = 0; i < guards.sites.length; i++) {
+            var stateIndex = i;
+            table.forEachChains(stateIndex, (event, chains) -> {
+                var site = Site.compile(chains, adaptive);
+                if (site != null) {
+                    guards.putSite(stateIndex, event, site);
+                }
+            });
+            found |= guards.sites[stateIndex] != null;
+        }
+        return found ? guards : null;
+    }
+
+    boolean isAdaptive() {
+        return adaptive;
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    Site<S, E, C> getSite(int stateIndex, E event) {
+        var stateSites = sites[stateIndex];
+        if (stateSites == null) {
+            return null;
+        }
+        if (enumTable != null) {
+            var eventIndex = enumTable.eventIndexOf(event);
+            return eventIndex >= 0 ? ((Site<S, E, C>[]) stateSites)[eventIndex] : null;
+        }
+        return ((Map<E, Site<S, E, C>>) stateSites).get(event);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void putSite(int stateIndex, E event, Site<S, E, C> site) {
+        if (enumTable != null) {
+            if (sites[stateIndex] == null) {
+                sites[stateIndex] = new Site[enumTable.getEventCount()];
+            }
+            ((Site<S, E, C>[]) sites[stateIndex])[enumTable.eventIndexOf(event)] = site;
+        } else {
+            if (sites[stateIndex] == null) {
+                sites[stateIndex] = new HashMap<E, Site<S, E, C>>();
+            }
+            ((Map<E, Site<S, E, C>>) sites[stateIndex]).put(event, site);
+        }
+    }
+
+    /**
+     * The chains of a state and event, split into steps tried in turn: a single chain tested by its predicate,
+     * or a {@link Decision} covering a run of chains guarded by the same key.
+     */
+    static final class Site<S, E, C extends FsmExecutionContext<S>> {
+        // the steps by their ids, i.e. in the declared order
+        private final Object[] steps;
+        // whether the step with the given id may be moved among the adjacent movable steps
+        private final boolean[] movable;
+        private final boolean adaptive;
+        private volatile Order order;
+        // statistics of the profiled lookups by step id, updated without synchronization as they are estimates
+        private final long[] matches;
+        private final long[] evaluations;
+        private final long[] nanos;
+        private int samples;
+
+        private Site(Object[] steps, boolean[] movable, boolean adaptive) {
+            this.steps = steps;
+            this.movable = movable;
+            this.adaptive = adaptive;
+            var ids = new int[steps.length];
+            for (var i = 0; i < ids.length; i++) {
+                ids[i] = i;
+            }
+            this.order = new Order(steps, ids);
+            this.matches = new long[adaptive ? steps.length : 0];
+            this.evaluations = new long[matches.length];
+            this.nanos = new long[matches.length];
+        }
+
+        @Nullable
+        static <S, E, C extends FsmExecutionContext<S>> Site<S, E, C> compile(
+                TransitionChain<S, E, C>[] chains,
+                boolean adaptive) {
+            if (chains.length < 2) {
+                return null;
+            }
+            var steps = new ArrayList<>(chains.length);
+            var movable = new boolean[chains.length];
+            var hasDecision = false;
+            var hasMovableRun = false;
+            for (var i = 0; i < chains.length; ) {
+                var end = findDecisionEnd(chains, i);
+                if (end - i > 1) {
+                    steps.add(Decision.of(chains, i, end));
+                    hasDecision = true;
+                    i = end;
+                } else {
+                    var chain = chains[i++];
+                    var step = steps.size();
+                    movable[step] = adaptive && chain.isExclusive() && chain.getPredicate() != FsmTransitionTable.ALWAYS;
+                    hasMovableRun |= movable[step] && step > 0 && movable[step - 1];
+                    steps.add(chain);
+                }
+            }
+            if (!hasDecision && !hasMovableRun) {
+                return null;
+            }
+            return new Site<>(steps.toArray(), Arrays.copyOf(movable, steps.size()), hasMovableRun);
+        }
+
+        /**
+         * @return the first chain whose predicate matches, in the current order, or {@code null} if there is none.
+         */
+        @Nullable
+        TransitionChain<S, E, C> findChain(C context, E event, FsmEventArgs args) {
+            var current = order;
+            if (adaptive && ThreadLocalRandom.current().nextInt(SAMPLE_PERIOD) == 0) {
+                return findProfiled(current, context, event, args);
+            }
+            for (var step : current.steps) {
+                var chain = test(step, context, event, args);
+                if (chain != null) {
+                    return chain;
+                }
+            }
+            return null;
+        }
+
+        @Nullable
+        private TransitionChain<S, E, C> findProfiled(Order current, C context, E event, FsmEventArgs args) {
+            TransitionChain<S, E, C> result = null;
+            for (var i = 0; i < current.steps.length && result == null; i++) {
+                var id = current.ids[i];
+                var start = System.nanoTime();
+                result = test(current.steps[i], context, event, args);
+                nanos[id] += System.nanoTime() - start;
+                evaluations[id]++;
+                if (result != null) {
+                    matches[id]++;
+                }
+            }
+            if (++samples >= REORDER_PERIOD) {
+                samples = 0;
+                reorder(current);
+            }
+            return result;
+        }
+
+        /**
+         * Sorts every run of adjacent movable steps by the estimated time spent testing a step per match, so that
+         * the expected time to find the matching one is minimal, then halves the statistics so that the order
+         * keeps following the load.
+         */
+        private void reorder(Order current) {
+            var ids = current.ids.clone();
+            var ranks = new double[ids.length];
+            for (var id = 0; id < ranks.length; id++) {
+                ranks[id] = matches[id] > 0
+                        ? (double) nanos[id] / evaluations[id] / matches[id]
+                        : Double.POSITIVE_INFINITY;
+                matches[id] >>= 1;
+                evaluations[id] >>= 1;
+                nanos[id] >>= 1;
+            }
+            for (var from = 0; from < ids.length; ) {
+                var to = from + 1;
+                if (movable[ids[from]]) {
+                    while (to < ids.length && movable[ids[to]]) {
+                        to++;
+                    }
+                    sort(ids, from, to, ranks);
+                }
+                from = to;
+            }
+            var orderedSteps = new Object[ids.length];
+            for (var i = 0; i < ids.length; i++) {
+                orderedSteps[i] = steps[ids[i]];
+            }
+            order = new Order(orderedSteps, ids);
+        }
+
+        @Nullable
+        @SuppressWarnings("unchecked")
+        private TransitionChain<S, E, C> test(Object step, C context, E event, FsmEventArgs args) {
+            if (step instanceof Decision) {
+                return ((Decision<S, E, C>) step).findChain(args);
+            }
+            var chain = (TransitionChain<S, E, C>) step;
+            return chain.getPredicate().test(context, event, args) ? chain : null;
+        }
+
+        /**
+         * Stable insertion sort of a range of step ids by their ranks, the runs are short.
+         */
+        private static void sort(int[] ids, int from, int to, double[] ranks) {
+            for (var i = from + 1; i < to; i++) {
+                var id = ids[i];
+                var j = i - 1;
+                while (j >= from && ranks[ids[j]] > ranks[id]) {
+                    ids[j + 1] = ids[j];
+                    j--;
+                }
+                ids[j + 1] = id;
+            }
+        }
+
+        private static int findDecisionEnd(TransitionChain<?, ?, ?>[] chains, int from) {
+            if (!(chains[from].getPredicate() instanceof FsmArgsKey.KeyPredicate)) {
+                return from + 1;
+            }
+            var key = ((FsmArgsKey.KeyPredicate<?, ?, ?>) chains[from].getPredicate()).getKey();
+            var end = from + 1;
+            while (end < chains.length
+                    && chains[end].getPredicate() instanceof FsmArgsKey.KeyPredicate
+                    && ((FsmArgsKey.KeyPredicate<?, ?, ?>) chains[end].getPredicate()).getKey() == key) {
+                end++;
+            }
+            return end;
+        }
+    }
+
+    /**
+     * The steps of a site in the order they are tried, along with their ids, i.e. their declared positions.
+     */
+    @RequiredArgsConstructor
+    private static final class Order {
+        private final Object[] steps;
+        private final int[] ids;
+    }
+
+    /**
+     * A run of chains guarded by the values of the same key, selected by the value of the key in the arguments.
+     * The first chain declared for a value wins, as it would when testing the predicates in turn.
+     */
+    @RequiredArgsConstructor
+    private static final class Decision<S, E, C extends FsmExecutionContext<S>> {
+        private final FsmArgsKey<?, ?> key;
+        private final Map<Object, TransitionChain<S, E, C>> chains;
+
+        static <S, E, C extends FsmExecutionContext<S>> Decision<S, E, C> of(
+                TransitionChain<S, E, C>[] chains,
+                int from,
+                int to) {
+            var key = ((FsmArgsKey.KeyPredicate<?, ?, ?>) chains[from].getPredicate()).getKey();
+            var valueChains = new HashMap<Object, TransitionChain<S, E, C>>((to - from) * 4 / 3 + 1);
+            for (var i = from; i < to; i++) {
+                valueChains.putIfAbsent(((FsmArgsKey.KeyPredicate<?, ?, ?>) chains[i].getPredicate()).getValue(), chains[i]);
+            }
+            return new Decision<>(key, valueChains);
+        }
+
+        @Nullable
+        TransitionChain<S, E, C> findChain(FsmEventArgs args) {
+            return chains.get(key.extract(args));
+        }
+    }
+}
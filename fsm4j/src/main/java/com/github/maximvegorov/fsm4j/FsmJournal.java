@@ -0,0 +1,22 @@
+package com.github.maximvegorov.fsm4j;
+
+/**
+ * Records the transitions accepted by the machines sharing a {@link FsmConfig}, set with
+ * {@link com.github.maximvegorov.fsm4j.builders.FsmConfigBuilder#journal(FsmJournal)}. See
+ * {@link com.github.maximvegorov.fsm4j.journal.FsmFileJournal} for a durable implementation.
+ *
+ * <p>
+ * Every engine appends a transition once its exit and before actions completed, right before the machine
+ * moves to the target, so the journal holds exactly the transitions that changed the state. An exception thrown
+ * by the journal aborts the machine in the source state, nothing being recorded. An after or enter action failing
+ * later aborts the machine in the target state, the transition being recorded.
+ * </p>
+ *
+ * @param <S> the type representing the states.
+ * @param <E> the type representing the events.
+ * @param <C> the type representing the execution context.
+ */
+@FunctionalInterface
+public interface FsmJournal<S, E, C extends FsmExecutionContext<S>> {
+    void append(C context, Transition<S> transition, E event, FsmEventArgs args);
+}
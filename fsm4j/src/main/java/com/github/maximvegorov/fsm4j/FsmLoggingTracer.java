@@ -0,0 +1,31 @@
+package com.github.maximvegorov.fsm4j;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A tracer writing the transitions to its own logger at {@code INFO} level, so a single machine can be traced
+ * without enabling {@code DEBUG} for the library. Usually combined with {@link FsmTracer#filtered} or
+ * {@link FsmTracer#sampled}.
+ */
+@Slf4j
+public final class FsmLoggingTracer<S, E, C extends FsmExecutionContext<S>> implements FsmTracer<S, E, C> {
+    @Override
+    public void onTransitionStarted(C context, Transition<S> transition, E event, FsmEventArgs args) {
+        log.info("Transition {} of {} fired by event {} with args {}", transition, context, event, args);
+    }
+
+    @Override
+    public void onActionsStarted(C context, Transition<S> transition, FsmActionPhase phase) {
+        log.info("Executing {} actions of transition {}", phase, transition);
+    }
+
+    @Override
+    public void onTransitionCompleted(C context, Transition<S> transition) {
+        log.info("Transition {} completed", transition);
+    }
+
+    @Override
+    public void onTransitionFailed(C context, Transition<S> transition, RuntimeException e) {
+        log.info("Error while transition {}", transition, e);
+    }
+}
@@ -0,0 +1,116 @@
+package com.github.maximvegorov.fsm4j;
+
+import lombok.ToString;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+
+import static java.util.Collections.emptyList;
+
+/**
+ * Hash based {@link FsmTransitionTable} used for arbitrary state and event types.
+ * States are still indexed densely, in the order they were collected from the configuration.
+ *
+ * @param <S> the type representing the states of the FSM.
+ * @param <E> the type representing the events of the FSM.
+ * @param <C> the type extending {@link FsmExecutionContext}.
+ */
+@ToString(onlyExplicitlyIncluded = true)
+@SuppressWarnings("unchecked")
+final class FsmMapTransitionTable<S, E, C extends FsmExecutionContext<S>> extends FsmTransitionTable<S, E, C> {
+    @ToString.Include
+    private final Map<S, Integer> indexes;
+    private final Object[] states;
+    // [source] -> event -> TransitionChain[], elements are null for states without transitions
+    private final Map<E, TransitionChain<S, E, C>[]>[] transitions;
+    private final Map<S, List<TransitionAction<S, E, C>>> exitActions;
+    private final Map<Transition<S>, List<TransitionAction<S, E, C>>> beforeActions;
+    private final Map<Transition<S>, List<TransitionAction<S, E, C>>> afterActions;
+    private final Map<S, List<TransitionAction<S, E, C>>> enterActions;
+    private final boolean[] terminalStates;
+
+    FsmMapTransitionTable(
+            Collection<S> states,
+            Map<S, Map<E, List<TransitionTarget<S, E, C>>>> transitions,
+            Map<S, List<TransitionAction<S, E, C>>> exitActions,
+            Map<Transition<S>, List<TransitionAction<S, E, C>>> beforeActions,
+            Map<Transition<S>, List<TransitionAction<S, E, C>>> afterActions,
+            Map<S, List<TransitionAction<S, E, C>>> enterActions,
+            Set<S> terminalStates,
+            Map<S, S> parents) {
+        super(parents);
+        this.states = states.toArray();
+        this.indexes = new HashMap<>(this.states.length * 2);
+        for (var i = 0; i < this.states.length; i++) {
+            indexes.put((S) this.states[i], i);
+        }
+
+        this.exitActions = exitActions;
+        this.beforeActions = beforeActions;
+        this.afterActions = afterActions;
+        this.enterActions = enterActions;
+
+        this.terminalStates = new boolean[this.states.length];
+        for (var state : terminalStates) {
+            this.terminalStates[indexOf(state)] = true;
+        }
+
+        this.transitions = new Map[this.states.length];
+        compileChains(transitions, (state, stateChains) -> this.transitions[indexOf(state)] = stateChains);
+    }
+
+    @Override
+    int getStateCount() {
+        return states.length;
+    }
+
+    @Override
+    int indexOf(S state) {
+        var index = indexes.get(state);
+        return index != null ? index : -1;
+    }
+
+    @Override
+    S getState(int index) {
+        return (S) states[index];
+    }
+
+    @Override
+    TransitionChain<S, E, C>[] getChains(int stateIndex, E event) {
+        var stateTransitions = transitions[stateIndex];
+        return stateTransitions != null ? stateTransitions.get(event) : null;
+    }
+
+    @Override
+    void forEachChains(int stateIndex, BiConsumer<E, TransitionChain<S, E, C>[]> consumer) {
+        var stateTransitions = transitions[stateIndex];
+        if (stateTransitions != null) {
+            stateTransitions.forEach(consumer);
+        }
+    }
+
+    @Override
+    boolean isTerminal(int stateIndex) {
+        return terminalStates[stateIndex];
+    }
+
+    @Override
+    List<TransitionAction<S, E, C>> getExitActions(S state) {
+        return exitActions.getOrDefault(state, emptyList());
+    }
+
+    @Override
+    List<TransitionAction<S, E, C>> getBeforeActions(Transition<S> transition) {
+        return beforeActions.getOrDefault(transition, emptyList());
+    }
+
+    @Override
+    List<TransitionAction<S, E, C>> getAfterActions(Transition<S> transition) {
+        return afterActions.getOrDefault(transition, emptyList());
+    }
+
+    @Override
+    List<TransitionAction<S, E, C>> getEnterActions(S state) {
+        return enterActions.getOrDefault(state, emptyList());
+    }
+}
@@ -0,0 +1,59 @@
+package com.github.maximvegorov.fsm4j;
+
+/**
+ * Receives measurements of the machines sharing a {@link FsmConfig}, set with
+ * {@link com.github.maximvegorov.fsm4j.builders.FsmConfigBuilder#metrics(FsmMetrics)}. Methods are invoked
+ * synchronously by the firing thread, possibly by many threads at once, so implementations must be thread-safe
+ * and cheap.
+ *
+ * <p>
+ * Every engine reports lookups, timings, aborts and terminations.
+ * When no metrics are configured the engine doesn't even read the clock.
+ * </p>
+ *
+ * @param <S> the type representing the states.
+ * @param <E> the type representing the events.
+ */
+public interface FsmMetrics<S, E> {
+    /**
+     * Called when the event matched a declared transition.
+     */
+    default void onTransitionFound(Transition<S> transition, E event) {
+    }
+
+    /**
+     * Called when the event matched neither a declared transition nor the {@link TransitionFallback}.
+     */
+    default void onTransitionNotFound(S state, E event) {
+    }
+
+    /**
+     * Called when the transition was resolved by the {@link TransitionFallback}.
+     */
+    default void onFallbackUsed(Transition<S> transition, E event) {
+    }
+
+    /**
+     * Called after the actions of a phase completed, for the phases having actions only.
+     */
+    default void onActionsCompleted(Transition<S> transition, FsmActionPhase phase, long nanos) {
+    }
+
+    /**
+     * Called after all the actions of the transition completed.
+     */
+    default void onTransitionCompleted(Transition<S> transition, long nanos) {
+    }
+
+    /**
+     * Called when an action failed and the machine was aborted.
+     */
+    default void onAborted(Transition<S> transition, RuntimeException e) {
+    }
+
+    /**
+     * Called when the machine reached a terminal state or was closed.
+     */
+    default void onTerminated(S state) {
+    }
+}
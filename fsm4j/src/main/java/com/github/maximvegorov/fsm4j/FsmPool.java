@@ -0,0 +1,575 @@
+package com.github.maximvegorov.fsm4j;
+
+import lombok.NonNull;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A compact store of finite state machines sharing one {@link FsmConfig}. Instead of an {@link Fsm}
+ * object per machine the pool keeps the index of the current state of every machine in a {@code short}
+ * array and its execution status in two bitsets, so a machine costs a little more than two bytes.
+ * Machines are addressed by the id returned from {@link #add}.
+ *
+ * <p>
+ * Predicates and actions receive a shared {@link FsmPoolExecutionContext} that points to the machine
+ * being fired. The pool supports up to 65536 distinct states, and no timeouts.
+ * </p>
+ *
+ * @param <S> the type representing the state.
+ * @param <E> the type representing the event that triggers state transitions.
+ *
+ * Not thread-safe.
+ */
+public final class FsmPool<S, E> {
+    private static final int MAX_STATE_COUNT = 1 << Short.SIZE;
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int BROADCAST_THRESHOLD = 1 << 12;
+
+    private final FsmConfig<S, E, FsmPoolExecutionContext<S>> config;
+    private final FsmTransitionTable<S, E, FsmPoolExecutionContext<S>> table;
+    private final FsmPoolExecutionContext<S> context;
+    @Nullable
+    private final FsmMetrics<S, E> metrics;
+    @Nullable
+    private final FsmTracer<S, E, FsmPoolExecutionContext<S>> tracer;
+    @Nullable
+    private final FsmJournal<S, E, FsmPoolExecutionContext<S>> journal;
+    private short[] states;
+    private long[] terminated;
+    private long[] aborted;
+    private int size;
+    @Nullable
+    private FsmPoolIndex<S, E> index;
+
+    private FsmPool(FsmConfig<S, E, FsmPoolExecutionContext<S>> config, int initialCapacity) {
+        checkNoTimers(config);
+        this.config = config;
+        this.table = config.getTable();
+        if (table.getStateCount() > MAX_STATE_COUNT) {
+            throw new IllegalArgumentException("Too many states: " + table.getStateCount());
+        }
+        this.context = new FsmPoolExecutionContext<>(this);
+        this.metrics = config.getMetrics();
+        this.tracer = config.getTracer();
+        this.journal = config.getJournal();
+        this.states = new short[initialCapacity];
+        this.terminated = new long[bitsetLength(initialCapacity)];
+        this.aborted = new long[bitsetLength(initialCapacity)];
+    }
+
+    private FsmPool(
+            FsmConfig<S, E, FsmPoolExecutionContext<S>> config,
+            short[] states,
+            long[] terminated,
+            long[] aborted,
+            int size) {
+        checkNoTimers(config);
+        this.config = config;
+        this.table = config.getTable();
+        this.context = new FsmPoolExecutionContext<>(this);
+        this.metrics = config.getMetrics();
+        this.tracer = config.getTracer();
+        this.journal = config.getJournal();
+        this.states = states;
+        this.terminated = terminated;
+        this.aborted = aborted;
+        this.size = size;
+    }
+
+    /**
+     * Creates an empty pool of machines sharing the provided configuration.
+     *
+     * @param config the configuration of every machine in the pool.
+     * @param initialCapacity the number of machines the pool can hold before growing.
+     * @param <S> the type defining the states within the finite state machine.
+     * @param <E> the type defining the events that can trigger state transitions.
+     * @return a new empty {@code FsmPool}.
+     * @throws IllegalArgumentException if the configuration has a timer scheduler.
+     */
+    public static <S, E> FsmPool<S, E> of(
+            @NonNull FsmConfig<S, E, FsmPoolExecutionContext<S>> config,
+            int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initialCapacity: " + initialCapacity);
+        }
+        return new FsmPool<>(config, initialCapacity);
+    }
+
+    public static <S, E> FsmPool<S, E> of(@NonNull FsmConfig<S, E, FsmPoolExecutionContext<S>> config) {
+        return of(config, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Adds a machine in the specified state.
+     *
+     * @param state the initial state of the machine, must be known to the configuration.
+     * @return the id of the new machine.
+     * @throws IllegalArgumentException if the state is unknown to the configuration.
+     */
+    public int add(@NonNull S state) {
+        var stateIndex = checkState(state);
+        if (size == states.length) {
+            grow();
+        }
+        var id = size++;
+        states[id] = (short) stateIndex;
+        if (table.isTerminal(stateIndex)) {
+            setBit(terminated, id);
+        }
+        if (index != null) {
+            index.add(id, stateIndex);
+        }
+        return id;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public FsmConfig<S, E, FsmPoolExecutionContext<S>> getConfig() {
+        return config;
+    }
+
+    /**
+     * Returns the index of the machines by their current state, building it on the first call.
+     * From then on the index is kept up to date on every transition, so it should only be requested
+     * for pools that are queried by state.
+     */
+    public FsmPoolIndex<S, E> index() {
+        if (index == null) {
+            index = new FsmPoolIndex<>(this, table, states);
+        }
+        return index;
+    }
+
+    public S getState(int id) {
+        return table.getState(getStateIndex(checkId(id)));
+    }
+
+    public FsmExecutionStatus getExecutionStatus(int id) {
+        checkId(id);
+        if (getBit(aborted, id)) {
+            return FsmExecutionStatus.ABORTED;
+        }
+        if (getBit(terminated, id)) {
+            return FsmExecutionStatus.TERMINATED;
+        }
+        return FsmExecutionStatus.RUNNING;
+    }
+
+    /**
+     * Triggers a state transition of the specified machine.
+     *
+     * @see Fsm#fire(Object)
+     */
+    public boolean fire(int id, E event) {
+        return fire(id, event, FsmEventArgs.empty());
+    }
+
+    /**
+     * Triggers a state transition of the specified machine using the specified event and arguments.
+     * Behaves as {@link Fsm#fire(Object, FsmEventArgs)} does for a standalone machine.
+     *
+     * @param id the id of the machine.
+     * @param event the event used to trigger a state transition.
+     * @param args additional arguments to be passed during the transition.
+     * @return true if a valid transition was executed, false otherwise.
+     * @throws IllegalStateException if the machine is not in the running state.
+     */
+    public boolean fire(int id, @NonNull E event, @NonNull FsmEventArgs args) {
+        if (getExecutionStatus(id) != FsmExecutionStatus.RUNNING) {
+            throw new IllegalStateException("Must be running");
+        }
+
+        // an action may fire another machine of the same pool
+        var previousId = context.getMachineId();
+        context.setMachineId(id);
+        try {
+            var chain = config.findChain(getStateIndex(id), context, event, args);
+
+            return chain != null && doTransition(context, id, chain, event, args);
+        } finally {
+            context.setMachineId(previousId);
+        }
+    }
+
+    public FsmBatchResult fireAll(int id, @NonNull E[] events) {
+        return fireAll(id, events, null);
+    }
+
+    /**
+     * Fires a run of events of the specified machine in one call.
+     * Behaves as {@link Fsm#fireAll(Object[], FsmEventArgs[])} does for a standalone machine.
+     *
+     * @param id the id of the machine.
+     * @param events the events to fire.
+     * @param args the arguments of the events, element-wise; {@code null} stands for empty arguments.
+     * @return the number of accepted events and the index processing stopped at.
+     * @throws IllegalStateException if the machine is not in the running state.
+     */
+    public FsmBatchResult fireAll(int id, @NonNull E[] events, @Nullable FsmEventArgs[] args) {
+        if (args != null && args.length != events.length) {
+            throw new IllegalArgumentException("events and args differ in length");
+        }
+        if (getExecutionStatus(id) != FsmExecutionStatus.RUNNING) {
+            throw new IllegalStateException("Must be running");
+        }
+
+        var previousId = context.getMachineId();
+        context.setMachineId(id);
+        try {
+            var acceptedCount = 0;
+            for (var i = 0; i < events.length; i++) {
+                var event = Objects.requireNonNull(events[i], "event is null");
+                var eventArgs = args != null ? Objects.requireNonNull(args[i], "args is null") : FsmEventArgs.empty();
+                var chain = config.findChain(getStateIndex(id), context, event, eventArgs);
+                if (chain == null) {
+                    return new FsmBatchResult(acceptedCount, i, getExecutionStatus(id), null);
+                }
+                try {
+                    doTransition(context, id, chain, event, eventArgs);
+                } catch (RuntimeException e) {
+                    return new FsmBatchResult(acceptedCount, i, getExecutionStatus(id), e);
+                }
+                acceptedCount++;
+                if (getBit(terminated, id)) {
+                    return new FsmBatchResult(acceptedCount, i, FsmExecutionStatus.TERMINATED, null);
+                }
+            }
+            return new FsmBatchResult(acceptedCount, -1, FsmExecutionStatus.RUNNING, null);
+        } finally {
+            context.setMachineId(previousId);
+        }
+    }
+
+    /**
+     * @see #broadcast(Object, FsmEventArgs)
+     */
+    public FsmBroadcastResult broadcast(E event) {
+        return broadcast(event, FsmEventArgs.empty());
+    }
+
+    /**
+     * Fires the event at every machine of the pool. Unlike {@link #fire(int, Object, FsmEventArgs)} machines
+     * that are not running are skipped and an exception thrown while firing a machine is collected in the result,
+     * so one failing machine doesn't stop the others.
+     *
+     * <p>
+     * Large pools are split into ranges of machines fired in parallel in the common
+     * {@link java.util.concurrent.ForkJoinPool}, in which case predicates, actions and metrics are called
+     * concurrently, each with its own {@link FsmPoolExecutionContext}, and must not fire or add machines
+     * of the pool. The {@link #index()} is then rebuilt once every machine is fired.
+     * </p>
+     *
+     * @param event the event to fire.
+     * @param args additional arguments to be passed during the transitions.
+     * @return the numbers of accepted, rejected, aborted and skipped machines and the exceptions thrown.
+     */
+    public FsmBroadcastResult broadcast(@NonNull E event, @NonNull FsmEventArgs args) {
+        return broadcast(null, size, event, args);
+    }
+
+    /**
+     * Fires the event at the machines with the specified ids.
+     *
+     * @param ids the ids of the machines in ascending order, {@code null} standing for the whole pool.
+     * @see #broadcast(Object, FsmEventArgs)
+     */
+    FsmBroadcastResult broadcast(@Nullable int[] ids, int count, E event, FsmEventArgs args) {
+        var task = new BroadcastTask(ids, 0, count, event, args);
+        if (count <= BROADCAST_THRESHOLD) {
+            task.fireRange();
+        } else {
+            // ranges are fired concurrently, the index is not thread-safe
+            var currentIndex = index;
+            index = null;
+            try {
+                ForkJoinPool.commonPool().invoke(task);
+            } finally {
+                index = currentIndex;
+                if (currentIndex != null) {
+                    currentIndex.rebuild(states, size);
+                }
+            }
+        }
+        return new FsmBroadcastResult(
+                task.acceptedCount,
+                task.rejectedCount,
+                task.abortedCount,
+                task.skippedCount,
+                task.failures != null ? Collections.unmodifiableMap(task.failures) : Collections.emptyMap());
+    }
+
+    /**
+     * Changes the execution status of the specified machine to {@code TERMINATED}, if it is running.
+     */
+    public void close(int id) {
+        if (getExecutionStatus(id) == FsmExecutionStatus.RUNNING) {
+            terminate(id);
+        }
+    }
+
+    /**
+     * Creates a pool taking the ownership of the arrays, used when restoring from a snapshot.
+     */
+    static <S, E> FsmPool<S, E> restore(
+            FsmConfig<S, E, FsmPoolExecutionContext<S>> config,
+            short[] states,
+            long[] terminated,
+            long[] aborted,
+            int size) {
+        return new FsmPool<>(config, states, terminated, aborted, size);
+    }
+
+    short[] getStateIndices() {
+        return states;
+    }
+
+    long[] getTerminatedBits() {
+        return terminated;
+    }
+
+    long[] getAbortedBits() {
+        return aborted;
+    }
+
+    void setState(int id, S state) {
+        setStateIndex(checkId(id), checkState(state));
+    }
+
+    private boolean doTransition(
+            FsmPoolExecutionContext<S> context,
+            int id,
+            TransitionChain<S, E, FsmPoolExecutionContext<S>> chain,
+            E event,
+            FsmEventArgs args) {
+        var transition = chain.getTransition();
+        var tracer = this.tracer != null && this.tracer.isEnabled(context) ? this.tracer : null;
+        if (tracer != null) {
+            tracer.onTransitionStarted(context, transition, event, args);
+        }
+        var startNanos = metrics != null ? System.nanoTime() : 0L;
+        try {
+            runActions(context, chain.getExitActions(), FsmActionPhase.EXIT, tracer, transition, event, args);
+            runActions(context, chain.getBeforeActions(), FsmActionPhase.BEFORE, tracer, transition, event, args);
+
+            if (chain.getTargetIndex() < 0) {
+                throw new IllegalStateException("Unknown state: " + transition.getTarget());
+            }
+            if (journal != null) {
+                journal.append(context, transition, event, args);
+            }
+            setStateIndex(id, chain.getTargetIndex());
+
+            runActions(context, chain.getAfterActions(), FsmActionPhase.AFTER, tracer, transition, event, args);
+            runActions(context, chain.getEnterActions(), FsmActionPhase.ENTER, tracer, transition, event, args);
+
+            if (metrics != null) {
+                metrics.onTransitionCompleted(transition, System.nanoTime() - startNanos);
+            }
+
+            if (table.isTerminal(getStateIndex(id))) {
+                terminate(id);
+            }
+
+            if (tracer != null) {
+                tracer.onTransitionCompleted(context, transition);
+            }
+
+            return true;
+        } catch (RuntimeException e) {
+            if (tracer != null) {
+                tracer.onTransitionFailed(context, transition, e);
+            }
+            if (metrics != null) {
+                metrics.onAborted(transition, e);
+            }
+            setBit(aborted, id);
+            throw e;
+        }
+    }
+
+    private void runActions(
+            FsmPoolExecutionContext<S> context,
+            TransitionAction<S, E, FsmPoolExecutionContext<S>>[] actions,
+            FsmActionPhase phase,
+            @Nullable FsmTracer<S, E, FsmPoolExecutionContext<S>> tracer,
+            Transition<S> transition,
+            E event,
+            FsmEventArgs args) {
+        if (actions.length == 0) {
+            return;
+        }
+        if (tracer != null) {
+            tracer.onActionsStarted(context, transition, phase);
+        }
+        var startNanos = metrics != null ? System.nanoTime() : 0L;
+        for (var action : actions) {
+            action.run(context, transition, event, args);
+        }
+        if (metrics != null) {
+            metrics.onActionsCompleted(transition, phase, System.nanoTime() - startNanos);
+        }
+    }
+
+    private void terminate(int id) {
+        setBit(terminated, id);
+        if (metrics != null) {
+            metrics.onTerminated(table.getState(getStateIndex(id)));
+        }
+    }
+
+    private void setStateIndex(int id, int stateIndex) {
+        if (index != null) {
+            index.move(id, getStateIndex(id), stateIndex);
+        }
+        states[id] = (short) stateIndex;
+    }
+
+    private int getStateIndex(int id) {
+        return Short.toUnsignedInt(states[id]);
+    }
+
+    private int checkId(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("id: " + id);
+        }
+        return id;
+    }
+
+    private int checkState(S state) {
+        var stateIndex = table.indexOf(state);
+        if (stateIndex < 0) {
+            throw new IllegalArgumentException("Unknown state: " + state);
+        }
+        return stateIndex;
+    }
+
+    private void grow() {
+        var capacity = Math.max(DEFAULT_CAPACITY, states.length + (states.length >> 1));
+        states = Arrays.copyOf(states, capacity);
+        terminated = Arrays.copyOf(terminated, bitsetLength(capacity));
+        aborted = Arrays.copyOf(aborted, bitsetLength(capacity));
+    }
+
+    /**
+     * The machines of a pool share their context, which the {@link com.github.maximvegorov.fsm4j.timer.FsmTimerScheduler}
+     * tells the machines apart by, so a timeout could neither be cancelled nor routed to its machine.
+     */
+    private static void checkNoTimers(FsmConfig<?, ?, ?> config) {
+        if (config.getTimerScheduler() != null) {
+            throw new IllegalArgumentException("Timeouts are not supported by a pool");
+        }
+    }
+
+    private static int bitsetLength(int capacity) {
+        return (capacity + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    private static boolean getBit(long[] bitset, int index) {
+        return (bitset[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private static void setBit(long[] bitset, int index) {
+        bitset[index >>> 6] |= 1L << index;
+    }
+
+    /**
+     * Fires an event at a range of machines, splitting it in halves while it is large. Halves are split
+     * between machines whose status bits are held by distinct words of the bitsets, so that concurrent
+     * tasks never update the same word.
+     */
+    private final class BroadcastTask extends RecursiveAction {
+        @Nullable
+        private final int[] ids;
+        private final int from;
+        private final int to;
+        private final E event;
+        private final FsmEventArgs args;
+        private int acceptedCount;
+        private int rejectedCount;
+        private int abortedCount;
+        private int skippedCount;
+        @Nullable
+        private Map<Integer, RuntimeException> failures;
+
+        BroadcastTask(@Nullable int[] ids, int from, int to, E event, FsmEventArgs args) {
+            this.ids = ids;
+            this.from = from;
+            this.to = to;
+            this.event = event;
+            this.args = args;
+        }
+
+        @Override
+        protected void compute() {
+            var middle = (from + to) >>> 1;
+            while (middle < to && idAt(middle) >>> 6 == idAt(middle - 1) >>> 6) {
+                middle++;
+            }
+            if (to - from <= BROADCAST_THRESHOLD || middle == to) {
+                fireRange();
+                return;
+            }
+            var left = new BroadcastTask(ids, from, middle, event, args);
+            var right = new BroadcastTask(ids, middle, to, event, args);
+            invokeAll(left, right);
+            merge(left);
+            merge(right);
+        }
+
+        void fireRange() {
+            var taskContext = new FsmPoolExecutionContext<>(FsmPool.this);
+            for (var i = from; i < to; i++) {
+                var id = idAt(i);
+                if (getExecutionStatus(id) != FsmExecutionStatus.RUNNING) {
+                    skippedCount++;
+                    continue;
+                }
+                taskContext.setMachineId(id);
+                try {
+                    var chain = config.findChain(getStateIndex(id), taskContext, event, args);
+                    if (chain == null) {
+                        rejectedCount++;
+                    } else {
+                        doTransition(taskContext, id, chain, event, args);
+                        acceptedCount++;
+                    }
+                } catch (RuntimeException e) {
+                    if (getBit(aborted, id)) {
+                        abortedCount++;
+                    }
+                    addFailure(id, e);
+                }
+            }
+        }
+
+        private int idAt(int i) {
+            return ids != null ? checkId(ids[i]) : i;
+        }
+
+        private void merge(BroadcastTask task) {
+            acceptedCount += task.acceptedCount;
+            rejectedCount += task.rejectedCount;
+            abortedCount += task.abortedCount;
+            skippedCount += task.skippedCount;
+            if (task.failures != null) {
+                task.failures.forEach(this::addFailure);
+            }
+        }
+
+        private void addFailure(int id, RuntimeException e) {
+            if (failures == null) {
+                failures = new LinkedHashMap<>();
+            }
+            failures.put(id, e);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.github.maximvegorov.fsm4j;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.annotation.Nonnull;
+
+/**
+ * The execution context of the machines stored in a {@link FsmPool}. There is a single instance per pool,
+ * plus one per range of machines of a {@link FsmPool#broadcast}, it is pointed to the machine being fired
+ * before predicates and actions are invoked, so it must not be retained by them.
+ *
+ * @param <S> the type representing the state managed by this execution context.
+ */
+public final class FsmPoolExecutionContext<S> implements FsmExecutionContext<S> {
+    private final FsmPool<S, ?> pool;
+    @Getter
+    @Setter(AccessLevel.PACKAGE)
+    private int machineId = -1;
+
+    FsmPoolExecutionContext(FsmPool<S, ?> pool) {
+        this.pool = pool;
+    }
+
+    @Nonnull
+    @Override
+    public S getState() {
+        return pool.getState(machineId);
+    }
+
+    @Override
+    public void setState(S value) {
+        pool.setState(machineId, value);
+    }
+
+    @Override
+    public String toString() {
+        return "FsmPoolExecutionContext(machineId=" + machineId + ")";
+    }
+}
@@ -0,0 +1,217 @@
+package com.github.maximvegorov.fsm4j;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An index of the machines of a {@link FsmPool} by their current state, obtained with {@link FsmPool#index()}.
+ * The ids of the machines in every state are kept in a dense set which the pool updates on every transition,
+ * so finding the machines to fire an event at costs time proportional to the number of matching machines
+ * rather than to the size of the pool.
+ *
+ * <p>
+ * The states an event is declared for are resolved against the configuration on the first query of the event
+ * and cached. The {@link TransitionFallback} of the configuration is never consulted.
+ * </p>
+ *
+ * @param <S> the type representing the state.
+ * @param <E> the type representing the event that triggers state transitions.
+ *
+ * Not thread-safe.
+ */
+public final class FsmPoolIndex<S, E> {
+    private static final int[] NO_IDS = new int[0];
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final FsmPool<S, E> pool;
+    private final FsmTransitionTable<S, E, FsmPoolExecutionContext<S>> table;
+    // state index -> ids of the machines in the state, the first counts[state index] of them are valid
+    private final int[][] members;
+    private final int[] counts;
+    // machine id -> position of the machine among the members of its state
+    private int[] positions;
+    private final Map<E, EventStates> eventStates = new HashMap<>();
+
+    FsmPoolIndex(FsmPool<S, E> pool, FsmTransitionTable<S, E, FsmPoolExecutionContext<S>> table, short[] states) {
+        this.pool = pool;
+        this.table = table;
+        this.members = new int[table.getStateCount()][];
+        this.counts = new int[table.getStateCount()];
+        this.positions = new int[DEFAULT_CAPACITY];
+        rebuild(states, pool.size());
+    }
+
+    /**
+     * @return the number of machines in the specified state, whatever their execution status is.
+     */
+    public int count(@NonNull S state) {
+        var stateIndex = table.indexOf(state);
+        return stateIndex >= 0 ? counts[stateIndex] : 0;
+    }
+
+    /**
+     * Returns the ids of the machines in the specified state, whatever their execution status is.
+     *
+     * @param state the state to look up.
+     * @return the ids of the machines in no particular order, empty if the state is unknown to the configuration.
+     */
+    public int[] getMachines(@NonNull S state) {
+        var stateIndex = table.indexOf(state);
+        if (stateIndex < 0 || counts[stateIndex] == 0) {
+            return NO_IDS;
+        }
+        return Arrays.copyOf(members[stateIndex], counts[stateIndex]);
+    }
+
+    /**
+     * Returns the ids of the running machines in a state for which the specified event has a transition
+     * without a guard, i.e. the machines that certainly accept the event.
+     *
+     * @param event the event to look up.
+     * @return the ids of the machines in no particular order.
+     */
+    public int[] getMachinesAccepting(@NonNull E event) {
+        return collectRunning(getEventStates(event).unguarded);
+    }
+
+    /**
+     * @see #broadcast(Object, FsmEventArgs)
+     */
+    public FsmBroadcastResult broadcast(E event) {
+        return broadcast(event, FsmEventArgs.empty());
+    }
+
+    /**
+     * Fires the event at every running machine in a state the event has a transition declared for,
+     * guarded or not, the same way {@link FsmPool#broadcast(Object, FsmEventArgs)} fires the whole pool.
+     *
+     * @param event the event to fire.
+     * @param args additional arguments to be passed during the transitions.
+     * @return the numbers of accepted, rejected and aborted machines and the exceptions thrown.
+     */
+    public FsmBroadcastResult broadcast(@NonNull E event, @NonNull FsmEventArgs args) {
+        return fireEach(collectRunning(getEventStates(event).declared), event, args);
+    }
+
+    /**
+     * Fires the event at every running machine in the specified state.
+     *
+     * @param state the state of the machines to fire the event at.
+     * @param event the event to fire.
+     * @param args additional arguments to be passed during the transitions.
+     * @return the numbers of accepted, rejected and aborted machines and the exceptions thrown.
+     * @see #broadcast(Object, FsmEventArgs)
+     */
+    public FsmBroadcastResult broadcast(@NonNull S state, @NonNull E event, @NonNull FsmEventArgs args) {
+        var stateIndex = table.indexOf(state);
+        return fireEach(stateIndex >= 0 ? collectRunning(new int[] {stateIndex}) : NO_IDS, event, args);
+    }
+
+    /**
+     * Indexes the machines from scratch, used after they were fired concurrently.
+     */
+    void rebuild(short[] states, int size) {
+        Arrays.fill(counts, 0);
+        if (positions.length < size) {
+            positions = new int[size];
+        }
+        for (var id = 0; id < size; id++) {
+            add(id, Short.toUnsignedInt(states[id]));
+        }
+    }
+
+    void add(int id, int stateIndex) {
+        if (id == positions.length) {
+            positions = Arrays.copyOf(positions, positions.length + (positions.length >> 1));
+        }
+        var stateMembers = members[stateIndex];
+        var count = counts[stateIndex];
+        if (stateMembers == null) {
+            stateMembers = new int[DEFAULT_CAPACITY];
+            members[stateIndex] = stateMembers;
+        } else if (count == stateMembers.length) {
+            stateMembers = Arrays.copyOf(stateMembers, count + (count >> 1));
+            members[stateIndex] = stateMembers;
+        }
+        stateMembers[count] = id;
+        positions[id] = count;
+        counts[stateIndex] = count + 1;
+    }
+
+    void move(int id, int sourceIndex, int targetIndex) {
+        if (sourceIndex == targetIndex) {
+            return;
+        }
+        // the last member of the source state takes the place of the machine
+        var sourceMembers = members[sourceIndex];
+        var last = --counts[sourceIndex];
+        var position = positions[id];
+        var lastId = sourceMembers[last];
+        sourceMembers[position] = lastId;
+        positions[lastId] = position;
+        add(id, targetIndex);
+    }
+
+    private int[] collectRunning(int[] stateIndices) {
+        var total = 0;
+        for (var stateIndex : stateIndices) {
+            total += counts[stateIndex];
+        }
+        if (total == 0) {
+            return NO_IDS;
+        }
+        var result = new int[total];
+        var length = 0;
+        for (var stateIndex : stateIndices) {
+            var stateMembers = members[stateIndex];
+            for (var i = 0; i < counts[stateIndex]; i++) {
+                var id = stateMembers[i];
+                if (pool.getExecutionStatus(id) == FsmExecutionStatus.RUNNING) {
+                    result[length++] = id;
+                }
+            }
+        }
+        return length == total ? result : Arrays.copyOf(result, length);
+    }
+
+    private FsmBroadcastResult fireEach(int[] ids, E event, FsmEventArgs args) {
+        Arrays.sort(ids);
+        return pool.broadcast(ids, ids.length, event, args);
+    }
+
+    private EventStates getEventStates(E event) {
+        var result = eventStates.get(event);
+        if (result == null) {
+            var declared = new int[table.getStateCount()];
+            var declaredCount = 0;
+            var unguarded = new int[table.getStateCount()];
+            var unguardedCount = 0;
+            for (var stateIndex = 0; stateIndex < table.getStateCount(); stateIndex++) {
+                if (table.getChains(stateIndex, event) != null) {
+                    declared[declaredCount++] = stateIndex;
+                    if (table.hasUnguardedChain(stateIndex, event)) {
+                        unguarded[unguardedCount++] = stateIndex;
+                    }
+                }
+            }
+            result = new EventStates(
+                    Arrays.copyOf(declared, declaredCount),
+                    Arrays.copyOf(unguarded, unguardedCount));
+            eventStates.put(event, result);
+        }
+        return result;
+    }
+
+    /**
+     * The indices of the states an event has transitions declared for.
+     */
+    @RequiredArgsConstructor
+    private static final class EventStates {
+        private final int[] declared;
+        private final int[] unguarded;
+    }
+}
@@ -0,0 +1,43 @@
+package com.github.maximvegorov.fsm4j;
+
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * An execution context which lets the actions of a machine queue events to the machine itself instead of
+ * firing them recursively. A {@link Fsm} created with such a context fires the queued events right after
+ * the transition which queued them, see {@link FsmEventQueue}.
+ *
+ * @param <S> the type of the state managed by this execution context.
+ * @param <E> the type representing the events of the FSM.
+ */
+@ParametersAreNonnullByDefault
+public interface FsmQueueExecutionContext<S, E> extends FsmExecutionContext<S> {
+    /**
+     * @return the queue of the machine, the same instance on every call.
+     */
+    @Nonnull
+    FsmEventQueue<E> getEventQueue();
+
+    default void post(E event) {
+        post(event, FsmEventArgs.empty());
+    }
+
+    /**
+     * Queues the event to be fired once the running transition completes.
+     */
+    default void post(E event, FsmEventArgs args) {
+        getEventQueue().post(event, args);
+    }
+
+    default void defer(E event) {
+        defer(event, FsmEventArgs.empty());
+    }
+
+    /**
+     * Queues the event to be fired after every following transition, until a state handles it.
+     */
+    default void defer(E event, FsmEventArgs args) {
+        getEventQueue().defer(event, args);
+    }
+}
@@ -0,0 +1,29 @@
+package com.github.maximvegorov.fsm4j;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * A simple implementation of the {@link FsmQueueExecutionContext} interface, the counterpart of
+ * {@link FsmSimpleExecutionContext} for machines whose actions post events.
+ *
+ * @param <S> the type representing the state managed by this execution context.
+ * @param <E> the type representing the events of the FSM.
+ */
+@Getter
+@Setter
+@ToString
+public final class FsmSimpleQueueExecutionContext<S, E> implements FsmQueueExecutionContext<S, E> {
+    @NonNull
+    private S state;
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private final FsmEventQueue<E> eventQueue = new FsmEventQueue<>();
+
+    public FsmSimpleQueueExecutionContext(@NonNull S state) {
+        this.state = state;
+    }
+}
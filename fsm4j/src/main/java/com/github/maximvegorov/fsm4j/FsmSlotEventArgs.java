@@ -0,0 +1,162 @@
+package com.github.maximvegorov.fsm4j;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.util.Arrays;
+
+/**
+ * Mutable event arguments holding a fixed number of numeric slots, meant to be allocated once and refilled
+ * for every event, see {@link FsmEventArgs}. Slots are declared once as typed handles which read the slots
+ * of the arguments passed to predicates and actions without casting them:
+ *
+ * <pre>{@code
+ * static final FsmSlotEventArgs.LongSlot AMOUNT = FsmSlotEventArgs.longSlot(0);
+ * static final FsmSlotEventArgs.IntSlot QUANTITY = FsmSlotEventArgs.intSlot(1);
+ * ...
+ *     .on(Events.ORDER).and((c, e, args) -> AMOUNT.get(args) > LIMIT).moveTo(States.REVIEW)
+ * ...
+ * var args = FsmSlotEventArgs.of(2);
+ * for (var order : orders) {
+ *     fsm.fire(Events.ORDER, args.set(AMOUNT, order.getAmount()).set(QUANTITY, order.getQuantity()));
+ * }
+ * }</pre>
+ *
+ * A slot holds a long, an int or a double, the handles don't check that a slot is read with the type it
+ * was written with. {@link #retain()} copies the slots.
+ *
+ * Not thread-safe.
+ */
+@ToString
+public final class FsmSlotEventArgs implements FsmEventArgs {
+    private final long[] slots;
+
+    private FsmSlotEventArgs(long[] slots) {
+        this.slots = slots;
+    }
+
+    /**
+     * @return arguments with the specified number of slots set to zero.
+     */
+    public static FsmSlotEventArgs of(int slotCount) {
+        if (slotCount <= 0) {
+            throw new IllegalArgumentException("slotCount: " + slotCount);
+        }
+        return new FsmSlotEventArgs(new long[slotCount]);
+    }
+
+    public static LongSlot longSlot(int index) {
+        return new LongSlot(checkIndex(index));
+    }
+
+    public static IntSlot intSlot(int index) {
+        return new IntSlot(checkIndex(index));
+    }
+
+    public static DoubleSlot doubleSlot(int index) {
+        return new DoubleSlot(checkIndex(index));
+    }
+
+    public int getSlotCount() {
+        return slots.length;
+    }
+
+    public FsmSlotEventArgs set(@NonNull LongSlot slot, long value) {
+        slots[slot.index] = value;
+        return this;
+    }
+
+    public FsmSlotEventArgs set(@NonNull IntSlot slot, int value) {
+        slots[slot.index] = value;
+        return this;
+    }
+
+    public FsmSlotEventArgs set(@NonNull DoubleSlot slot, double value) {
+        slots[slot.index] = Double.doubleToRawLongBits(value);
+        return this;
+    }
+
+    /**
+     * Sets every slot to zero.
+     */
+    public FsmSlotEventArgs reset() {
+        Arrays.fill(slots, 0L);
+        return this;
+    }
+
+    /**
+     * @return a copy of these arguments.
+     */
+    @Override
+    public FsmSlotEventArgs retain() {
+        return new FsmSlotEventArgs(slots.clone());
+    }
+
+    private static int checkIndex(int index) {
+        if (index < 0) {
+            throw new IllegalArgumentException("index: " + index);
+        }
+        return index;
+    }
+
+    private static long[] slotsOf(FsmEventArgs args) {
+        if (!(args instanceof FsmSlotEventArgs)) {
+            throw new IllegalArgumentException("Unexpected event args: " + args);
+        }
+        return ((FsmSlotEventArgs) args).slots;
+    }
+
+    /**
+     * A slot holding a long.
+     */
+    @Getter
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    @ToString
+    public static final class LongSlot {
+        private final int index;
+
+        /**
+         * @throws IllegalArgumentException if the arguments are not {@link FsmSlotEventArgs}.
+         */
+        public long get(@NonNull FsmEventArgs args) {
+            return slotsOf(args)[index];
+        }
+    }
+
+    /**
+     * A slot holding an int.
+     */
+    @Getter
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    @ToString
+    public static final class IntSlot {
+        private final int index;
+
+        /**
+         * @throws IllegalArgumentException if the arguments are not {@link FsmSlotEventArgs}.
+         */
+        public int get(@NonNull FsmEventArgs args) {
+            return (int) slotsOf(args)[index];
+        }
+    }
+
+    /**
+     * A slot holding a double.
+     */
+    @Getter
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    @ToString
+    public static final class DoubleSlot {
+        private final int index;
+
+        /**
+         * @throws IllegalArgumentException if the arguments are not {@link FsmSlotEventArgs}.
+         */
+        public double get(@NonNull FsmEventArgs args) {
+            return Double.longBitsToDouble(slotsOf(args)[index]);
+        }
+    }
+}
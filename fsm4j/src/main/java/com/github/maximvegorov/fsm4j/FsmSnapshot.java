@@ -0,0 +1,289 @@
+package com.github.maximvegorov.fsm4j;
+
+import lombok.NonNull;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.function.Function;
+
+/**
+ * Writes and reads the state of machines in a compact binary format. A snapshot holds the fingerprint of
+ * the configuration, see {@link FsmConfig#getFingerprint()}, the index of the current state of every machine,
+ * stored in one, two or four bytes depending on the number of states, and their execution statuses as two
+ * bitsets. Neither the execution contexts nor the event arguments are part of a snapshot.
+ *
+ * <p>
+ * A pool is restored by bulk copying the indices, without creating an object per machine. For the fastest
+ * restart, map the snapshot file with {@link FileChannel#map} and pass the buffer to
+ * {@link #readPool(FsmConfig, ByteBuffer)}.
+ * </p>
+ *
+ * <pre>
+ * int     magic 'FSMS'
+ * byte    version
+ * byte    bytes per state index
+ * long    configuration fingerprint
+ * int     machine count
+ * byte[]  state indices
+ * long[]  terminated bits
+ * long[]  aborted bits
+ * </pre>
+ */
+public final class FsmSnapshot {
+    private static final int MAGIC = 0x46534D53;
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = Integer.BYTES + 2 + Long.BYTES + Integer.BYTES;
+
+    private FsmSnapshot() {
+    }
+
+    /**
+     * @return the number of bytes {@link #write(FsmPool, ByteBuffer)} writes for the pool.
+     */
+    public static int sizeOf(@NonNull FsmPool<?, ?> pool) {
+        return sizeOf(stateWidth(pool.getConfig().getTable().getStateCount()), pool.size());
+    }
+
+    /**
+     * Writes the snapshot of the pool at the position of the buffer.
+     *
+     * @throws java.nio.BufferOverflowException if there are less than {@link #sizeOf} bytes remaining.
+     */
+    public static void write(@NonNull FsmPool<?, ?> pool, @NonNull ByteBuffer buffer) {
+        var width = stateWidth(pool.getConfig().getTable().getStateCount());
+        var size = pool.size();
+        writeHeader(buffer, width, pool.getConfig().getFingerprint(), size);
+
+        var states = pool.getStateIndices();
+        if (width == Byte.BYTES) {
+            for (var i = 0; i < size; i++) {
+                buffer.put((byte) states[i]);
+            }
+        } else {
+            buffer.asShortBuffer().put(states, 0, size);
+            buffer.position(buffer.position() + size * Short.BYTES);
+        }
+        writeBits(buffer, pool.getTerminatedBits(), size);
+        writeBits(buffer, pool.getAbortedBits(), size);
+    }
+
+    public static void write(@NonNull FsmPool<?, ?> pool, @NonNull WritableByteChannel channel) throws IOException {
+        var buffer = ByteBuffer.allocate(sizeOf(pool));
+        write(pool, buffer);
+        writeFully(buffer.flip(), channel);
+    }
+
+    /**
+     * Restores a pool from the snapshot at the position of the buffer.
+     *
+     * @param config the configuration of the pool, must have the fingerprint of the snapshot.
+     * @param buffer the snapshot, e.g. a memory-mapped file.
+     * @return a new pool holding the machines of the snapshot, under the same ids.
+     * @throws IllegalArgumentException if the snapshot is malformed or was taken with another configuration.
+     */
+    public static <S, E> FsmPool<S, E> readPool(
+            @NonNull FsmConfig<S, E, FsmPoolExecutionContext<S>> config,
+            @NonNull ByteBuffer buffer) {
+        var stateCount = config.getTable().getStateCount();
+        var size = readHeader(buffer, config);
+        var width = stateWidth(stateCount);
+
+        var states = new short[size];
+        if (width == Byte.BYTES) {
+            for (var i = 0; i < size; i++) {
+                states[i] = (short) checkStateIndex(Byte.toUnsignedInt(buffer.get()), stateCount);
+            }
+        } else {
+            buffer.asShortBuffer().get(states);
+            buffer.position(buffer.position() + size * Short.BYTES);
+            for (var state : states) {
+                checkStateIndex(Short.toUnsignedInt(state), stateCount);
+            }
+        }
+        var terminated = readBits(buffer, size);
+        var aborted = readBits(buffer, size);
+        return FsmPool.restore(config, states, terminated, aborted, size);
+    }
+
+    public static <S, E> FsmPool<S, E> readPool(
+            @NonNull FsmConfig<S, E, FsmPoolExecutionContext<S>> config,
+            @NonNull ReadableByteChannel channel) throws IOException {
+        return readPool(config, readFully(channel));
+    }
+
+    /**
+     * Writes the snapshot of a standalone machine at the position of the buffer, which takes
+     * {@code sizeOf} bytes of a pool holding a single machine.
+     *
+     * @throws IllegalStateException if the machine is in a state unknown to its configuration.
+     */
+    public static <S> void write(@NonNull Fsm<S, ?, ?> fsm, @NonNull ByteBuffer buffer) {
+        var table = fsm.getConfig().getTable();
+        var stateIndex = table.indexOf(fsm.getExecutionContext().getState());
+        if (stateIndex < 0) {
+            throw new IllegalStateException("Unknown state: " + fsm.getExecutionContext().getState());
+        }
+        var width = stateWidth(table.getStateCount());
+        writeHeader(buffer, width, fsm.getConfig().getFingerprint(), 1);
+        writeStateIndex(buffer, width, stateIndex);
+        buffer.putLong(fsm.getExecutionStatus() == FsmExecutionStatus.TERMINATED ? 1L : 0L);
+        buffer.putLong(fsm.getExecutionStatus() == FsmExecutionStatus.ABORTED ? 1L : 0L);
+    }
+
+    /**
+     * Restores a standalone machine from the snapshot at the position of the buffer.
+     *
+     * @param config the configuration of the machine, must have the fingerprint of the snapshot.
+     * @param buffer the snapshot.
+     * @param contextFactory creates the execution context holding the restored state.
+     * @return the machine in the state and with the execution status of the snapshot.
+     * @throws IllegalArgumentException if the snapshot is malformed, was taken with another configuration
+     *                                  or doesn't hold a single machine.
+     */
+    public static <S, E, C extends FsmExecutionContext<S>> Fsm<S, E, C> readFsm(
+            @NonNull FsmConfig<S, E, C> config,
+            @NonNull ByteBuffer buffer,
+            @NonNull Function<? super S, ? extends C> contextFactory) {
+        var table = config.getTable();
+        if (readHeader(buffer, config) != 1) {
+            throw new IllegalArgumentException("Not a snapshot of a single machine");
+        }
+        var state = table.getState(readStateIndex(buffer, stateWidth(table.getStateCount()), table.getStateCount()));
+        var terminated = buffer.getLong() != 0L;
+        var aborted = buffer.getLong() != 0L;
+        var executionStatus = aborted
+                ? FsmExecutionStatus.ABORTED
+                : terminated ? FsmExecutionStatus.TERMINATED : FsmExecutionStatus.RUNNING;
+        return Fsm.restore(config, contextFactory.apply(state), executionStatus);
+    }
+
+    private static int sizeOf(int width, int size) {
+        return HEADER_SIZE + width * size + 2 * Long.BYTES * bitsetLength(size);
+    }
+
+    private static int stateWidth(int stateCount) {
+        if (stateCount <= 1 << Byte.SIZE) {
+            return Byte.BYTES;
+        }
+        return stateCount <= 1 << Short.SIZE ? Short.BYTES : Integer.BYTES;
+    }
+
+    private static void writeHeader(ByteBuffer buffer, int width, long fingerprint, int size) {
+        buffer.putInt(MAGIC)
+                .put(VERSION)
+                .put((byte) width)
+                .putLong(fingerprint)
+                .putInt(size);
+    }
+
+    /**
+     * @return the number of machines in the snapshot.
+     */
+    private static int readHeader(ByteBuffer buffer, FsmConfig<?, ?, ?> config) {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a snapshot");
+        }
+        var version = buffer.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported version: " + version);
+        }
+        var width = buffer.get();
+        var fingerprint = buffer.getLong();
+        if (fingerprint != config.getFingerprint() || width != stateWidth(config.getTable().getStateCount())) {
+            throw new IllegalArgumentException("Snapshot was taken with another configuration");
+        }
+        var size = buffer.getInt();
+        if (size < 0 || buffer.remaining() < sizeOf(width, size) - HEADER_SIZE) {
+            throw new IllegalArgumentException("Truncated snapshot");
+        }
+        return size;
+    }
+
+    private static void writeStateIndex(ByteBuffer buffer, int width, int stateIndex) {
+        switch (width) {
+            case Byte.BYTES:
+                buffer.put((byte) stateIndex);
+                break;
+            case Short.BYTES:
+                buffer.putShort((short) stateIndex);
+                break;
+            default:
+                buffer.putInt(stateIndex);
+        }
+    }
+
+    private static int readStateIndex(ByteBuffer buffer, int width, int stateCount) {
+        int stateIndex;
+        switch (width) {
+            case Byte.BYTES:
+                stateIndex = Byte.toUnsignedInt(buffer.get());
+                break;
+            case Short.BYTES:
+                stateIndex = Short.toUnsignedInt(buffer.getShort());
+                break;
+            default:
+                stateIndex = buffer.getInt();
+        }
+        return checkStateIndex(stateIndex, stateCount);
+    }
+
+    private static int checkStateIndex(int stateIndex, int stateCount) {
+        if (stateIndex < 0 || stateIndex >= stateCount) {
+            throw new IllegalArgumentException("Unknown state index: " + stateIndex);
+        }
+        return stateIndex;
+    }
+
+    private static void writeBits(ByteBuffer buffer, long[] bits, int size) {
+        var length = bitsetLength(size);
+        buffer.asLongBuffer().put(bits, 0, length);
+        buffer.position(buffer.position() + length * Long.BYTES);
+    }
+
+    private static long[] readBits(ByteBuffer buffer, int size) {
+        var bits = new long[bitsetLength(size)];
+        buffer.asLongBuffer().get(bits);
+        buffer.position(buffer.position() + bits.length * Long.BYTES);
+        if (bits.length > 0 && (size & (Long.SIZE - 1)) != 0) {
+            // bits past the last machine must stay clear for the pool to grow over them
+            bits[bits.length - 1] &= (1L << size) - 1;
+        }
+        return bits;
+    }
+
+    private static int bitsetLength(int size) {
+        return (size + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    private static void writeFully(ByteBuffer buffer, WritableByteChannel channel) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static ByteBuffer readFully(ReadableByteChannel channel) throws IOException {
+        var header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(channel, header);
+        var width = header.get(Integer.BYTES + 1);
+        var size = header.getInt(HEADER_SIZE - Integer.BYTES);
+        if ((width != Byte.BYTES && width != Short.BYTES && width != Integer.BYTES) || size < 0) {
+            throw new IllegalArgumentException("Not a snapshot");
+        }
+        var buffer = ByteBuffer.allocate(sizeOf(width, size));
+        buffer.put(header.flip());
+        readFully(channel, buffer);
+        return buffer.flip();
+    }
+
+    private static void readFully(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.github.maximvegorov.fsm4j;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * Traces the transitions of the machines sharing a {@link FsmConfig}, set with
+ * {@link com.github.maximvegorov.fsm4j.builders.FsmConfigBuilder#tracer(FsmTracer)}. A configuration
+ * without a tracer costs a single null check per transition, so tracing doesn't depend on the log level
+ * and can be narrowed down to the machines of interest with {@link #isEnabled}.
+ *
+ * <p>
+ * Methods are invoked synchronously by the firing thread, possibly by many threads at once.
+ * </p>
+ *
+ * @param <S> the type representing the states.
+ * @param <E> the type representing the events.
+ * @param <C> the type representing the execution context.
+ */
+public interface FsmTracer<S, E, C extends FsmExecutionContext<S>> {
+    /**
+     * Decides whether the transition about to run is traced, called once per transition.
+     */
+    default boolean isEnabled(C context) {
+        return true;
+    }
+
+    default void onTransitionStarted(C context, Transition<S> transition, E event, FsmEventArgs args) {
+    }
+
+    /**
+     * Called before running the actions of a phase, for the phases having actions only.
+     */
+    default void onActionsStarted(C context, Transition<S> transition, FsmActionPhase phase) {
+    }
+
+    default void onTransitionCompleted(C context, Transition<S> transition) {
+    }
+
+    default void onTransitionFailed(C context, Transition<S> transition, RuntimeException e) {
+    }
+
+    /**
+     * Returns a tracer delegating the transitions of the machines whose context matches the filter.
+     */
+    static <S, E, C extends FsmExecutionContext<S>> FsmTracer<S, E, C> filtered(
+            FsmTracer<S, E, C> tracer,
+            Predicate<? super C> filter) {
+        return new FsmFilteredTracer<>(tracer, filter);
+    }
+
+    /**
+     * Returns a tracer delegating a random sample of transitions.
+     *
+     * @param rate the fraction of transitions to trace, from 0 to 1.
+     */
+    static <S, E, C extends FsmExecutionContext<S>> FsmTracer<S, E, C> sampled(FsmTracer<S, E, C> tracer, double rate) {
+        if (rate < 0.0 || rate > 1.0) {
+            throw new IllegalArgumentException("rate: " + rate);
+        }
+        return filtered(tracer, context -> ThreadLocalRandom.current().nextDouble() < rate);
+    }
+}
@@ -0,0 +1,440 @@
+package com.github.maximvegorov.fsm4j;
+
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.function.BiConsumer;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+
+/**
+ * Compiled lookup structure behind {@link FsmConfig}. It answers the questions asked on every
+ * {@code fire}: which transitions are declared for a state/event pair, which actions have to be run
+ * and whether a state is terminal.
+ *
+ * <p>
+ * Two layouts are available. When every state and every event is a constant of a single enum
+ * type, the table is dense and indexed by {@link Enum#ordinal()}. Otherwise it falls back to
+ * hash maps. In both cases the declared targets are compiled into {@link TransitionChain}s.
+ * </p>
+ *
+ * @param <S> the type representing the states of the FSM.
+ * @param <E> the type representing the events of the FSM.
+ * @param <C> the type extending {@link FsmExecutionContext}.
+ */
+abstract class FsmTransitionTable<S, E, C extends FsmExecutionContext<S>> {
+    @SuppressWarnings("rawtypes")
+    private static final TransitionAction[] NO_ACTIONS = new TransitionAction[0];
+    @SuppressWarnings("rawtypes")
+    static final TransitionPredicate ALWAYS = (context, event, args) -> true;
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    // child -> parent, empty for a flat configuration
+    private final Map<S, S> parents;
+    private Map<Transition<S>, TransitionChain<S, E, C>> chains = emptyMap();
+    private List<TransitionChain<S, E, C>> declaredChains = emptyList();
+
+    static <S, E, C extends FsmExecutionContext<S>> FsmTransitionTable<S, E, C> compile(
+            Map<S, Map<E, List<TransitionTarget<S, E, C>>>> transitions,
+            Map<S, List<TransitionAction<S, E, C>>> exitActions,
+            Map<Transition<S>, List<TransitionAction<S, E, C>>> beforeActions,
+            Map<Transition<S>, List<TransitionAction<S, E, C>>> afterActions,
+            Map<S, List<TransitionAction<S, E, C>>> enterActions,
+            Set<S> terminalStates,
+            Map<S, S> parents) {
+        checkParents(parents);
+        var states = collectStates(
+                transitions, exitActions, beforeActions, afterActions, enterActions, terminalStates, parents);
+        var stateType = findEnumType(states);
+        var eventType = findEnumType(collectEvents(transitions));
+        if (stateType != null && eventType != null) {
+            return new FsmEnumTransitionTable<>(
+                    stateType,
+                    eventType,
+                    transitions,
+                    exitActions,
+                    beforeActions,
+                    afterActions,
+                    enterActions,
+                    terminalStates,
+                    parents);
+        }
+        return new FsmMapTransitionTable<>(
+                states,
+                transitions,
+                exitActions,
+                beforeActions,
+                afterActions,
+                enterActions,
+                terminalStates,
+                parents);
+    }
+
+    FsmTransitionTable(Map<S, S> parents) {
+        this.parents = parents;
+    }
+
+    /**
+     * @return the number of states known to the configuration. States are indexed densely from zero.
+     */
+    abstract int getStateCount();
+
+    /**
+     * @return the dense index of the state, or {@code -1} if the state is unknown to the configuration.
+     */
+    abstract int indexOf(S state);
+
+    abstract S getState(int index);
+
+    /**
+     * @return the chains declared for the pair, in declaration order, or {@code null} if there are none.
+     */
+    @Nullable
+    abstract TransitionChain<S, E, C>[] getChains(int stateIndex, E event);
+
+    abstract boolean isTerminal(int stateIndex);
+
+    /**
+     * Hands the chains of every event the state has transitions for to the consumer.
+     */
+    abstract void forEachChains(int stateIndex, BiConsumer<E, TransitionChain<S, E, C>[]> consumer);
+
+    abstract List<TransitionAction<S, E, C>> getExitActions(S state);
+
+    abstract List<TransitionAction<S, E, C>> getBeforeActions(Transition<S> transition);
+
+    abstract List<TransitionAction<S, E, C>> getAfterActions(Transition<S> transition);
+
+    abstract List<TransitionAction<S, E, C>> getEnterActions(S state);
+
+    @Nullable
+    TransitionChain<S, E, C>[] getChains(S state, E event) {
+        var stateIndex = indexOf(state);
+        return stateIndex >= 0 ? getChains(stateIndex, event) : null;
+    }
+
+    boolean isTerminal(S state) {
+        var stateIndex = indexOf(state);
+        return stateIndex >= 0 && isTerminal(stateIndex);
+    }
+
+    /**
+     * Resolves the chain of an arbitrary transition, e.g. the one returned by a {@link TransitionFallback}.
+     * Transitions that are not declared in the configuration get a fresh chain.
+     */
+    TransitionChain<S, E, C> getChain(Transition<S> transition) {
+        var chain = chains.get(transition);
+        if (chain != null) {
+            return chain;
+        }
+        return newChain(-1, transition, transition, TransitionPredicate.always(), false, new IdentityHashMap<>());
+    }
+
+    /**
+     * @return whether any of the chains declared for the state and event is unguarded.
+     */
+    boolean hasUnguardedChain(int stateIndex, E event) {
+        var stateChains = getChains(stateIndex, event);
+        if (stateChains != null) {
+            for (var chain : stateChains) {
+                if (chain.getPredicate() == ALWAYS) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the parent of every nested state, empty for a flat configuration.
+     */
+    Map<S, S> getParents() {
+        return parents;
+    }
+
+    /**
+     * @return the chains compiled from the declared targets, by their ids.
+     */
+    List<TransitionChain<S, E, C>> getDeclaredChains() {
+        return declaredChains;
+    }
+
+    /**
+     * Compiles the targets of every state/event pair and hands the chains of every state to the consumer.
+     * Must be called by subclasses once their action lookups are initialized.
+     *
+     * <p>
+     * In a hierarchical configuration every state also gets the targets declared by its ancestors, after
+     * its own ones and nearest ancestor first, so an event bubbles up without walking the hierarchy at runtime.
+     * The chains of the inherited targets start from the state itself and run the exit and enter actions
+     * of the states between it, the target and their least common ancestor.
+     * </p>
+     */
+    void compileChains(
+            Map<S, Map<E, List<TransitionTarget<S, E, C>>>> transitions,
+            BiConsumer<S, Map<E, TransitionChain<S, E, C>[]>> consumer) {
+        var targetCount = 0;
+        for (var stateTransitions : transitions.values()) {
+            for (var targets : stateTransitions.values()) {
+                targetCount += targets.size();
+            }
+        }
+        chains = new HashMap<>(targetCount * 4 / 3 + 1);
+        declaredChains = new ArrayList<>(targetCount);
+
+        var actionArrays = new IdentityHashMap<List<TransitionAction<S, E, C>>, TransitionAction<S, E, C>[]>();
+        if (parents.isEmpty()) {
+            for (var stateTransitions : transitions.entrySet()) {
+                var state = stateTransitions.getKey();
+                consumer.accept(state, compileChains(state, List.of(stateTransitions.getValue()), actionArrays));
+            }
+            return;
+        }
+        var stateCount = getStateCount();
+        for (var i = 0; i < stateCount; i++) {
+            var state = getState(i);
+            var declared = new ArrayList<Map<E, List<TransitionTarget<S, E, C>>>>();
+            for (var ancestor = state; ancestor != null; ancestor = parents.get(ancestor)) {
+                var ancestorTransitions = transitions.get(ancestor);
+                if (ancestorTransitions != null) {
+                    declared.add(ancestorTransitions);
+                }
+            }
+            if (!declared.isEmpty()) {
+                consumer.accept(state, compileChains(state, declared, actionArrays));
+            }
+        }
+    }
+
+    /**
+     * @param declared the transitions declared by the state and its ancestors, by priority.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<E, TransitionChain<S, E, C>[]> compileChains(
+            S state,
+            List<Map<E, List<TransitionTarget<S, E, C>>>> declared,
+            Map<List<TransitionAction<S, E, C>>, TransitionAction<S, E, C>[]> actionArrays) {
+        var stateChains = new HashMap<E, TransitionChain<S, E, C>[]>(declared.get(0).size() * 4 / 3 + 1);
+        for (var declaredTransitions : declared) {
+            for (var eventTargets : declaredTransitions.entrySet()) {
+                var targets = eventTargets.getValue();
+                var inherited = stateChains.get(eventTargets.getKey());
+                var offset = inherited != null ? inherited.length : 0;
+                var eventChains = inherited != null
+                        ? Arrays.copyOf(inherited, offset + targets.size())
+                        : new TransitionChain[targets.size()];
+                for (var i = 0; i < targets.size(); i++) {
+                    var target = targets.get(i);
+                    var declaredTransition = target.getTransition();
+                    var transition = state.equals(declaredTransition.getSource())
+                            ? declaredTransition
+                            : Transition.of(state, declaredTransition.getTarget());
+                    var chain = newChain(
+                            declaredChains.size(),
+                            transition,
+                            declaredTransition,
+                            target.getPredicate(),
+                            target.isExclusive(),
+                            actionArrays);
+                    declaredChains.add(chain);
+                    chains.putIfAbsent(transition, chain);
+                    eventChains[offset + i] = chain;
+                }
+                stateChains.put(eventTargets.getKey(), eventChains);
+            }
+        }
+        return stateChains;
+    }
+
+    /**
+     * @param transition the transition the chain moves the machine along.
+     * @param declaredTransition the transition the target was declared for, which the before and after actions
+     *                           are bound to. Differs from the former for a target inherited from an ancestor.
+     */
+    private TransitionChain<S, E, C> newChain(
+            int id,
+            Transition<S> transition,
+            Transition<S> declaredTransition,
+            TransitionPredicate<S, E, C> predicate,
+            boolean exclusive,
+            Map<List<TransitionAction<S, E, C>>, TransitionAction<S, E, C>[]> actionArrays) {
+        return new TransitionChain<>(
+                id,
+                transition,
+                declaredTransition,
+                indexOf(transition.getTarget()),
+                predicate,
+                exclusive,
+                toArray(collectExitActions(transition.getSource(), transition.getTarget()), actionArrays),
+                toArray(getBeforeActions(declaredTransition), actionArrays),
+                toArray(getAfterActions(declaredTransition), actionArrays),
+                toArray(collectEnterActions(transition.getSource(), transition.getTarget()), actionArrays));
+    }
+
+    /**
+     * @return the exit actions of the source and of its ancestors up to the least common ancestor with the target,
+     * innermost first. Only the source is exited on a self transition.
+     */
+    private List<TransitionAction<S, E, C>> collectExitActions(S source, S target) {
+        if (parents.isEmpty() || source.equals(target)) {
+            return getExitActions(source);
+        }
+        var targetLineage = lineage(target);
+        List<TransitionAction<S, E, C>> result = emptyList();
+        for (var state = source; state != null && !targetLineage.contains(state); state = parents.get(state)) {
+            result = concat(result, getExitActions(state));
+        }
+        return result;
+    }
+
+    /**
+     * @return the enter actions of the ancestors of the target below the least common ancestor with the source
+     * and of the target itself, outermost first. Only the target is entered on a self transition.
+     */
+    private List<TransitionAction<S, E, C>> collectEnterActions(S source, S target) {
+        if (parents.isEmpty() || source.equals(target)) {
+            return getEnterActions(target);
+        }
+        var sourceLineage = lineage(source);
+        List<TransitionAction<S, E, C>> result = emptyList();
+        for (var state = target; state != null && !sourceLineage.contains(state); state = parents.get(state)) {
+            result = concat(getEnterActions(state), result);
+        }
+        return result;
+    }
+
+    /**
+     * @return the state followed by its ancestors.
+     */
+    private List<S> lineage(S state) {
+        var result = new ArrayList<S>();
+        for (var ancestor = state; ancestor != null; ancestor = parents.get(ancestor)) {
+            result.add(ancestor);
+        }
+        return result;
+    }
+
+    /**
+     * Concatenates the lists, returning one of them as is if the other one is empty, so that the arrays
+     * of the actions of a single state are still shared between chains.
+     */
+    private static <T> List<T> concat(List<T> head, List<T> tail) {
+        if (head.isEmpty()) {
+            return tail;
+        }
+        if (tail.isEmpty()) {
+            return head;
+        }
+        var result = new ArrayList<T>(head.size() + tail.size());
+        result.addAll(head);
+        result.addAll(tail);
+        return result;
+    }
+
+    /**
+     * Hashes the indexed states with 64-bit FNV-1a, so the indices written by one table can be checked
+     * to denote the same states in another one.
+     */
+    long computeFingerprint() {
+        var hash = FNV_OFFSET_BASIS;
+        var stateCount = getStateCount();
+        hash = (hash ^ stateCount) * FNV_PRIME;
+        for (var i = 0; i < stateCount; i++) {
+            var name = String.valueOf(getState(i));
+            for (var j = 0; j < name.length(); j++) {
+                hash = (hash ^ name.charAt(j)) * FNV_PRIME;
+            }
+            hash = (hash ^ (isTerminal(i) ? 1 : 0)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <S, E, C extends FsmExecutionContext<S>> TransitionAction<S, E, C>[] toArray(
+            List<TransitionAction<S, E, C>> actions,
+            Map<List<TransitionAction<S, E, C>>, TransitionAction<S, E, C>[]> actionArrays) {
+        if (actions.isEmpty()) {
+            return NO_ACTIONS;
+        }
+        return actionArrays.computeIfAbsent(actions, a -> a.toArray(NO_ACTIONS));
+    }
+
+    private static <S, E, C extends FsmExecutionContext<S>> Collection<S> collectStates(
+            Map<S, Map<E, List<TransitionTarget<S, E, C>>>> transitions,
+            Map<S, List<TransitionAction<S, E, C>>> exitActions,
+            Map<Transition<S>, List<TransitionAction<S, E, C>>> beforeActions,
+            Map<Transition<S>, List<TransitionAction<S, E, C>>> afterActions,
+            Map<S, List<TransitionAction<S, E, C>>> enterActions,
+            Set<S> terminalStates,
+            Map<S, S> parents) {
+        var states = new LinkedHashSet<S>(transitions.size() * 2 + terminalStates.size());
+        states.addAll(terminalStates);
+        for (var stateTransitions : transitions.entrySet()) {
+            states.add(stateTransitions.getKey());
+            for (var targets : stateTransitions.getValue().values()) {
+                for (var target : targets) {
+                    states.add(target.getTransition().getTarget());
+                }
+            }
+        }
+        states.addAll(exitActions.keySet());
+        states.addAll(enterActions.keySet());
+        for (var transition : beforeActions.keySet()) {
+            states.add(transition.getSource());
+            states.add(transition.getTarget());
+        }
+        for (var transition : afterActions.keySet()) {
+            states.add(transition.getSource());
+            states.add(transition.getTarget());
+        }
+        for (var childAndParent : parents.entrySet()) {
+            states.add(childAndParent.getKey());
+            states.add(childAndParent.getValue());
+        }
+        return states;
+    }
+
+    private static <S, E, C extends FsmExecutionContext<S>> Set<E> collectEvents(
+            Map<S, Map<E, List<TransitionTarget<S, E, C>>>> transitions) {
+        var events = new HashSet<E>();
+        for (var stateTransitions : transitions.values()) {
+            events.addAll(stateTransitions.keySet());
+        }
+        return events;
+    }
+
+    /**
+     * @throws IllegalArgumentException if a state is its own ancestor.
+     */
+    private static <S> void checkParents(Map<S, S> parents) {
+        for (var child : parents.keySet()) {
+            var depth = 0;
+            for (var ancestor = parents.get(child); ancestor != null; ancestor = parents.get(ancestor)) {
+                if (ancestor.equals(child) || ++depth > parents.size()) {
+                    throw new IllegalArgumentException("State " + child + " is its own ancestor");
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the enum type shared by all the values, or {@code null} if there is no such type.
+     */
+    @Nullable
+    private static Class<?> findEnumType(Collection<?> values) {
+        Class<?> type = null;
+        for (var value : values) {
+            if (!(value instanceof Enum)) {
+                return null;
+            }
+            var valueType = ((Enum<?>) value).getDeclaringClass();
+            if (type == null) {
+                type = valueType;
+            } else if (type != valueType) {
+                return null;
+            }
+        }
+        return type;
+    }
+}
@@ -0,0 +1,43 @@
+package com.github.maximvegorov.fsm4j;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * A transition resolved at configuration time together with everything that has to be run when
+ * it fires: the guard of its {@link TransitionTarget} and the exit, before, after and enter actions.
+ * Actions are kept in arrays so that executing a transition neither hashes nor allocates.
+ *
+ * @param <S> the type representing the states of the FSM.
+ * @param <E> the type representing the events of the FSM.
+ * @param <C> the type extending {@link FsmExecutionContext}.
+ */
+@Getter(AccessLevel.PACKAGE)
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+@ToString(onlyExplicitlyIncluded = true)
+final class TransitionChain<S, E, C extends FsmExecutionContext<S>> {
+    // position among the declared chains of the table, -1 for a chain made for a fallback transition
+    private final int id;
+    @ToString.Include
+    private final Transition<S> transition;
+    // the transition the target was declared for, differs from the former for a target inherited from an ancestor
+    private final Transition<S> declaredTransition;
+    // dense index of the target state, -1 for a fallback transition to a state unknown to the configuration
+    private final int targetIndex;
+    private final TransitionPredicate<S, E, C> predicate;
+    // whether the predicate may be tried in any order among the adjacent exclusive ones
+    private final boolean exclusive;
+    private final TransitionAction<S, E, C>[] exitActions;
+    private final TransitionAction<S, E, C>[] beforeActions;
+    private final TransitionAction<S, E, C>[] afterActions;
+    private final TransitionAction<S, E, C>[] enterActions;
+
+    boolean hasActions() {
+        return exitActions.length != 0
+                || beforeActions.length != 0
+                || afterActions.length != 0
+                || enterActions.length != 0;
+    }
+}
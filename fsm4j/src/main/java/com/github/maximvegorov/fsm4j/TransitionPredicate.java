@@ -15,4 +15,13 @@ package com.github.maximvegorov.fsm4j;
 @FunctionalInterface
 public interface TransitionPredicate<S, E, C extends FsmExecutionContext<S>> {
     boolean test(C context, E event, FsmEventArgs args);
+
+    /**
+     * Returns the predicate accepting every event, used for transitions declared without a guard.
+     * The same instance is always returned, so a transition guarded by it is known to be unconditional.
+     */
+    @SuppressWarnings("unchecked")
+    static <S, E, C extends FsmExecutionContext<S>> TransitionPredicate<S, E, C> always() {
+        return (TransitionPredicate<S, E, C>) FsmTransitionTable.ALWAYS;
+    }
 }
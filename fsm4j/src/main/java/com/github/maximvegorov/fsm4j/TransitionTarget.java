@@ -13,17 +13,33 @@ import lombok.*;
  *            which must extend {@link FsmExecutionContext}.
  */
 @Getter
-@RequiredArgsConstructor
+@AllArgsConstructor
 @ToString
 public final class TransitionTarget<S, E, C extends FsmExecutionContext<S>> {
     @NonNull
     private final Transition<S> transition;
     @NonNull
     private final TransitionPredicate<S, E, C> predicate;
+    /**
+     * Whether the predicate never matches together with the ones of the adjacent exclusive targets of the same
+     * state and event, so that they may be tried in any order, see {@link FsmConfig#withAdaptiveGuards()}.
+     */
+    private final boolean exclusive;
+
+    public TransitionTarget(Transition<S> transition, TransitionPredicate<S, E, C> predicate) {
+        this(transition, predicate, false);
+    }
 
     public static <S, E, C extends FsmExecutionContext<S>> TransitionTarget<S, E, C> of(
             Transition<S> transition,
             TransitionPredicate<S, E, C> predicate) {
         return new TransitionTarget<>(transition, predicate);
     }
+
+    public static <S, E, C extends FsmExecutionContext<S>> TransitionTarget<S, E, C> of(
+            Transition<S> transition,
+            TransitionPredicate<S, E, C> predicate,
+            boolean exclusive) {
+        return new TransitionTarget<>(transition, predicate, exclusive);
+    }
 }
@@ -0,0 +1,299 @@
+package com.github.maximvegorov.fsm4j.builders;
+
+import com.github.maximvegorov.fsm4j.*;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static com.github.maximvegorov.fsm4j.builders.FsmConfigBuilder.capacity;
+
+/**
+ * Builder loading a finite state machine (FSM) configuration from a table of {@link FsmTransitionRow}s,
+ * meant for machines generated from external definitions with a lot of states and transitions.
+ *
+ * <p>
+ * Rows are only collected until {@link #build} is called, which groups them by source state in a single
+ * pass and sizes every structure upfront, so the configuration is built in linear time. The states may
+ * also be compiled in parallel, see {@link #parallel(boolean)}. The targets declared for the same source
+ * and event are tried in the order their rows were added, whatever the mode is.
+ * </p>
+ *
+ * @param <S> the type representing the states of the FSM.
+ * @param <E> the type representing the events triggering transitions in the FSM.
+ * @param <C> the type of context used during FSM execution, extending {@link FsmExecutionContext}.
+ */
+@ParametersAreNonnullByDefault
+public final class FsmBulkConfigBuilder<S, E, C extends FsmExecutionContext<S>> {
+    private static final int PARALLEL_CHUNK_SIZE = 1 << 14;
+
+    private final List<FsmTransitionRow<S, E, C>> rows;
+    private final Map<S, List<TransitionAction<S, E, C>>> exitActions = new HashMap<>();
+    private final Map<S, List<TransitionAction<S, E, C>>> enterActions = new HashMap<>();
+    private final Map<S, S> parents = new HashMap<>();
+    private TransitionFallback<S, E, C> transitionFallback;
+    private FsmMetrics<S, E> metrics;
+    private FsmTracer<S, E, C> tracer;
+    private FsmJournal<S, E, C> journal;
+    private boolean parallel;
+
+    public FsmBulkConfigBuilder() {
+        this(16);
+    }
+
+    /**
+     * @param expectedRows the number of rows expected to be added, used to presize the table.
+     */
+    public FsmBulkConfigBuilder(int expectedRows) {
+        if (expectedRows < 0) {
+            throw new IllegalArgumentException("expectedRows: " + expectedRows);
+        }
+        this.rows = new ArrayList<>(expectedRows);
+    }
+
+    public FsmBulkConfigBuilder<S, E, C> add(@NonNull FsmTransitionRow<S, E, C> row) {
+        rows.add(row);
+        return this;
+    }
+
+    public FsmBulkConfigBuilder<S, E, C> add(S source, E event, S target) {
+        return add(FsmTransitionRow.of(source, event, target));
+    }
+
+    public FsmBulkConfigBuilder<S, E, C> add(S source, E event, TransitionPredicate<S, E, C> predicate, S target) {
+        return add(FsmTransitionRow.of(source, event, predicate, target));
+    }
+
+    public FsmBulkConfigBuilder<S, E, C> addAll(@NonNull Collection<? extends FsmTransitionRow<S, E, C>> rows) {
+        for (var row : rows) {
+            add(row);
+        }
+        return this;
+    }
+
+    /**
+     * Adds the rows of the stream in its encounter order.
+     */
+    public FsmBulkConfigBuilder<S, E, C> addAll(@NonNull Stream<? extends FsmTransitionRow<S, E, C>> rows) {
+        rows.forEachOrdered(this::add);
+        return this;
+    }
+
+    public FsmBulkConfigBuilder<S, E, C> addExitAction(@NonNull S state, @NonNull TransitionAction<S, E, C> action) {
+        exitActions.computeIfAbsent(state, s -> new ArrayList<>()).add(action);
+        return this;
+    }
+
+    public FsmBulkConfigBuilder<S, E, C> addEnterAction(@NonNull S state, @NonNull TransitionAction<S, E, C> action) {
+        enterActions.computeIfAbsent(state, s -> new ArrayList<>()).add(action);
+        return this;
+    }
+
+    /**
+     * @see FsmStateConfigBuilder#parent(Object)
+     */
+    public FsmBulkConfigBuilder<S, E, C> parent(@NonNull S state, @NonNull S parent) {
+        parents.put(state, parent);
+        return this;
+    }
+
+    public FsmBulkConfigBuilder<S, E, C> transitionFallback(TransitionFallback<S, E, C> transitionFallback) {
+        this.transitionFallback = transitionFallback;
+        return this;
+    }
+
+    /**
+     * @see FsmConfigBuilder#metrics(FsmMetrics)
+     */
+    public FsmBulkConfigBuilder<S, E, C> metrics(FsmMetrics<S, E> metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    /**
+     * @see FsmConfigBuilder#tracer(FsmTracer)
+     */
+    public FsmBulkConfigBuilder<S, E, C> tracer(FsmTracer<S, E, C> tracer) {
+        this.tracer = tracer;
+        return this;
+    }
+
+    /**
+     * @see FsmConfigBuilder#journal(FsmJournal)
+     */
+    public FsmBulkConfigBuilder<S, E, C> journal(FsmJournal<S, E, C> journal) {
+        this.journal = journal;
+        return this;
+    }
+
+    /**
+     * Sets whether the rows are grouped and the states are compiled in parallel in the common
+     * {@link java.util.concurrent.ForkJoinPool}, off by default. Only pays off for tables of tens
+     * of thousands of rows, smaller ones are always built sequentially.
+     */
+    public FsmBulkConfigBuilder<S, E, C> parallel(boolean parallel) {
+        this.parallel = parallel;
+        return this;
+    }
+
+    public FsmConfig<S, E, C> build(@NonNull Set<S> terminalStates) {
+        if (terminalStates.isEmpty()) {
+            throw new IllegalArgumentException("terminalStates: " + terminalStates);
+        }
+
+        var inParallel = parallel && rows.size() > PARALLEL_CHUNK_SIZE;
+        var sources = inParallel ? groupInParallel() : group(0, rows.size());
+
+        var stateRows = new ArrayList<>(sources.values());
+        var states = (inParallel ? stateRows.parallelStream() : stateRows.stream())
+                .map(FsmBulkConfigBuilder::compileState)
+                .collect(Collectors.toList());
+
+        var transitions = new HashMap<S, Map<E, List<TransitionTarget<S, E, C>>>>(capacity(states.size()));
+        var beforeCount = 0;
+        var afterCount = 0;
+        for (var state : states) {
+            transitions.put(state.source, state.transitions);
+            beforeCount += state.beforeActions.size();
+            afterCount += state.afterActions.size();
+        }
+        var beforeActions = new HashMap<Transition<S>, List<TransitionAction<S, E, C>>>(capacity(beforeCount));
+        var afterActions = new HashMap<Transition<S>, List<TransitionAction<S, E, C>>>(capacity(afterCount));
+        for (var state : states) {
+            beforeActions.putAll(state.beforeActions);
+            afterActions.putAll(state.afterActions);
+        }
+
+        var finalTransitionFallback = Optional.ofNullable(transitionFallback)
+                .orElse((c, e, args) -> Optional.empty());
+
+        return FsmConfig.of(new FsmConfigParts<>(
+                transitions,
+                copyActions(exitActions),
+                beforeActions,
+                afterActions,
+                copyActions(enterActions),
+                finalTransitionFallback,
+                terminalStates,
+                Map.copyOf(parents),
+                metrics,
+                tracer,
+                journal,
+                null,
+                Map.of()));
+    }
+
+    /**
+     * Groups the rows of the range by their sources, in the order the sources are first encountered.
+     */
+    private Map<S, StateRows<S, E, C>> group(int from, int to) {
+        var result = new LinkedHashMap<S, StateRows<S, E, C>>();
+        for (var i = from; i < to; i++) {
+            var row = rows.get(i);
+            var stateRows = result.get(row.getSource());
+            if (stateRows == null) {
+                stateRows = new StateRows<>(row.getSource());
+                result.put(row.getSource(), stateRows);
+            }
+            stateRows.rows.add(row);
+        }
+        return result;
+    }
+
+    /**
+     * Groups consecutive chunks of rows in parallel, then merges the groups chunk by chunk
+     * so that the rows of every source keep their order.
+     */
+    private Map<S, StateRows<S, E, C>> groupInParallel() {
+        var chunkCount = (rows.size() + PARALLEL_CHUNK_SIZE - 1) / PARALLEL_CHUNK_SIZE;
+        var chunks = IntStream.range(0, chunkCount)
+                .parallel()
+                .mapToObj(i -> group(i * PARALLEL_CHUNK_SIZE, Math.min(rows.size(), (i + 1) * PARALLEL_CHUNK_SIZE)))
+                .collect(Collectors.toList());
+
+        var result = chunks.get(0);
+        for (var i = 1; i < chunkCount; i++) {
+            for (var chunkRows : chunks.get(i).values()) {
+                var stateRows = result.putIfAbsent(chunkRows.source, chunkRows);
+                if (stateRows != null) {
+                    stateRows.rows.addAll(chunkRows.rows);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static <S, E, C extends FsmExecutionContext<S>> StateTable<S, E, C> compileState(StateRows<S, E, C> stateRows) {
+        var source = stateRows.source;
+        var beforeCount = 0;
+        var afterCount = 0;
+        for (var row : stateRows.rows) {
+            beforeCount += row.getBeforeActions().isEmpty() ? 0 : 1;
+            afterCount += row.getAfterActions().isEmpty() ? 0 : 1;
+        }
+        // every row adds at most one event, one target and one transition with actions of each kind
+        var rowCount = stateRows.rows.size();
+        var targets = new HashMap<E, List<TransitionTarget<S, E, C>>>(capacity(rowCount));
+        var transitions = new HashMap<S, Transition<S>>(capacity(rowCount));
+        var beforeActions = new HashMap<Transition<S>, List<TransitionAction<S, E, C>>>(capacity(beforeCount));
+        var afterActions = new HashMap<Transition<S>, List<TransitionAction<S, E, C>>>(capacity(afterCount));
+        for (var row : stateRows.rows) {
+            var transition = transitions.get(row.getTarget());
+            if (transition == null) {
+                transition = Transition.of(source, row.getTarget());
+                transitions.put(row.getTarget(), transition);
+            }
+
+            var eventTargets = targets.get(row.getEvent());
+            if (eventTargets == null) {
+                eventTargets = new ArrayList<>(1);
+                targets.put(row.getEvent(), eventTargets);
+            }
+            eventTargets.add(TransitionTarget.of(transition, row.getPredicate()));
+
+            addActions(beforeActions, transition, row.getBeforeActions());
+            addActions(afterActions, transition, row.getAfterActions());
+        }
+        return new StateTable<>(source, Collections.unmodifiableMap(targets), beforeActions, afterActions);
+    }
+
+    private static <S, E, C extends FsmExecutionContext<S>> void addActions(
+            Map<Transition<S>, List<TransitionAction<S, E, C>>> transitionActions,
+            Transition<S> transition,
+            List<TransitionAction<S, E, C>> actions) {
+        if (!actions.isEmpty()) {
+            transitionActions.computeIfAbsent(transition, t -> new ArrayList<>(actions.size()))
+                    .addAll(actions);
+        }
+    }
+
+    private static <S, E, C extends FsmExecutionContext<S>> Map<S, List<TransitionAction<S, E, C>>> copyActions(
+            Map<S, List<TransitionAction<S, E, C>>> stateActions) {
+        var result = new HashMap<S, List<TransitionAction<S, E, C>>>(capacity(stateActions.size()));
+        for (var entry : stateActions.entrySet()) {
+            result.put(entry.getKey(), List.copyOf(entry.getValue()));
+        }
+        return result;
+    }
+
+    @RequiredArgsConstructor
+    private static final class StateRows<S, E, C extends FsmExecutionContext<S>> {
+        private final S source;
+        private final List<FsmTransitionRow<S, E, C>> rows = new ArrayList<>();
+    }
+
+    /**
+     * The part of the configuration compiled from the rows of a single source.
+     */
+    @RequiredArgsConstructor
+    private static final class StateTable<S, E, C extends FsmExecutionContext<S>> {
+        private final S source;
+        private final Map<E, List<TransitionTarget<S, E, C>>> transitions;
+        private final Map<Transition<S>, List<TransitionAction<S, E, C>>> beforeActions;
+        private final Map<Transition<S>, List<TransitionAction<S, E, C>>> afterActions;
+    }
+}
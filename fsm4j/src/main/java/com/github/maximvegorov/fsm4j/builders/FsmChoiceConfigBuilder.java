@@ -2,6 +2,7 @@ package com.github.maximvegorov.fsm4j.builders;
 
 import com.github.maximvegorov.fsm4j.FsmExecutionContext;
 import com.github.maximvegorov.fsm4j.Transition;
+import com.github.maximvegorov.fsm4j.TransitionAction;
 import com.github.maximvegorov.fsm4j.TransitionTarget;
 import lombok.AccessLevel;
 import lombok.Getter;
@@ -44,15 +45,21 @@ public final class FsmChoiceConfigBuilder<S, E, C extends FsmExecutionContext<S>
                     .computeIfAbsent(event, e -> new ArrayList<>(targets.size()));
             for (var target : targets) {
                 var transition = Transition.of(parent.getState(), target.getTargetState());
-                stateTargets.add(TransitionTarget.of(transition, target.getPredicate()));
-                for (var beforeAction : target.getBeforeActions()) {
-                    parent.addBeforeAction(target.getTargetState(), beforeAction);
-                }
-                for (var afterAction : target.getAfterActions()) {
-                    parent.addAfterAction(target.getTargetState(), afterAction);
-                }
+                stateTargets.add(TransitionTarget.of(transition, target.getPredicate(), target.isExclusive()));
+                addActions(parent.getBeforeActions(), target.getTargetState(), target.getBeforeActions());
+                addActions(parent.getAfterActions(), target.getTargetState(), target.getAfterActions());
             }
         }
         return parent;
     }
+
+    private static <S, E, C extends FsmExecutionContext<S>> void addActions(
+            Map<S, List<TransitionAction<S, E, C>>> stateActions,
+            S target,
+            List<TransitionAction<S, E, C>> actions) {
+        if (!actions.isEmpty()) {
+            stateActions.computeIfAbsent(target, t -> new ArrayList<>(actions.size()))
+                    .addAll(actions);
+        }
+    }
 }
@@ -0,0 +1,228 @@
+package com.github.maximvegorov.fsm4j.builders;
+
+import com.github.maximvegorov.fsm4j.*;
+import com.github.maximvegorov.fsm4j.timer.FsmTimerScheduler;
+import lombok.NonNull;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Builder class for configuring and creating a finite state machine (FSM) configuration.
+ * This class allows defining states, transitions, fallback mechanisms, and various transition-related actions
+ * (before, after, enter, and exit actions) for constructing a robust FSM configuration.
+ *
+ * @param <S> the type representing the states of the FSM.
+ * @param <E> the type representing the events triggering transitions in the FSM.
+ * @param <C> the type of context used during FSM execution, extending {@link FsmExecutionContext}.
+ */
+@ParametersAreNonnullByDefault
+public final class FsmConfigBuilder<S, E, C extends FsmExecutionContext<S>> {
+    private final Map<S, FsmStateConfigBuilder<S, E, C>> configs = new HashMap<>();
+    private TransitionFallback<S, E, C> transitionFallback;
+    private FsmMetrics<S, E> metrics;
+    private FsmTracer<S, E, C> tracer;
+    private FsmJournal<S, E, C> journal;
+    private FsmTimerScheduler<S, E, C> timerScheduler;
+    private boolean adaptiveGuards;
+    private Set<S> pruneInitialStates;
+
+    public FsmStateConfigBuilder<S, E, C> state(S state) {
+        return configs.computeIfAbsent(state, s -> new FsmStateConfigBuilder<>(this, state));
+    }
+
+    public FsmConfigBuilder<S, E, C> transitionFallback(TransitionFallback<S, E, C> transitionFallback) {
+        this.transitionFallback = transitionFallback;
+        return this;
+    }
+
+    /**
+     * Sets the listener measuring the machines using the configuration, none by default.
+     */
+    public FsmConfigBuilder<S, E, C> metrics(FsmMetrics<S, E> metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    /**
+     * Sets the tracer of the transitions of the machines using the configuration, none by default.
+     */
+    public FsmConfigBuilder<S, E, C> tracer(FsmTracer<S, E, C> tracer) {
+        this.tracer = tracer;
+        return this;
+    }
+
+    /**
+     * Sets the journal recording the transitions accepted by the machines using the configuration, none by default.
+     */
+    public FsmConfigBuilder<S, E, C> journal(FsmJournal<S, E, C> journal) {
+        this.journal = journal;
+        return this;
+    }
+
+    /**
+     * Sets the scheduler of the timeouts declared with {@link FsmTargetConfigBuilder#after}, required if there are any.
+     */
+    public FsmConfigBuilder<S, E, C> timers(FsmTimerScheduler<S, E, C> timerScheduler) {
+        this.timerScheduler = timerScheduler;
+        return this;
+    }
+
+    /**
+     * Sets whether the predicates of adjacent exclusive targets are reordered by their observed cost and match rate,
+     * off by default, see {@link FsmConfig#withAdaptiveGuards()}.
+     */
+    public FsmConfigBuilder<S, E, C> adaptiveGuards(boolean adaptiveGuards) {
+        this.adaptiveGuards = adaptiveGuards;
+        return this;
+    }
+
+    /**
+     * Makes {@link #build} drop the states machines starting in the specified ones never get to, along with their
+     * transitions and actions, and the targets declared after an unguarded target of the same state and event,
+     * see {@link FsmConfig#analyze(Set)}. Terminal states are kept. Off by default.
+     *
+     * @param initialStates the states the machines start in.
+     */
+    public FsmConfigBuilder<S, E, C> prune(@NonNull Set<S> initialStates) {
+        if (initialStates.isEmpty()) {
+            throw new IllegalArgumentException("initialStates: " + initialStates);
+        }
+        this.pruneInitialStates = Set.copyOf(initialStates);
+        return this;
+    }
+
+    public FsmConfig<S, E, C> build(@NonNull Set<S> terminalStates) {
+        if (terminalStates.isEmpty()) {
+            throw new IllegalArgumentException("terminalStates: " + terminalStates);
+        }
+
+        var transitions = new HashMap<S, Map<E, List<TransitionTarget<S, E, C>>>>(capacity(configs.size()));
+        var exitActions = new HashMap<S, List<TransitionAction<S, E, C>>>();
+        var beforeActions = new HashMap<Transition<S>, List<TransitionAction<S, E, C>>>();
+        var afterActions = new HashMap<Transition<S>, List<TransitionAction<S, E, C>>>();
+        var enterActions = new HashMap<S, List<TransitionAction<S, E, C>>>();
+        var parents = new HashMap<S, S>();
+        var timeouts = new HashMap<S, Map<E, Duration>>();
+
+        for (var stateConfig : configs.values()) {
+            var state = stateConfig.getState();
+            if (stateConfig.getParentState() != null) {
+                parents.put(state, stateConfig.getParentState());
+            }
+            if (!stateConfig.getTransitions().isEmpty()) {
+                var stateTransitions = new HashMap<E, List<TransitionTarget<S, E, C>>>(
+                        capacity(stateConfig.getTransitions().size()));
+                for (var eventAndTargets : stateConfig.getTransitions().entrySet()) {
+                    stateTransitions.put(eventAndTargets.getKey(), List.copyOf(eventAndTargets.getValue()));
+                }
+                transitions.put(state, Collections.unmodifiableMap(stateTransitions));
+            }
+            var stateExitActions = stateConfig.getExitActions();
+            var stateEnterActions = stateConfig.getEnterActions();
+            if (!stateConfig.getTimeouts().isEmpty()) {
+                if (timerScheduler == null) {
+                    throw new IllegalStateException("Timeouts of " + state + " require a timer scheduler");
+                }
+                // cancelled first, so that a timeout can't fire while the state is being left
+                stateExitActions = new ArrayList<>(stateExitActions);
+                stateExitActions.add(0, timerScheduler.cancelAction(state));
+                stateEnterActions = new ArrayList<>(stateEnterActions);
+                stateEnterActions.add(timerScheduler.armAction(state, stateConfig.getTimeouts()));
+                timeouts.put(state, Map.copyOf(stateConfig.getTimeouts()));
+            }
+            if (!stateExitActions.isEmpty()) {
+                exitActions.put(state, List.copyOf(stateExitActions));
+            }
+            // every source has a single state config, so the keys never collide
+            for (var targetAndBeforeActions : stateConfig.getBeforeActions().entrySet()) {
+                beforeActions.put(
+                        Transition.of(state, targetAndBeforeActions.getKey()),
+                        List.copyOf(targetAndBeforeActions.getValue()));
+            }
+            for (var targetAndAfterActions : stateConfig.getAfterActions().entrySet()) {
+                afterActions.put(
+                        Transition.of(state, targetAndAfterActions.getKey()),
+                        List.copyOf(targetAndAfterActions.getValue()));
+            }
+            if (!stateEnterActions.isEmpty()) {
+                enterActions.put(state, List.copyOf(stateEnterActions));
+            }
+        }
+
+        var finalTransitionFallback = Optional.ofNullable(transitionFallback)
+                .orElse((c, e, args) -> Optional.empty());
+
+        var config = FsmConfig.of(new FsmConfigParts<>(
+                transitions,
+                exitActions,
+                beforeActions,
+                afterActions,
+                enterActions,
+                finalTransitionFallback,
+                terminalStates,
+                parents,
+                metrics,
+                tracer,
+                journal,
+                timerScheduler,
+                timeouts));
+        if (pruneInitialStates != null) {
+            var analysis = config.analyze(pruneInitialStates);
+            if (!analysis.getUnreachableStates().isEmpty() || !analysis.getShadowedTargets().isEmpty()) {
+                var unreachable = analysis.getUnreachableStates();
+                transitions.keySet().removeAll(unreachable);
+                transitions.replaceAll((state, stateTransitions) -> pruneShadowed(stateTransitions));
+                exitActions.keySet().removeAll(unreachable);
+                enterActions.keySet().removeAll(unreachable);
+                beforeActions.keySet().removeIf(t -> unreachable.contains(t.getSource()) || unreachable.contains(t.getTarget()));
+                afterActions.keySet().removeIf(t -> unreachable.contains(t.getSource()) || unreachable.contains(t.getTarget()));
+                parents.keySet().removeAll(unreachable);
+                timeouts.keySet().removeAll(unreachable);
+                config = FsmConfig.of(new FsmConfigParts<>(
+                        transitions,
+                        exitActions,
+                        beforeActions,
+                        afterActions,
+                        enterActions,
+                        finalTransitionFallback,
+                        terminalStates,
+                        parents,
+                        metrics,
+                        tracer,
+                        journal,
+                        timerScheduler,
+                        timeouts));
+            }
+        }
+        return adaptiveGuards ? config.withAdaptiveGuards() : config;
+    }
+
+    /**
+     * @return the transitions without the targets following an unguarded one, which are never selected.
+     */
+    private Map<E, List<TransitionTarget<S, E, C>>> pruneShadowed(Map<E, List<TransitionTarget<S, E, C>>> stateTransitions) {
+        Map<E, List<TransitionTarget<S, E, C>>> result = null;
+        for (var eventAndTargets : stateTransitions.entrySet()) {
+            var targets = eventAndTargets.getValue();
+            for (var i = 0; i < targets.size() - 1; i++) {
+                if (targets.get(i).getPredicate() == TransitionPredicate.always()) {
+                    if (result == null) {
+                        result = new HashMap<>(stateTransitions);
+                    }
+                    result.put(eventAndTargets.getKey(), targets.subList(0, i + 1));
+                    break;
+                }
+            }
+        }
+        return result != null ? Collections.unmodifiableMap(result) : stateTransitions;
+    }
+
+    /**
+     * @return the initial capacity of a hash map expected to hold {@code size} entries without rehashing.
+     */
+    static int capacity(int size) {
+        return (int) (size / 0.75f) + 1;
+    }
+}
@@ -0,0 +1,70 @@
+package com.github.maximvegorov.fsm4j.builders;
+
+import com.github.maximvegorov.fsm4j.FsmConfig;
+import com.github.maximvegorov.fsm4j.FsmExecutionContext;
+import com.github.maximvegorov.fsm4j.FsmJournal;
+import com.github.maximvegorov.fsm4j.FsmMetrics;
+import com.github.maximvegorov.fsm4j.FsmTracer;
+import com.github.maximvegorov.fsm4j.Transition;
+import com.github.maximvegorov.fsm4j.TransitionAction;
+import com.github.maximvegorov.fsm4j.TransitionFallback;
+import com.github.maximvegorov.fsm4j.TransitionTarget;
+import com.github.maximvegorov.fsm4j.timer.FsmTimerScheduler;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The parts of a configuration collected by {@link FsmConfigBuilder} or {@link FsmBulkConfigBuilder}, which are
+ * the only ones creating them, compiled by {@link FsmConfig#of(FsmConfigParts)}.
+ *
+ * @param <S> the type representing the states of the FSM.
+ * @param <E> the type representing the events triggering transitions in the FSM.
+ * @param <C> the type of context used during FSM execution, extending {@link FsmExecutionContext}.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public final class FsmConfigParts<S, E, C extends FsmExecutionContext<S>> {
+    @NonNull
+    private final Map<S, Map<E, List<TransitionTarget<S, E, C>>>> transitions;
+    @NonNull
+    private final Map<S, List<TransitionAction<S, E, C>>> exitActions;
+    @NonNull
+    private final Map<Transition<S>, List<TransitionAction<S, E, C>>> beforeActions;
+    @NonNull
+    private final Map<Transition<S>, List<TransitionAction<S, E, C>>> afterActions;
+    @NonNull
+    private final Map<S, List<TransitionAction<S, E, C>>> enterActions;
+    @NonNull
+    private final TransitionFallback<S, E, C> transitionFallback;
+    @NonNull
+    private final Set<S> terminalStates;
+    /**
+     * The parent of every nested state.
+     */
+    @NonNull
+    private final Map<S, S> parents;
+    @Nullable
+    private final FsmMetrics<S, E> metrics;
+    @Nullable
+    private final FsmTracer<S, E, C> tracer;
+    @Nullable
+    private final FsmJournal<S, E, C> journal;
+    /**
+     * The scheduler of the timeouts, cancelling those of a machine when it stops.
+     */
+    @Nullable
+    private final FsmTimerScheduler<S, E, C> timerScheduler;
+    /**
+     * The timeouts of every state having some, by their events.
+     */
+    @NonNull
+    private final Map<S, Map<E, Duration>> timeouts;
+}
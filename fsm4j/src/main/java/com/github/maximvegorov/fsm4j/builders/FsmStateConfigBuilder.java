@@ -1,8 +1,10 @@
 package com.github.maximvegorov.fsm4j.builders;
 
 import com.github.maximvegorov.fsm4j.*;
+import com.github.maximvegorov.fsm4j.timer.FsmTimerScheduler;
 import lombok.*;
 
+import java.time.Duration;
 import java.util.*;
 
 /**
@@ -25,6 +27,19 @@ public class FsmStateConfigBuilder<S, E, C extends FsmExecutionContext<S>> {
     private final Map<S, List<TransitionAction<S, E, C>>> afterActions = new HashMap<>();
     private final List<TransitionAction<S, E, C>> enterActions = new ArrayList<>();
     private final List<TransitionAction<S, E, C>> exitActions = new ArrayList<>();
+    private final Map<E, Duration> timeouts = new LinkedHashMap<>();
+    private S parentState;
+
+    /**
+     * Nests the state into the given one. The state also handles the events the parent and its own ancestors
+     * have transitions for: their targets are tried after the ones of the state, nearest ancestor first.
+     * Leaving the parent runs its exit actions after the ones of the state, entering it runs its enter
+     * actions before the ones of the state.
+     */
+    public FsmStateConfigBuilder<S, E, C> parent(@NonNull S parent) {
+        this.parentState = parent;
+        return this;
+    }
 
     public FsmChoiceConfigBuilder<S, E, C> choice() {
         return new FsmChoiceConfigBuilder<>(this);
@@ -56,6 +71,13 @@ public class FsmStateConfigBuilder<S, E, C extends FsmExecutionContext<S>> {
         return this;
     }
 
+    void addTimeout(E event, Duration timeout) {
+        var previous = timeouts.putIfAbsent(event, timeout);
+        if (previous != null && !previous.equals(timeout)) {
+            throw new IllegalArgumentException("Timeout of " + event + " in " + state + " is already " + previous);
+        }
+    }
+
     public FsmStateConfigBuilder<S, E, C> state(S state) {
         return parent.state(state);
     }
@@ -64,6 +86,26 @@ public class FsmStateConfigBuilder<S, E, C extends FsmExecutionContext<S>> {
         return parent.transitionFallback(transitionFallback);
     }
 
+    public FsmConfigBuilder<S, E, C> timers(FsmTimerScheduler<S, E, C> timerScheduler) {
+        return parent.timers(timerScheduler);
+    }
+
+    public FsmConfigBuilder<S, E, C> metrics(FsmMetrics<S, E> metrics) {
+        return parent.metrics(metrics);
+    }
+
+    public FsmConfigBuilder<S, E, C> tracer(FsmTracer<S, E, C> tracer) {
+        return parent.tracer(tracer);
+    }
+
+    public FsmConfigBuilder<S, E, C> journal(FsmJournal<S, E, C> journal) {
+        return parent.journal(journal);
+    }
+
+    public FsmConfigBuilder<S, E, C> prune(Set<S> initialStates) {
+        return parent.prune(initialStates);
+    }
+
     public FsmConfig<S, E, C> build(Set<S> endStates) {
         return parent.build(endStates);
     }
@@ -29,4 +29,5 @@ public final class FsmTargetConfig<S, E, C extends FsmExecutionContext<S>> {
     private final List<TransitionAction<S, E, C>> afterActions;
     @NonNull
     private final S targetState;
+    private final boolean exclusive;
 }
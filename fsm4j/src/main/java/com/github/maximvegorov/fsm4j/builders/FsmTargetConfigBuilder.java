@@ -1,12 +1,15 @@
 package com.github.maximvegorov.fsm4j.builders;
 
+import com.github.maximvegorov.fsm4j.FsmConfig;
 import com.github.maximvegorov.fsm4j.FsmExecutionContext;
 import com.github.maximvegorov.fsm4j.TransitionAction;
 import com.github.maximvegorov.fsm4j.TransitionPredicate;
+import com.github.maximvegorov.fsm4j.timer.FsmTimerScheduler;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.ToString;
 
+import java.time.Duration;
 import java.util.*;
 
 import static java.util.Collections.emptyList;
@@ -29,9 +32,11 @@ public final class FsmTargetConfigBuilder<S, E, C extends FsmExecutionContext<S>
     private final FsmChoiceConfigBuilder<S, E, C> parent;
     @NonNull
     private final E event;
-    private TransitionPredicate<S, E, C> predicate = (context, e, args) -> true;
+    private TransitionPredicate<S, E, C> predicate = TransitionPredicate.always();
     private List<TransitionAction<S, E, C>> beforeActions;
     private List<TransitionAction<S, E, C>> afterActions;
+    private Duration timeout;
+    private boolean exclusive;
     private S target;
 
     public FsmTargetConfigBuilder<S, E, C> and(@NonNull TransitionPredicate<S, E, C> predicate) {
@@ -39,6 +44,16 @@ public final class FsmTargetConfigBuilder<S, E, C extends FsmExecutionContext<S>
         return this;
     }
 
+    /**
+     * Declares that the predicate of this target never matches together with the one of any other exclusive
+     * target declared next to it for the same event, so that an adaptive configuration may try them in the order
+     * it finds the fastest, see {@link FsmConfig#withAdaptiveGuards()}.
+     */
+    public FsmTargetConfigBuilder<S, E, C> exclusive() {
+        this.exclusive = true;
+        return this;
+    }
+
     public FsmTargetConfigBuilder<S, E, C> before(@NonNull TransitionAction<S, E, C> action) {
         if (beforeActions == null) {
             beforeActions = new ArrayList<>();
@@ -63,14 +78,33 @@ public final class FsmTargetConfigBuilder<S, E, C extends FsmExecutionContext<S>
         return this;
     }
 
+    /**
+     * Makes the event a timeout of the state: once the machine has stayed in the state for the given
+     * duration, the {@link FsmTimerScheduler} of the configuration fires the event, which then triggers
+     * this target as any other one. The timeout is armed when the state is entered and cancelled when it
+     * is left or the machine stops. A machine created or restored in the state gets it armed anew, for the full
+     * duration, as the time the machine already spent in the state isn't known.
+     */
+    public FsmTargetConfigBuilder<S, E, C> after(@NonNull Duration timeout) {
+        if (timeout.isNegative()) {
+            throw new IllegalArgumentException("timeout: " + timeout);
+        }
+        this.timeout = timeout;
+        return this;
+    }
+
     public FsmChoiceConfigBuilder<S, E, C> moveTo(@NonNull S target) {
         this.target = target;
+        if (timeout != null) {
+            parent.getParent().addTimeout(event, timeout);
+        }
         var transitionConfig = new FsmTargetConfig<>(
                 event,
                 predicate,
                 Optional.ofNullable(beforeActions).orElse(emptyList()),
                 Optional.ofNullable(afterActions).orElse(emptyList()),
-                Objects.requireNonNull(target, "target is null"));
+                Objects.requireNonNull(target, "target is null"),
+                exclusive);
         parent.getTransitions().computeIfAbsent(event, e -> new ArrayList<>())
                 .add(transitionConfig);
         return parent;
@@ -0,0 +1,52 @@
+package com.github.maximvegorov.fsm4j.builders;
+
+import com.github.maximvegorov.fsm4j.FsmExecutionContext;
+import com.github.maximvegorov.fsm4j.TransitionAction;
+import com.github.maximvegorov.fsm4j.TransitionPredicate;
+import lombok.*;
+
+import java.util.List;
+
+import static java.util.Collections.emptyList;
+
+/**
+ * A single declared transition loaded by {@link FsmBulkConfigBuilder}: the target a source state moves to on
+ * an event when the predicate matches, along with the actions run before and after the state is changed.
+ *
+ * <p>
+ * Rows declaring the same source and target share their before and after actions, as the targets of
+ * a {@link FsmChoiceConfigBuilder} do.
+ * </p>
+ *
+ * @param <S> the type representing the states in the FSM.
+ * @param <E> the type representing the events triggering transitions in the FSM.
+ * @param <C> the type extending {@link FsmExecutionContext}, providing contextual information
+ *            during the FSM's execution.
+ */
+@Data
+public final class FsmTransitionRow<S, E, C extends FsmExecutionContext<S>> {
+    @NonNull
+    private final S source;
+    @NonNull
+    private final E event;
+    @NonNull
+    private final TransitionPredicate<S, E, C> predicate;
+    @NonNull
+    private final List<TransitionAction<S, E, C>> beforeActions;
+    @NonNull
+    private final List<TransitionAction<S, E, C>> afterActions;
+    @NonNull
+    private final S target;
+
+    public static <S, E, C extends FsmExecutionContext<S>> FsmTransitionRow<S, E, C> of(S source, E event, S target) {
+        return of(source, event, TransitionPredicate.always(), target);
+    }
+
+    public static <S, E, C extends FsmExecutionContext<S>> FsmTransitionRow<S, E, C> of(
+            S source,
+            E event,
+            TransitionPredicate<S, E, C> predicate,
+            S target) {
+        return new FsmTransitionRow<>(source, event, predicate, emptyList(), emptyList(), target);
+    }
+}
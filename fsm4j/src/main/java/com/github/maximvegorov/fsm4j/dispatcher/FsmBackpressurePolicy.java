@@ -0,0 +1,19 @@
+package com.github.maximvegorov.fsm4j.dispatcher;
+
+/**
+ * Defines what {@link FsmDispatcher#dispatch} does when the queue of the target shard is full.
+ */
+public enum FsmBackpressurePolicy {
+    /**
+     * The producer waits until the shard frees some space.
+     */
+    BLOCK,
+    /**
+     * The event is dropped and {@code dispatch} returns {@code false}.
+     */
+    DROP,
+    /**
+     * {@code dispatch} throws {@link java.util.concurrent.RejectedExecutionException}.
+     */
+    FAIL
+}
@@ -0,0 +1,97 @@
+package com.github.maximvegorov.fsm4j.dispatcher;
+
+import com.github.maximvegorov.fsm4j.FsmEventArgs;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free multi-producer single-consumer queue of {@code (machineId, event, args)} tuples.
+ * Every slot carries a sequence number which tells whether it is free for the producer that claimed it or
+ * published for the consumer, so the tuples are stored in plain arrays and enqueueing doesn't allocate.
+ */
+final class FsmDispatchQueue<K, E> {
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final Object[] machineIds;
+    private final Object[] events;
+    private final FsmEventArgs[] args;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    FsmDispatchQueue(int capacity) {
+        var size = Integer.highestOneBit(Math.max(2, capacity - 1) << 1);
+        this.mask = size - 1;
+        this.sequences = new AtomicLongArray(size);
+        for (var i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.machineIds = new Object[size];
+        this.events = new Object[size];
+        this.args = new FsmEventArgs[size];
+    }
+
+    /**
+     * May be called by any thread.
+     *
+     * @return {@code false} if the queue is full.
+     */
+    boolean offer(K machineId, E event, FsmEventArgs eventArgs) {
+        var position = tail.get();
+        while (true) {
+            var index = (int) position & mask;
+            var difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    machineIds[index] = machineId;
+                    events[index] = event;
+                    args[index] = eventArgs;
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Must be called by the consumer thread only.
+     *
+     * @return {@code false} if the queue is empty.
+     */
+    @SuppressWarnings("unchecked")
+    boolean poll(Consumer<K, E> consumer) {
+        var position = head;
+        var index = (int) position & mask;
+        if (sequences.get(index) != position + 1) {
+            return false;
+        }
+        var machineId = (K) machineIds[index];
+        var event = (E) events[index];
+        var eventArgs = args[index];
+        machineIds[index] = null;
+        events[index] = null;
+        args[index] = null;
+        sequences.set(index, position + mask + 1);
+        head = position + 1;
+        consumer.accept(machineId, event, eventArgs);
+        return true;
+    }
+
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    boolean isEmpty() {
+        return sequences.get((int) head & mask) != head + 1;
+    }
+
+    @FunctionalInterface
+    interface Consumer<K, E> {
+        void accept(K machineId, E event, FsmEventArgs args);
+    }
+}
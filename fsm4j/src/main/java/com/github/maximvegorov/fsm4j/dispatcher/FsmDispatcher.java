@@ -0,0 +1,163 @@
+package com.github.maximvegorov.fsm4j.dispatcher;
+
+import com.github.maximvegorov.fsm4j.Fsm;
+import com.github.maximvegorov.fsm4j.FsmEventArgs;
+import com.github.maximvegorov.fsm4j.FsmExecutionContext;
+import lombok.NonNull;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Delivers events to many machines from any number of producer threads.
+ *
+ * <p>
+ * Machines are sharded by the hash of their id across single-threaded workers, every shard consuming
+ * a bounded lock-free queue. Events of one machine are therefore processed in the order they were
+ * dispatched and without any locking, while machines of different shards are processed in parallel.
+ * A machine is looked up on the worker thread by the resolver passed to the builder the first time
+ * an event arrives for it, and is forgotten once it is no longer running.
+ * </p>
+ *
+ * @param <K> the type of the machine identifiers.
+ * @param <S> the type representing the states.
+ * @param <E> the type representing the events.
+ * @param <C> the type extending {@link FsmExecutionContext}.
+ */
+public final class FsmDispatcher<K, S, E, C extends FsmExecutionContext<S>> implements AutoCloseable {
+    private static final long BLOCK_PARK_NANOS = 1_000;
+
+    private final FsmDispatcherShard<K, S, E, C>[] shards;
+    private final FsmBackpressurePolicy backpressurePolicy;
+    private volatile boolean closed;
+
+    @SuppressWarnings("unchecked")
+    FsmDispatcher(
+            int shardCount,
+            int queueCapacity,
+            FsmBackpressurePolicy backpressurePolicy,
+            ThreadFactory threadFactory,
+            FsmDispatcherListener<K, E> listener,
+            Function<K, Fsm<S, E, C>> machineResolver) {
+        this.backpressurePolicy = backpressurePolicy;
+        this.shards = new FsmDispatcherShard[shardCount];
+        for (var i = 0; i < shardCount; i++) {
+            shards[i] = new FsmDispatcherShard<>(queueCapacity, machineResolver, listener);
+        }
+        for (var shard : shards) {
+            shard.start(threadFactory.newThread(shard));
+        }
+    }
+
+    public static <K, S, E, C extends FsmExecutionContext<S>> FsmDispatcherBuilder<K, S, E, C> builder() {
+        return new FsmDispatcherBuilder<>();
+    }
+
+    public boolean dispatch(K machineId, E event) {
+        return dispatch(machineId, event, FsmEventArgs.empty());
+    }
+
+    /**
+     * Enqueues the event for the specified machine. May be called from any thread.
+     *
+     * @return {@code true} if the event was enqueued, {@code false} if it was dropped because the queue of
+     * the shard is full and the backpressure policy is {@link FsmBackpressurePolicy#DROP}.
+     * @throws RejectedExecutionException if the dispatcher is closed, or the queue is full and the backpressure
+     * policy is {@link FsmBackpressurePolicy#FAIL}.
+     */
+    public boolean dispatch(@NonNull K machineId, @NonNull E event, @NonNull FsmEventArgs args) {
+        var shard = shards[getShard(machineId)];
+        // entered before checking, so that close either rejects the call or waits for it
+        shard.enter();
+        try {
+            checkOpen();
+            return offer(shard, machineId, event, args.retain());
+        } finally {
+            shard.exit();
+        }
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * @return the index of the shard processing the events of the machine.
+     */
+    public int getShard(K machineId) {
+        var hash = machineId.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), shards.length);
+    }
+
+    /**
+     * @return the number of events waiting in the queue of the shard.
+     */
+    public int getQueueDepth(int shard) {
+        return shards[shard].getQueueDepth();
+    }
+
+    /**
+     * @return the number of events processed by the shard.
+     */
+    public long getProcessedCount(int shard) {
+        return shards[shard].getProcessedCount();
+    }
+
+    /**
+     * @return the number of events dropped or failed because the queue of the shard was full.
+     */
+    public long getRejectedCount(int shard) {
+        return shards[shard].getRejectedCount();
+    }
+
+    /**
+     * Stops accepting events and waits for the shards to process the queued ones. A dispatch racing with
+     * the call either fails with {@link RejectedExecutionException} or gets its event processed before
+     * this method returns.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (var shard : shards) {
+            shard.stop();
+        }
+        try {
+            for (var shard : shards) {
+                shard.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean offer(FsmDispatcherShard<K, S, E, C> shard, K machineId, E event, FsmEventArgs args) {
+        if (shard.offer(machineId, event, args)) {
+            return true;
+        }
+        switch (backpressurePolicy) {
+            case DROP:
+                shard.rejected();
+                return false;
+            case FAIL:
+                shard.rejected();
+                throw new RejectedExecutionException("Queue is full");
+            default:
+                do {
+                    LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new RejectedExecutionException("Interrupted");
+                    }
+                    checkOpen();
+                } while (!shard.offer(machineId, event, args));
+                return true;
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new RejectedExecutionException("Closed");
+        }
+    }
+}
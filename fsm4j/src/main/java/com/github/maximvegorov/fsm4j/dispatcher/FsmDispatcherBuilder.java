@@ -0,0 +1,91 @@
+package com.github.maximvegorov.fsm4j.dispatcher;
+
+import com.github.maximvegorov.fsm4j.Fsm;
+import com.github.maximvegorov.fsm4j.FsmExecutionContext;
+import lombok.NonNull;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Builder class for configuring and creating a {@link FsmDispatcher}.
+ *
+ * @param <K> the type of the machine identifiers.
+ * @param <S> the type representing the states.
+ * @param <E> the type representing the events.
+ * @param <C> the type extending {@link FsmExecutionContext}.
+ */
+public final class FsmDispatcherBuilder<K, S, E, C extends FsmExecutionContext<S>> {
+    private static final AtomicInteger DISPATCHER_NUMBER = new AtomicInteger();
+
+    private int shardCount = Runtime.getRuntime().availableProcessors();
+    private int queueCapacity = 1024;
+    private FsmBackpressurePolicy backpressurePolicy = FsmBackpressurePolicy.BLOCK;
+    private ThreadFactory threadFactory;
+    private FsmDispatcherListener<K, E> listener = new FsmDispatcherListener<>() {
+    };
+
+    public FsmDispatcherBuilder<K, S, E, C> shardCount(int shardCount) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("shardCount: " + shardCount);
+        }
+        this.shardCount = shardCount;
+        return this;
+    }
+
+    /**
+     * Sets the capacity of the queue of every shard, rounded up to a power of two.
+     */
+    public FsmDispatcherBuilder<K, S, E, C> queueCapacity(int queueCapacity) {
+        if (queueCapacity <= 0 || queueCapacity > 1 << 30) {
+            throw new IllegalArgumentException("queueCapacity: " + queueCapacity);
+        }
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    public FsmDispatcherBuilder<K, S, E, C> backpressurePolicy(@NonNull FsmBackpressurePolicy backpressurePolicy) {
+        this.backpressurePolicy = backpressurePolicy;
+        return this;
+    }
+
+    /**
+     * Sets the factory of the worker threads. By default daemon threads named {@code fsm4j-dispatcher-N-M} are used.
+     */
+    public FsmDispatcherBuilder<K, S, E, C> threadFactory(@NonNull ThreadFactory threadFactory) {
+        this.threadFactory = threadFactory;
+        return this;
+    }
+
+    public FsmDispatcherBuilder<K, S, E, C> listener(@NonNull FsmDispatcherListener<K, E> listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * Creates the dispatcher and starts its workers.
+     *
+     * @param machineResolver looks a machine up by its id, returns {@code null} for an unknown machine.
+     *                        Called on the worker thread of the shard the machine belongs to.
+     */
+    public FsmDispatcher<K, S, E, C> build(@NonNull Function<K, Fsm<S, E, C>> machineResolver) {
+        return new FsmDispatcher<>(
+                shardCount,
+                queueCapacity,
+                backpressurePolicy,
+                threadFactory != null ? threadFactory : defaultThreadFactory(),
+                listener,
+                machineResolver);
+    }
+
+    private static ThreadFactory defaultThreadFactory() {
+        var prefix = "fsm4j-dispatcher-" + DISPATCHER_NUMBER.incrementAndGet() + "-";
+        var threadNumber = new AtomicInteger();
+        return runnable -> {
+            var thread = new Thread(runnable, prefix + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,24 @@
+package com.github.maximvegorov.fsm4j.dispatcher;
+
+/**
+ * Receives the outcome of the events processed by a {@link FsmDispatcher}. Methods are invoked on the
+ * worker thread of the shard the machine belongs to, so they must not block.
+ *
+ * @param <K> the type of the machine identifiers.
+ * @param <E> the type representing the events.
+ */
+public interface FsmDispatcherListener<K, E> {
+    /**
+     * Called after the event was fired.
+     *
+     * @param transitioned the value returned by {@code Fsm.fire}.
+     */
+    default void onFired(K machineId, E event, boolean transitioned) {
+    }
+
+    /**
+     * Called when the machine is unknown or firing the event failed.
+     */
+    default void onError(K machineId, E event, RuntimeException e) {
+    }
+}
@@ -0,0 +1,156 @@
+package com.github.maximvegorov.fsm4j.dispatcher;
+
+import com.github.maximvegorov.fsm4j.Fsm;
+import com.github.maximvegorov.fsm4j.FsmEventArgs;
+import com.github.maximvegorov.fsm4j.FsmExecutionContext;
+import com.github.maximvegorov.fsm4j.FsmExecutionStatus;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * A single-threaded worker of a {@link FsmDispatcher} owning a subset of the machines.
+ * Machines are only touched by the worker thread, so they need no synchronization.
+ */
+@Slf4j
+final class FsmDispatcherShard<K, S, E, C extends FsmExecutionContext<S>> implements Runnable {
+    private static final int SPINS = 100;
+
+    private final FsmDispatchQueue<K, E> queue;
+    private final Function<K, Fsm<S, E, C>> machineResolver;
+    private final FsmDispatcherListener<K, E> listener;
+    private final Map<K, Fsm<S, E, C>> machines = new HashMap<>();
+    private final FsmDispatchQueue.Consumer<K, E> processor = this::process;
+    private final AtomicLong processedCount = new AtomicLong();
+    private final LongAdder rejectedCount = new LongAdder();
+    // the number of dispatch calls in progress, the worker isn't stopped before they complete
+    private final AtomicInteger producers = new AtomicInteger();
+    private volatile Thread thread;
+    private volatile boolean parked;
+    private volatile boolean running = true;
+
+    FsmDispatcherShard(
+            int queueCapacity,
+            Function<K, Fsm<S, E, C>> machineResolver,
+            FsmDispatcherListener<K, E> listener) {
+        this.queue = new FsmDispatchQueue<>(queueCapacity);
+        this.machineResolver = machineResolver;
+        this.listener = listener;
+    }
+
+    void start(Thread thread) {
+        this.thread = thread;
+        thread.start();
+    }
+
+    boolean offer(K machineId, E event, FsmEventArgs args) {
+        if (!queue.offer(machineId, event, args)) {
+            return false;
+        }
+        if (parked) {
+            LockSupport.unpark(thread);
+        }
+        return true;
+    }
+
+    void enter() {
+        producers.incrementAndGet();
+    }
+
+    void exit() {
+        producers.decrementAndGet();
+    }
+
+    /**
+     * Waits for the dispatch calls in progress, then stops the worker once it has processed the queued events.
+     * Must be called after the dispatcher is marked closed, so that no call enters meanwhile.
+     */
+    void stop() {
+        while (producers.get() != 0) {
+            Thread.onSpinWait();
+        }
+        running = false;
+        LockSupport.unpark(thread);
+    }
+
+    void join() throws InterruptedException {
+        thread.join();
+    }
+
+    int getQueueDepth() {
+        return queue.size();
+    }
+
+    long getProcessedCount() {
+        return processedCount.get();
+    }
+
+    long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    void rejected() {
+        rejectedCount.increment();
+    }
+
+    @Override
+    public void run() {
+        var idle = 0;
+        while (running || !queue.isEmpty()) {
+            if (queue.poll(processor)) {
+                idle = 0;
+            } else if (++idle < SPINS) {
+                Thread.onSpinWait();
+            } else {
+                park();
+            }
+        }
+    }
+
+    private void park() {
+        parked = true;
+        if (running && queue.isEmpty()) {
+            LockSupport.park(this);
+        }
+        parked = false;
+    }
+
+    private void process(K machineId, E event, FsmEventArgs args) {
+        try {
+            var fsm = machines.get(machineId);
+            if (fsm == null) {
+                fsm = machineResolver.apply(machineId);
+                if (fsm == null) {
+                    throw new IllegalArgumentException("Unknown machine: " + machineId);
+                }
+                machines.put(machineId, fsm);
+            }
+            try {
+                var transitioned = fsm.fire(event, args);
+                listener.onFired(machineId, event, transitioned);
+            } finally {
+                if (fsm.getExecutionStatus() != FsmExecutionStatus.RUNNING) {
+                    machines.remove(machineId);
+                }
+            }
+        } catch (RuntimeException e) {
+            onError(machineId, event, e);
+        } finally {
+            processedCount.lazySet(processedCount.get() + 1);
+        }
+    }
+
+    private void onError(K machineId, E event, RuntimeException e) {
+        try {
+            listener.onError(machineId, event, e);
+        } catch (RuntimeException listenerError) {
+            log.error("Error while handling error of machine {}", machineId, listenerError);
+        }
+    }
+}
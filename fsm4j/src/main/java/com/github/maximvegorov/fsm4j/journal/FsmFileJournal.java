@@ -0,0 +1,328 @@
+package com.github.maximvegorov.fsm4j.journal;
+
+import com.github.maximvegorov.fsm4j.FsmEventArgs;
+import com.github.maximvegorov.fsm4j.FsmExecutionContext;
+import com.github.maximvegorov.fsm4j.FsmJournal;
+import com.github.maximvegorov.fsm4j.Transition;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only journal of transitions stored in a directory as a sequence of segment files.
+ *
+ * <p>
+ * A record holds its sequence number, the machine id, the transition, the event and its arguments,
+ * encoded by a {@link FsmJournalFormat} and protected by a CRC32 checksum. Records are appended to an in-memory
+ * batch; the first appender that needs the batch on the disk writes it with a single call, while the
+ * appenders arriving meanwhile form the next batch. A segment is rolled once it exceeds the segment size.
+ * </p>
+ *
+ * <p>
+ * Opening a journal continues the sequence of the records already in the directory, in a new segment.
+ * Read it back with {@link FsmJournalReader}.
+ * </p>
+ *
+ * @param <K> the type of the machine identifiers.
+ * @param <S> the type representing the states.
+ * @param <E> the type representing the events.
+ * @param <C> the type representing the execution context.
+ *
+ * Thread-safe.
+ */
+@Slf4j
+public final class FsmFileJournal<K, S, E, C extends FsmExecutionContext<S>>
+        implements FsmJournal<S, E, C>, AutoCloseable {
+    private final Path directory;
+    private final FsmJournalFormat<K, S, E> format;
+    private final FsmJournalCommitMode commitMode;
+    private final long segmentSize;
+    private final int batchSize;
+    private final Function<? super C, ? extends K> machineIdResolver;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition committed = lock.newCondition();
+    // the fields below are guarded by the lock
+    private final RecordBuffer record = new RecordBuffer();
+    private final DataOutputStream recordOut = new DataOutputStream(record);
+    private final CRC32 crc = new CRC32();
+    private RecordBuffer batch = new RecordBuffer();
+    private RecordBuffer spareBatch = new RecordBuffer();
+    private long batchFirstSequence;
+    private long lastSequence;
+    private long committedSequence;
+    private boolean flushing;
+    private IOException failure;
+    private boolean closed;
+    // the fields below are accessed by the flushing thread, or under the lock when no flush is running
+    private FileChannel segment;
+    private long segmentPosition;
+
+    FsmFileJournal(
+            Path directory,
+            FsmJournalFormat<K, S, E> format,
+            FsmJournalCommitMode commitMode,
+            long segmentSize,
+            int batchSize,
+            Function<? super C, ? extends K> machineIdResolver) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.format = format;
+        this.commitMode = commitMode;
+        this.segmentSize = segmentSize;
+        this.batchSize = batchSize;
+        this.machineIdResolver = machineIdResolver;
+        this.lastSequence = findLastSequence(directory, format);
+        this.committedSequence = lastSequence;
+    }
+
+    public static <K, S, E, C extends FsmExecutionContext<S>> FsmFileJournalBuilder<K, S, E, C> builder(
+            @NonNull Path directory,
+            @NonNull FsmJournalFormat<K, S, E> format) {
+        return new FsmFileJournalBuilder<>(directory, format);
+    }
+
+    /**
+     * Appends the transition, waiting for it to reach the disk in the {@code SYNC} commit mode.
+     *
+     * @throws UncheckedIOException if the record can't be encoded or the journal failed to write.
+     * @throws IllegalStateException if the journal is closed.
+     */
+    @Override
+    public void append(C context, Transition<S> transition, E event, FsmEventArgs args) {
+        var machineId = machineIdResolver.apply(context);
+        lock.lock();
+        try {
+            checkUsable();
+            var sequence = lastSequence + 1;
+            encode(sequence, machineId, transition, event, args);
+            lastSequence = sequence;
+
+            if (commitMode == FsmJournalCommitMode.SYNC) {
+                awaitCommitted(sequence, true);
+            } else if (batch.size() >= batchSize && !flushing) {
+                flushBatch(false);
+                checkUsable();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the records appended so far and forces them to the disk.
+     *
+     * @throws UncheckedIOException if the journal failed to write.
+     */
+    public void flush() {
+        lock.lock();
+        try {
+            checkUsable();
+            awaitCommitted(lastSequence, true);
+            // the records may have been written unforced, and the segment belongs to the running flush if any
+            awaitFlushed();
+            checkUsable();
+            if (segment != null) {
+                segment.force(false);
+            }
+        } catch (IOException e) {
+            failure = e;
+            throw new UncheckedIOException("Journal failed", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getLastSequence() {
+        lock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public FsmJournalFormat<K, S, E> getFormat() {
+        return format;
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            try {
+                if (failure == null) {
+                    flush();
+                }
+            } finally {
+                closed = true;
+                awaitFlushed();
+                if (segment != null) {
+                    segment.close();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void encode(long sequence, K machineId, Transition<S> transition, E event, FsmEventArgs args) {
+        record.reset();
+        try {
+            recordOut.writeLong(sequence);
+            format.getMachineIdCodec().write(machineId, recordOut);
+            format.getStateCodec().write(transition.getSource(), recordOut);
+            format.getStateCodec().write(transition.getTarget(), recordOut);
+            format.getEventCodec().write(event, recordOut);
+            format.getArgsCodec().write(args, recordOut);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to encode record " + sequence, e);
+        }
+        crc.reset();
+        crc.update(record.buffer(), 0, record.size());
+
+        if (batch.size() == 0) {
+            batchFirstSequence = sequence;
+        }
+        batch.writeInt(record.size());
+        batch.writeInt((int) crc.getValue());
+        batch.write(record.buffer(), 0, record.size());
+    }
+
+    private void awaitCommitted(long sequence, boolean force) {
+        while (committedSequence < sequence) {
+            checkUsable();
+            if (!flushing) {
+                flushBatch(force);
+            } else {
+                committed.awaitUninterruptibly();
+            }
+        }
+        checkUsable();
+    }
+
+    /**
+     * Waits for the running flush, if any, to hand the segment back.
+     */
+    private void awaitFlushed() {
+        while (flushing) {
+            committed.awaitUninterruptibly();
+        }
+    }
+
+    /**
+     * Writes the current batch releasing the lock meanwhile, so that the next batch can be appended.
+     */
+    private void flushBatch(boolean force) {
+        flushing = true;
+        var flushed = batch;
+        var firstSequence = batchFirstSequence;
+        var flushedSequence = lastSequence;
+        batch = spareBatch;
+        spareBatch = null;
+        lock.unlock();
+        IOException error = null;
+        try {
+            write(flushed, firstSequence, force);
+        } catch (IOException e) {
+            log.error("Error while writing journal {}", directory, e);
+            error = e;
+        } finally {
+            lock.lock();
+            flushed.reset();
+            spareBatch = flushed;
+            flushing = false;
+            if (error == null) {
+                committedSequence = flushedSequence;
+            } else {
+                failure = error;
+            }
+            committed.signalAll();
+        }
+    }
+
+    private void write(RecordBuffer flushed, long firstSequence, boolean force) throws IOException {
+        if (flushed.size() == 0) {
+            return;
+        }
+        if (segment == null || segmentPosition >= segmentSize) {
+            rollSegment(firstSequence);
+        }
+        var buffer = ByteBuffer.wrap(flushed.buffer(), 0, flushed.size());
+        while (buffer.hasRemaining()) {
+            segmentPosition += segment.write(buffer);
+        }
+        if (force) {
+            segment.force(false);
+        }
+    }
+
+    private void rollSegment(long firstSequence) throws IOException {
+        if (segment != null) {
+            segment.force(false);
+            segment.close();
+        }
+        segment = FileChannel.open(
+                directory.resolve(FsmJournalReader.segmentName(firstSequence)),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        segmentPosition = 0;
+    }
+
+    private void checkUsable() {
+        if (failure != null) {
+            throw new UncheckedIOException("Journal failed", failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("Journal is closed");
+        }
+    }
+
+    private static long findLastSequence(Path directory, FsmJournalFormat<?, ?, ?> format) throws IOException {
+        var segments = FsmJournalReader.listSegments(directory);
+        var lastSequence = new long[1];
+        for (var i = segments.size() - 1; i >= 0 && lastSequence[0] == 0; i--) {
+            FsmJournalReader.readSegment(segments.get(i), format, record -> lastSequence[0] = record.getSequence());
+        }
+        return lastSequence[0];
+    }
+
+    /**
+     * Exposes the buffer to avoid copying it.
+     */
+    private static final class RecordBuffer extends ByteArrayOutputStream {
+        RecordBuffer() {
+            super(256);
+        }
+
+        byte[] buffer() {
+            return buf;
+        }
+
+        void writeInt(int value) {
+            write(value >>> 24);
+            write(value >>> 16);
+            write(value >>> 8);
+            write(value);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.github.maximvegorov.fsm4j.journal;
+
+import com.github.maximvegorov.fsm4j.FsmExecutionContext;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.function.Function;
+
+/**
+ * Builder class for configuring and opening a {@link FsmFileJournal}.
+ *
+ * @param <K> the type of the machine identifiers.
+ * @param <S> the type representing the states.
+ * @param <E> the type representing the events.
+ * @param <C> the type extending {@link FsmExecutionContext}.
+ */
+public final class FsmFileJournalBuilder<K, S, E, C extends FsmExecutionContext<S>> {
+    private final Path directory;
+    private final FsmJournalFormat<K, S, E> format;
+    private FsmJournalCommitMode commitMode = FsmJournalCommitMode.SYNC;
+    private long segmentSize = 64L << 20;
+    private int batchSize = 64 << 10;
+
+    FsmFileJournalBuilder(Path directory, FsmJournalFormat<K, S, E> format) {
+        this.directory = directory;
+        this.format = format;
+    }
+
+    public FsmFileJournalBuilder<K, S, E, C> commitMode(@NonNull FsmJournalCommitMode commitMode) {
+        this.commitMode = commitMode;
+        return this;
+    }
+
+    /**
+     * Sets the size in bytes after which a new segment is started, 64 MiB by default.
+     */
+    public FsmFileJournalBuilder<K, S, E, C> segmentSize(long segmentSize) {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("segmentSize: " + segmentSize);
+        }
+        this.segmentSize = segmentSize;
+        return this;
+    }
+
+    /**
+     * Sets the size in bytes of the batch written in the {@code ASYNC} commit mode, 64 KiB by default.
+     */
+    public FsmFileJournalBuilder<K, S, E, C> batchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize: " + batchSize);
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Opens the journal, creating the directory if needed.
+     *
+     * @param machineIdResolver extracts the id of a machine from its execution context.
+     */
+    public FsmFileJournal<K, S, E, C> build(@NonNull Function<? super C, ? extends K> machineIdResolver)
+            throws IOException {
+        return new FsmFileJournal<>(directory, format, commitMode, segmentSize, batchSize, machineIdResolver);
+    }
+}
@@ -0,0 +1,85 @@
+package com.github.maximvegorov.fsm4j.journal;
+
+import com.github.maximvegorov.fsm4j.FsmEventArgs;
+import lombok.NonNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Serializes the values of one type in journal records.
+ *
+ * @param <T> the type of the values.
+ */
+public interface FsmJournalCodec<T> {
+    void write(T value, DataOutput out) throws IOException;
+
+    T read(DataInput in) throws IOException;
+
+    /**
+     * Returns a codec storing the ordinals of the constants of the enum.
+     */
+    static <T extends Enum<T>> FsmJournalCodec<T> ofEnum(@NonNull Class<T> type) {
+        var constants = type.getEnumConstants();
+        return new FsmJournalCodec<>() {
+            @Override
+            public void write(T value, DataOutput out) throws IOException {
+                out.writeShort(value.ordinal());
+            }
+
+            @Override
+            public T read(DataInput in) throws IOException {
+                var ordinal = in.readUnsignedShort();
+                if (ordinal >= constants.length) {
+                    throw new IOException("Unknown ordinal of " + type.getName() + ": " + ordinal);
+                }
+                return constants[ordinal];
+            }
+        };
+    }
+
+    static FsmJournalCodec<String> ofString() {
+        return new FsmJournalCodec<>() {
+            @Override
+            public void write(String value, DataOutput out) throws IOException {
+                out.writeUTF(value);
+            }
+
+            @Override
+            public String read(DataInput in) throws IOException {
+                return in.readUTF();
+            }
+        };
+    }
+
+    static FsmJournalCodec<Long> ofLong() {
+        return new FsmJournalCodec<>() {
+            @Override
+            public void write(Long value, DataOutput out) throws IOException {
+                out.writeLong(value);
+            }
+
+            @Override
+            public Long read(DataInput in) throws IOException {
+                return in.readLong();
+            }
+        };
+    }
+
+    /**
+     * Returns a codec which doesn't store the arguments and reads them back as {@link FsmEventArgs#empty()}.
+     */
+    static FsmJournalCodec<FsmEventArgs> ofEmptyArgs() {
+        return new FsmJournalCodec<>() {
+            @Override
+            public void write(FsmEventArgs value, DataOutput out) {
+            }
+
+            @Override
+            public FsmEventArgs read(DataInput in) {
+                return FsmEventArgs.empty();
+            }
+        };
+    }
+}
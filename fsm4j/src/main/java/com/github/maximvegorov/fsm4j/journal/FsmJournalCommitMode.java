@@ -0,0 +1,17 @@
+package com.github.maximvegorov.fsm4j.journal;
+
+/**
+ * Defines when the records appended to a {@link FsmFileJournal} reach the disk.
+ */
+public enum FsmJournalCommitMode {
+    /**
+     * An append returns once its record is written and forced to the disk. Records appended concurrently
+     * are committed together with a single write and force.
+     */
+    SYNC,
+    /**
+     * Records are buffered and written once the batch size is reached or on {@code flush}, without waiting
+     * for the disk. Records appended since the last flush are lost on a crash.
+     */
+    ASYNC
+}
@@ -0,0 +1,36 @@
+package com.github.maximvegorov.fsm4j.journal;
+
+import com.github.maximvegorov.fsm4j.FsmEventArgs;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The codecs of the parts of a journal record, shared by the writer and the readers of a journal.
+ *
+ * @param <K> the type of the machine identifiers.
+ * @param <S> the type representing the states.
+ * @param <E> the type representing the events.
+ */
+@Getter
+@RequiredArgsConstructor(staticName = "of")
+public final class FsmJournalFormat<K, S, E> {
+    @NonNull
+    private final FsmJournalCodec<K> machineIdCodec;
+    @NonNull
+    private final FsmJournalCodec<S> stateCodec;
+    @NonNull
+    private final FsmJournalCodec<E> eventCodec;
+    @NonNull
+    private final FsmJournalCodec<FsmEventArgs> argsCodec;
+
+    /**
+     * Creates a format of records without event arguments.
+     */
+    public static <K, S, E> FsmJournalFormat<K, S, E> of(
+            FsmJournalCodec<K> machineIdCodec,
+            FsmJournalCodec<S> stateCodec,
+            FsmJournalCodec<E> eventCodec) {
+        return of(machineIdCodec, stateCodec, eventCodec, FsmJournalCodec.ofEmptyArgs());
+    }
+}
@@ -0,0 +1,172 @@
+package com.github.maximvegorov.fsm4j.journal;
+
+import com.github.maximvegorov.fsm4j.Fsm;
+import com.github.maximvegorov.fsm4j.FsmConfig;
+import com.github.maximvegorov.fsm4j.FsmExecutionContext;
+import com.github.maximvegorov.fsm4j.Transition;
+import lombok.NonNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+/**
+ * Reads the journals written by {@link FsmFileJournal} and rebuilds machines from them.
+ *
+ * <p>
+ * Segments are read in the order of their names. A segment is read up to the first incomplete or
+ * corrupted record, which is where a crash left it.
+ * </p>
+ */
+public final class FsmJournalReader {
+    static final String SEGMENT_SUFFIX = ".fsmj";
+    /**
+     * The length and the checksum of the payload.
+     */
+    static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+
+    private FsmJournalReader() {
+    }
+
+    /**
+     * Passes the records of the journal to the consumer in the order they were appended.
+     *
+     * @return the number of records read.
+     */
+    public static <K, S, E> long read(
+            @NonNull Path directory,
+            @NonNull FsmJournalFormat<K, S, E> format,
+            @NonNull Consumer<? super FsmJournalRecord<K, S, E>> consumer) throws IOException {
+        var count = 0L;
+        for (var segment : listSegments(directory)) {
+            count += readSegment(segment, format, consumer);
+        }
+        return count;
+    }
+
+    /**
+     * Rebuilds the machines recorded in the journal. Each recorded event is resolved again against
+     * the configuration, which must yield the recorded transition.
+     *
+     * <p>
+     * With {@code runActions} the transitions are taken with {@link Fsm#replay}, so the actions run again,
+     * while the events they post or defer are discarded, being replayed from their own records. The configuration
+     * should not have a journal then, or the transitions are appended once more. Otherwise only the states
+     * are moved, which is much faster.
+     * </p>
+     *
+     * @param config the configuration the journal was written with.
+     * @param contextFactory creates the context of a machine in its initial state, by the machine id.
+     * @param runActions whether to run the actions of the transitions.
+     * @return the machines by their ids, in the order of their first records.
+     * @throws IllegalStateException if a recorded transition doesn't match the configuration.
+     */
+    public static <K, S, E, C extends FsmExecutionContext<S>> Map<K, Fsm<S, E, C>> replay(
+            @NonNull Path directory,
+            @NonNull FsmJournalFormat<K, S, E> format,
+            @NonNull FsmConfig<S, E, C> config,
+            @NonNull Function<? super K, ? extends C> contextFactory,
+            boolean runActions) throws IOException {
+        var machines = new LinkedHashMap<K, Fsm<S, E, C>>();
+        if (runActions) {
+            read(directory, format, record -> {
+                var fsm = machines.computeIfAbsent(
+                        record.getMachineId(),
+                        id -> Fsm.of(config, contextFactory.apply(id)));
+                if (!fsm.replay(record.getTransition(), record.getEvent(), record.getArgs())) {
+                    throw new IllegalStateException(
+                            "Record " + record.getSequence() + " doesn't match the configuration: " + record.getTransition());
+                }
+            });
+            return machines;
+        }
+
+        var contexts = new LinkedHashMap<K, C>();
+        read(directory, format, record -> {
+            var context = contexts.computeIfAbsent(record.getMachineId(), contextFactory);
+            var transition = config.tryFindTransition(context, record.getEvent(), record.getArgs()).orElse(null);
+            checkTransition(record, transition);
+            context.setState(transition.getTarget());
+        });
+        for (var entry : contexts.entrySet()) {
+            machines.put(entry.getKey(), Fsm.of(config, entry.getValue()));
+        }
+        return machines;
+    }
+
+    static List<Path> listSegments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (var files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+
+    static String segmentName(long firstSequence) {
+        return String.format("%020d%s", firstSequence, SEGMENT_SUFFIX);
+    }
+
+    static <K, S, E> long readSegment(
+            Path segment,
+            FsmJournalFormat<K, S, E> format,
+            Consumer<? super FsmJournalRecord<K, S, E>> consumer) throws IOException {
+        ByteBuffer buffer;
+        try (var channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        var crc = new CRC32();
+        var count = 0L;
+        while (buffer.remaining() >= RECORD_HEADER_SIZE) {
+            var length = buffer.getInt();
+            var checksum = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                break;
+            }
+            var payload = new byte[length];
+            buffer.get(payload);
+            crc.reset();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            consumer.accept(decode(new DataInputStream(new ByteArrayInputStream(payload)), format));
+            count++;
+        }
+        return count;
+    }
+
+    private static <K, S, E> FsmJournalRecord<K, S, E> decode(
+            DataInputStream in,
+            FsmJournalFormat<K, S, E> format) throws IOException {
+        var sequence = in.readLong();
+        var machineId = format.getMachineIdCodec().read(in);
+        var source = format.getStateCodec().read(in);
+        var target = format.getStateCodec().read(in);
+        var event = format.getEventCodec().read(in);
+        var args = format.getArgsCodec().read(in);
+        return new FsmJournalRecord<>(sequence, machineId, Transition.of(source, target), event, args);
+    }
+
+    private static void checkTransition(FsmJournalRecord<?, ?, ?> record, Transition<?> transition) {
+        if (!record.getTransition().equals(transition)) {
+            throw new IllegalStateException(
+                    "Record " + record.getSequence() + " doesn't match the configuration: " + transition);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.github.maximvegorov.fsm4j.journal;
+
+import com.github.maximvegorov.fsm4j.FsmEventArgs;
+import com.github.maximvegorov.fsm4j.Transition;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * A transition read back from a journal.
+ *
+ * @param <K> the type of the machine identifiers.
+ * @param <S> the type representing the states.
+ * @param <E> the type representing the events.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+@ToString
+public final class FsmJournalRecord<K, S, E> {
+    /**
+     * The position of the record in the journal, starting from one and growing by one.
+     */
+    private final long sequence;
+    private final K machineId;
+    private final Transition<S> transition;
+    private final E event;
+    private final FsmEventArgs args;
+}
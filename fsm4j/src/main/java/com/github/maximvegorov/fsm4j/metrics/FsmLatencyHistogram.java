@@ -0,0 +1,92 @@
+package com.github.maximvegorov.fsm4j.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of latencies in nanoseconds with log-linear buckets, in the spirit of HdrHistogram.
+ * Each power of two range is split into 16 buckets, so reported values are within about 6% of the recorded
+ * ones. Values above {@link #MAX_VALUE} are recorded as {@code MAX_VALUE}.
+ *
+ * Thread-safe.
+ */
+public final class FsmLatencyHistogram {
+    /**
+     * About 18 minutes.
+     */
+    public static final long MAX_VALUE = (1L << 40) - 1;
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT >> 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(indexOf(MAX_VALUE) + 1);
+
+    public void record(long nanos) {
+        counts.incrementAndGet(indexOf(Math.min(Math.max(nanos, 0L), MAX_VALUE)));
+    }
+
+    public long getCount() {
+        var count = 0L;
+        for (var i = 0; i < counts.length(); i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the recorded value at the percentile, rounded up to the upper bound of its bucket.
+     *
+     * @param percentile the percentile, from 0 to 100.
+     * @return the value, or 0 if nothing was recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0.0 || percentile > 100.0) {
+            throw new IllegalArgumentException("percentile: " + percentile);
+        }
+        var snapshot = new long[counts.length()];
+        var total = 0L;
+        for (var i = 0; i < snapshot.length; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0L;
+        }
+        var rank = Math.max(1L, (long) Math.ceil(percentile / 100.0 * total));
+        var seen = 0L;
+        for (var i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return highestValueOf(i);
+            }
+        }
+        return highestValueOf(snapshot.length - 1);
+    }
+
+    public long getMaxValue() {
+        for (var i = counts.length() - 1; i >= 0; i--) {
+            if (counts.get(i) != 0) {
+                return highestValueOf(i);
+            }
+        }
+        return 0L;
+    }
+
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        var shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF_COUNT
+                + (int) (value >>> shift) - SUB_BUCKET_HALF_COUNT;
+    }
+
+    private static long highestValueOf(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        var shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF_COUNT + 1;
+        var subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+        return ((subBucket + 1L) << shift) - 1;
+    }
+}
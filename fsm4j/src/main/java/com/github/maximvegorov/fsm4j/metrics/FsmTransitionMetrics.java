@@ -0,0 +1,90 @@
+package com.github.maximvegorov.fsm4j.metrics;
+
+import com.github.maximvegorov.fsm4j.FsmActionPhase;
+import com.github.maximvegorov.fsm4j.FsmMetrics;
+import com.github.maximvegorov.fsm4j.Transition;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The default {@link FsmMetrics} implementation, counting with {@link LongAdder}s and keeping
+ * a {@link FsmTransitionStats} with a latency histogram per transition. Meant to be polled by
+ * a metrics registry.
+ *
+ * @param <S> the type representing the states.
+ * @param <E> the type representing the events.
+ *
+ * Thread-safe.
+ */
+public final class FsmTransitionMetrics<S, E> implements FsmMetrics<S, E> {
+    private final ConcurrentMap<Transition<S>, FsmTransitionStats<S>> stats = new ConcurrentHashMap<>();
+    private final LongAdder notFoundCount = new LongAdder();
+    private final LongAdder terminatedCount = new LongAdder();
+
+    @Override
+    public void onTransitionFound(Transition<S> transition, E event) {
+        getOrCreateStats(transition).onFound();
+    }
+
+    @Override
+    public void onTransitionNotFound(S state, E event) {
+        notFoundCount.increment();
+    }
+
+    @Override
+    public void onFallbackUsed(Transition<S> transition, E event) {
+        getOrCreateStats(transition).onFallbackUsed();
+    }
+
+    @Override
+    public void onActionsCompleted(Transition<S> transition, FsmActionPhase phase, long nanos) {
+        getOrCreateStats(transition).onActionsCompleted(phase, nanos);
+    }
+
+    @Override
+    public void onTransitionCompleted(Transition<S> transition, long nanos) {
+        getOrCreateStats(transition).getLatency().record(nanos);
+    }
+
+    @Override
+    public void onAborted(Transition<S> transition, RuntimeException e) {
+        getOrCreateStats(transition).onAborted();
+    }
+
+    @Override
+    public void onTerminated(S state) {
+        terminatedCount.increment();
+    }
+
+    public long getNotFoundCount() {
+        return notFoundCount.sum();
+    }
+
+    public long getTerminatedCount() {
+        return terminatedCount.sum();
+    }
+
+    /**
+     * @return the stats of the transition, or {@code null} if it was never taken.
+     */
+    @Nullable
+    public FsmTransitionStats<S> getStats(Transition<S> transition) {
+        return stats.get(transition);
+    }
+
+    public Collection<FsmTransitionStats<S>> getAllStats() {
+        return Collections.unmodifiableCollection(stats.values());
+    }
+
+    private FsmTransitionStats<S> getOrCreateStats(Transition<S> transition) {
+        var transitionStats = stats.get(transition);
+        return transitionStats != null
+                ? transitionStats
+                : stats.computeIfAbsent(transition, FsmTransitionStats::new);
+    }
+}
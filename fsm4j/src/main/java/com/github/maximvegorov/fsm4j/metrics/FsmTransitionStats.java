@@ -0,0 +1,80 @@
+package com.github.maximvegorov.fsm4j.metrics;
+
+import com.github.maximvegorov.fsm4j.FsmActionPhase;
+import com.github.maximvegorov.fsm4j.Transition;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The measurements of a single transition collected by {@link FsmTransitionMetrics}.
+ *
+ * @param <S> the type representing the states.
+ *
+ * Thread-safe.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public final class FsmTransitionStats<S> {
+    @Getter
+    private final Transition<S> transition;
+    private final LongAdder foundCount = new LongAdder();
+    private final LongAdder fallbackCount = new LongAdder();
+    private final LongAdder abortedCount = new LongAdder();
+    private final LongAdder[] phaseNanos = newAdders(FsmActionPhase.values().length);
+    /**
+     * The latency of the transition, from the first action to the last one.
+     */
+    @Getter
+    private final FsmLatencyHistogram latency = new FsmLatencyHistogram();
+
+    /**
+     * @return how many times the transition was matched by a declared target.
+     */
+    public long getFoundCount() {
+        return foundCount.sum();
+    }
+
+    /**
+     * @return how many times the transition was resolved by the fallback.
+     */
+    public long getFallbackCount() {
+        return fallbackCount.sum();
+    }
+
+    public long getAbortedCount() {
+        return abortedCount.sum();
+    }
+
+    /**
+     * @return the total time spent in the actions of the phase.
+     */
+    public long getPhaseNanos(FsmActionPhase phase) {
+        return phaseNanos[phase.ordinal()].sum();
+    }
+
+    void onFound() {
+        foundCount.increment();
+    }
+
+    void onFallbackUsed() {
+        fallbackCount.increment();
+    }
+
+    void onAborted() {
+        abortedCount.increment();
+    }
+
+    void onActionsCompleted(FsmActionPhase phase, long nanos) {
+        phaseNanos[phase.ordinal()].add(nanos);
+    }
+
+    private static LongAdder[] newAdders(int count) {
+        var adders = new LongAdder[count];
+        for (var i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+}
@@ -0,0 +1,58 @@
+package com.github.maximvegorov.fsm4j.primitive;
+
+import javax.annotation.Nullable;
+
+/**
+ * An open addressing hash table mapping a state and event pair to its chains, with the pair packed into
+ * a {@code long} key and linear probing, so a lookup is a multiplication and a few array loads.
+ * The table is filled once and never resized.
+ *
+ * @param <C> the type of the execution context, extending {@link IntFsmExecutionContext}.
+ */
+final class IntChainTable<C extends IntFsmExecutionContext> {
+    private final long[] keys;
+    // null marks an empty slot
+    private final IntTransitionChain<C>[][] values;
+    private final int mask;
+
+    /**
+     * @param expectedSize the number of pairs to be put, the table is kept at most half full.
+     */
+    @SuppressWarnings("unchecked")
+    IntChainTable(int expectedSize) {
+        var capacity = Integer.highestOneBit(Math.max(2, expectedSize) * 2 - 1) << 1;
+        this.keys = new long[capacity];
+        this.values = new IntTransitionChain[capacity][];
+        this.mask = capacity - 1;
+    }
+
+    @Nullable
+    IntTransitionChain<C>[] get(int state, int event) {
+        var key = key(state, event);
+        for (var i = slot(key); ; i = (i + 1) & mask) {
+            var value = values[i];
+            if (value == null || keys[i] == key) {
+                return value;
+            }
+        }
+    }
+
+    void put(int state, int event, IntTransitionChain<C>[] chains) {
+        var key = key(state, event);
+        var i = slot(key);
+        while (values[i] != null && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = chains;
+    }
+
+    private int slot(long key) {
+        var hash = key * 0x9e3779b97f4a7c15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private static long key(int state, int event) {
+        return ((long) state << 32) | (event & 0xffffffffL);
+    }
+}
@@ -0,0 +1,119 @@
+package com.github.maximvegorov.fsm4j.primitive;
+
+import com.github.maximvegorov.fsm4j.FsmEventArgs;
+import com.github.maximvegorov.fsm4j.FsmExecutionStatus;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Counterpart of {@link com.github.maximvegorov.fsm4j.Fsm} for machines whose states and events are {@code int}
+ * codes. Firing an event neither boxes nor allocates, as long as its predicates and actions don't.
+ *
+ * @param <C> the type of the execution context, extending {@link IntFsmExecutionContext}.
+ *
+ * Not thread-safe.
+ */
+@Getter
+@ToString
+@Slf4j
+public final class IntFsm<C extends IntFsmExecutionContext> implements AutoCloseable {
+    private final IntFsmConfig<C> config;
+    private final C executionContext;
+    private FsmExecutionStatus executionStatus;
+
+    private IntFsm(IntFsmConfig<C> config, C executionContext) {
+        this.config = config;
+        this.executionContext = executionContext;
+        this.executionStatus = !config.isTerminalState(executionContext.getState())
+                ? FsmExecutionStatus.RUNNING
+                : FsmExecutionStatus.TERMINATED;
+    }
+
+    public static <C extends IntFsmExecutionContext> IntFsm<C> of(
+            @NonNull IntFsmConfig<C> config,
+            @NonNull C executionContext) {
+        return new IntFsm<>(config, executionContext);
+    }
+
+    /**
+     * @see #fire(int, FsmEventArgs)
+     */
+    public boolean fire(int event) {
+        return fire(event, FsmEventArgs.empty());
+    }
+
+    /**
+     * Triggers a state transition using the specified event and arguments.
+     * Has the same semantics as {@link com.github.maximvegorov.fsm4j.Fsm#fire(Object, FsmEventArgs)}.
+     *
+     * @param event the event used to trigger a state transition.
+     * @param args additional arguments to be passed during the transition.
+     * @return true if a valid transition was executed, false otherwise.
+     * @throws IllegalStateException if the machine is not in the running state.
+     */
+    public boolean fire(int event, @NonNull FsmEventArgs args) {
+        if (executionStatus != FsmExecutionStatus.RUNNING) {
+            throw new IllegalStateException("Must be running");
+        }
+
+        var chain = config.findChain(executionContext.getState(), executionContext, event, args);
+        if (chain == null) {
+            return false;
+        }
+        doTransition(chain, event, args);
+        return true;
+    }
+
+    /**
+     * Changes the execution status to {@code TERMINATED} if the machine is running.
+     */
+    @Override
+    public void close() {
+        if (executionStatus == FsmExecutionStatus.RUNNING) {
+            stop(FsmExecutionStatus.TERMINATED);
+        }
+    }
+
+    private void doTransition(IntTransitionChain<C> chain, int event, FsmEventArgs args) {
+        try {
+            runActions(chain.getExitActions(), chain, event, args);
+            runActions(chain.getBeforeActions(), chain, event, args);
+
+            executionContext.setState(chain.getTarget());
+
+            runActions(chain.getAfterActions(), chain, event, args);
+            runActions(chain.getEnterActions(), chain, event, args);
+        } catch (RuntimeException e) {
+            log.debug("Error while transition", e);
+            stop(FsmExecutionStatus.ABORTED);
+            throw e;
+        }
+
+        // an action may have moved the machine on its own
+        var state = executionContext.getState();
+        if (state == chain.getTarget() ? chain.isTerminal() : config.isTerminalState(state)) {
+            stop(FsmExecutionStatus.TERMINATED);
+        }
+    }
+
+    private void runActions(IntTransitionAction<C>[] actions, IntTransitionChain<C> chain, int event, FsmEventArgs args) {
+        for (var action : actions) {
+            action.run(executionContext, chain.getSource(), chain.getTarget(), event, args);
+        }
+    }
+
+    private void stop(FsmExecutionStatus status) {
+        log.debug("Stopping with execution status {}", status);
+        try {
+            executionContext.close();
+
+            log.debug("Stopped");
+        } catch (RuntimeException e) {
+            log.error("Error while stopping", e);
+        } finally {
+            executionStatus = status;
+        }
+    }
+}
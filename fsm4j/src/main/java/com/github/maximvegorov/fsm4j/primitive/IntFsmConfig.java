@@ -0,0 +1,67 @@
+package com.github.maximvegorov.fsm4j.primitive;
+
+import com.github.maximvegorov.fsm4j.FsmEventArgs;
+import lombok.NonNull;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.OptionalInt;
+
+/**
+ * Counterpart of {@link com.github.maximvegorov.fsm4j.FsmConfig} for machines whose states and events are
+ * {@code int} codes, e.g. generated from a rules DSL. The chains of every state and event pair are kept in
+ * an open addressing table keyed by both codes, so a lookup neither boxes nor hashes an object, and actions
+ * receive the source and target codes instead of a {@link com.github.maximvegorov.fsm4j.Transition}.
+ *
+ * <p>
+ * Created by {@link IntFsmConfigBuilder}. Hierarchical states, transition fallbacks, metrics, tracers and
+ * journals are only supported by {@code FsmConfig}.
+ * </p>
+ *
+ * @param <C> the type of the execution context, extending {@link IntFsmExecutionContext}.
+ */
+public final class IntFsmConfig<C extends IntFsmExecutionContext> {
+    private final IntChainTable<C> table;
+    // sorted
+    private final int[] terminalStates;
+
+    IntFsmConfig(IntChainTable<C> table, int[] terminalStates) {
+        this.table = table;
+        this.terminalStates = terminalStates;
+    }
+
+    public static <C extends IntFsmExecutionContext> IntFsmConfigBuilder<C> builder() {
+        return new IntFsmConfigBuilder<>();
+    }
+
+    public boolean isTerminalState(int state) {
+        return Arrays.binarySearch(terminalStates, state) >= 0;
+    }
+
+    /**
+     * Finds the transition the event triggers in the current state of the context.
+     *
+     * @return the target state of the first target whose predicate matches, or empty if there is none.
+     */
+    public OptionalInt tryFindTarget(@NonNull C context, int event, @NonNull FsmEventArgs args) {
+        var chain = findChain(context.getState(), context, event, args);
+        return chain != null ? OptionalInt.of(chain.getTarget()) : OptionalInt.empty();
+    }
+
+    /**
+     * @return the chain of the first target whose predicate matches, or {@code null} if there is none.
+     */
+    @Nullable
+    IntTransitionChain<C> findChain(int state, C context, int event, FsmEventArgs args) {
+        var chains = table.get(state, event);
+        if (chains == null) {
+            return null;
+        }
+        for (var chain : chains) {
+            if (chain.getPredicate().test(context, event, args)) {
+                return chain;
+            }
+        }
+        return null;
+    }
+}
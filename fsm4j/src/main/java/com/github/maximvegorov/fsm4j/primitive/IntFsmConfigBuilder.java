@@ -0,0 +1,112 @@
+package com.github.maximvegorov.fsm4j.primitive;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.*;
+
+/**
+ * Builder of {@link IntFsmConfig}, taking the transitions one by one as a generator of the configuration would.
+ * The targets declared for the same source and event are tried in the order they were added.
+ *
+ * @param <C> the type of the execution context, extending {@link IntFsmExecutionContext}.
+ */
+@ParametersAreNonnullByDefault
+public final class IntFsmConfigBuilder<C extends IntFsmExecutionContext> {
+    @SuppressWarnings("rawtypes")
+    private static final IntTransitionAction[] NO_ACTIONS = new IntTransitionAction[0];
+
+    // (source, event) -> targets, the boxing is limited to building
+    private final Map<Long, List<Target<C>>> transitions = new LinkedHashMap<>();
+    private final Map<Integer, List<IntTransitionAction<C>>> exitActions = new HashMap<>();
+    private final Map<Integer, List<IntTransitionAction<C>>> enterActions = new HashMap<>();
+    // (source, target) -> actions
+    private final Map<Long, List<IntTransitionAction<C>>> beforeActions = new HashMap<>();
+    private final Map<Long, List<IntTransitionAction<C>>> afterActions = new HashMap<>();
+
+    public IntFsmConfigBuilder<C> add(int source, int event, int target) {
+        return add(source, event, IntTransitionPredicate.always(), target);
+    }
+
+    public IntFsmConfigBuilder<C> add(int source, int event, @NonNull IntTransitionPredicate<C> predicate, int target) {
+        transitions.computeIfAbsent(pair(source, event), k -> new ArrayList<>(1))
+                .add(new Target<>(target, predicate));
+        return this;
+    }
+
+    public IntFsmConfigBuilder<C> addExitAction(int state, @NonNull IntTransitionAction<C> action) {
+        exitActions.computeIfAbsent(state, s -> new ArrayList<>()).add(action);
+        return this;
+    }
+
+    public IntFsmConfigBuilder<C> addEnterAction(int state, @NonNull IntTransitionAction<C> action) {
+        enterActions.computeIfAbsent(state, s -> new ArrayList<>()).add(action);
+        return this;
+    }
+
+    public IntFsmConfigBuilder<C> addBeforeAction(int source, int target, @NonNull IntTransitionAction<C> action) {
+        beforeActions.computeIfAbsent(pair(source, target), t -> new ArrayList<>()).add(action);
+        return this;
+    }
+
+    public IntFsmConfigBuilder<C> addAfterAction(int source, int target, @NonNull IntTransitionAction<C> action) {
+        afterActions.computeIfAbsent(pair(source, target), t -> new ArrayList<>()).add(action);
+        return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    public IntFsmConfig<C> build(@NonNull int... terminalStates) {
+        if (terminalStates.length == 0) {
+            throw new IllegalArgumentException("terminalStates: " + Arrays.toString(terminalStates));
+        }
+        var sortedTerminalStates = terminalStates.clone();
+        Arrays.sort(sortedTerminalStates);
+
+        var actionArrays = new IdentityHashMap<List<IntTransitionAction<C>>, IntTransitionAction<C>[]>();
+        var table = new IntChainTable<C>(transitions.size());
+        for (var eventTargets : transitions.entrySet()) {
+            var source = (int) (eventTargets.getKey() >> 32);
+            var event = (int) (long) eventTargets.getKey();
+            var targets = eventTargets.getValue();
+            var chains = (IntTransitionChain<C>[]) new IntTransitionChain[targets.size()];
+            for (var i = 0; i < chains.length; i++) {
+                var target = targets.get(i).state;
+                chains[i] = new IntTransitionChain<>(
+                        source,
+                        target,
+                        Arrays.binarySearch(sortedTerminalStates, target) >= 0,
+                        targets.get(i).predicate,
+                        toArray(exitActions.get(source), actionArrays),
+                        toArray(beforeActions.get(pair(source, target)), actionArrays),
+                        toArray(afterActions.get(pair(source, target)), actionArrays),
+                        toArray(enterActions.get(target), actionArrays));
+            }
+            table.put(source, event, chains);
+        }
+        return new IntFsmConfig<>(table, sortedTerminalStates);
+    }
+
+    /**
+     * Converts the actions to an array shared by every chain running the same list.
+     */
+    @SuppressWarnings("unchecked")
+    private static <C extends IntFsmExecutionContext> IntTransitionAction<C>[] toArray(
+            List<IntTransitionAction<C>> actions,
+            Map<List<IntTransitionAction<C>>, IntTransitionAction<C>[]> actionArrays) {
+        if (actions == null) {
+            return NO_ACTIONS;
+        }
+        return actionArrays.computeIfAbsent(actions, a -> a.toArray(new IntTransitionAction[0]));
+    }
+
+    private static long pair(int first, int second) {
+        return ((long) first << 32) | (second & 0xffffffffL);
+    }
+
+    @RequiredArgsConstructor
+    private static final class Target<C extends IntFsmExecutionContext> {
+        private final int state;
+        private final IntTransitionPredicate<C> predicate;
+    }
+}
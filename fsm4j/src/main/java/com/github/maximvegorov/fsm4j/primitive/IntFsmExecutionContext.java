@@ -0,0 +1,14 @@
+package com.github.maximvegorov.fsm4j.primitive;
+
+/**
+ * Counterpart of {@link com.github.maximvegorov.fsm4j.FsmExecutionContext} for machines whose states
+ * are {@code int} codes, holding the current state without boxing it.
+ */
+public interface IntFsmExecutionContext extends AutoCloseable {
+    int getState();
+
+    void setState(int value);
+
+    default void close() {
+    }
+}
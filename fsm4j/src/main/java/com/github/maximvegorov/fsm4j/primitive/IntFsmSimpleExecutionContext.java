@@ -0,0 +1,13 @@
+package com.github.maximvegorov.fsm4j.primitive;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * A simple implementation of {@link IntFsmExecutionContext} that only holds the state.
+ */
+@Data
+@AllArgsConstructor
+public final class IntFsmSimpleExecutionContext implements IntFsmExecutionContext {
+    private int state;
+}
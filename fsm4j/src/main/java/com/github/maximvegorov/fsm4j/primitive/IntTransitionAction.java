@@ -0,0 +1,15 @@
+package com.github.maximvegorov.fsm4j.primitive;
+
+import com.github.maximvegorov.fsm4j.FsmEventArgs;
+
+/**
+ * Counterpart of {@link com.github.maximvegorov.fsm4j.TransitionAction} for machines whose states and events
+ * are {@code int} codes. The transition is passed as its source and target codes, so running an action
+ * neither boxes nor allocates.
+ *
+ * @param <C> the type of the execution context, extending {@link IntFsmExecutionContext}.
+ */
+@FunctionalInterface
+public interface IntTransitionAction<C extends IntFsmExecutionContext> {
+    void run(C context, int source, int target, int event, FsmEventArgs args);
+}
@@ -0,0 +1,32 @@
+package com.github.maximvegorov.fsm4j.primitive;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Counterpart of {@code TransitionChain} for {@link IntFsmConfig}: a declared target together with everything
+ * that has to be run when it fires, resolved at configuration time.
+ *
+ * @param <C> the type of the execution context, extending {@link IntFsmExecutionContext}.
+ */
+@Getter(AccessLevel.PACKAGE)
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+@ToString(onlyExplicitlyIncluded = true)
+final class IntTransitionChain<C extends IntFsmExecutionContext> {
+    @SuppressWarnings("rawtypes")
+    static final IntTransitionPredicate ALWAYS = (context, event, args) -> true;
+
+    @ToString.Include
+    private final int source;
+    @ToString.Include
+    private final int target;
+    // whether the target is a terminal state
+    private final boolean terminal;
+    private final IntTransitionPredicate<C> predicate;
+    private final IntTransitionAction<C>[] exitActions;
+    private final IntTransitionAction<C>[] beforeActions;
+    private final IntTransitionAction<C>[] afterActions;
+    private final IntTransitionAction<C>[] enterActions;
+}
@@ -0,0 +1,22 @@
+package com.github.maximvegorov.fsm4j.primitive;
+
+import com.github.maximvegorov.fsm4j.FsmEventArgs;
+
+/**
+ * Counterpart of {@link com.github.maximvegorov.fsm4j.TransitionPredicate} for machines whose events
+ * are {@code int} codes.
+ *
+ * @param <C> the type of the execution context, extending {@link IntFsmExecutionContext}.
+ */
+@FunctionalInterface
+public interface IntTransitionPredicate<C extends IntFsmExecutionContext> {
+    boolean test(C context, int event, FsmEventArgs args);
+
+    /**
+     * Returns the predicate accepting every event, used for transitions declared without a guard.
+     */
+    @SuppressWarnings("unchecked")
+    static <C extends IntFsmExecutionContext> IntTransitionPredicate<C> always() {
+        return (IntTransitionPredicate<C>) IntTransitionChain.ALWAYS;
+    }
+}
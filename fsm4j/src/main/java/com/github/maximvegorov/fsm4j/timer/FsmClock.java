@@ -0,0 +1,16 @@
+package com.github.maximvegorov.fsm4j.timer;
+
+/**
+ * The source of time of a {@link FsmTimerScheduler}, replaced by a manual one in tests.
+ */
+@FunctionalInterface
+public interface FsmClock {
+    /**
+     * @return the current value of a monotonic time source, in nanoseconds.
+     */
+    long nanoTime();
+
+    static FsmClock system() {
+        return System::nanoTime;
+    }
+}
@@ -0,0 +1,22 @@
+package com.github.maximvegorov.fsm4j.timer;
+
+import com.github.maximvegorov.fsm4j.FsmExecutionContext;
+
+/**
+ * Receives the timeouts expired by a {@link FsmTimerScheduler}, typically firing the timeout event at the
+ * machine owning the context. It is called from the thread advancing the scheduler, so a machine which is
+ * not thread-safe has to be reached through an {@link com.github.maximvegorov.fsm4j.AsyncFsm} or similar.
+ *
+ * @param <S> the type representing the states of the FSM.
+ * @param <E> the type representing the events of the FSM.
+ * @param <C> the type extending {@link FsmExecutionContext}.
+ */
+@FunctionalInterface
+public interface FsmTimeoutHandler<S, E, C extends FsmExecutionContext<S>> {
+    /**
+     * @param context the context of the machine that stayed in the state for too long.
+     * @param state the state the timeout was armed in.
+     * @param event the timeout event declared for the state.
+     */
+    void onTimeout(C context, S state, E event);
+}
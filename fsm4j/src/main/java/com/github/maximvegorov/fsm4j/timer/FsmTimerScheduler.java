@@ -0,0 +1,275 @@
+package com.github.maximvegorov.fsm4j.timer;
+
+import com.github.maximvegorov.fsm4j.FsmExecutionContext;
+import com.github.maximvegorov.fsm4j.TransitionAction;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Schedules the timeouts declared with {@link com.github.maximvegorov.fsm4j.builders.FsmTargetConfigBuilder#after(Duration)}.
+ * A timeout is armed when its machine enters the state and cancelled when the machine leaves it, both in
+ * constant time, by the actions the configuration builder adds to the state. A machine created or restored
+ * in the state has its timeouts armed by the engine, and the timeouts of a machine that is closed, reaches
+ * a terminal state or is aborted are all cancelled. Once a timeout expires, the {@link FsmTimeoutHandler}
+ * is called with the timeout event.
+ *
+ * <p>
+ * Timeouts are kept in a {@link FsmTimingWheel} with a resolution of one tick, so they expire up to a tick late,
+ * on the thread calling {@link #advance()}. {@link #start()} runs a daemon thread advancing the scheduler every
+ * tick, tests rather call {@code advance} themselves with a manual {@link FsmClock}. Machines are told apart by
+ * the identity of their contexts.
+ * </p>
+ *
+ * <p>
+ * Thread-safe.
+ * </p>
+ *
+ * @param <S> the type representing the states of the FSM.
+ * @param <E> the type representing the events of the FSM.
+ * @param <C> the type extending {@link FsmExecutionContext}.
+ */
+@Slf4j
+public final class FsmTimerScheduler<S, E, C extends FsmExecutionContext<S>> implements AutoCloseable {
+    private static final Duration DEFAULT_TICK_DURATION = Duration.ofMillis(10);
+
+    private final FsmTimeoutHandler<S, E, C> handler;
+    private final FsmClock clock;
+    private final long tickNanos;
+    private final long startNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    // guarded by lock
+    private final FsmTimingWheel wheel = new FsmTimingWheel();
+    // guarded by lock, context -> first timer of the context
+    private final Map<C, Timer<S, E, C>> contextTimers = new IdentityHashMap<>();
+    @Nullable
+    private volatile Thread ticker;
+
+    private FsmTimerScheduler(FsmTimeoutHandler<S, E, C> handler, FsmClock clock, long tickNanos) {
+        this.handler = handler;
+        this.clock = clock;
+        this.tickNanos = tickNanos;
+        this.startNanos = clock.nanoTime();
+    }
+
+    /**
+     * Creates a scheduler using the system clock with a tick of 10 milliseconds.
+     */
+    public static <S, E, C extends FsmExecutionContext<S>> FsmTimerScheduler<S, E, C> of(
+            @NonNull FsmTimeoutHandler<S, E, C> handler) {
+        return of(handler, FsmClock.system(), DEFAULT_TICK_DURATION);
+    }
+
+    public static <S, E, C extends FsmExecutionContext<S>> FsmTimerScheduler<S, E, C> of(
+            @NonNull FsmTimeoutHandler<S, E, C> handler,
+            @NonNull FsmClock clock,
+            @NonNull Duration tickDuration) {
+        var tickNanos = tickDuration.toNanos();
+        if (tickNanos <= 0) {
+            throw new IllegalArgumentException("tickDuration: " + tickDuration);
+        }
+        return new FsmTimerScheduler<>(handler, clock, tickNanos);
+    }
+
+    /**
+     * Arms a timeout of the machine in the state, which fires the event unless cancelled in time.
+     */
+    public void arm(@NonNull C context, @NonNull S state, @NonNull E event, @NonNull Duration timeout) {
+        var expiryNanos = clock.nanoTime() - startNanos + timeout.toNanos();
+        // rounded up, so a timeout never expires early
+        var expiryTick = (expiryNanos + tickNanos - 1) / tickNanos;
+        var timer = new Timer<>(context, state, event);
+        lock.lock();
+        try {
+            wheel.add(timer, expiryTick);
+            var head = contextTimers.put(context, timer);
+            if (head != null) {
+                timer.nextOfContext = head;
+                head.prevOfContext = timer;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Cancels the timeouts of the machine armed in the state.
+     */
+    public void cancel(@NonNull C context, @NonNull S state) {
+        lock.lock();
+        try {
+            var timer = contextTimers.get(context);
+            while (timer != null) {
+                var next = timer.nextOfContext;
+                if (timer.state.equals(state)) {
+                    wheel.remove(timer);
+                    unlinkFromContext(timer);
+                }
+                timer = next;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Cancels all the timeouts of the machine, called when it is stopped.
+     */
+    public void cancelAll(@NonNull C context) {
+        lock.lock();
+        try {
+            var timer = contextTimers.remove(context);
+            while (timer != null) {
+                var next = timer.nextOfContext;
+                wheel.remove(timer);
+                timer.prevOfContext = null;
+                timer.nextOfContext = null;
+                timer = next;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the action arming the timeouts of the state, added to its enter actions.
+     */
+    public TransitionAction<S, E, C> armAction(@NonNull S state, @NonNull Map<E, Duration> timeouts) {
+        var copy = Map.copyOf(timeouts);
+        return (context, transition, event, args) -> {
+            for (var timeout : copy.entrySet()) {
+                arm(context, state, timeout.getKey(), timeout.getValue());
+            }
+        };
+    }
+
+    /**
+     * @return the action cancelling the timeouts of the state, added to its exit actions.
+     */
+    public TransitionAction<S, E, C> cancelAction(@NonNull S state) {
+        return (context, transition, event, args) -> cancel(context, state);
+    }
+
+    /**
+     * Expires the timeouts due by now and calls the handler for each of them, in the order they expired.
+     * An exception thrown by the handler is logged and doesn't prevent the other timeouts from being handled.
+     *
+     * @return the number of expired timeouts.
+     */
+    public int advance() {
+        var expired = new ArrayList<Timer<S, E, C>>();
+        lock.lock();
+        try {
+            var currentTick = (clock.nanoTime() - startNanos) / tickNanos;
+            wheel.advanceTo(currentTick, entry -> {
+                @SuppressWarnings("unchecked")
+                var timer = (Timer<S, E, C>) entry;
+                unlinkFromContext(timer);
+                expired.add(timer);
+            });
+        } finally {
+            lock.unlock();
+        }
+        handle(expired);
+        return expired.size();
+    }
+
+    public int getPendingCount() {
+        lock.lock();
+        try {
+            return wheel.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Starts a daemon thread advancing the scheduler every tick, until the scheduler is closed.
+     */
+    public synchronized void start() {
+        if (ticker != null) {
+            throw new IllegalStateException("Already started");
+        }
+        var thread = new Thread(this::tick, "fsm4j-timer");
+        thread.setDaemon(true);
+        ticker = thread;
+        thread.start();
+    }
+
+    /**
+     * Stops the thread started by {@link #start()}, pending timeouts are kept.
+     */
+    @Override
+    public synchronized void close() {
+        var thread = ticker;
+        if (thread != null) {
+            ticker = null;
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void tick() {
+        var thread = Thread.currentThread();
+        while (ticker == thread) {
+            try {
+                advance();
+            } catch (RuntimeException e) {
+                log.error("Error while advancing timers", e);
+            }
+            LockSupport.parkNanos(this, tickNanos);
+        }
+        log.debug("Stopped");
+    }
+
+    private void handle(List<Timer<S, E, C>> expired) {
+        for (var timer : expired) {
+            try {
+                handler.onTimeout(timer.context, timer.state, timer.event);
+            } catch (RuntimeException e) {
+                log.error("Error while handling timeout {} of {}", timer.event, timer.context, e);
+            }
+        }
+    }
+
+    private void unlinkFromContext(Timer<S, E, C> timer) {
+        if (timer.prevOfContext != null) {
+            timer.prevOfContext.nextOfContext = timer.nextOfContext;
+        } else if (timer.nextOfContext != null) {
+            contextTimers.put(timer.context, timer.nextOfContext);
+        } else {
+            contextTimers.remove(timer.context);
+        }
+        if (timer.nextOfContext != null) {
+            timer.nextOfContext.prevOfContext = timer.prevOfContext;
+        }
+        timer.prevOfContext = null;
+        timer.nextOfContext = null;
+    }
+
+    /**
+     * A timeout armed for a machine, also linked with the other timeouts of the machine.
+     */
+    private static final class Timer<S, E, C> extends FsmTimingWheel.Entry {
+        private final C context;
+        private final S state;
+        private final E event;
+        @Nullable
+        private Timer<S, E, C> prevOfContext;
+        @Nullable
+        private Timer<S, E, C> nextOfContext;
+
+        Timer(C context, S state, E event) {
+            this.context = context;
+            this.state = state;
+            this.event = event;
+        }
+    }
+}
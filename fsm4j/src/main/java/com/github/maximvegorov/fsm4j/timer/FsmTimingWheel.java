@@ -0,0 +1,148 @@
+package com.github.maximvegorov.fsm4j.timer;
+
+import javax.annotation.Nullable;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel keeping entries by the tick they expire at. Adding and removing an entry
+ * takes constant time whatever the number of entries is. Each of the {@value #LEVELS} levels has
+ * {@value #SLOTS} slots, a slot of a level spanning as many ticks as a whole lower level. Entries are
+ * moved one level down when the wheel reaches their slot, so every entry is moved at most {@value #LEVELS}
+ * times before it expires.
+ *
+ * <p>
+ * Not thread-safe.
+ * </p>
+ */
+final class FsmTimingWheel {
+    static final int SLOT_BITS = 6;
+    static final int SLOTS = 1 << SLOT_BITS;
+    static final int LEVELS = 6;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final long MAX_DELTA = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+    // level * SLOTS + slot -> head of a doubly linked list
+    private final Entry[] buckets = new Entry[LEVELS * SLOTS];
+    private long currentTick;
+    private int size;
+
+    /**
+     * An entry of the wheel, linked in at most one bucket.
+     */
+    static class Entry {
+        private long expiryTick;
+        private int bucket = -1;
+        @Nullable
+        private Entry prev;
+        @Nullable
+        private Entry next;
+
+        boolean isScheduled() {
+            return bucket >= 0;
+        }
+    }
+
+    long getCurrentTick() {
+        return currentTick;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Adds the entry, which expires on the current tick if the given one has already passed.
+     */
+    void add(Entry entry, long expiryTick) {
+        if (entry.isScheduled()) {
+            throw new IllegalStateException("Already scheduled");
+        }
+        entry.expiryTick = Math.max(expiryTick, currentTick);
+        link(entry);
+        size++;
+    }
+
+    void remove(Entry entry) {
+        if (entry.isScheduled()) {
+            unlink(entry);
+            size--;
+        }
+    }
+
+    /**
+     * Moves the wheel to the given tick, removing the entries expiring on the ticks up to it, inclusive.
+     */
+    void advanceTo(long tick, Consumer<Entry> expired) {
+        while (currentTick <= tick) {
+            if (size == 0) {
+                currentTick = tick + 1;
+                return;
+            }
+            var slot = (int) (currentTick & SLOT_MASK);
+            if (slot == 0) {
+                cascade(1);
+            }
+            for (var entry = buckets[slot]; entry != null; entry = buckets[slot]) {
+                unlink(entry);
+                size--;
+                expired.accept(entry);
+            }
+            currentTick++;
+        }
+    }
+
+    /**
+     * Moves the entries of the current slot of the level down, once the lower levels have wrapped around.
+     */
+    private void cascade(int level) {
+        if (level >= LEVELS) {
+            return;
+        }
+        var slot = (int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+        if (slot == 0) {
+            cascade(level + 1);
+        }
+        var bucket = level * SLOTS + slot;
+        var entry = buckets[bucket];
+        buckets[bucket] = null;
+        while (entry != null) {
+            var next = entry.next;
+            entry.prev = null;
+            entry.next = null;
+            entry.bucket = -1;
+            link(entry);
+            entry = next;
+        }
+    }
+
+    private void link(Entry entry) {
+        var delta = entry.expiryTick - currentTick;
+        var tick = delta <= MAX_DELTA ? entry.expiryTick : currentTick + MAX_DELTA;
+        var level = 0;
+        while (level < LEVELS - 1 && Math.min(delta, MAX_DELTA) >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        var bucket = level * SLOTS + (int) ((tick >>> (SLOT_BITS * level)) & SLOT_MASK);
+        var head = buckets[bucket];
+        entry.bucket = bucket;
+        entry.next = head;
+        if (head != null) {
+            head.prev = entry;
+        }
+        buckets[bucket] = entry;
+    }
+
+    private void unlink(Entry entry) {
+        if (entry.prev != null) {
+            entry.prev.next = entry.next;
+        } else {
+            buckets[entry.bucket] = entry.next;
+        }
+        if (entry.next != null) {
+            entry.next.prev = entry.prev;
+        }
+        entry.prev = null;
+        entry.next = null;
+        entry.bucket = -1;
+    }
+}
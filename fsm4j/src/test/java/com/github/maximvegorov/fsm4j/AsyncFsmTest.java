@@ -0,0 +1,69 @@
+package com.github.maximvegorov.fsm4j;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AsyncFsmTest {
+    @Test
+    void fireInOrder() throws Exception {
+        var release = new CountDownLatch(1);
+        var fsmConfig = FsmConfig.<States, Events, FsmSimpleExecutionContext<States>>builder()
+                .state(States.IDLE)
+                    .on(Events.START)
+                        .action(() -> await(release))
+                        .moveTo(States.BUSY)
+                    .end()
+                .state(States.BUSY)
+                    .on(Events.STOP)
+                        .moveTo(States.END)
+                    .end()
+                .build(Set.of(States.END));
+
+        var executor = Executors.newSingleThreadExecutor();
+        try {
+            var fsm = AsyncFsm.of(fsmConfig, new FsmSimpleExecutionContext<>(States.IDLE), executor);
+
+            var started = fsm.fire(Events.START).toCompletableFuture();
+            var stopped = fsm.fire(Events.STOP).toCompletableFuture();
+            var rejected = fsm.fire(Events.STOP).toCompletableFuture();
+            assertThat(fsm.getExecutionStatus()).isEqualTo(FsmExecutionStatus.TRANSITIONING);
+
+            release.countDown();
+            assertThat(started.get(1, TimeUnit.MINUTES)).isTrue();
+            assertThat(stopped.get(1, TimeUnit.MINUTES)).isTrue();
+            assertThat(rejected).failsWithin(1, TimeUnit.MINUTES)
+                    .withThrowableOfType(ExecutionException.class)
+                    .withCauseInstanceOf(IllegalStateException.class);
+            assertThat(fsm.getExecutionContext().getState()).isEqualTo(States.END);
+            assertThat(fsm.getExecutionStatus()).isEqualTo(FsmExecutionStatus.TERMINATED);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    enum States {
+        IDLE,
+        BUSY,
+        END
+    }
+
+    enum Events {
+        START,
+        STOP
+    }
+}
@@ -0,0 +1,227 @@
+package com.github.maximvegorov.fsm4j;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConcurrentFsmTest {
+    private static final int THREADS = 4;
+    private static final int ITERATIONS = 20_000;
+
+    @Test
+    void fireConcurrently() throws Exception {
+        var actions = new AtomicLong();
+        var inside = new AtomicLong();
+        var fsmConfig = FsmConfig.<States, Events, FsmAtomicExecutionContext<States>>builder()
+                .state(States.IDLE)
+                    .on(Events.START)
+                        .moveTo(States.BUSY)
+                    .on(Events.STOP)
+                        .action((c, t, e, args) -> {
+                            assertThat(inside.incrementAndGet()).isEqualTo(1);
+                            actions.incrementAndGet();
+                            inside.decrementAndGet();
+                        })
+                        .moveTo(States.IDLE)
+                    .end()
+                .state(States.BUSY)
+                    .on(Events.STOP)
+                        .moveTo(States.IDLE)
+                    .end()
+                .build(Set.of(States.END));
+        var fsm = ConcurrentFsm.of(fsmConfig, new FsmAtomicExecutionContext<>(States.IDLE));
+
+        var executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            var futures = new ArrayList<Future<long[]>>();
+            for (var i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    var accepted = new long[Events.values().length];
+                    for (var j = 0; j < ITERATIONS; j++) {
+                        var event = Events.values()[ThreadLocalRandom.current().nextInt(2)];
+                        if (fsm.fire(event)) {
+                            accepted[event.ordinal()]++;
+                        }
+                    }
+                    return accepted;
+                }));
+            }
+            var starts = 0L;
+            var stops = 0L;
+            for (var future : futures) {
+                var accepted = future.get();
+                starts += accepted[Events.START.ordinal()];
+                stops += accepted[Events.STOP.ordinal()];
+            }
+
+            // STOP is always accepted, from BUSY without actions and from IDLE with an action
+            var leftBusy = fsm.getExecutionContext().getState() == States.BUSY ? starts - 1 : starts;
+            assertThat(actions.get()).isEqualTo(stops - leftBusy);
+            assertThat(fsm.getExecutionStatus()).isEqualTo(FsmExecutionStatus.RUNNING);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void fireWhileBusyIsRejected() throws Exception {
+        var entered = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var fsmConfig = FsmConfig.<States, Events, FsmAtomicExecutionContext<States>>builder()
+                .state(States.IDLE)
+                    .on(Events.START)
+                        .action(() -> {
+                            entered.countDown();
+                            await(release);
+                        })
+                        .moveTo(States.BUSY)
+                    .end()
+                .state(States.BUSY)
+                    .on(Events.STOP)
+                        .moveTo(States.END)
+                    .end()
+                .build(Set.of(States.END));
+        var fsm = ConcurrentFsm.of(fsmConfig, new FsmAtomicExecutionContext<>(States.IDLE), FsmContentionPolicy.REJECT);
+
+        var executor = Executors.newSingleThreadExecutor();
+        try {
+            var started = executor.submit(() -> fsm.fire(Events.START));
+            entered.await();
+
+            assertThatThrownBy(() -> fsm.fire(Events.STOP))
+                    .isInstanceOf(FsmBusyException.class);
+
+            release.countDown();
+            assertThat(started.get()).isTrue();
+            assertThat(fsm.fire(Events.STOP)).isTrue();
+            assertThat(fsm.getExecutionStatus()).isEqualTo(FsmExecutionStatus.TERMINATED);
+            assertThatThrownBy(() -> fsm.fire(Events.STOP))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessage("Must be running");
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void fireWithTracer() {
+        var trace = new ArrayList<String>();
+        var fsmConfig = FsmConfig.<States, Events, FsmAtomicExecutionContext<States>>builder()
+                .state(States.IDLE)
+                    .on(Events.START)
+                        .moveTo(States.BUSY)
+                    .end()
+                .state(States.BUSY)
+                    .on(Events.STOP)
+                        .action(() -> {
+                            throw new IllegalStateException("Not ready to stop");
+                        })
+                        .moveTo(States.IDLE)
+                    .end()
+                .tracer(new FsmTracer<>() {
+                    @Override
+                    public void onTransitionStarted(
+                            FsmAtomicExecutionContext<States> context,
+                            Transition<States> transition,
+                            Events event,
+                            FsmEventArgs args) {
+                        trace.add("started " + transition.getTarget());
+                    }
+
+                    @Override
+                    public void onTransitionCompleted(FsmAtomicExecutionContext<States> context, Transition<States> transition) {
+                        trace.add("completed " + transition.getTarget());
+                    }
+
+                    @Override
+                    public void onTransitionFailed(
+                            FsmAtomicExecutionContext<States> context,
+                            Transition<States> transition,
+                            RuntimeException e) {
+                        trace.add("failed " + e.getMessage());
+                    }
+                })
+                .build(Set.of(States.END));
+        var fsm = ConcurrentFsm.of(fsmConfig, new FsmAtomicExecutionContext<>(States.IDLE));
+
+        // a transition without actions takes the locked path to be traced
+        assertThat(fsm.fire(Events.START)).isTrue();
+        assertThatThrownBy(() -> fsm.fire(Events.STOP)).isInstanceOf(IllegalStateException.class);
+
+        assertThat(trace).containsExactly("started BUSY", "completed BUSY", "started IDLE", "failed Not ready to stop");
+        assertThat(fsm.getExecutionStatus()).isEqualTo(FsmExecutionStatus.ABORTED);
+    }
+
+    @Test
+    void closeRacingLockFreeTransition() throws Exception {
+        var fsmConfig = FsmConfig.<States, Events, FsmAtomicExecutionContext<States>>builder()
+                .state(States.IDLE)
+                    .on(Events.START)
+                        .moveTo(States.BUSY)
+                    .end()
+                .state(States.BUSY)
+                    .on(Events.STOP)
+                        .moveTo(States.IDLE)
+                    .end()
+                .build(Set.of(States.END));
+        var racing = new AtomicBoolean();
+        var fsmHolder = new ArrayList<ConcurrentFsm<States, Events, FsmAtomicExecutionContext<States>>>();
+        var context = new FsmAtomicExecutionContext<>(States.IDLE) {
+            @Override
+            States tryGetState() {
+                var state = super.tryGetState();
+                if (racing.compareAndSet(true, false)) {
+                    // another thread moves the machine between the read of close and its acquisition
+                    var firing = new Thread(() -> fsmHolder.get(0).fire(Events.START));
+                    firing.start();
+                    join(firing);
+                }
+                return state;
+            }
+        };
+        var fsm = ConcurrentFsm.of(fsmConfig, context);
+        fsmHolder.add(fsm);
+
+        racing.set(true);
+        fsm.close();
+
+        assertThat(racing.get()).isFalse();
+        assertThat(fsm.getExecutionContext().getState()).isEqualTo(States.BUSY);
+        assertThat(fsm.getExecutionStatus()).isEqualTo(FsmExecutionStatus.TERMINATED);
+        assertThatThrownBy(() -> fsm.fire(Events.STOP)).isInstanceOf(IllegalStateException.class);
+    }
+
+    private static void join(Thread thread) {
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    enum States {
+        IDLE,
+        BUSY,
+        END
+    }
+
+    enum Events {
+        START,
+        STOP
+    }
+}
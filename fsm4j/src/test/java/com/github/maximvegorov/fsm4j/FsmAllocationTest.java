@@ -0,0 +1,119 @@
+package com.github.maximvegorov.fsm4j;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FsmAllocationTest {
+    private final Logger logger = (Logger) LoggerFactory.getLogger(Fsm.class);
+    private Level level;
+
+    @BeforeEach
+    void setUp() {
+        level = logger.getLevel();
+        logger.setLevel(Level.INFO);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.setLevel(level);
+    }
+
+    @Test
+    void fireDoesNotAllocateWithEnumStatesAndEvents() {
+        var counter = new AtomicLong();
+        var fsmConfig = FsmConfig.<States, Events, FsmSimpleExecutionContext<States>>builder()
+                .state(States.IDLE)
+                    .addExitAction((c, t, e, args) -> counter.incrementAndGet())
+                    .choice()
+                        .on(Events.START)
+                            .and((c, e, args) -> counter.get() < 0)
+                            .moveTo(States.END)
+                        .on(Events.START)
+                            .before((c, t, e, args) -> counter.incrementAndGet())
+                            .after((c, t, e, args) -> counter.incrementAndGet())
+                            .moveTo(States.BUSY)
+                    .end()
+                .state(States.BUSY)
+                    .addEnterAction((c, t, e, args) -> counter.incrementAndGet())
+                    .on(Events.STOP)
+                        .moveTo(States.IDLE)
+                    .end()
+                .build(Set.of(States.END));
+        var fsm = Fsm.of(fsmConfig, new FsmSimpleExecutionContext<>(States.IDLE));
+
+        FsmAllocations.assertDoesNotAllocate(() -> {
+            fsm.fire(Events.START);
+            fsm.fire(Events.STOP);
+        });
+        assertThat(counter.get()).isPositive();
+    }
+
+    @Test
+    void fireDoesNotAllocateWithNonEnumStatesAndEvents() {
+        var fsmConfig = FsmConfig.<String, String, FsmSimpleExecutionContext<String>>builder()
+                .state("idle")
+                    .on("start")
+                        .moveTo("busy")
+                    .end()
+                .state("busy")
+                    .on("stop")
+                        .moveTo("idle")
+                    .end()
+                .build(Set.of("end"));
+        var fsm = Fsm.of(fsmConfig, new FsmSimpleExecutionContext<>("idle"));
+
+        FsmAllocations.assertDoesNotAllocate(() -> {
+            fsm.fire("start");
+            fsm.fire("stop");
+        });
+    }
+
+    @Test
+    void fireDoesNotAllocateWithReusedSlotArgs() {
+        var amount = FsmSlotEventArgs.longSlot(0);
+        var quantity = FsmSlotEventArgs.intSlot(1);
+        var total = new AtomicLong();
+        var fsmConfig = FsmConfig.<States, Events, FsmSimpleExecutionContext<States>>builder()
+                .state(States.IDLE)
+                    .on(Events.START)
+                        .and((c, e, args) -> quantity.get(args) > 0)
+                        .before((c, t, e, args) -> total.addAndGet(amount.get(args) * quantity.get(args)))
+                        .moveTo(States.BUSY)
+                    .end()
+                .state(States.BUSY)
+                    .on(Events.STOP)
+                        .moveTo(States.IDLE)
+                    .end()
+                .build(Set.of(States.END));
+        var fsm = Fsm.of(fsmConfig, new FsmSimpleExecutionContext<>(States.IDLE));
+        var args = FsmSlotEventArgs.of(2);
+        var counter = new long[1];
+
+        FsmAllocations.assertDoesNotAllocate(() -> {
+            counter[0]++;
+            fsm.fire(Events.START, args.set(amount, counter[0]).set(quantity, 2));
+            fsm.fire(Events.STOP, args.reset());
+        });
+        assertThat(total.get()).isPositive();
+    }
+
+    enum States {
+        IDLE,
+        BUSY,
+        END
+    }
+
+    enum Events {
+        START,
+        STOP
+    }
+}
@@ -0,0 +1,45 @@
+package com.github.maximvegorov.fsm4j;
+
+import java.lang.management.ManagementFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures the bytes allocated by the current thread while a call is repeated, shared by the tests of the engines.
+ */
+public final class FsmAllocations {
+    private static final int WARMUP_ITERATIONS = 50_000;
+    private static final int ITERATIONS = 1_000_000;
+    // the JIT and TLAB refills allocate a little on their own while measuring, a single byte per call is far more
+    private static final long TOLERATED_BYTES = 64 * 1024;
+
+    private FsmAllocations() {
+    }
+
+    /**
+     * Asserts that the call doesn't allocate once warmed up.
+     */
+    public static void assertDoesNotAllocate(Runnable call) {
+        assertThat(allocatedBytes(call))
+                .as("bytes allocated by %d calls", ITERATIONS)
+                .isLessThan(TOLERATED_BYTES);
+    }
+
+    /**
+     * @return the total bytes allocated by the warmed up call repeated a million times.
+     */
+    public static long allocatedBytes(Runnable call) {
+        var threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        var threadId = Thread.currentThread().getId();
+
+        for (var i = 0; i < WARMUP_ITERATIONS; i++) {
+            call.run();
+        }
+
+        var before = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (var i = 0; i < ITERATIONS; i++) {
+            call.run();
+        }
+        return threadMXBean.getThreadAllocatedBytes(threadId) - before;
+    }
+}
@@ -0,0 +1,53 @@
+package com.github.maximvegorov.fsm4j;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FsmConfigRegistryTest {
+    @Test
+    void migrateOnFire() {
+        var registry = FsmConfigRegistry.<String, String, String, FsmSimpleExecutionContext<String>>create();
+        var v1 = registry.publish("greeting", 1, FsmConfig.<String, String, FsmSimpleExecutionContext<String>>builder()
+                .state("new")
+                    .on("hello")
+                        .moveTo("greeted")
+                    .end()
+                .state("greeted")
+                    .on("bye")
+                        .moveTo("end")
+                    .end()
+                .build(Set.of("end")));
+
+        var fsm = registry.newFsm("greeting", new FsmSimpleExecutionContext<>("new"));
+        assertThat(fsm.fire("hello")).isTrue();
+
+        // renames "greeted" to "welcomed"
+        var v2 = registry.publish("greeting", 2, FsmConfig.<String, String, FsmSimpleExecutionContext<String>>builder()
+                .state("new")
+                    .on("hello")
+                        .moveTo("welcomed")
+                    .end()
+                .state("welcomed")
+                    .on("bye")
+                        .moveTo("end")
+                    .end()
+                .build(Set.of("end")),
+                state -> state.equals("greeted") ? "welcomed" : state);
+
+        assertThat(v1.isLatest()).isFalse();
+        assertThat(fsm.getConfigVersion()).isSameAs(v1);
+        assertThat(registry.getLatest("greeting")).containsSame(v2);
+        assertThatThrownBy(() -> registry.publish("greeting", 2, v2.getConfig()))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(fsm.fire("bye")).isTrue();
+        assertThat(fsm.getConfigVersion()).isSameAs(v2);
+        assertThat(fsm.getConfig()).isSameAs(v2.getConfig());
+        assertThat(fsm.getExecutionContext().getState()).isEqualTo("end");
+        assertThat(fsm.getExecutionStatus()).isEqualTo(FsmExecutionStatus.TERMINATED);
+    }
+}
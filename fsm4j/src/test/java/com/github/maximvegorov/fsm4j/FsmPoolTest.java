@@ -0,0 +1,221 @@
+package com.github.maximvegorov.fsm4j;
+
+import com.github.maximvegorov.fsm4j.timer.FsmTimerScheduler;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FsmPoolTest {
+    @Test
+    void fire() {
+        var fired = new ArrayList<Integer>();
+        var fsmConfig = FsmConfig.<States, Events, FsmPoolExecutionContext<States>>builder()
+                .state(States.NEW)
+                    .on(Events.SAY_HELLO)
+                        .action((c, t, e, args) -> fired.add(c.getMachineId()))
+                        .moveTo(States.SAID_HELLO)
+                    .on(Events.SAY_WORLD)
+                        .action((c, t, e, args) -> {
+                            throw new IllegalStateException("World is not ready");
+                        })
+                        .moveTo(States.END)
+                    .end()
+                .state(States.SAID_HELLO)
+                    .on(Events.SAY_HELLO)
+                        .moveTo(States.END)
+                    .end()
+                .build(Set.of(States.END));
+
+        var pool = FsmPool.<States, Events>of(fsmConfig, 1);
+        for (var i = 0; i < 100; i++) {
+            assertThat(pool.add(States.NEW)).isEqualTo(i);
+        }
+
+        assertThat(pool.fire(1, Events.SAY_HELLO)).isTrue();
+        assertThat(pool.fire(1, Events.SAY_WORLD)).isFalse();
+        assertThat(pool.fire(2, Events.SAY_HELLO)).isTrue();
+        assertThat(pool.fire(2, Events.SAY_HELLO)).isTrue();
+        assertThatThrownBy(() -> pool.fire(99, Events.SAY_WORLD))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("World is not ready");
+
+        assertThat(fired).containsExactly(1, 2);
+        assertThat(pool.getState(0)).isEqualTo(States.NEW);
+        assertThat(pool.getExecutionStatus(0)).isEqualTo(FsmExecutionStatus.RUNNING);
+        assertThat(pool.getState(1)).isEqualTo(States.SAID_HELLO);
+        assertThat(pool.getExecutionStatus(1)).isEqualTo(FsmExecutionStatus.RUNNING);
+        assertThat(pool.getState(2)).isEqualTo(States.END);
+        assertThat(pool.getExecutionStatus(2)).isEqualTo(FsmExecutionStatus.TERMINATED);
+        assertThat(pool.getExecutionStatus(99)).isEqualTo(FsmExecutionStatus.ABORTED);
+        assertThatThrownBy(() -> pool.fire(2, Events.SAY_HELLO))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void broadcastByIndex() {
+        var fsmConfig = FsmConfig.<States, Events, FsmPoolExecutionContext<States>>builder()
+                .state(States.NEW)
+                    .on(Events.SAY_HELLO)
+                        .moveTo(States.SAID_HELLO)
+                    .on(Events.SAY_WORLD)
+                        .and((c, e, args) -> c.getMachineId() % 2 == 0)
+                        .moveTo(States.END)
+                    .end()
+                .state(States.SAID_HELLO)
+                    .on(Events.SAY_WORLD)
+                        .moveTo(States.END)
+                    .end()
+                .build(Set.of(States.END));
+
+        var pool = FsmPool.<States, Events>of(fsmConfig);
+        for (var i = 0; i < 10; i++) {
+            pool.add(States.NEW);
+        }
+        pool.fire(0, Events.SAY_HELLO);
+        var index = pool.index();
+        pool.fire(1, Events.SAY_HELLO);
+        pool.add(States.SAID_HELLO);
+        pool.close(2);
+
+        assertThat(index.count(States.NEW)).isEqualTo(8);
+        assertThat(index.getMachines(States.SAID_HELLO)).containsExactlyInAnyOrder(0, 1, 10);
+        assertThat(index.getMachinesAccepting(Events.SAY_HELLO)).containsExactlyInAnyOrder(3, 4, 5, 6, 7, 8, 9);
+        assertThat(index.getMachinesAccepting(Events.SAY_WORLD)).containsExactlyInAnyOrder(0, 1, 10);
+
+        assertThat(index.broadcast(Events.SAY_WORLD).getAcceptedCount()).isEqualTo(6);
+        assertThat(index.getMachines(States.NEW)).containsExactlyInAnyOrder(2, 3, 5, 7, 9);
+        assertThat(index.getMachines(States.END)).containsExactlyInAnyOrder(0, 1, 4, 6, 8, 10);
+        assertThat(index.broadcast(States.NEW, Events.SAY_HELLO, FsmEventArgs.empty()).getAcceptedCount()).isEqualTo(4);
+        assertThat(index.count(States.SAID_HELLO)).isEqualTo(4);
+        assertThat(pool.getState(2)).isEqualTo(States.NEW);
+    }
+
+    @Test
+    void broadcast() {
+        var fsmConfig = FsmConfig.<States, Events, FsmPoolExecutionContext<States>>builder()
+                .state(States.NEW)
+                    .on(Events.SAY_HELLO)
+                        .and((c, e, args) -> c.getMachineId() % 3 != 0)
+                        .action((c, t, e, args) -> {
+                            if (c.getMachineId() % 1000 == 1) {
+                                throw new IllegalStateException("Hello is not ready");
+                            }
+                        })
+                        .moveTo(States.SAID_HELLO)
+                    .end()
+                .build(Set.of(States.END));
+
+        var pool = FsmPool.<States, Events>of(fsmConfig);
+        for (var i = 0; i < 100_000; i++) {
+            pool.add(States.NEW);
+        }
+        pool.close(2);
+        var index = pool.index();
+
+        var result = pool.broadcast(Events.SAY_HELLO);
+
+        assertThat(result.getAcceptedCount()).isEqualTo(66_666 - 1 - 67);
+        assertThat(result.getRejectedCount()).isEqualTo(33_334);
+        assertThat(result.getAbortedCount()).isEqualTo(67);
+        assertThat(result.getSkippedCount()).isEqualTo(1);
+        assertThat(result.getFailures()).hasSize(67);
+        assertThat(List.copyOf(result.getFailures().keySet())).isSorted().startsWith(1, 1001, 3001);
+        assertThat(pool.getExecutionStatus(1001)).isEqualTo(FsmExecutionStatus.ABORTED);
+        assertThat(pool.getState(4)).isEqualTo(States.SAID_HELLO);
+        assertThat(index.count(States.SAID_HELLO)).isEqualTo(result.getAcceptedCount());
+        assertThat(index.count(States.NEW)).isEqualTo(33_334 + 1 + 67);
+    }
+
+    @Test
+    void fireWithTracer() {
+        var trace = new ArrayList<String>();
+        var fsmConfig = FsmConfig.<States, Events, FsmPoolExecutionContext<States>>builder()
+                .state(States.NEW)
+                    .on(Events.SAY_HELLO)
+                        .action(() -> {})
+                        .moveTo(States.SAID_HELLO)
+                    .on(Events.SAY_WORLD)
+                        .action(() -> {
+                            throw new IllegalStateException("World is not ready");
+                        })
+                        .moveTo(States.END)
+                    .end()
+                .tracer(new FsmTracer<>() {
+                    @Override
+                    public void onTransitionStarted(
+                            FsmPoolExecutionContext<States> context,
+                            Transition<States> transition,
+                            Events event,
+                            FsmEventArgs args) {
+                        trace.add("started " + context.getMachineId() + " " + transition.getTarget());
+                    }
+
+                    @Override
+                    public void onActionsStarted(
+                            FsmPoolExecutionContext<States> context,
+                            Transition<States> transition,
+                            FsmActionPhase phase) {
+                        trace.add(phase.name());
+                    }
+
+                    @Override
+                    public void onTransitionCompleted(FsmPoolExecutionContext<States> context, Transition<States> transition) {
+                        trace.add("completed " + context.getMachineId() + " " + transition.getTarget());
+                    }
+
+                    @Override
+                    public void onTransitionFailed(
+                            FsmPoolExecutionContext<States> context,
+                            Transition<States> transition,
+                            RuntimeException e) {
+                        trace.add("failed " + context.getMachineId() + " " + e.getMessage());
+                    }
+                })
+                .build(Set.of(States.END));
+
+        var pool = FsmPool.<States, Events>of(fsmConfig);
+        pool.add(States.NEW);
+        pool.add(States.NEW);
+        pool.fire(0, Events.SAY_HELLO);
+        assertThatThrownBy(() -> pool.fire(1, Events.SAY_WORLD)).isInstanceOf(IllegalStateException.class);
+
+        assertThat(trace).containsExactly(
+                "started 0 SAID_HELLO", "BEFORE", "completed 0 SAID_HELLO",
+                "started 1 END", "BEFORE", "failed 1 World is not ready");
+    }
+
+    @Test
+    void rejectTimeouts() {
+        var scheduler = FsmTimerScheduler.<States, Events, FsmPoolExecutionContext<States>>of(
+                (context, state, event) -> {});
+        var fsmConfig = FsmConfig.<States, Events, FsmPoolExecutionContext<States>>builder()
+                .timers(scheduler)
+                .state(States.NEW)
+                    .on(Events.SAY_WORLD)
+                        .after(Duration.ofSeconds(1))
+                        .moveTo(States.END)
+                    .end()
+                .build(Set.of(States.END));
+
+        assertThatThrownBy(() -> FsmPool.of(fsmConfig))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Timeouts are not supported by a pool");
+    }
+
+    enum States {
+        NEW,
+        SAID_HELLO,
+        END
+    }
+
+    enum Events {
+        SAY_HELLO,
+        SAY_WORLD
+    }
+}
@@ -0,0 +1,106 @@
+package com.github.maximvegorov.fsm4j;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FsmSnapshotTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void writeAndReadPool() throws Exception {
+        var fsmConfig = FsmConfig.<States, Events, FsmPoolExecutionContext<States>>builder()
+                .state(States.NEW)
+                    .on(Events.START)
+                        .moveTo(States.STARTED)
+                    .on(Events.FAIL)
+                        .action(() -> {
+                            throw new IllegalStateException();
+                        })
+                        .moveTo(States.END)
+                    .end()
+                .state(States.STARTED)
+                    .on(Events.START)
+                        .moveTo(States.END)
+                    .end()
+                .build(Set.of(States.END));
+        var pool = FsmPool.<States, Events>of(fsmConfig);
+        for (var i = 0; i < 100; i++) {
+            pool.add(States.NEW);
+            pool.fire(i, Events.START);
+            if (i % 3 == 0) {
+                pool.fire(i, Events.START);
+            }
+        }
+        var aborted = pool.add(States.NEW);
+        assertThatThrownBy(() -> pool.fire(aborted, Events.FAIL)).isInstanceOf(IllegalStateException.class);
+
+        var file = tempDir.resolve("pool.snapshot");
+        try (var channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            FsmSnapshot.write(pool, channel);
+        }
+        assertThat(file).hasSize(FsmSnapshot.sizeOf(pool));
+
+        FsmPool<States, Events> restored;
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            restored = FsmSnapshot.readPool(fsmConfig, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+        assertThat(restored.size()).isEqualTo(pool.size());
+        for (var i = 0; i < pool.size(); i++) {
+            assertThat(restored.getState(i)).isEqualTo(pool.getState(i));
+            assertThat(restored.getExecutionStatus(i)).isEqualTo(pool.getExecutionStatus(i));
+        }
+        assertThat(restored.fire(1, Events.START)).isTrue();
+        assertThat(restored.add(States.NEW)).isEqualTo(pool.size());
+        assertThat(restored.getExecutionStatus(pool.size())).isEqualTo(FsmExecutionStatus.RUNNING);
+    }
+
+    @Test
+    void writeAndReadFsm() {
+        var fsmConfig = FsmConfig.<States, Events, FsmSimpleExecutionContext<States>>builder()
+                .state(States.NEW)
+                    .on(Events.START)
+                        .moveTo(States.STARTED)
+                    .end()
+                .build(Set.of(States.END));
+        var otherConfig = FsmConfig.<States, Events, FsmSimpleExecutionContext<States>>builder()
+                .state(States.NEW)
+                    .on(Events.START)
+                        .moveTo(States.STARTED)
+                    .end()
+                .build(Set.of(States.STARTED));
+        var fsm = Fsm.of(fsmConfig, new FsmSimpleExecutionContext<>(States.NEW));
+        fsm.fire(Events.START);
+
+        var buffer = ByteBuffer.allocate(64);
+        FsmSnapshot.write(fsm, buffer);
+        buffer.flip();
+
+        var restored = FsmSnapshot.readFsm(fsmConfig, buffer.duplicate(), FsmSimpleExecutionContext::new);
+        assertThat(restored.getExecutionContext().getState()).isEqualTo(States.STARTED);
+        assertThat(restored.getExecutionStatus()).isEqualTo(FsmExecutionStatus.RUNNING);
+        assertThatThrownBy(() -> FsmSnapshot.readFsm(otherConfig, buffer.duplicate(), FsmSimpleExecutionContext::new))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Snapshot was taken with another configuration");
+    }
+
+    enum States {
+        NEW,
+        STARTED,
+        END
+    }
+
+    enum Events {
+        START,
+        FAIL
+    }
+}
@@ -0,0 +1,490 @@
+package com.github.maximvegorov.fsm4j;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FsmTest {
+    @Test
+    void fire() {
+        var fsmConfig = FsmConfig.<States, Events, FsmSimpleExecutionContext<States>>builder()
+                .state(States.NEW)
+                    .on(Events.SAY_HELLO)
+                        .action(() -> System.out.print("Hello, "))
+                        .moveTo(States.SAID_HELLO)
+                    .end()
+                .state(States.SAID_HELLO)
+                    .on(Events.SAY_WORLD)
+                        .action(() -> System.out.println("World!"))
+                        .moveTo(States.END)
+                    .end()
+                .build(Set.of(States.END));
+
+        var fsm = Fsm.of(fsmConfig, new FsmSimpleExecutionContext<>(States.NEW));
+        fsm.fire(Events.SAY_HELLO);
+        fsm.fire(Events.SAY_WORLD);
+
+        assertThat(fsm.getExecutionStatus())
+                .isEqualTo(FsmExecutionStatus.TERMINATED);
+    }
+
+    @Test
+    void fireWithGuardedChoice() {
+        var trace = new ArrayList<String>();
+        var fsmConfig = FsmConfig.<States, Events, FsmSimpleExecutionContext<States>>builder()
+                .state(States.NEW)
+                    .addExitAction((c, t, e, args) -> trace.add("exit " + t.getSource()))
+                    .choice()
+                        .on(Events.SAY_HELLO)
+                            .and((c, e, args) -> false)
+                            .moveTo(States.END)
+                        .on(Events.SAY_HELLO)
+                            .before((c, t, e, args) -> trace.add("before " + c.getState()))
+                            .after((c, t, e, args) -> trace.add("after " + c.getState()))
+                            .moveTo(States.SAID_HELLO)
+                    .end()
+                .state(States.SAID_HELLO)
+                    .addEnterAction((c, t, e, args) -> trace.add("enter " + t.getTarget()))
+                .build(Set.of(States.END));
+
+        var fsm = Fsm.of(fsmConfig, new FsmSimpleExecutionContext<>(States.NEW));
+
+        assertThat(fsm.fire(Events.SAY_WORLD)).isFalse();
+        assertThat(fsm.fire(Events.SAY_HELLO)).isTrue();
+        assertThat(fsm.getExecutionContext().getState()).isEqualTo(States.SAID_HELLO);
+        assertThat(fsm.getExecutionStatus()).isEqualTo(FsmExecutionStatus.RUNNING);
+        assertThat(trace).containsExactly(
+                "exit NEW",
+                "before NEW",
+                "after SAID_HELLO",
+                "enter SAID_HELLO");
+    }
+
+    @Test
+    void fireWithNonEnumStatesAndEvents() {
+        var fsmConfig = FsmConfig.<String, String, FsmSimpleExecutionContext<String>>builder()
+                .state("new")
+                    .on("hello")
+                        .moveTo("said hello")
+                    .end()
+                .state("said hello")
+                    .on("world")
+                        .moveTo("end")
+                    .end()
+                .build(Set.of("end"));
+
+        var fsm = Fsm.of(fsmConfig, new FsmSimpleExecutionContext<>("new"));
+
+        assertThat(fsm.fire("world")).isFalse();
+        assertThat(fsm.fire("hello")).isTrue();
+        assertThat(fsm.fire("world")).isTrue();
+        assertThat(fsm.getExecutionStatus())
+                .isEqualTo(FsmExecutionStatus.TERMINATED);
+    }
+
+    @Test
+    void fireWithConstructedConfig() {
+        var transition = Transition.of("new", "end");
+        var enterActions = new ArrayList<String>();
+        var fsmConfig = new FsmConfig<String, String, FsmSimpleExecutionContext<String>>(
+                Map.of("new", Map.of("hello", List.of(TransitionTarget.of(transition, TransitionPredicate.always())))),
+                Map.of(),
+                Map.of(),
+                Map.of(),
+                Map.of("end", List.of((c, t, e, args) -> enterActions.add(t.getTarget()))),
+                (c, e, args) -> Optional.empty(),
+                Set.of("end"));
+
+        var fsm = Fsm.of(fsmConfig, new FsmSimpleExecutionContext<>("new"));
+
+        assertThat(fsm.fire("world")).isFalse();
+        assertThat(fsm.fire("hello")).isTrue();
+        assertThat(enterActions).containsExactly("end");
+        assertThat(fsm.getExecutionStatus())
+                .isEqualTo(FsmExecutionStatus.TERMINATED);
+    }
+
+    @Test
+    void fireAll() {
+        var fsmConfig = FsmConfig.<States, Events, FsmSimpleExecutionContext<States>>builder()
+                .state(States.NEW)
+                    .on(Events.SAY_HELLO)
+                        .moveTo(States.SAID_HELLO)
+                    .end()
+                .state(States.SAID_HELLO)
+                    .on(Events.SAY_HELLO)
+                        .moveTo(States.SAID_HELLO)
+                    .on(Events.SAY_WORLD)
+                        .moveTo(States.END)
+                    .end()
+                .build(Set.of(States.END));
+
+        var completed = Fsm.of(fsmConfig, new FsmSimpleExecutionContext<>(States.NEW))
+                .fireAll(List.of(Events.SAY_HELLO, Events.SAY_HELLO, Events.SAY_HELLO));
+        assertThat(completed.isCompleted()).isTrue();
+        assertThat(completed.getAcceptedCount()).isEqualTo(3);
+
+        var stopped = Fsm.of(fsmConfig, new FsmSimpleExecutionContext<>(States.NEW))
+                .fireAll(new Events[]{Events.SAY_WORLD, Events.SAY_HELLO});
+        assertThat(stopped.getStopIndex()).isZero();
+        assertThat(stopped.getAcceptedCount()).isZero();
+        assertThat(stopped.getExecutionStatus()).isEqualTo(FsmExecutionStatus.RUNNING);
+
+        var terminated = Fsm.of(fsmConfig, new FsmSimpleExecutionContext<>(States.NEW))
+                .fireAll(new Events[]{Events.SAY_HELLO, Events.SAY_WORLD, Events.SAY_HELLO});
+        assertThat(terminated.getStopIndex()).isEqualTo(1);
+        assertThat(terminated.getAcceptedCount()).isEqualTo(2);
+        assertThat(terminated.getExecutionStatus()).isEqualTo(FsmExecutionStatus.TERMINATED);
+    }
+
+    @Test
+    void fireWithFilteredTracer() {
+        var trace = new ArrayList<String>();
+        FsmTracer<States, Events, FsmSimpleExecutionContext<States>> tracer = new FsmTracer<>() {
+            @Override
+            public void onTransitionStarted(
+                    FsmSimpleExecutionContext<States> context,
+                    Transition<States> transition,
+                    Events event,
+                    FsmEventArgs args) {
+                trace.add("started " + transition.getTarget());
+            }
+
+            @Override
+            public void onActionsStarted(
+                    FsmSimpleExecutionContext<States> context,
+                    Transition<States> transition,
+                    FsmActionPhase phase) {
+                trace.add(phase.name());
+            }
+
+            @Override
+            public void onTransitionCompleted(FsmSimpleExecutionContext<States> context, Transition<States> transition) {
+                trace.add("completed " + transition.getTarget());
+            }
+        };
+        var fsmConfig = FsmConfig.<States, Events, FsmSimpleExecutionContext<States>>builder()
+                .state(States.NEW)
+                    .on(Events.SAY_HELLO)
+                        .moveTo(States.SAID_HELLO)
+                    .end()
+                .state(States.SAID_HELLO)
+                    .on(Events.SAY_WORLD)
+                        .action(() -> {})
+                        .moveTo(States.END)
+                    .end()
+                .tracer(FsmTracer.filtered(tracer, c -> c.getState() == States.SAID_HELLO))
+                .build(Set.of(States.END));
+
+        var fsm = Fsm.of(fsmConfig, new FsmSimpleExecutionContext<>(States.NEW));
+        fsm.fire(Events.SAY_HELLO);
+        fsm.fire(Events.SAY_WORLD);
+
+        assertThat(trace).containsExactly("started END", "BEFORE", "completed END");
+    }
+
+    @Test
+    void fireCompiled() {
+        var trace = new ArrayList<String>();
+        var builder = FsmConfig.<States, Events, FsmSimpleExecutionContext<States>>builder();
+        var choice = builder.state(States.NEW)
+                .addExitAction((c, t, e, args) -> trace.add("exit " + t.getSource()))
+                .choice();
+        // enough targets to split the generated switches into a tree
+        for (var i = 0; i < 100; i++) {
+            var target = i;
+            choice.on(Events.SAY_HELLO)
+                    .and((c, e, args) -> args instanceof TargetArgs && ((TargetArgs) args).target == target)
+                    .before((c, t, e, args) -> trace.add("before " + target))
+                    .moveTo(target % 2 == 0 ? States.SAID_HELLO : States.END);
+        }
+        var fsmConfig = choice.end()
+                .state(States.SAID_HELLO)
+                    .on(Events.SAY_WORLD)
+                        .moveTo(States.END)
+                    .end()
+                .build(Set.of(States.END))
+                .compile();
+        assertThat(fsmConfig.isCompiled()).isTrue();
+
+        var fsm = Fsm.of(fsmConfig, new FsmSimpleExecutionContext<>(States.NEW));
+        assertThat(fsm.fire(Events.SAY_WORLD)).isFalse();
+        assertThat(fsm.fire(Events.SAY_HELLO, new TargetArgs(100))).isFalse();
+        assertThat(fsm.fire(Events.SAY_HELLO, new TargetArgs(98))).isTrue();
+        assertThat(fsm.fire(Events.SAY_WORLD)).isTrue();
+        assertThat(fsm.getExecutionStatus()).isEqualTo(FsmExecutionStatus.TERMINATED);
+        // before actions are shared by the targets moving to the same state
+        assertThat(trace).hasSize(51).startsWith("exit NEW", "before 0", "before 2");
+    }
+
+    @Test
+    void fireWithNestedStates() {
+        var trace = new ArrayList<String>();
+        var fsmConfig = FsmConfig.<String, String, FsmSimpleExecutionContext<String>>builder()
+                .state("order")
+                    .addExitAction((c, t, e, args) -> trace.add("exit order"))
+                    .on("cancel")
+                        .after((c, t, e, args) -> trace.add("cancel " + t))
+                        .moveTo("cancelled")
+                    .end()
+                .state("active")
+                    .parent("order")
+                    .addEnterAction((c, t, e, args) -> trace.add("enter active"))
+                    .addExitAction((c, t, e, args) -> trace.add("exit active"))
+                .state("paying")
+                    .parent("active")
+                    .addExitAction((c, t, e, args) -> trace.add("exit paying"))
+                    .on("pay")
+                        .moveTo("shipping")
+                    .end()
+                .state("shipping")
+                    .parent("active")
+                    .addEnterAction((c, t, e, args) -> trace.add("enter shipping"))
+                .state("cancelled")
+                    .addEnterAction((c, t, e, args) -> trace.add("enter cancelled"))
+                .build(Set.of("cancelled"));
+
+        var fsm = Fsm.of(fsmConfig, new FsmSimpleExecutionContext<>("paying"));
+
+        assertThat(fsm.fire("pay")).isTrue();
+        assertThat(trace).containsExactly("exit paying", "enter shipping");
+        trace.clear();
+
+        assertThat(fsm.fire("pay")).isFalse();
+        assertThat(fsm.fire("cancel")).isTrue();
+        assertThat(fsm.getExecutionStatus()).isEqualTo(FsmExecutionStatus.TERMINATED);
+        assertThat(trace).containsExactly(
+                "exit active",
+                "exit order",
+                "cancel Transition(source=shipping, target=cancelled)",
+                "enter cancelled");
+    }
+
+    @Test
+    void fireWithQueuedEvents() {
+        var trace = new ArrayList<String>();
+        var fsmConfig = FsmConfig.<String, String, FsmSimpleQueueExecutionContext<String, String>>builder()
+                .state("new")
+                    .on("start")
+                        .after((c, t, e, args) -> {
+                            c.defer("ship");
+                            c.post("unknown");
+                            c.post("validated");
+                        })
+                        .moveTo("validating")
+                    .end()
+                .state("validating")
+                    .addEnterAction((c, t, e, args) -> trace.add(t.getTarget()))
+                    .on("validated")
+                        .moveTo("ready")
+                    .end()
+                .state("ready")
+                    .addEnterAction((c, t, e, args) -> trace.add(t.getTarget()))
+                    .on("ship")
+                        .moveTo("shipped")
+                    .end()
+                .state("shipped")
+                    .addEnterAction((c, t, e, args) -> trace.add(t.getTarget()))
+                .build(Set.of("shipped"));
+
+        var fsm = Fsm.of(fsmConfig, new FsmSimpleQueueExecutionContext<>("new"));
+
+        assertThat(fsm.fire("start")).isTrue();
+        assertThat(trace).containsExactly("validating", "ready", "shipped");
+        assertThat(fsm.getExecutionStatus()).isEqualTo(FsmExecutionStatus.TERMINATED);
+        assertThat(fsm.getExecutionContext().getEventQueue().getPostedCount()).isZero();
+        assertThat(fsm.getExecutionContext().getEventQueue().getDeferredCount()).isZero();
+    }
+
+    @Test
+    void fireAllWithFailingQueuedEvent() {
+        var fsmConfig = FsmConfig.<String, String, FsmSimpleQueueExecutionContext<String, String>>builder()
+                .state("new")
+                    .on("start")
+                        .moveTo("started")
+                    .end()
+                .state("started")
+                    .on("validate")
+                        .after((c, t, e, args) -> c.post("check"))
+                        .moveTo("validating")
+                    .end()
+                .state("validating")
+                    .on("check")
+                        .action(() -> {
+                            throw new IllegalStateException("Check failed");
+                        })
+                        .moveTo("ready")
+                    .end()
+                .build(Set.of("ready"));
+
+        var result = Fsm.of(fsmConfig, new FsmSimpleQueueExecutionContext<>("new"))
+                .fireAll(new String[]{"start", "validate", "ship"});
+
+        assertThat(result.getStopIndex()).isEqualTo(1);
+        assertThat(result.getAcceptedCount()).isEqualTo(2);
+        assertThat(result.getExecutionStatus()).isEqualTo(FsmExecutionStatus.ABORTED);
+        assertThat(result.getFailure()).hasMessage("Check failed");
+        assertThat(result.isFailedOnQueuedEvent()).isTrue();
+    }
+
+    @Test
+    void fireWithReusedSlotArgs() {
+        var amount = FsmSlotEventArgs.longSlot(0);
+        var rate = FsmSlotEventArgs.doubleSlot(1);
+        var fsmConfig = FsmConfig.<String, String, FsmSimpleQueueExecutionContext<String, String>>builder()
+                .state("new")
+                    .choice()
+                        .on("order")
+                            .and((c, e, args) -> amount.get(args) > 100)
+                            .after((c, t, e, args) -> c.defer("ship", args))
+                            .moveTo("review")
+                        .on("order")
+                            .moveTo("accepted")
+                    .end()
+                .state("review")
+                    .on("approve")
+                        .moveTo("approved")
+                    .end()
+                .state("approved")
+                    .on("ship")
+                        .and((c, e, args) -> amount.get(args) == 500 && rate.get(args) == 0.25)
+                        .moveTo("shipped")
+                    .end()
+                .build(Set.of("accepted", "shipped"));
+
+        var args = FsmSlotEventArgs.of(2);
+        var fsm = Fsm.of(fsmConfig, new FsmSimpleQueueExecutionContext<>("new"));
+        assertThat(fsm.fire("order", args.set(amount, 500).set(rate, 0.25))).isTrue();
+        assertThat(fsm.getExecutionContext().getState()).isEqualTo("review");
+
+        // the deferred event keeps the values it was deferred with
+        assertThat(fsm.fire("approve", args.reset())).isTrue();
+        assertThat(fsm.getExecutionContext().getState()).isEqualTo("shipped");
+
+        var other = Fsm.of(fsmConfig, new FsmSimpleQueueExecutionContext<>("new"));
+        assertThat(other.fire("order", args.set(amount, 100))).isTrue();
+        assertThat(other.getExecutionContext().getState()).isEqualTo("accepted");
+    }
+
+    @Test
+    void fireWithGuardDecisionTableAndAdaptiveGuards() {
+        var target = FsmArgsKey.of(TargetArgs.class, args -> args.target);
+        var evaluations = new int[1];
+        var routing = FsmConfig.<String, String, FsmSimpleExecutionContext<String>>builder()
+                .adaptiveGuards(true)
+                .state("routing")
+                    .choice();
+        for (var i = 0; i < 20; i++) {
+            routing = routing.on("route").and(target.is(i)).moveTo("zone" + i);
+        }
+        for (var i = 0; i < 10; i++) {
+            var remainder = i;
+            routing = routing.on("classify")
+                    .and((c, e, args) -> {
+                        evaluations[0]++;
+                        return ((TargetArgs) args).target % 10 == remainder;
+                    })
+                    .exclusive()
+                    .moveTo("class" + i);
+        }
+        var fsmConfig = routing
+                .on("route").moveTo("unknown")
+                .end()
+                .build(Set.of("unknown"));
+
+        var context = new FsmSimpleExecutionContext<>("routing");
+        assertThat(fsmConfig.tryFindTransition(context, "route", new TargetArgs(7)))
+                .contains(Transition.of("routing", "zone7"));
+        assertThat(fsmConfig.tryFindTransition(context, "route", new TargetArgs(42)))
+                .contains(Transition.of("routing", "unknown"));
+        assertThat(fsmConfig.tryFindTransition(context, "route", FsmEventArgs.empty()))
+                .contains(Transition.of("routing", "unknown"));
+
+        for (var i = 0; i < 20_000; i++) {
+            assertThat(fsmConfig.tryFindTransition(context, "classify", new TargetArgs(9)))
+                    .contains(Transition.of("routing", "class9"));
+        }
+        evaluations[0] = 0;
+        for (var i = 0; i < 1_000; i++) {
+            fsmConfig.tryFindTransition(context, "classify", new TargetArgs(9));
+        }
+        assertThat(evaluations[0]).isEqualTo(1_000);
+        assertThat(fsmConfig.tryFindTransition(context, "classify", new TargetArgs(3)))
+                .contains(Transition.of("routing", "class3"));
+    }
+
+    @Test
+    void analyzeAndPrune() {
+        var evaluations = new int[1];
+        TransitionPredicate<String, String, FsmSimpleExecutionContext<String>> guard = (c, e, args) -> {
+            evaluations[0]++;
+            return false;
+        };
+        var builder = FsmConfig.<String, String, FsmSimpleExecutionContext<String>>builder()
+                .state("new")
+                    .choice()
+                        .on("submit").moveTo("review")
+                        .on("submit").and(guard).moveTo("legacy")
+                        .on("loop").moveTo("spinning")
+                    .end()
+                .state("review")
+                    .on("approve").moveTo("done")
+                    .on("park").moveTo("parked")
+                    .end()
+                .state("spinning")
+                    .on("loop").moveTo("spinning")
+                    .end()
+                .state("legacy")
+                    .on("finish").moveTo("done")
+                    .end()
+                .state("orphan")
+                    .on("finish").moveTo("done")
+                    .end();
+
+        var analysis = builder.build(Set.of("done")).analyze(Set.of("new"));
+        assertThat(analysis.getUnreachableStates()).containsExactlyInAnyOrder("legacy", "orphan");
+        assertThat(analysis.getNonTerminatingStates()).containsExactlyInAnyOrder("spinning", "parked");
+        assertThat(analysis.getStuckStates()).containsExactly("parked");
+        assertThat(analysis.getShadowedTargets()).singleElement().satisfies(shadowed -> {
+            assertThat(shadowed.getState()).isEqualTo("new");
+            assertThat(shadowed.getEvent()).isEqualTo("submit");
+            assertThat(shadowed.getTransition()).isEqualTo(Transition.of("new", "legacy"));
+            assertThat(shadowed.getShadowedBy()).isEqualTo(Transition.of("new", "review"));
+        });
+        assertThat(analysis.isClean()).isFalse();
+
+        var pruned = builder.prune(Set.of("new")).build(Set.of("done"));
+        var prunedAnalysis = pruned.analyze(Set.of("new"));
+        assertThat(prunedAnalysis.getUnreachableStates()).isEmpty();
+        assertThat(prunedAnalysis.getShadowedTargets()).isEmpty();
+        assertThat(pruned.getTable().indexOf("orphan")).isNegative();
+        assertThat(pruned.tryFindTransition(new FsmSimpleExecutionContext<>("new"), "submit", FsmEventArgs.empty()))
+                .contains(Transition.of("new", "review"));
+        assertThat(evaluations[0]).isZero();
+    }
+
+    enum States {
+        NEW,
+        SAID_HELLO,
+        END
+    }
+
+    enum Events {
+        SAY_HELLO,
+        SAY_WORLD
+    }
+
+    static final class TargetArgs implements FsmEventArgs {
+        private final int target;
+
+        TargetArgs(int target) {
+            this.target = target;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.github.maximvegorov.fsm4j.builders;
+
+import com.github.maximvegorov.fsm4j.Fsm;
+import com.github.maximvegorov.fsm4j.FsmConfig;
+import com.github.maximvegorov.fsm4j.FsmExecutionStatus;
+import com.github.maximvegorov.fsm4j.FsmSimpleExecutionContext;
+import com.github.maximvegorov.fsm4j.TransitionAction;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FsmBulkConfigBuilderTest {
+    private static final int STATE_COUNT = 50_000;
+
+    @Test
+    void buildInParallel() {
+        var before = new AtomicInteger();
+        var enter = new AtomicInteger();
+        TransitionAction<Integer, String, FsmSimpleExecutionContext<Integer>> countBefore = (c, t, e, args) -> before.incrementAndGet();
+        // every state moves to the next one, the unconditional row to the end is declared second
+        var rows = IntStream.range(0, STATE_COUNT)
+                .boxed()
+                .flatMap(i -> Stream.of(
+                        new FsmTransitionRow<Integer, String, FsmSimpleExecutionContext<Integer>>(
+                                i, "next", (c, e, args) -> true, List.of(countBefore), List.of(), i + 1),
+                        FsmTransitionRow.<Integer, String, FsmSimpleExecutionContext<Integer>>of(i, "next", STATE_COUNT)));
+        var fsmConfig = FsmConfig.<Integer, String, FsmSimpleExecutionContext<Integer>>bulkBuilder(2 * STATE_COUNT)
+                .addAll(rows)
+                .addEnterAction(STATE_COUNT, (c, t, e, args) -> enter.incrementAndGet())
+                .parallel(true)
+                .build(Set.of(STATE_COUNT));
+
+        var fsm = Fsm.of(fsmConfig, new FsmSimpleExecutionContext<>(0));
+        for (var i = 0; i < STATE_COUNT; i++) {
+            assertThat(fsm.fire("next")).isTrue();
+        }
+
+        assertThat(fsm.getExecutionContext().getState()).isEqualTo(STATE_COUNT);
+        assertThat(fsm.getExecutionStatus()).isEqualTo(FsmExecutionStatus.TERMINATED);
+        assertThat(before).hasValue(STATE_COUNT);
+        assertThat(enter).hasValue(1);
+    }
+}
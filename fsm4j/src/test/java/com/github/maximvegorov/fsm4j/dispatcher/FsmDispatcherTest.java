@@ -0,0 +1,147 @@
+package com.github.maximvegorov.fsm4j.dispatcher;
+
+import com.github.maximvegorov.fsm4j.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FsmDispatcherTest {
+    private static final int PRODUCERS = 4;
+    private static final int MACHINES_PER_PRODUCER = 25;
+    private static final int EVENTS_PER_MACHINE = 1_000;
+
+    @Test
+    void dispatch() throws Exception {
+        var fsmConfig = FsmConfig.<States, Events, FsmSimpleExecutionContext<States>>builder()
+                .state(States.IDLE)
+                    .on(Events.START)
+                        .moveTo(States.BUSY)
+                    .end()
+                .state(States.BUSY)
+                    .on(Events.STOP)
+                        .moveTo(States.IDLE)
+                    .end()
+                .build(Set.of(States.END));
+        var machines = new ConcurrentHashMap<Integer, Fsm<States, Events, FsmSimpleExecutionContext<States>>>();
+        var received = new ConcurrentHashMap<Integer, List<Events>>();
+        var transitions = new AtomicLong();
+
+        var dispatcher = FsmDispatcher.<Integer, States, Events, FsmSimpleExecutionContext<States>>builder()
+                .shardCount(3)
+                .queueCapacity(16)
+                .listener(new FsmDispatcherListener<>() {
+                    @Override
+                    public void onFired(Integer machineId, Events event, boolean transitioned) {
+                        received.computeIfAbsent(machineId, id -> new ArrayList<>()).add(event);
+                        if (transitioned) {
+                            transitions.incrementAndGet();
+                        }
+                    }
+                })
+                .build(id -> machines.computeIfAbsent(
+                        id,
+                        k -> Fsm.of(fsmConfig, new FsmSimpleExecutionContext<>(States.IDLE))));
+
+        var producers = new ArrayList<Thread>();
+        for (var p = 0; p < PRODUCERS; p++) {
+            var firstMachine = p * MACHINES_PER_PRODUCER;
+            var producer = new Thread(() -> {
+                for (var i = 0; i < EVENTS_PER_MACHINE; i++) {
+                    for (var id = firstMachine; id < firstMachine + MACHINES_PER_PRODUCER; id++) {
+                        dispatcher.dispatch(id, i % 2 == 0 ? Events.START : Events.STOP);
+                    }
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+        for (var producer : producers) {
+            producer.join();
+        }
+        dispatcher.close();
+
+        var total = (long) PRODUCERS * MACHINES_PER_PRODUCER * EVENTS_PER_MACHINE;
+        var processed = 0L;
+        for (var shard = 0; shard < dispatcher.getShardCount(); shard++) {
+            assertThat(dispatcher.getQueueDepth(shard)).isZero();
+            assertThat(dispatcher.getRejectedCount(shard)).isZero();
+            processed += dispatcher.getProcessedCount(shard);
+        }
+        assertThat(processed).isEqualTo(total);
+        // events of a machine are processed in order, so every one of them triggers a transition
+        assertThat(transitions.get()).isEqualTo(total);
+        assertThat(received).hasSize(PRODUCERS * MACHINES_PER_PRODUCER);
+        for (var events : received.values()) {
+            assertThat(events).hasSize(EVENTS_PER_MACHINE);
+        }
+    }
+
+    @Test
+    void dispatchRacingClose() throws Exception {
+        var fsmConfig = FsmConfig.<States, Events, FsmSimpleExecutionContext<States>>builder()
+                .state(States.IDLE)
+                    .on(Events.START)
+                        .moveTo(States.BUSY)
+                    .end()
+                .build(Set.of(States.END));
+        var machine = Fsm.of(fsmConfig, new FsmSimpleExecutionContext<>(States.IDLE));
+        var dispatcher = FsmDispatcher.<Integer, States, Events, FsmSimpleExecutionContext<States>>builder()
+                .shardCount(1)
+                .build(id -> machine);
+
+        var dispatching = new CountDownLatch(1);
+        var closed = new CountDownLatch(1);
+        // the producer is held between the check of the dispatcher and the offer until close returns
+        var args = new FsmEventArgs() {
+            @Override
+            public FsmEventArgs retain() {
+                dispatching.countDown();
+                try {
+                    closed.await(500, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return this;
+            }
+        };
+        var accepted = new AtomicBoolean();
+        var producer = new Thread(() -> accepted.set(dispatcher.dispatch(0, Events.START, args)));
+        producer.start();
+        dispatching.await();
+        var closer = new Thread(() -> {
+            dispatcher.close();
+            closed.countDown();
+        });
+        closer.start();
+        producer.join();
+        closer.join();
+
+        assertThat(accepted.get()).isTrue();
+        assertThat(dispatcher.getProcessedCount(0)).isOne();
+        assertThat(machine.getExecutionContext().getState()).isEqualTo(States.BUSY);
+        assertThatThrownBy(() -> dispatcher.dispatch(0, Events.START))
+                .isInstanceOf(RejectedExecutionException.class);
+    }
+
+    enum States {
+        IDLE,
+        BUSY,
+        END
+    }
+
+    enum Events {
+        START,
+        STOP
+    }
+}
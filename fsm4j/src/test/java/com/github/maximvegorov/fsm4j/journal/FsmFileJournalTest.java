@@ -0,0 +1,294 @@
+package com.github.maximvegorov.fsm4j.journal;
+
+import com.github.maximvegorov.fsm4j.*;
+import lombok.Getter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FsmFileJournalTest {
+    private static final FsmJournalFormat<Long, States, Events> FORMAT = FsmJournalFormat.of(
+            FsmJournalCodec.ofLong(),
+            FsmJournalCodec.ofEnum(States.class),
+            FsmJournalCodec.ofEnum(Events.class));
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void appendAndReplay() throws Exception {
+        var threads = 4;
+        var machinesPerThread = 50;
+        var actions = new ArrayList<Long>();
+        try (var journal = FsmFileJournal.<Long, States, Events, OrderContext>builder(directory, FORMAT)
+                .segmentSize(1024)
+                .build(OrderContext::getOrderId)) {
+            var fsmConfig = newConfig(journal, actions, false);
+            var executor = Executors.newFixedThreadPool(threads);
+            try {
+                var futures = new ArrayList<Future<?>>();
+                for (var i = 0; i < threads; i++) {
+                    var thread = i;
+                    futures.add(executor.submit(() -> {
+                        for (var j = 0; j < machinesPerThread; j++) {
+                            var orderId = (long) (thread * machinesPerThread + j);
+                            var fsm = Fsm.of(fsmConfig, new OrderContext(orderId, States.NEW));
+                            fsm.fire(Events.PAY);
+                            if (orderId % 2 == 0) {
+                                fsm.fire(Events.SHIP);
+                            }
+                        }
+                    }));
+                }
+                for (var future : futures) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdown();
+            }
+            assertThat(journal.getLastSequence()).isEqualTo(threads * machinesPerThread * 3 / 2);
+        }
+        assertThat(FsmJournalReader.listSegments(directory)).hasSizeGreaterThan(1);
+
+        try (var journal = FsmFileJournal.<Long, States, Events, OrderContext>builder(directory, FORMAT)
+                .commitMode(FsmJournalCommitMode.ASYNC)
+                .build(OrderContext::getOrderId)) {
+            assertThat(journal.getLastSequence()).isEqualTo(300);
+            var fsm = Fsm.of(newConfig(journal, actions, false), new OrderContext(1L, States.PAID));
+            fsm.fire(Events.SHIP);
+        }
+
+        var sequences = new ArrayList<Long>();
+        assertThat(FsmJournalReader.read(directory, FORMAT, record -> sequences.add(record.getSequence())))
+                .isEqualTo(301);
+        assertThat(sequences).isSorted().startsWith(1L).endsWith(301L);
+
+        actions.clear();
+        var machines = FsmJournalReader.replay(
+                directory,
+                FORMAT,
+                newConfig(null, actions, false),
+                orderId -> new OrderContext(orderId, States.NEW),
+                false);
+        assertThat(actions).isEmpty();
+        assertThat(machines).hasSize(threads * machinesPerThread);
+        for (var entry : machines.entrySet()) {
+            var shipped = entry.getKey() % 2 == 0 || entry.getKey() == 1L;
+            assertThat(entry.getValue().getExecutionContext().getState())
+                    .isEqualTo(shipped ? States.SHIPPED : States.PAID);
+            assertThat(entry.getValue().getExecutionStatus())
+                    .isEqualTo(shipped ? FsmExecutionStatus.TERMINATED : FsmExecutionStatus.RUNNING);
+        }
+    }
+
+    @Test
+    void flushWhileRollingSegments() throws Exception {
+        var threads = 4;
+        var appendsPerThread = 2000;
+        try (var journal = FsmFileJournal.<Long, States, Events, OrderContext>builder(directory, FORMAT)
+                .commitMode(FsmJournalCommitMode.ASYNC)
+                .segmentSize(512)
+                .batchSize(64)
+                .build(OrderContext::getOrderId)) {
+            var executor = Executors.newFixedThreadPool(threads);
+            try {
+                var futures = new ArrayList<Future<?>>();
+                for (var i = 0; i < threads; i++) {
+                    var context = new OrderContext(i, States.NEW);
+                    futures.add(executor.submit(() -> {
+                        for (var j = 1; j <= appendsPerThread; j++) {
+                            journal.append(context, Transition.of(States.NEW, States.PAID), Events.PAY, FsmEventArgs.empty());
+                            // forcing the segment must not interleave with another thread rolling it
+                            if (j % 10 == 0) {
+                                journal.flush();
+                            }
+                        }
+                    }));
+                }
+                for (var future : futures) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdown();
+            }
+        }
+        assertThat(FsmJournalReader.read(directory, FORMAT, record -> { })).isEqualTo(threads * appendsPerThread);
+    }
+
+    @Test
+    void replayPostedEvents() throws Exception {
+        var actions = new ArrayList<Long>();
+        try (var journal = FsmFileJournal.<Long, States, Events, OrderContext>builder(directory, FORMAT)
+                .build(OrderContext::getOrderId)) {
+            var fsm = Fsm.of(newConfig(journal, actions, true), new OrderContext(1L, States.NEW));
+            fsm.fire(Events.PAY);
+            assertThat(fsm.getExecutionContext().getState()).isEqualTo(States.SHIPPED);
+        }
+        assertThat(FsmJournalReader.read(directory, FORMAT, record -> { })).isEqualTo(2);
+
+        // the posted shipping is replayed from its own record only
+        actions.clear();
+        var machines = FsmJournalReader.replay(
+                directory,
+                FORMAT,
+                newConfig(null, actions, true),
+                orderId -> new OrderContext(orderId, States.NEW),
+                true);
+        assertThat(actions).containsExactly(1L);
+        var fsm = machines.get(1L);
+        assertThat(fsm.getExecutionContext().getState()).isEqualTo(States.SHIPPED);
+        assertThat(fsm.getExecutionContext().getEventQueue().getPostedCount()).isZero();
+        assertThat(fsm.getExecutionStatus()).isEqualTo(FsmExecutionStatus.TERMINATED);
+    }
+
+    @Test
+    void appendFromPoolAndConcurrentFsm() throws Exception {
+        try (var journal = FsmFileJournal.<Long, States, Events, FsmPoolExecutionContext<States>>builder(directory, FORMAT)
+                .build(c -> (long) c.getMachineId())) {
+            var pool = FsmPool.of(newConfig(journal));
+            for (var i = 0; i < 10; i++) {
+                pool.add(States.NEW);
+            }
+            pool.broadcast(Events.PAY);
+            pool.fire(3, Events.SHIP);
+        }
+        try (var journal = FsmFileJournal.<Long, States, Events, FsmAtomicExecutionContext<States>>builder(directory, FORMAT)
+                .build(c -> 100L)) {
+            // transitions without actions take the locked path to be journaled
+            var fsm = ConcurrentFsm.of(newConfig(journal), new FsmAtomicExecutionContext<>(States.NEW));
+            fsm.fire(Events.PAY);
+            fsm.fire(Events.SHIP);
+        }
+
+        var records = new ArrayList<String>();
+        FsmJournalReader.read(directory, FORMAT, record -> records.add(
+                record.getMachineId() + " " + record.getTransition().getTarget()));
+        assertThat(records)
+                .hasSize(13)
+                .startsWith("0 PAID", "1 PAID")
+                .endsWith("9 PAID", "3 SHIPPED", "100 PAID", "100 SHIPPED");
+    }
+
+    @Test
+    void failedAppendAbortsInSourceState() {
+        var records = new ArrayList<Transition<States>>();
+
+        var fsm = Fsm.of(newConfig(failingJournal(records)), new OrderContext(1L, States.NEW));
+        fsm.fire(Events.PAY);
+        assertThatThrownBy(() -> fsm.fire(Events.SHIP)).isInstanceOf(UncheckedIOException.class);
+        assertThat(fsm.getExecutionContext().getState()).isEqualTo(States.PAID);
+        assertThat(fsm.getExecutionStatus()).isEqualTo(FsmExecutionStatus.ABORTED);
+
+        var pool = FsmPool.of(newConfig(failingJournal(records)));
+        var id = pool.add(States.NEW);
+        pool.fire(id, Events.PAY);
+        assertThatThrownBy(() -> pool.fire(id, Events.SHIP)).isInstanceOf(UncheckedIOException.class);
+        assertThat(pool.getState(id)).isEqualTo(States.PAID);
+        assertThat(pool.getExecutionStatus(id)).isEqualTo(FsmExecutionStatus.ABORTED);
+
+        var concurrentFsm = ConcurrentFsm.of(
+                newConfig(failingJournal(records)),
+                new FsmAtomicExecutionContext<>(States.NEW));
+        concurrentFsm.fire(Events.PAY);
+        assertThatThrownBy(() -> concurrentFsm.fire(Events.SHIP)).isInstanceOf(UncheckedIOException.class);
+        assertThat(concurrentFsm.getExecutionContext().getState()).isEqualTo(States.PAID);
+        assertThat(concurrentFsm.getExecutionStatus()).isEqualTo(FsmExecutionStatus.ABORTED);
+
+        assertThat(records).containsOnly(Transition.of(States.NEW, States.PAID)).hasSize(3);
+    }
+
+    /**
+     * @return a journal recording the transitions to {@code PAID} and failing on the others.
+     */
+    private static <C extends FsmExecutionContext<States>> FsmJournal<States, Events, C> failingJournal(
+            List<Transition<States>> records) {
+        return (c, t, e, args) -> {
+            if (t.getTarget() != States.PAID) {
+                throw new UncheckedIOException(new IOException("No space left on device"));
+            }
+            records.add(t);
+        };
+    }
+
+    private static <C extends FsmExecutionContext<States>> FsmConfig<States, Events, C> newConfig(
+            FsmJournal<States, Events, C> journal) {
+        return FsmConfig.<States, Events, C>builder()
+                .state(States.NEW)
+                    .on(Events.PAY)
+                        .moveTo(States.PAID)
+                    .end()
+                .state(States.PAID)
+                    .on(Events.SHIP)
+                        .moveTo(States.SHIPPED)
+                    .end()
+                .journal(journal)
+                .build(Set.of(States.SHIPPED));
+    }
+
+    /**
+     * @param shipOnPay whether paying posts the shipping of the order.
+     */
+    private static FsmConfig<States, Events, OrderContext> newConfig(
+            FsmJournal<States, Events, OrderContext> journal,
+            ArrayList<Long> actions,
+            boolean shipOnPay) {
+        return FsmConfig.<States, Events, OrderContext>builder()
+                .state(States.NEW)
+                    .on(Events.PAY)
+                        .action((c, t, e, args) -> {
+                            synchronized (actions) {
+                                actions.add(c.getOrderId());
+                            }
+                            if (shipOnPay) {
+                                c.post(Events.SHIP);
+                            }
+                        })
+                        .moveTo(States.PAID)
+                    .end()
+                .state(States.PAID)
+                    .on(Events.SHIP)
+                        .moveTo(States.SHIPPED)
+                    .end()
+                .journal(journal)
+                .build(Set.of(States.SHIPPED));
+    }
+
+    @Getter
+    static final class OrderContext implements FsmQueueExecutionContext<States, Events> {
+        private final long orderId;
+        private final FsmEventQueue<Events> eventQueue = new FsmEventQueue<>();
+        private States state;
+
+        OrderContext(long orderId, States state) {
+            this.orderId = orderId;
+            this.state = state;
+        }
+
+        @Override
+        public void setState(States state) {
+            this.state = state;
+        }
+    }
+
+    enum States {
+        NEW,
+        PAID,
+        SHIPPED
+    }
+
+    enum Events {
+        PAY,
+        SHIP
+    }
+}
@@ -0,0 +1,148 @@
+package com.github.maximvegorov.fsm4j.metrics;
+
+import com.github.maximvegorov.fsm4j.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FsmTransitionMetricsTest {
+    @Test
+    void collect() {
+        var metrics = new FsmTransitionMetrics<States, Events>();
+        var fsmConfig = FsmConfig.<States, Events, FsmSimpleExecutionContext<States>>builder()
+                .state(States.NEW)
+                    .on(Events.START)
+                        .action(() -> {})
+                        .moveTo(States.STARTED)
+                    .end()
+                .state(States.STARTED)
+                    .on(Events.FAIL)
+                        .action(() -> {
+                            throw new IllegalArgumentException();
+                        })
+                        .moveTo(States.FAILED)
+                    .end()
+                .transitionFallback((c, e, args) -> e == Events.FINISH && c.getState() == States.STARTED
+                        ? Optional.of(Transition.of(States.STARTED, States.END))
+                        : Optional.empty())
+                .metrics(metrics)
+                .build(Set.of(States.END, States.FAILED));
+
+        var fsm = Fsm.of(fsmConfig, new FsmSimpleExecutionContext<>(States.NEW));
+        assertThat(fsm.fire(Events.FINISH)).isFalse();
+        assertThat(fsm.fire(Events.START)).isTrue();
+        assertThat(fsm.fire(Events.FINISH)).isTrue();
+
+        var aborted = Fsm.of(fsmConfig, new FsmSimpleExecutionContext<>(States.STARTED));
+        assertThatThrownBy(() -> aborted.fire(Events.FAIL)).isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(metrics.getNotFoundCount()).isEqualTo(1);
+        assertThat(metrics.getTerminatedCount()).isEqualTo(1);
+
+        var started = metrics.getStats(Transition.of(States.NEW, States.STARTED));
+        assertThat(started.getFoundCount()).isEqualTo(1);
+        assertThat(started.getLatency().getCount()).isEqualTo(1);
+        assertThat(started.getPhaseNanos(FsmActionPhase.BEFORE)).isPositive();
+
+        var finished = metrics.getStats(Transition.of(States.STARTED, States.END));
+        assertThat(finished.getFoundCount()).isZero();
+        assertThat(finished.getFallbackCount()).isEqualTo(1);
+        assertThat(finished.getLatency().getCount()).isEqualTo(1);
+
+        var failed = metrics.getStats(Transition.of(States.STARTED, States.FAILED));
+        assertThat(failed.getFoundCount()).isEqualTo(1);
+        assertThat(failed.getAbortedCount()).isEqualTo(1);
+        assertThat(failed.getLatency().getCount()).isZero();
+    }
+
+    @Test
+    void collectFromPoolAndConcurrentFsm() {
+        var poolMetrics = new FsmTransitionMetrics<States, Events>();
+        var pool = FsmPool.of(FsmTransitionMetricsTest.<FsmPoolExecutionContext<States>>config(poolMetrics));
+        var finishing = pool.add(States.NEW);
+        var failing = pool.add(States.NEW);
+        var closed = pool.add(States.NEW);
+        pool.fire(finishing, Events.START);
+        pool.fire(finishing, Events.FINISH);
+        pool.fire(failing, Events.START);
+        assertThatThrownBy(() -> pool.fire(failing, Events.FAIL)).isInstanceOf(IllegalArgumentException.class);
+        pool.close(closed);
+        assertCollected(poolMetrics, 2);
+
+        var fsmMetrics = new FsmTransitionMetrics<States, Events>();
+        var fsmConfig = FsmTransitionMetricsTest.<FsmAtomicExecutionContext<States>>config(fsmMetrics);
+        var finished = ConcurrentFsm.of(fsmConfig, new FsmAtomicExecutionContext<>(States.NEW));
+        finished.fire(Events.START);
+        finished.fire(Events.FINISH);
+        var aborted = ConcurrentFsm.of(fsmConfig, new FsmAtomicExecutionContext<>(States.NEW));
+        aborted.fire(Events.START);
+        assertThatThrownBy(() -> aborted.fire(Events.FAIL)).isInstanceOf(IllegalArgumentException.class);
+        ConcurrentFsm.of(fsmConfig, new FsmAtomicExecutionContext<>(States.NEW)).close();
+        assertCollected(fsmMetrics, 2);
+    }
+
+    private static <C extends FsmExecutionContext<States>> FsmConfig<States, Events, C> config(
+            FsmTransitionMetrics<States, Events> metrics) {
+        return FsmConfig.<States, Events, C>builder()
+                .state(States.NEW)
+                    .on(Events.START)
+                        .action(() -> {})
+                        .moveTo(States.STARTED)
+                    .end()
+                .state(States.STARTED)
+                    .on(Events.FINISH).moveTo(States.END)
+                    .on(Events.FAIL)
+                        .action(() -> {
+                            throw new IllegalArgumentException();
+                        })
+                        .moveTo(States.FAILED)
+                    .end()
+                .metrics(metrics)
+                .build(Set.of(States.END, States.FAILED));
+    }
+
+    private static void assertCollected(FsmTransitionMetrics<States, Events> metrics, long terminatedCount) {
+        assertThat(metrics.getTerminatedCount()).isEqualTo(terminatedCount);
+
+        var started = metrics.getStats(Transition.of(States.NEW, States.STARTED));
+        assertThat(started.getLatency().getCount()).isEqualTo(2);
+        assertThat(started.getPhaseNanos(FsmActionPhase.BEFORE)).isPositive();
+
+        var finished = metrics.getStats(Transition.of(States.STARTED, States.END));
+        assertThat(finished.getLatency().getCount()).isEqualTo(1);
+
+        var failed = metrics.getStats(Transition.of(States.STARTED, States.FAILED));
+        assertThat(failed.getAbortedCount()).isEqualTo(1);
+        assertThat(failed.getLatency().getCount()).isZero();
+    }
+
+    @Test
+    void histogramPercentiles() {
+        var histogram = new FsmLatencyHistogram();
+        for (var i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        assertThat(histogram.getCount()).isEqualTo(1000);
+        assertThat(histogram.getValueAtPercentile(50.0)).isBetween(500_000L, 500_000L * 107 / 100);
+        assertThat(histogram.getValueAtPercentile(99.0)).isBetween(990_000L, 990_000L * 107 / 100);
+        assertThat(histogram.getMaxValue()).isBetween(1_000_000L, 1_000_000L * 107 / 100);
+    }
+
+    enum States {
+        NEW,
+        STARTED,
+        END,
+        FAILED
+    }
+
+    enum Events {
+        START,
+        FINISH,
+        FAIL
+    }
+}
@@ -0,0 +1,79 @@
+package com.github.maximvegorov.fsm4j.primitive;
+
+import com.github.maximvegorov.fsm4j.FsmAllocations;
+import com.github.maximvegorov.fsm4j.FsmEventArgs;
+import com.github.maximvegorov.fsm4j.FsmExecutionStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IntFsmTest {
+    private static final int NEW = 1000;
+    private static final int PAID = 2000;
+    private static final int SHIPPED = 3000;
+    private static final int CANCELLED = 4000;
+
+    private static final int PAY = 500;
+    private static final int SHIP = 600;
+    private static final int CANCEL = 700;
+
+    @Test
+    void fire() {
+        var trace = new ArrayList<String>();
+        var fsmConfig = IntFsmConfig.<IntFsmSimpleExecutionContext>builder()
+                .add(NEW, PAY, PAID)
+                .add(NEW, CANCEL, CANCELLED)
+                .add(PAID, SHIP, (c, e, args) -> args instanceof ShipArgs, SHIPPED)
+                .add(PAID, CANCEL, (c, e, args) -> {
+                    throw new IllegalStateException("Already paid");
+                }, CANCELLED)
+                .addExitAction(NEW, (c, s, t, e, args) -> trace.add("exit " + s))
+                .addBeforeAction(NEW, PAID, (c, s, t, e, args) -> trace.add(s + " -> " + t + " on " + e))
+                .addAfterAction(NEW, PAID, (c, s, t, e, args) -> trace.add("state " + c.getState()))
+                .addEnterAction(PAID, (c, s, t, e, args) -> trace.add("enter " + t))
+                .build(SHIPPED, CANCELLED);
+
+        var fsm = IntFsm.of(fsmConfig, new IntFsmSimpleExecutionContext(NEW));
+
+        assertThat(fsm.fire(SHIP)).isFalse();
+        assertThat(fsm.fire(PAY)).isTrue();
+        assertThat(trace).containsExactly("exit 1000", "1000 -> 2000 on 500", "state 2000", "enter 2000");
+        assertThat(fsm.fire(SHIP)).isFalse();
+        assertThat(fsmConfig.tryFindTarget(fsm.getExecutionContext(), SHIP, new ShipArgs())).hasValue(SHIPPED);
+        assertThat(fsm.fire(SHIP, new ShipArgs())).isTrue();
+        assertThat(fsm.getExecutionContext().getState()).isEqualTo(SHIPPED);
+        assertThat(fsm.getExecutionStatus()).isEqualTo(FsmExecutionStatus.TERMINATED);
+        assertThatThrownBy(() -> fsm.fire(PAY))
+                .isInstanceOf(IllegalStateException.class);
+
+        var paid = IntFsm.of(fsmConfig, new IntFsmSimpleExecutionContext(PAID));
+        assertThatThrownBy(() -> paid.fire(CANCEL))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Already paid");
+        assertThat(paid.getExecutionStatus()).isEqualTo(FsmExecutionStatus.RUNNING);
+    }
+
+    @Test
+    void fireDoesNotAllocate() {
+        var counter = new long[1];
+        var fsmConfig = IntFsmConfig.<IntFsmSimpleExecutionContext>builder()
+                .add(NEW, PAY, (c, e, args) -> counter[0] < 0, CANCELLED)
+                .add(NEW, PAY, PAID)
+                .add(PAID, CANCEL, NEW)
+                .addEnterAction(PAID, (c, s, t, e, args) -> counter[0] += t)
+                .build(CANCELLED);
+        var fsm = IntFsm.of(fsmConfig, new IntFsmSimpleExecutionContext(NEW));
+
+        FsmAllocations.assertDoesNotAllocate(() -> {
+            fsm.fire(PAY);
+            fsm.fire(CANCEL);
+        });
+        assertThat(counter[0]).isPositive();
+    }
+
+    static final class ShipArgs implements FsmEventArgs {
+    }
+}
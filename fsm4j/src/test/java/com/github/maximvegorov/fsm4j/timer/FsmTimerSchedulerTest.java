@@ -0,0 +1,205 @@
+package com.github.maximvegorov.fsm4j.timer;
+
+import com.github.maximvegorov.fsm4j.Fsm;
+import com.github.maximvegorov.fsm4j.FsmConfig;
+import com.github.maximvegorov.fsm4j.FsmExecutionStatus;
+import com.github.maximvegorov.fsm4j.FsmSimpleExecutionContext;
+import com.github.maximvegorov.fsm4j.FsmSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FsmTimerSchedulerTest {
+    @Test
+    void fireTimeout() {
+        var clock = new ManualClock();
+        var machines = new IdentityHashMap<FsmSimpleExecutionContext<States>, Fsm<States, Events, FsmSimpleExecutionContext<States>>>();
+        var scheduler = FsmTimerScheduler.<States, Events, FsmSimpleExecutionContext<States>>of(
+                (context, state, event) -> machines.get(context).fire(event),
+                clock,
+                Duration.ofSeconds(1));
+        var fsmConfig = FsmConfig.<States, Events, FsmSimpleExecutionContext<States>>builder()
+                .timers(scheduler)
+                .state(States.NEW)
+                    .on(Events.CHECKOUT)
+                        .moveTo(States.PAYING)
+                    .end()
+                .state(States.PAYING)
+                    .on(Events.PAY)
+                        .moveTo(States.PAID)
+                    .on(Events.PAYMENT_TIMEOUT)
+                        .after(Duration.ofMinutes(30))
+                        .moveTo(States.CANCELLED)
+                    .end()
+                .build(Set.of(States.PAID, States.CANCELLED));
+
+        var abandoned = new FsmSimpleExecutionContext<>(States.NEW);
+        var paid = new FsmSimpleExecutionContext<>(States.NEW);
+        machines.put(abandoned, Fsm.of(fsmConfig, abandoned));
+        machines.put(paid, Fsm.of(fsmConfig, paid));
+        machines.get(abandoned).fire(Events.CHECKOUT);
+        machines.get(paid).fire(Events.CHECKOUT);
+        assertThat(scheduler.getPendingCount()).isEqualTo(2);
+
+        clock.advance(Duration.ofMinutes(10));
+        machines.get(paid).fire(Events.PAY);
+        assertThat(scheduler.getPendingCount()).isEqualTo(1);
+
+        clock.advance(Duration.ofMinutes(19));
+        assertThat(scheduler.advance()).isZero();
+        assertThat(abandoned.getState()).isEqualTo(States.PAYING);
+
+        clock.advance(Duration.ofMinutes(1));
+        assertThat(scheduler.advance()).isOne();
+        assertThat(abandoned.getState()).isEqualTo(States.CANCELLED);
+        assertThat(paid.getState()).isEqualTo(States.PAID);
+        assertThat(scheduler.getPendingCount()).isZero();
+    }
+
+    @Test
+    void expireInOrder() {
+        var clock = new ManualClock();
+        var expired = new ArrayList<Long>();
+        var scheduler = FsmTimerScheduler.<Long, Events, FsmSimpleExecutionContext<Long>>of(
+                (context, state, event) -> {
+                    assertThat(context.getState()).isEqualTo(clock.nanos);
+                    expired.add(state);
+                },
+                clock,
+                Duration.ofNanos(1));
+
+        // spans the first four levels of the wheel
+        var random = new Random(42);
+        for (var i = 0; i < 10_000; i++) {
+            var delay = (long) random.nextInt(1 << 24);
+            scheduler.arm(new FsmSimpleExecutionContext<>(delay), delay, Events.PAYMENT_TIMEOUT, Duration.ofNanos(delay));
+        }
+
+        var total = 0;
+        while (scheduler.getPendingCount() > 0) {
+            clock.nanos += 1;
+            var previous = expired.size();
+            total += scheduler.advance();
+            for (var i = previous; i < expired.size(); i++) {
+                assertThat(expired.get(i)).isEqualTo(clock.nanos);
+            }
+        }
+        assertThat(total).isEqualTo(10_000);
+    }
+
+    @Test
+    void armWhenCreatedOrRestored() {
+        var clock = new ManualClock();
+        var machines = new IdentityHashMap<FsmSimpleExecutionContext<States>, Fsm<States, Events, FsmSimpleExecutionContext<States>>>();
+        var scheduler = FsmTimerScheduler.<States, Events, FsmSimpleExecutionContext<States>>of(
+                (context, state, event) -> machines.get(context).fire(event),
+                clock,
+                Duration.ofSeconds(1));
+        var fsmConfig = FsmConfig.<States, Events, FsmSimpleExecutionContext<States>>builder()
+                .timers(scheduler)
+                .state(States.PAYING)
+                    .on(Events.PAY)
+                        .moveTo(States.PAID)
+                    .on(Events.PAYMENT_TIMEOUT)
+                        .after(Duration.ofMinutes(30))
+                        .moveTo(States.CANCELLED)
+                    .end()
+                .build(Set.of(States.PAID, States.CANCELLED));
+
+        var created = Fsm.of(fsmConfig, new FsmSimpleExecutionContext<>(States.PAYING));
+        machines.put(created.getExecutionContext(), created);
+        assertThat(scheduler.getPendingCount()).isOne();
+
+        var snapshot = ByteBuffer.allocate(1024);
+        FsmSnapshot.write(created, snapshot);
+        var restored = FsmSnapshot.readFsm(fsmConfig, snapshot.flip(), FsmSimpleExecutionContext::new);
+        machines.put(restored.getExecutionContext(), restored);
+        assertThat(scheduler.getPendingCount()).isEqualTo(2);
+
+        clock.advance(Duration.ofMinutes(30));
+        assertThat(scheduler.advance()).isEqualTo(2);
+        assertThat(created.getExecutionContext().getState()).isEqualTo(States.CANCELLED);
+        assertThat(restored.getExecutionContext().getState()).isEqualTo(States.CANCELLED);
+    }
+
+    @Test
+    void cancelWhenStopped() {
+        var clock = new ManualClock();
+        var expired = new ArrayList<FsmSimpleExecutionContext<States>>();
+        var scheduler = FsmTimerScheduler.<States, Events, FsmSimpleExecutionContext<States>>of(
+                (context, state, event) -> expired.add(context),
+                clock,
+                Duration.ofSeconds(1));
+        var fsmConfig = FsmConfig.<States, Events, FsmSimpleExecutionContext<States>>builder()
+                .timers(scheduler)
+                .state(States.NEW)
+                    .on(Events.CHECKOUT)
+                        .moveTo(States.VERIFYING)
+                    .end()
+                .state(States.PAYING)
+                    .on(Events.PAYMENT_TIMEOUT)
+                        .after(Duration.ofMinutes(30))
+                        .moveTo(States.CANCELLED)
+                    .end()
+                // a failure within the parent doesn't leave it, so its timeout is only cancelled by the abort
+                .state(States.VERIFYING)
+                    .parent(States.PAYING)
+                    .on(Events.PAY)
+                        .action(() -> {
+                            throw new IllegalStateException("Card declined");
+                        })
+                        .moveTo(States.VERIFYING)
+                    .end()
+                .build(Set.of(States.PAID, States.CANCELLED));
+
+        var closed = Fsm.of(fsmConfig, new FsmSimpleExecutionContext<>(States.NEW));
+        var aborted = Fsm.of(fsmConfig, new FsmSimpleExecutionContext<>(States.NEW));
+        closed.fire(Events.CHECKOUT);
+        aborted.fire(Events.CHECKOUT);
+        assertThat(scheduler.getPendingCount()).isEqualTo(2);
+
+        closed.close();
+        assertThatThrownBy(() -> aborted.fire(Events.PAY)).isInstanceOf(IllegalStateException.class);
+        assertThat(aborted.getExecutionStatus()).isEqualTo(FsmExecutionStatus.ABORTED);
+        assertThat(scheduler.getPendingCount()).isZero();
+
+        clock.advance(Duration.ofMinutes(30));
+        assertThat(scheduler.advance()).isZero();
+        assertThat(expired).isEmpty();
+    }
+
+    static final class ManualClock implements FsmClock {
+        private long nanos;
+
+        @Override
+        public long nanoTime() {
+            return nanos;
+        }
+
+        void advance(Duration duration) {
+            nanos += duration.toNanos();
+        }
+    }
+
+    enum States {
+        NEW,
+        PAYING,
+        VERIFYING,
+        PAID,
+        CANCELLED
+    }
+
+    enum Events {
+        CHECKOUT,
+        PAY,
+        PAYMENT_TIMEOUT
+    }
+}